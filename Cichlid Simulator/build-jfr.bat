@@ -0,0 +1,7 @@
+@echo off
+rem Compiles the flight recorder classes in src-jfr into the Eclipse output
+rem folder (bin), next to the rest of the simulator, so MonitorEvents can load
+rem them. Needs a Java 11 or later JDK, and the project built into bin first.
+rem Without this step the simulator runs with its flight recorder events off.
+cd /d "%~dp0"
+javac -d bin -cp "bin;JARS/*" src-jfr\thinktank\simulator\monitor\*.java
@@ -0,0 +1,7 @@
+#!/bin/sh
+# Compiles the flight recorder classes in src-jfr into the Eclipse output
+# folder (bin), next to the rest of the simulator, so MonitorEvents can load
+# them. Needs a Java 11 or later JDK, and the project built into bin first.
+# Without this step the simulator runs with its flight recorder events off.
+cd "$(dirname "$0")" || exit 1
+javac -d bin -cp "bin:JARS/*" src-jfr/thinktank/simulator/monitor/*.java
@@ -0,0 +1,43 @@
+package thinktank.simulator.monitor;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for a cichlid changing its behavior. Only loaded
+ * through <code>JFRSupport</code>, when the JVM has a flight recorder.
+ *
+ * @author Vasher Lor
+ * @version %I%, %G%
+ */
+@Name("thinktank.simulator.BehaviorTransition")
+@Label("Behavior Transition")
+@Category("Cichlid Simulator")
+@Description("A cichlid changed its behavior.")
+@StackTrace(false)
+class BehaviorTransitionEvent extends Event{
+	/**
+	 * The id of the cichlid.
+	 */
+	@Label("Cichlid")
+	long cichlidID;
+	/**
+	 * The old behavior.
+	 */
+	@Label("From")
+	String from;
+	/**
+	 * The new behavior.
+	 */
+	@Label("To")
+	String to;
+	/**
+	 * The simulation time of the change, in seconds.
+	 */
+	@Label("Simulation Time")
+	double simulationTime;
+}//end of BehaviorTransitionEvent class
@@ -0,0 +1,160 @@
+package thinktank.simulator.monitor;
+
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+
+/**
+ * The part of the monitoring that depends on the flight recorder API. It
+ * is kept with its events in the <code>src-jfr</code> source folder, which
+ * needs Java 11 or later, and is only loaded by name by
+ * <code>MonitorEvents</code> once the API is known to be present, so the
+ * simulator still builds and runs without it. It tracks whether any
+ * recording is running, so no events are built while none is.
+ *
+ * @author Vasher Lor
+ * @version %I%, %G%
+ */
+class JFRSupport implements IFlightRecorder, FlightRecorderListener{
+	//---------------------static constants----------------------------
+	//---------------------static variables----------------------------
+	//---------------------instance constants--------------------------
+	//---------------------instance variables--------------------------
+	//---------------------constructors--------------------------------
+	/**
+	 * Constructs a new listener for the recordings.
+	 */
+	JFRSupport(){}
+
+	//---------------------instance methods----------------------------
+	/**
+	 * Starts tracking the recordings.
+	 *
+	 * @return true if the JVM has a usable flight recorder, false otherwise.
+	 */
+	@Override
+	public boolean install(){
+		boolean returnValue = FlightRecorder.isAvailable();
+		if(returnValue){
+			FlightRecorder.addListener(this);
+			MonitorEvents.setRecording(isAnyRunning());
+		}
+		return returnValue;
+	}//end of install method
+
+	/**
+	 * Updates whether or not a recording is running when the state of any
+	 * recording changes.
+	 *
+	 * @param recording the recording whose state changed.
+	 */
+	@Override
+	public void recordingStateChanged(Recording recording){
+		MonitorEvents.setRecording(isAnyRunning());
+	}//end of recordingStateChanged method
+
+	/**
+	 * Commits a behavior transition event.
+	 *
+	 * @param cichlidID the id of the cichlid.
+	 * @param from the old behavior.
+	 * @param to the new behavior.
+	 * @param simulationTime the simulation time, in seconds.
+	 */
+	@Override
+	public void behaviorTransition(long cichlidID, String from, String to, double simulationTime){
+		BehaviorTransitionEvent event = new BehaviorTransitionEvent();
+		if(event.shouldCommit()){
+			event.cichlidID = cichlidID;
+			event.from = from;
+			event.to = to;
+			event.simulationTime = simulationTime;
+			event.commit();
+		}
+	}//end of behaviorTransition method
+
+	/**
+	 * Commits a slow visibility query event.
+	 *
+	 * @param viewerID the id of the viewer.
+	 * @param targetID the id of the target.
+	 * @param mode the visibility method.
+	 * @param visibility the visibility found.
+	 * @param elapsed the time taken, in nanoseconds.
+	 */
+	@Override
+	public void visibilityQuery(long viewerID, long targetID, String mode, int visibility, long elapsed){
+		VisibilityQueryEvent event = new VisibilityQueryEvent();
+		if(event.shouldCommit()){
+			event.viewerID = viewerID;
+			event.targetID = targetID;
+			event.mode = mode;
+			event.visibility = visibility;
+			event.elapsed = elapsed;
+			event.commit();
+		}
+	}//end of visibilityQuery method
+
+	/**
+	 * Commits a scenario load or save event.
+	 *
+	 * @param operation the operation.
+	 * @param path the path of the file.
+	 * @param fishCount the number of fish.
+	 * @param success whether or not the operation succeeded.
+	 * @param elapsed the time taken, in nanoseconds.
+	 */
+	@Override
+	public void scenarioIO(String operation, String path, int fishCount, boolean success, long elapsed){
+		ScenarioIOEvent event = new ScenarioIOEvent();
+		if(event.shouldCommit()){
+			event.operation = operation;
+			event.path = path;
+			event.fishCount = fishCount;
+			event.success = success;
+			event.elapsed = elapsed;
+			event.commit();
+		}
+	}//end of scenarioIO method
+
+	/**
+	 * Commits a slow tick event.
+	 *
+	 * @param scenario the name of the scenario.
+	 * @param fishCount the number of fish.
+	 * @param simulationTime the simulation time, in seconds.
+	 * @param elapsed the time taken, in nanoseconds.
+	 */
+	@Override
+	public void slowTick(String scenario, int fishCount, double simulationTime, long elapsed){
+		SlowTickEvent event = new SlowTickEvent();
+		if(event.shouldCommit()){
+			event.scenario = scenario;
+			event.fishCount = fishCount;
+			event.simulationTime = simulationTime;
+			event.elapsed = elapsed;
+			event.commit();
+		}
+	}//end of slowTick method
+
+	//---------------------static main---------------------------------
+	//---------------------static methods------------------------------
+	/**
+	 * Returns whether or not any recording is running.
+	 *
+	 * @return true if a recording is running, false otherwise.
+	 */
+	private static boolean isAnyRunning(){
+		boolean returnValue = false;
+		if(FlightRecorder.isInitialized()){
+			for(Recording recording : FlightRecorder.getFlightRecorder().getRecordings()){
+				if(recording.getState() == RecordingState.RUNNING){
+					returnValue = true;
+				}
+			}
+		}
+		return returnValue;
+	}//end of isAnyRunning method
+
+}//end of JFRSupport class
@@ -0,0 +1,50 @@
+package thinktank.simulator.monitor;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event for a scenario being loaded or saved. Only loaded
+ * through <code>JFRSupport</code>, when the JVM has a flight recorder.
+ *
+ * @author Vasher Lor
+ * @version %I%, %G%
+ */
+@Name("thinktank.simulator.ScenarioIO")
+@Label("Scenario Load/Save")
+@Category("Cichlid Simulator")
+@Description("A scenario was loaded from or saved to a file.")
+@StackTrace(false)
+class ScenarioIOEvent extends Event{
+	/**
+	 * The operation, either load or save.
+	 */
+	@Label("Operation")
+	String operation;
+	/**
+	 * The path of the file.
+	 */
+	@Label("Path")
+	String path;
+	/**
+	 * The number of fish in the scenario, -1 if it failed to load.
+	 */
+	@Label("Fish Count")
+	int fishCount;
+	/**
+	 * Whether or not the operation succeeded.
+	 */
+	@Label("Success")
+	boolean success;
+	/**
+	 * The time the operation took, in nanoseconds.
+	 */
+	@Label("Elapsed")
+	@Timespan(Timespan.NANOSECONDS)
+	long elapsed;
+}//end of ScenarioIOEvent class
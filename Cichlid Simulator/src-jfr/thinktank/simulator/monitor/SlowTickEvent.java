@@ -0,0 +1,46 @@
+package thinktank.simulator.monitor;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event for a simulation tick that took longer than the
+ * slow tick threshold. Only loaded through <code>JFRSupport</code>, when
+ * the JVM has a flight recorder.
+ *
+ * @author Vasher Lor
+ * @version %I%, %G%
+ */
+@Name("thinktank.simulator.SlowTick")
+@Label("Slow Tick")
+@Category("Cichlid Simulator")
+@Description("A simulation tick exceeded the slow tick threshold.")
+@StackTrace(false)
+class SlowTickEvent extends Event{
+	/**
+	 * The name of the scenario.
+	 */
+	@Label("Scenario")
+	String scenario;
+	/**
+	 * The number of fish in the scenario.
+	 */
+	@Label("Fish Count")
+	int fishCount;
+	/**
+	 * The simulation time at the end of the tick, in seconds.
+	 */
+	@Label("Simulation Time")
+	double simulationTime;
+	/**
+	 * The time the tick took, in nanoseconds.
+	 */
+	@Label("Elapsed")
+	@Timespan(Timespan.NANOSECONDS)
+	long elapsed;
+}//end of SlowTickEvent class
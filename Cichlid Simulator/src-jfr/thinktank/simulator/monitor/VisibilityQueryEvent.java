@@ -0,0 +1,51 @@
+package thinktank.simulator.monitor;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event for a visibility query that took longer than the
+ * visibility event threshold. Only loaded through <code>JFRSupport</code>,
+ * when the JVM has a flight recorder.
+ *
+ * @author Vasher Lor
+ * @version %I%, %G%
+ */
+@Name("thinktank.simulator.VisibilityQuery")
+@Label("Slow Visibility Query")
+@Category("Cichlid Simulator")
+@Description("A visibility query between two fish exceeded the latency threshold.")
+@StackTrace(false)
+class VisibilityQueryEvent extends Event{
+	/**
+	 * The id of the viewing cichlid.
+	 */
+	@Label("Viewer")
+	long viewerID;
+	/**
+	 * The id of the entity viewed.
+	 */
+	@Label("Target")
+	long targetID;
+	/**
+	 * The visibility method used.
+	 */
+	@Label("Mode")
+	String mode;
+	/**
+	 * The visibility found, from 0 to 100.
+	 */
+	@Label("Visibility")
+	int visibility;
+	/**
+	 * The time the query took, in nanoseconds.
+	 */
+	@Label("Elapsed")
+	@Timespan(Timespan.NANOSECONDS)
+	long elapsed;
+}//end of VisibilityQueryEvent class
@@ -9,6 +9,7 @@ import thinktank.simulator.entity.Cichlid;
 import thinktank.simulator.entity.EntityFactory;
 import thinktank.simulator.main.Main;
 import thinktank.simulator.scenario.Scenario;
+import thinktank.simulator.scenario.ScenarioCommand;
 import thinktank.simulator.ui.ScenarioBuilderScreenController;
 
 /**
@@ -53,7 +54,6 @@ public class AddFishAction extends AbstractAction{
 		Scenario scenario = Starter.getClient().getWorkingScenario();
 		if(!Starter.getClient().isInMenus() && scenario != null && scenario.isEditingMode()){
 			Cichlid fish = EntityFactory.createCichlid();
-			scenario.addFish(fish);
 			float heightMax = scenario.getEnvironment().getTank().getWolrdUnitHeight();
 			float depthMax = scenario.getEnvironment().getTank().getWorldUnitDepth();
 			float widthMax = scenario.getEnvironment().getTank().getWorldUnitWidth();
@@ -65,6 +65,7 @@ public class AddFishAction extends AbstractAction{
 			z -= widthShift;
 			x -= depthShift;
 			fish.getObj().setLocalTranslation(x, y, z);
+			Main.getCommandQueue().submit(ScenarioCommand.addFish(scenario, fish));
 			ScenarioBuilderScreenController.unsaved_changes = true;
 		}
 	}//end of actionPerformed method
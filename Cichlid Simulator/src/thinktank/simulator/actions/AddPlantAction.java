@@ -9,6 +9,7 @@ import thinktank.simulator.entity.EntityFactory;
 import thinktank.simulator.entity.Plant;
 import thinktank.simulator.main.Main;
 import thinktank.simulator.scenario.Scenario;
+import thinktank.simulator.scenario.ScenarioCommand;
 import thinktank.simulator.ui.ScenarioBuilderScreenController;
 
 /**
@@ -53,7 +54,6 @@ public class AddPlantAction extends AbstractAction{
 		Scenario scenario = Starter.getClient().getWorkingScenario();
 		if(!Starter.getClient().isInMenus() && scenario != null && scenario.isEditingMode()){
 			Plant plant = EntityFactory.createPlant();
-			scenario.addEnvironmentObject(plant);
 			float depthMax = scenario.getEnvironment().getTank().getWorldUnitDepth() - 0.175f;
 			float widthMax = scenario.getEnvironment().getTank().getWorldUnitWidth() - 0.175f;
 			float widthShift = widthMax / 2;
@@ -63,6 +63,7 @@ public class AddPlantAction extends AbstractAction{
 			z -= widthShift;
 			x -= depthShift;
 			plant.getObj().setLocalTranslation(x, 0, z);
+			Main.getCommandQueue().submit(ScenarioCommand.addEnvironmentObject(scenario, plant));
 			ScenarioBuilderScreenController.unsaved_changes = true;
 		}
 	}//end of actionPerformed method
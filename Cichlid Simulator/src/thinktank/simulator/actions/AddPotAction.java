@@ -9,6 +9,7 @@ import thinktank.simulator.entity.EntityFactory;
 import thinktank.simulator.entity.Pot;
 import thinktank.simulator.main.Main;
 import thinktank.simulator.scenario.Scenario;
+import thinktank.simulator.scenario.ScenarioCommand;
 import thinktank.simulator.ui.ScenarioBuilderScreenController;
 
 /**
@@ -53,7 +54,6 @@ public class AddPotAction extends AbstractAction{
 		Scenario scenario = Starter.getClient().getWorkingScenario();
 		if(!Starter.getClient().isInMenus() && scenario != null && scenario.isEditingMode()){
 			Pot pot = EntityFactory.createPot();
-			scenario.addEnvironmentObject(pot);
 			float depthMax = scenario.getEnvironment().getTank().getWorldUnitDepth();
 			float widthMax = scenario.getEnvironment().getTank().getWorldUnitWidth();
 			float widthShift = widthMax / 2f;
@@ -63,6 +63,7 @@ public class AddPotAction extends AbstractAction{
 			z -= widthShift;
 			x -= depthShift;
 			pot.getObj().setLocalTranslation(x, 0, z);
+			Main.getCommandQueue().submit(ScenarioCommand.addEnvironmentObject(scenario, pot));
 			ScenarioBuilderScreenController.unsaved_changes = true;
 		}
 	}//end of actionPerformed method
@@ -6,10 +6,9 @@ import javax.swing.AbstractAction;
 
 import thinktank.simulator.Starter;
 import thinktank.simulator.entity.Entity;
-import thinktank.simulator.entity.EnvironmentObject;
-import thinktank.simulator.entity.Fish;
 import thinktank.simulator.main.Main;
 import thinktank.simulator.scenario.Scenario;
+import thinktank.simulator.scenario.ScenarioCommand;
 import thinktank.simulator.ui.ScenarioBuilderScreenController;
 
 /**
@@ -55,12 +54,7 @@ public class DeleteEntityAction extends AbstractAction{
 		if(!client.isInMenus() && scenario != null && scenario.isEditingMode() && !client.isMouselookActive() && scenario.isMovingMode()){
 			Entity entity = scenario.getSelectedEntity();
 			if(entity != null){
-				if(entity instanceof EnvironmentObject){
-					scenario.removeEnvironmentObject((EnvironmentObject)entity);
-				}
-				else if(entity instanceof Fish){
-					scenario.removeFish((Fish)entity);
-				}
+				Main.getCommandQueue().submit(ScenarioCommand.removeEntity(scenario, entity));
 				ScenarioBuilderScreenController.unsaved_changes = true;
 			}
 		}
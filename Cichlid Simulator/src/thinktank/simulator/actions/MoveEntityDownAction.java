@@ -11,6 +11,7 @@ import thinktank.simulator.entity.Entity;
 import thinktank.simulator.entity.Fish;
 import thinktank.simulator.main.Main;
 import thinktank.simulator.scenario.Scenario;
+import thinktank.simulator.scenario.ScenarioCommand;
 import thinktank.simulator.ui.ScenarioBuilderScreenController;
 
 /**
@@ -63,7 +64,7 @@ public class MoveEntityDownAction extends AbstractAction{
 		if(!client.isInMenus() && scenario != null && scenario.isEditingMode() && !client.isMouselookActive() && scenario.isMovingMode()){
 			Entity entity = scenario.getSelectedEntity();
 			if(entity != null && entity instanceof Fish){
-				entity.translate(translateVector);
+				Main.getCommandQueue().submit(ScenarioCommand.translateEntity(scenario, entity, translateVector));
 				ScenarioBuilderScreenController.unsaved_changes = true;
 			}
 		}
@@ -11,6 +11,7 @@ import thinktank.simulator.Starter;
 import thinktank.simulator.entity.Entity;
 import thinktank.simulator.main.Main;
 import thinktank.simulator.scenario.Scenario;
+import thinktank.simulator.scenario.ScenarioCommand;
 import thinktank.simulator.ui.ScenarioBuilderScreenController;
 
 /**
@@ -67,7 +68,7 @@ public class MoveEntityForwardAction extends AbstractAction{
 				translateVector = cam.getDirection().clone();
 				translateVector.setY(0f);
 				translateVector = translateVector.normalize().mult(0.01f);
-				entity.translate(translateVector);
+				Main.getCommandQueue().submit(ScenarioCommand.translateEntity(scenario, entity, translateVector));
 				ScenarioBuilderScreenController.unsaved_changes = true;
 			}
 		}
@@ -11,6 +11,7 @@ import thinktank.simulator.Starter;
 import thinktank.simulator.entity.Entity;
 import thinktank.simulator.main.Main;
 import thinktank.simulator.scenario.Scenario;
+import thinktank.simulator.scenario.ScenarioCommand;
 import thinktank.simulator.ui.ScenarioBuilderScreenController;
 
 /**
@@ -68,7 +69,7 @@ public class MoveEntityRightAction extends AbstractAction{
 				translateVector = translateVector.mult(-1);
 				translateVector.setY(0f);
 				translateVector = translateVector.normalize().mult(0.01f);
-				entity.translate(translateVector);
+				Main.getCommandQueue().submit(ScenarioCommand.translateEntity(scenario, entity, translateVector));
 				ScenarioBuilderScreenController.unsaved_changes = true;
 			}
 		}
@@ -10,6 +10,7 @@ import thinktank.simulator.Starter;
 import thinktank.simulator.entity.Entity;
 import thinktank.simulator.main.Main;
 import thinktank.simulator.scenario.Scenario;
+import thinktank.simulator.scenario.ScenarioCommand;
 import thinktank.simulator.ui.ScenarioBuilderScreenController;
 
 /**
@@ -56,7 +57,7 @@ public class RotateEntityLeftAction extends AbstractAction{
 		if(!client.isInMenus() && scenario != null && scenario.isEditingMode() && !client.isMouselookActive() && scenario.isMovingMode()){
 			Entity entity = scenario.getSelectedEntity();
 			if(entity != null){
-				entity.getObj().rotate(new Quaternion().fromAngles(0.0f, (float)Math.toRadians(5), 0.0f));
+				Main.getCommandQueue().submit(ScenarioCommand.rotateEntity(scenario, entity, new Quaternion().fromAngles(0.0f, (float)Math.toRadians(5), 0.0f)));
 				ScenarioBuilderScreenController.unsaved_changes = true;
 			}
 		}
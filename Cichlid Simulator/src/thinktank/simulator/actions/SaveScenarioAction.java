@@ -8,6 +8,7 @@ import javax.swing.AbstractAction;
 import thinktank.simulator.Starter;
 import thinktank.simulator.environment.TANK_TYPE;
 import thinktank.simulator.environment.Tank;
+import thinktank.simulator.main.Main;
 import thinktank.simulator.scenario.Scenario;
 import thinktank.simulator.scenario.ScenarioIO;
 
@@ -83,6 +84,7 @@ public class SaveScenarioAction extends AbstractAction{
 	public void actionPerformed(ActionEvent evt){
 		Scenario scenario = Starter.getClient().getWorkingScenario();
 		if(scenario != null){
+			Main.getCommandQueue().applyPending(Starter.getClient().getWorkingScenario());//save any edits still waiting for the next tick
 			scenario.getEnvironment().setTempCelcius(temp);
 			scenario.getEnvironment().setTank(Tank.createTank(tankType));
 			boolean saveSuccess = ScenarioIO.saveScenario(scenario, new File(scenario.getName()));
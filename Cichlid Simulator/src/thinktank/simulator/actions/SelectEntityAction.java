@@ -92,9 +92,8 @@ public class SelectEntityAction extends AbstractAction implements IObservable{
 		
         	if(results.size() > 0){
         		CollisionResult closest = results.getClosestCollision();
-        		String selected = closest.getGeometry().getName();
         		Scenario scenario = client.getWorkingScenario();
-        		Entity selectedEntity = scenario.getEntity(selected);//get selected entity from scene
+        		Entity selectedEntity = scenario.getEntity(closest.getGeometry());//get selected entity from scene
         		if(selectedEntity != null){
         			if(!client.isCTRLDown()){
         				scenario.selectEntity(selectedEntity);
@@ -0,0 +1,65 @@
+package thinktank.simulator.actions;
+
+import java.awt.event.ActionEvent;
+
+import javax.swing.AbstractAction;
+
+import thinktank.simulator.Starter;
+
+/**
+ * Shows or hides the dwell map overlay.
+ * 
+ * @author Vasher Lor
+ * @version %I%, %G%
+ */
+public class ToggleDwellOverlayAction extends AbstractAction{
+	//---------------------static constants----------------------------
+	private static final long serialVersionUID = -2270531947862113586L;
+	/**
+	 * Constant String identifying this action.
+	 */
+	public static final String NAME = "toggle-dwell-overlay";
+	
+	//---------------------static variables----------------------------
+	/**
+	 * Singleton instance for the action.
+	 */
+	private static ToggleDwellOverlayAction instance = null;
+	
+	//---------------------instance constants--------------------------
+	//---------------------instance variables--------------------------
+	//---------------------constructors--------------------------------
+	/**
+	 * Constructs a basic, default <code>ToggleDwellOverlayAction</code>.
+	 */
+	private ToggleDwellOverlayAction(){
+		
+	}//end of default constructor
+	
+	//---------------------instance methods----------------------------
+	//OPERATIONS
+	/**
+	 * Method invoked when the associated action occurs. 
+	 * 
+	 * @param evt the object for the triggering event.
+	 */
+	@Override
+	public void actionPerformed(ActionEvent evt){
+		Starter.getClient().toggleDwellOverlay();
+	}//end of actionPerformed method
+	
+	//---------------------static main---------------------------------
+	//---------------------static methods------------------------------
+	/**
+	 * Returns a reference to the singleton instance of the action.
+	 * 
+	 * @return the action object
+	 */
+	public static ToggleDwellOverlayAction getInstance(){
+		if(instance == null){
+			instance = new ToggleDwellOverlayAction();
+		}
+		return instance;
+	}//end of getInstance method
+	
+}//end of ToggleDwellOverlayAction class
\ No newline at end of file
@@ -0,0 +1,65 @@
+package thinktank.simulator.actions;
+
+import java.awt.event.ActionEvent;
+
+import javax.swing.AbstractAction;
+
+import thinktank.simulator.Starter;
+
+/**
+ * Shows or hides the profiler overlay.
+ * 
+ * @author Vasher Lor
+ * @version %I%, %G%
+ */
+public class ToggleProfilerAction extends AbstractAction{
+	//---------------------static constants----------------------------
+	private static final long serialVersionUID = 4718235066934512871L;
+	/**
+	 * Constant String identifying this action.
+	 */
+	public static final String NAME = "toggle-profiler";
+	
+	//---------------------static variables----------------------------
+	/**
+	 * Singleton instance for the action.
+	 */
+	private static ToggleProfilerAction instance = null;
+	
+	//---------------------instance constants--------------------------
+	//---------------------instance variables--------------------------
+	//---------------------constructors--------------------------------
+	/**
+	 * Constructs a basic, default <code>ToggleProfilerAction</code>.
+	 */
+	private ToggleProfilerAction(){
+		
+	}//end of default constructor
+	
+	//---------------------instance methods----------------------------
+	//OPERATIONS
+	/**
+	 * Method invoked when the associated action occurs. 
+	 * 
+	 * @param evt the object for the triggering event.
+	 */
+	@Override
+	public void actionPerformed(ActionEvent evt){
+		Starter.getClient().toggleProfiler();
+	}//end of actionPerformed method
+	
+	//---------------------static main---------------------------------
+	//---------------------static methods------------------------------
+	/**
+	 * Returns a reference to the singleton instance of the action.
+	 * 
+	 * @return the action object
+	 */
+	public static ToggleProfilerAction getInstance(){
+		if(instance == null){
+			instance = new ToggleProfilerAction();
+		}
+		return instance;
+	}//end of getInstance method
+	
+}//end of ToggleProfilerAction class
\ No newline at end of file
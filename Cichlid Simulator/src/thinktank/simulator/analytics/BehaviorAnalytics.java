@@ -0,0 +1,698 @@
+package thinktank.simulator.analytics;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.Locale;
+
+import thinktank.simulator.entity.Fish.BEHAVIOR;
+import thinktank.simulator.event.EventRecord;
+import thinktank.simulator.event.IEventSubscriber;
+
+/**
+ * Subscriber computing behavior statistics from the events of a
+ * simulation as they arrive: the time each fish spends in each behavior,
+ * the length of each behavior bout, attack counts, chase durations, hide
+ * success and pairwise dominance. Every event updates running aggregates
+ * held in primitive arrays in constant time, so the live values can be
+ * shown while the simulation runs and the summary written at its end
+ * without keeping or replaying the raw events.
+ *
+ * A chase runs from a cichlid's first attack until it leaves the attack
+ * behavior. A hide succeeds if the cichlid leaves the hide behavior without
+ * having been attacked while hiding. The dominance of one fish over
+ * another is the share of the attacks between them that it made.
+ *
+ * Events are taken on the stream's dispatch thread, and the values may be
+ * read from any thread.
+ *
+ * @author Vasher Lor
+ * @version %I%, %G%
+ */
+public class BehaviorAnalytics implements IEventSubscriber{
+	//---------------------static constants----------------------------
+	/**
+	 * Constant value for the longest duration in the histograms, in
+	 * seconds; longer durations are counted in the last bucket.
+	 */
+	public static final double MAX_DURATION = 30;
+	/**
+	 * Constant value for the number of buckets in the histograms.
+	 */
+	public static final int BUCKETS = 60;
+	/**
+	 * The behaviors, by ordinal.
+	 */
+	private static final BEHAVIOR[] BEHAVIORS = BEHAVIOR.values();
+	/**
+	 * Constant value for the number of behaviors.
+	 */
+	private static final int BEHAVIOR_COUNT = BEHAVIORS.length;
+	/**
+	 * Constant value for the number of fish room is first made for.
+	 */
+	private static final int INITIAL_FISH = 64;
+
+	//---------------------static variables----------------------------
+	//---------------------instance constants--------------------------
+	/**
+	 * The index of each fish in the arrays, by id.
+	 */
+	private final LongIntMap indices;
+	/**
+	 * The number of attacks between each pair of fish, by the indices of
+	 * the attacker and target.
+	 */
+	private final LongIntMap pairAttacks;
+	/**
+	 * The length of the bouts of each behavior.
+	 */
+	private final RunningStats[] bouts;
+	/**
+	 * The histogram of the bouts of each behavior.
+	 */
+	private final Histogram[] boutHistograms;
+	/**
+	 * The length of the chases.
+	 */
+	private final RunningStats chases;
+	/**
+	 * The histogram of the chases.
+	 */
+	private final Histogram chaseHistogram;
+	/**
+	 * The length of the hides.
+	 */
+	private final RunningStats hides;
+	/**
+	 * The histogram of the hides.
+	 */
+	private final Histogram hideHistogram;
+	/**
+	 * The number of fish in each behavior.
+	 */
+	private final int[] occupancy;
+	/**
+	 * The time spent in each behavior, summed over every fish.
+	 */
+	private final double[] behaviorTime;
+
+	//---------------------instance variables--------------------------
+	/**
+	 * The number of fish seen.
+	 */
+	private int fishSeen;
+	/**
+	 * The id of each fish.
+	 */
+	private long[] ids;
+	/**
+	 * The current behavior of each fish, by ordinal, -1 if unknown.
+	 */
+	private int[] behaviors;
+	/**
+	 * The time each fish entered its current behavior.
+	 */
+	private double[] since;
+	/**
+	 * The time each fish has spent in each behavior, at
+	 * <code>index * BEHAVIOR_COUNT + behavior</code>.
+	 */
+	private double[] timeIn;
+	/**
+	 * The number of attacks each fish made.
+	 */
+	private int[] attacksMade;
+	/**
+	 * The number of attacks each fish received.
+	 */
+	private int[] attacksReceived;
+	/**
+	 * The number of hides each fish began.
+	 */
+	private int[] hidesBegun;
+	/**
+	 * The number of hides each fish completed unattacked.
+	 */
+	private int[] hidesSucceeded;
+	/**
+	 * The number of collisions of each fish.
+	 */
+	private int[] collisions;
+	/**
+	 * The time each fish's current chase began, NaN if not chasing.
+	 */
+	private double[] chaseStart;
+	/**
+	 * The time each fish's current hide began, NaN if not hiding.
+	 */
+	private double[] hideStart;
+	/**
+	 * Whether each fish has been attacked during its current hide.
+	 */
+	private boolean[] hideAttacked;
+	/**
+	 * The time of the first event, NaN if none.
+	 */
+	private double startTime;
+	/**
+	 * The time of the latest event.
+	 */
+	private double time;
+	/**
+	 * The number of fish in the latest tick.
+	 */
+	private int fishCount;
+	/**
+	 * The number of ticks.
+	 */
+	private long ticks;
+	/**
+	 * The number of behavior changes.
+	 */
+	private long behaviorChanges;
+	/**
+	 * The number of attacks.
+	 */
+	private long attackCount;
+	/**
+	 * The number of collisions.
+	 */
+	private long collisionCount;
+	/**
+	 * The number of hides begun.
+	 */
+	private long hideCount;
+	/**
+	 * The number of hides completed unattacked.
+	 */
+	private long hideSuccessCount;
+
+	//---------------------constructors--------------------------------
+	/**
+	 * Constructs a new, empty set of analytics.
+	 */
+	public BehaviorAnalytics(){
+		indices = new LongIntMap(INITIAL_FISH);
+		pairAttacks = new LongIntMap(INITIAL_FISH);
+		bouts = new RunningStats[BEHAVIOR_COUNT];
+		boutHistograms = new Histogram[BEHAVIOR_COUNT];
+		for(int i=0; i<BEHAVIOR_COUNT; i++){
+			bouts[i] = new RunningStats();
+			boutHistograms[i] = new Histogram(0, MAX_DURATION, BUCKETS);
+		}
+		chases = new RunningStats();
+		chaseHistogram = new Histogram(0, MAX_DURATION, BUCKETS);
+		hides = new RunningStats();
+		hideHistogram = new Histogram(0, MAX_DURATION, BUCKETS);
+		occupancy = new int[BEHAVIOR_COUNT];
+		behaviorTime = new double[BEHAVIOR_COUNT];
+		allocate(INITIAL_FISH);
+		reset();
+	}//end of default constructor
+
+	//---------------------instance methods----------------------------
+	//GETTERS
+	/**
+	 * Returns the simulation time of the latest event.
+	 *
+	 * @return the time, in seconds.
+	 */
+	public synchronized double getTime(){
+		return time;
+	}//end of getTime method
+
+	/**
+	 * Returns the number of fish in the latest tick.
+	 *
+	 * @return the number of fish.
+	 */
+	public synchronized int getFishCount(){
+		return fishCount;
+	}//end of getFishCount method
+
+	/**
+	 * Returns the number of attacks.
+	 *
+	 * @return the number of attacks.
+	 */
+	public synchronized long getAttackCount(){
+		return attackCount;
+	}//end of getAttackCount method
+
+	/**
+	 * Returns the number of collisions.
+	 *
+	 * @return the number of collisions.
+	 */
+	public synchronized long getCollisionCount(){
+		return collisionCount;
+	}//end of getCollisionCount method
+
+	/**
+	 * Returns the number of hides begun.
+	 *
+	 * @return the number of hides.
+	 */
+	public synchronized long getHideCount(){
+		return hideCount;
+	}//end of getHideCount method
+
+	/**
+	 * Returns the share of the completed hides in which the fish was not
+	 * attacked.
+	 *
+	 * @return the success rate, from 0 to 1, 0 if no hides are completed.
+	 */
+	public synchronized double getHideSuccessRate(){
+		double returnValue = 0;
+		if(hides.getCount() > 0){
+			returnValue = (double)hideSuccessCount / hides.getCount();
+		}
+		return returnValue;
+	}//end of getHideSuccessRate method
+
+	/**
+	 * Returns the mean length of the completed chases.
+	 *
+	 * @return the mean, in seconds.
+	 */
+	public synchronized double getMeanChaseDuration(){
+		return chases.getMean();
+	}//end of getMeanChaseDuration method
+
+	/**
+	 * Returns the share of the time spent by every fish that was spent in
+	 * the specified behavior.
+	 *
+	 * @param behavior the behavior.
+	 * @return the share, from 0 to 1.
+	 */
+	public synchronized double getBehaviorShare(BEHAVIOR behavior){
+		double returnValue = 0;
+		double total = 0;
+		for(int i=0; i<BEHAVIOR_COUNT; i++){
+			total += behaviorTime[i];
+		}
+		if(total > 0){
+			returnValue = behaviorTime[behavior.ordinal()] / total;
+		}
+		return returnValue;
+	}//end of getBehaviorShare method
+
+	/**
+	 * Returns a one line summary of the live values, for the HUD.
+	 *
+	 * @return the summary.
+	 */
+	public synchronized String getStatusLine(){
+		StringBuilder returnValue = new StringBuilder(128);
+		returnValue.append(String.format(Locale.ROOT, "t=%.0fs  fish=%d  attacks=%d  chase=%.1fs  hide success=%.0f%%  |",
+				time, fishCount, attackCount, chases.getMean(), getHideSuccessRate() * 100));
+		for(BEHAVIOR behavior : BEHAVIORS){
+			returnValue.append(String.format(Locale.ROOT, "  %s %.0f%%", behavior.NAME, getBehaviorShare(behavior) * 100));
+		}
+		return returnValue.toString();
+	}//end of getStatusLine method
+
+	//OPERATIONS
+	/**
+	 * Updates the aggregates with an event.
+	 *
+	 * @param record the event.
+	 */
+	@Override
+	public synchronized void onEvent(EventRecord record){
+		advance(record.getTime());
+		switch(record.getType()){
+			case BEHAVIOR:
+				behaviorChanged(indexOf(record.getSubjectID()), record.getFrom(), record.getTo());
+				break;
+			case ATTACK:
+				attacked(indexOf(record.getSubjectID()), record.getOtherID());
+				break;
+			case HIDE:
+				hid(indexOf(record.getSubjectID()));
+				break;
+			case COLLISION:
+				collisionCount++;
+				collisions[indexOf(record.getSubjectID())]++;
+				break;
+			case TICK:
+				ticks++;
+				fishCount = (int)record.getValue();
+				break;
+			default:
+				break;
+		}
+	}//end of onEvent method
+
+	/**
+	 * Nothing to do; the aggregates are always up to date.
+	 */
+	@Override
+	public void onDrained(){
+
+	}//end of onDrained method
+
+	/**
+	 * Clears every aggregate, such as when a new simulation begins.
+	 */
+	public synchronized void reset(){
+		indices.clear();
+		pairAttacks.clear();
+		for(int i=0; i<BEHAVIOR_COUNT; i++){
+			bouts[i].reset();
+			boutHistograms[i].reset();
+			occupancy[i] = 0;
+			behaviorTime[i] = 0;
+		}
+		chases.reset();
+		chaseHistogram.reset();
+		hides.reset();
+		hideHistogram.reset();
+		fishSeen = 0;
+		startTime = Double.NaN;
+		time = 0;
+		fishCount = 0;
+		ticks = 0;
+		behaviorChanges = 0;
+		attackCount = 0;
+		collisionCount = 0;
+		hideCount = 0;
+		hideSuccessCount = 0;
+	}//end of reset method
+
+	/**
+	 * Writes the summary of the simulation so far to the specified file,
+	 * creating its folder if necessary.
+	 *
+	 * @param file the file.
+	 * @return true if the summary was written, false otherwise.
+	 */
+	public boolean writeSummary(File file){
+		boolean returnValue = false;
+		if(file.getParentFile() != null){
+			file.getParentFile().mkdirs();
+		}
+		PrintWriter out = null;
+		try{
+			out = new PrintWriter(new BufferedWriter(new FileWriter(file)));
+			writeSummary(out);
+			returnValue = !out.checkError();
+		}
+		catch(IOException ex){
+			ex.printStackTrace();
+		}
+		finally{
+			if(out != null){
+				out.close();
+			}
+		}
+		return returnValue;
+	}//end of writeSummary(File) method
+
+	/**
+	 * Writes the summary of the simulation so far: the overall counts, the
+	 * share and bouts of each behavior, the chases and hides, the values
+	 * for each fish, and the dominance between each pair of fish that
+	 * attacked one another. Bouts still in progress are counted towards the
+	 * time in each behavior, but not towards the bout lengths.
+	 *
+	 * @param out the writer.
+	 */
+	public synchronized void writeSummary(PrintWriter out){
+		double start = Double.isNaN(startTime) ? 0 : startTime;
+		out.println("# behavior analytics");
+		out.println("# simulation time: " + format(start) + " to " + format(time) + " s");
+		out.println("[totals]");
+		out.println("ticks,fish,fish_seen,behavior_changes,attacks,collisions,hides,hides_completed,hide_success");
+		out.println(ticks + "," + fishCount + "," + fishSeen + "," + behaviorChanges + "," + attackCount + "," + collisionCount + ","
+				+ hideCount + "," + hides.getCount() + "," + format(getHideSuccessRate()));
+		out.println("[behaviors]");
+		out.println("behavior,share,total_s,bouts,mean_s,sd_s,min_s,max_s,p50_s,p95_s");
+		for(int i=0; i<BEHAVIOR_COUNT; i++){
+			out.println(BEHAVIORS[i] + "," + format(getBehaviorShare(BEHAVIORS[i])) + "," + format(behaviorTime[i]) + ","
+					+ formatDurations(bouts[i], boutHistograms[i]));
+		}
+		out.println("[durations]");
+		out.println("kind,count,mean_s,sd_s,min_s,max_s,p50_s,p95_s");
+		out.println("chase," + formatDurations(chases, chaseHistogram));
+		out.println("hide," + formatDurations(hides, hideHistogram));
+		out.println("[histograms]");
+		out.print("kind");
+		for(int b=0; b<BUCKETS; b++){
+			out.print("," + format(chaseHistogram.getLowerBound(b)));
+		}
+		out.println();
+		writeHistogram(out, "chase", chaseHistogram);
+		writeHistogram(out, "hide", hideHistogram);
+		for(int i=0; i<BEHAVIOR_COUNT; i++){
+			writeHistogram(out, BEHAVIORS[i].toString(), boutHistograms[i]);
+		}
+		out.println("[fish]");
+		out.print("id");
+		for(BEHAVIOR behavior : BEHAVIORS){
+			out.print(",time_" + behavior);
+		}
+		out.println(",attacks_made,attacks_received,dominance,hides,hides_succeeded,collisions");
+		for(int i=0; i<fishSeen; i++){
+			out.print(ids[i]);
+			for(int b=0; b<BEHAVIOR_COUNT; b++){
+				double total = timeIn[i * BEHAVIOR_COUNT + b];
+				if(behaviors[i] == b){
+					total += time - since[i];
+				}
+				out.print("," + format(total));
+			}
+			int exchanged = attacksMade[i] + attacksReceived[i];
+			out.println("," + attacksMade[i] + "," + attacksReceived[i] + "," + ((exchanged > 0) ? format((double)attacksMade[i] / exchanged) : "")
+					+ "," + hidesBegun[i] + "," + hidesSucceeded[i] + "," + collisions[i]);
+		}
+		out.println("[dominance]");
+		out.println("fish,other,attacks,attacked_by,dominance");
+		for(int slot=0; slot<pairAttacks.getCapacity(); slot++){
+			long key = pairAttacks.getKey(slot);
+			if(key != LongIntMap.EMPTY){
+				int attacker = (int)(key >>> 32);
+				int target = (int)key;
+				int reverse = pairAttacks.get(pairKey(target, attacker), 0);
+				if(reverse == 0 || attacker < target){//each pair once
+					int made = pairAttacks.getValue(slot);
+					out.println(ids[attacker] + "," + ids[target] + "," + made + "," + reverse + "," + format((double)made / (made + reverse)));
+				}
+			}
+		}
+	}//end of writeSummary(PrintWriter) method
+
+	/**
+	 * Moves the clock forward to the specified time, adding the time passed
+	 * to each behavior for every fish in it.
+	 *
+	 * @param now the time.
+	 */
+	private void advance(double now){
+		if(Double.isNaN(startTime)){
+			startTime = now;
+			time = now;
+		}
+		if(now > time){
+			double elapsed = now - time;
+			for(int i=0; i<BEHAVIOR_COUNT; i++){
+				behaviorTime[i] += occupancy[i] * elapsed;
+			}
+			time = now;
+		}
+	}//end of advance method
+
+	/**
+	 * Records a change of behavior, closing the bout, chase or hide it ends.
+	 *
+	 * @param fish the index of the fish.
+	 * @param from the old behavior, may be null.
+	 * @param to the new behavior, may be null.
+	 */
+	private void behaviorChanged(int fish, BEHAVIOR from, BEHAVIOR to){
+		behaviorChanges++;
+		int old = behaviors[fish];
+		if(old >= 0){
+			double length = time - since[fish];
+			timeIn[fish * BEHAVIOR_COUNT + old] += length;
+			bouts[old].add(length);
+			boutHistograms[old].add(length);
+			occupancy[old]--;
+		}
+		else if(from != null){//first seen; its bout began no later than the first event
+			timeIn[fish * BEHAVIOR_COUNT + from.ordinal()] += time - startTime;
+			behaviorTime[from.ordinal()] += time - startTime;
+		}
+		if(from == BEHAVIOR.ATTACK && !Double.isNaN(chaseStart[fish])){
+			double length = time - chaseStart[fish];
+			chases.add(length);
+			chaseHistogram.add(length);
+			chaseStart[fish] = Double.NaN;
+		}
+		if(from == BEHAVIOR.HIDE && !Double.isNaN(hideStart[fish])){
+			double length = time - hideStart[fish];
+			hides.add(length);
+			hideHistogram.add(length);
+			if(!hideAttacked[fish]){
+				hideSuccessCount++;
+				hidesSucceeded[fish]++;
+			}
+			hideStart[fish] = Double.NaN;
+		}
+		if(to != null){
+			behaviors[fish] = to.ordinal();
+			occupancy[to.ordinal()]++;
+		}
+		else{
+			behaviors[fish] = -1;
+		}
+		since[fish] = time;
+	}//end of behaviorChanged method
+
+	/**
+	 * Records an attack, starting a chase if the attacker is not already
+	 * chasing.
+	 *
+	 * @param fish the index of the attacker.
+	 * @param targetID the id of the target.
+	 */
+	private void attacked(int fish, long targetID){
+		attackCount++;
+		attacksMade[fish]++;
+		if(Double.isNaN(chaseStart[fish])){
+			chaseStart[fish] = time;
+		}
+		if(targetID != EventRecord.NO_ID){
+			int target = indexOf(targetID);
+			attacksReceived[target]++;
+			if(!Double.isNaN(hideStart[target])){
+				hideAttacked[target] = true;
+			}
+			pairAttacks.add(pairKey(fish, target), 1);
+		}
+	}//end of attacked method
+
+	/**
+	 * Records the start of a hide.
+	 *
+	 * @param fish the index of the fish.
+	 */
+	private void hid(int fish){
+		hideCount++;
+		hidesBegun[fish]++;
+		hideStart[fish] = time;
+		hideAttacked[fish] = false;
+	}//end of hid method
+
+	/**
+	 * Returns the index of the fish with the specified id, adding it if it
+	 * has not been seen.
+	 *
+	 * @param id the id.
+	 * @return the index.
+	 */
+	private int indexOf(long id){
+		int returnValue = indices.get(id, -1);
+		if(returnValue < 0){
+			if(fishSeen == ids.length){
+				allocate(ids.length * 2);
+			}
+			returnValue = fishSeen++;
+			indices.put(id, returnValue);
+			ids[returnValue] = id;
+			behaviors[returnValue] = -1;
+			since[returnValue] = time;
+			Arrays.fill(timeIn, returnValue * BEHAVIOR_COUNT, (returnValue + 1) * BEHAVIOR_COUNT, 0);
+			attacksMade[returnValue] = 0;
+			attacksReceived[returnValue] = 0;
+			hidesBegun[returnValue] = 0;
+			hidesSucceeded[returnValue] = 0;
+			collisions[returnValue] = 0;
+			chaseStart[returnValue] = Double.NaN;
+			hideStart[returnValue] = Double.NaN;
+			hideAttacked[returnValue] = false;
+		}
+		return returnValue;
+	}//end of indexOf method
+
+	/**
+	 * Makes room for the specified number of fish, keeping the values of
+	 * those already seen.
+	 *
+	 * @param capacity the number of fish.
+	 */
+	private void allocate(int capacity){
+		int kept = (ids != null) ? fishSeen : 0;
+		ids = (ids != null) ? Arrays.copyOf(ids, capacity) : new long[capacity];
+		behaviors = (behaviors != null) ? Arrays.copyOf(behaviors, capacity) : new int[capacity];
+		since = (since != null) ? Arrays.copyOf(since, capacity) : new double[capacity];
+		timeIn = (timeIn != null) ? Arrays.copyOf(timeIn, capacity * BEHAVIOR_COUNT) : new double[capacity * BEHAVIOR_COUNT];
+		attacksMade = (attacksMade != null) ? Arrays.copyOf(attacksMade, capacity) : new int[capacity];
+		attacksReceived = (attacksReceived != null) ? Arrays.copyOf(attacksReceived, capacity) : new int[capacity];
+		hidesBegun = (hidesBegun != null) ? Arrays.copyOf(hidesBegun, capacity) : new int[capacity];
+		hidesSucceeded = (hidesSucceeded != null) ? Arrays.copyOf(hidesSucceeded, capacity) : new int[capacity];
+		collisions = (collisions != null) ? Arrays.copyOf(collisions, capacity) : new int[capacity];
+		chaseStart = (chaseStart != null) ? Arrays.copyOf(chaseStart, capacity) : new double[capacity];
+		hideStart = (hideStart != null) ? Arrays.copyOf(hideStart, capacity) : new double[capacity];
+		hideAttacked = (hideAttacked != null) ? Arrays.copyOf(hideAttacked, capacity) : new boolean[capacity];
+		fishSeen = kept;
+	}//end of allocate method
+
+	/**
+	 * Writes one line of the histograms section.
+	 *
+	 * @param out the writer.
+	 * @param kind the name of the histogram.
+	 * @param histogram the histogram.
+	 */
+	private void writeHistogram(PrintWriter out, String kind, Histogram histogram){
+		out.print(kind);
+		for(int b=0; b<histogram.getBuckets(); b++){
+			out.print("," + histogram.getCount(b));
+		}
+		out.println();
+	}//end of writeHistogram method
+
+	//---------------------static main---------------------------------
+	//---------------------static methods------------------------------
+	/**
+	 * Returns the key for the attacks made by one fish on another.
+	 *
+	 * @param attacker the index of the attacker.
+	 * @param target the index of the target.
+	 * @return the key.
+	 */
+	private static long pairKey(int attacker, int target){
+		return ((long)attacker << 32) | (target & 0xFFFFFFFFL);
+	}//end of pairKey method
+
+	/**
+	 * Returns the count, mean, standard deviation, range and median and 95th
+	 * percentile of a series of durations, as comma separated values.
+	 *
+	 * @param stats the running statistics of the durations.
+	 * @param histogram the histogram of the durations.
+	 * @return the values.
+	 */
+	private static String formatDurations(RunningStats stats, Histogram histogram){
+		return stats.getCount() + "," + format(stats.getMean()) + "," + format(stats.getStandardDeviation()) + ","
+				+ format(stats.getMin()) + "," + format(stats.getMax()) + ","
+				+ format(histogram.getPercentile(50)) + "," + format(histogram.getPercentile(95));
+	}//end of formatDurations method
+
+	/**
+	 * Returns a value with three decimal places.
+	 *
+	 * @param value the value.
+	 * @return the formatted value.
+	 */
+	private static String format(double value){
+		return String.format(Locale.ROOT, "%.3f", value);
+	}//end of format method
+}//end of BehaviorAnalytics class
@@ -0,0 +1,142 @@
+package thinktank.simulator.analytics;
+
+/**
+ * Histogram of a series of values over fixed, equal width buckets. Values
+ * below the range are counted in the first bucket and values above it in
+ * the last, so adding a value takes constant time and no memory.
+ *
+ * @author Vasher Lor
+ * @version %I%, %G%
+ */
+public class Histogram{
+	//---------------------static constants----------------------------
+	//---------------------static variables----------------------------
+	//---------------------instance constants--------------------------
+	/**
+	 * The lower bound of the first bucket.
+	 */
+	private final double min;
+	/**
+	 * The width of each bucket.
+	 */
+	private final double width;
+	/**
+	 * The number of values in each bucket.
+	 */
+	private final long[] counts;
+
+	//---------------------instance variables--------------------------
+	/**
+	 * The number of values added.
+	 */
+	private long total;
+
+	//---------------------constructors--------------------------------
+	/**
+	 * Constructs a new, empty histogram with the specified number of buckets
+	 * evenly covering the specified range.
+	 *
+	 * @param min the lower bound of the range.
+	 * @param max the upper bound of the range.
+	 * @param buckets the number of buckets.
+	 */
+	public Histogram(double min, double max, int buckets){
+		this.min = min;
+		counts = new long[Math.max(buckets, 1)];
+		width = (max - min) / counts.length;
+		total = 0;
+	}//end of (double,double,int) constructor
+
+	//---------------------instance methods----------------------------
+	//GETTERS
+	/**
+	 * Returns the number of buckets.
+	 *
+	 * @return the number of buckets.
+	 */
+	public int getBuckets(){
+		return counts.length;
+	}//end of getBuckets method
+
+	/**
+	 * Returns the lower bound of the specified bucket.
+	 *
+	 * @param bucket the bucket.
+	 * @return the lower bound.
+	 */
+	public double getLowerBound(int bucket){
+		return min + bucket * width;
+	}//end of getLowerBound method
+
+	/**
+	 * Returns the number of values in the specified bucket.
+	 *
+	 * @param bucket the bucket.
+	 * @return the count.
+	 */
+	public long getCount(int bucket){
+		return counts[bucket];
+	}//end of getCount method
+
+	/**
+	 * Returns the number of values added.
+	 *
+	 * @return the total.
+	 */
+	public long getTotal(){
+		return total;
+	}//end of getTotal method
+
+	/**
+	 * Returns an estimate of the specified percentile, as the upper bound of
+	 * the bucket it falls in.
+	 *
+	 * @param percentile the percentile, from 0 to 100.
+	 * @return the estimate, the lower bound of the range if no values are added.
+	 */
+	public double getPercentile(double percentile){
+		double returnValue = min;
+		if(total > 0){
+			long rank = (long)Math.ceil(percentile / 100 * total);
+			long seen = 0;
+			int bucket = 0;
+			while(bucket < counts.length - 1 && seen + counts[bucket] < rank){
+				seen += counts[bucket];
+				bucket++;
+			}
+			returnValue = getLowerBound(bucket + 1);
+		}
+		return returnValue;
+	}//end of getPercentile method
+
+	//OPERATIONS
+	/**
+	 * Adds a value to the histogram.
+	 *
+	 * @param value the value.
+	 */
+	public void add(double value){
+		int bucket = (int)Math.floor((value - min) / width);
+		if(bucket < 0){
+			bucket = 0;
+		}
+		else if(bucket >= counts.length){
+			bucket = counts.length - 1;
+		}
+		counts[bucket]++;
+		total++;
+	}//end of add method
+
+	/**
+	 * Clears the histogram.
+	 */
+	public void reset(){
+		for(int i=0; i<counts.length; i++){
+			counts[i] = 0;
+		}
+		total = 0;
+	}//end of reset method
+
+	//---------------------static main---------------------------------
+	//---------------------static methods------------------------------
+}//end of Histogram class
@@ -0,0 +1,614 @@
+package thinktank.simulator.analytics;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+
+import thinktank.simulator.entity.Fish;
+
+/**
+ * Directed graph of the interactions between the fish of one run: an edge
+ * from an attacker to its target counts the chases the attacker started,
+ * the total time it spent chasing the target and the time it last did so.
+ *
+ * The edges are kept in dense matrices indexed by node,
+ * <code>attacker * capacity + target</code>, so recording a tick of a chase
+ * costs three array writes. A fish becomes a node the first time it takes
+ * part in a chase, and keeps its node for the whole run; the node of each
+ * handle in the scenario's registry is remembered, so finding it costs an
+ * array read. If a fish is removed and its handle handed to a new fish, the
+ * new fish gets a node of its own, and the removed fish's edges stay in the
+ * graph, its exports and its ranking.
+ *
+ * The dominance ranking is computed on demand from the attack counts, as
+ * David's scores over the proportions of the attacks between each pair of
+ * fish won by each, and is meant to be refreshed at a low frequency.
+ *
+ * The graph is not thread safe; it is recorded and read on the simulation
+ * thread.
+ *
+ * @author Vasher Lor
+ * @version %I%, %G%
+ */
+public class InteractionGraph{
+	//---------------------static constants----------------------------
+	/**
+	 * Constant value for a handle that has no node.
+	 */
+	private static final int NO_NODE = -1;
+
+	//---------------------static variables----------------------------
+	//---------------------instance constants--------------------------
+	//---------------------instance variables--------------------------
+	/**
+	 * The number of nodes the matrices have room for.
+	 */
+	private int capacity;
+	/**
+	 * The number of nodes.
+	 */
+	private int nodeCount;
+	/**
+	 * The node of the fish last seen with each handle, indexed by handle.
+	 */
+	private int[] handleNodes;
+	/**
+	 * The node of each fish, by the id of the fish.
+	 */
+	private final HashMap<Long,Integer> idNodes;
+	/**
+	 * The id of the fish each node belongs to.
+	 */
+	private long[] nodeIDs;
+	/**
+	 * The name of the fish each node belongs to.
+	 */
+	private String[] nodeNames;
+	/**
+	 * The number of chases started along each edge.
+	 */
+	private int[] attacks;
+	/**
+	 * The time spent chasing along each edge, in seconds.
+	 */
+	private float[] chaseTimes;
+	/**
+	 * The simulation time each edge was last chased along, in seconds.
+	 */
+	private float[] lastTimes;
+	/**
+	 * The David's score of each node, as of the last ranking.
+	 */
+	private double[] scores;
+	/**
+	 * The nodes in order of rank, as of the last ranking.
+	 */
+	private int[] ranking;
+	/**
+	 * The number of nodes in the last ranking.
+	 */
+	private int rankedCount;
+	/**
+	 * The number of chases started.
+	 */
+	private int attackCount;
+
+	//---------------------constructors--------------------------------
+	/**
+	 * Constructs a new, empty graph.
+	 */
+	public InteractionGraph(){
+		allocate(16);
+		nodeCount = 0;
+		handleNodes = new int[16];
+		Arrays.fill(handleNodes, NO_NODE);
+		idNodes = new HashMap<Long,Integer>();
+		rankedCount = 0;
+		attackCount = 0;
+	}//end of default constructor
+
+	//---------------------instance methods----------------------------
+	//GETTERS
+	/**
+	 * Returns the number of chases started.
+	 *
+	 * @return the number of chases.
+	 */
+	public int getAttackCount(){
+		return attackCount;
+	}//end of getAttackCount method
+
+	/**
+	 * Returns the number of nodes, including those of fish that have left
+	 * the scenario.
+	 *
+	 * @return the number of nodes.
+	 */
+	public int getNodeCount(){
+		return nodeCount;
+	}//end of getNodeCount method
+
+	/**
+	 * Returns the number of edges along which at least one chase was started.
+	 *
+	 * @return the number of edges.
+	 */
+	public int getEdgeCount(){
+		int returnValue = 0;
+		for(int i=0; i<nodeCount; i++){
+			for(int j=0; j<nodeCount; j++){
+				if(attacks[i * capacity + j] > 0){
+					returnValue++;
+				}
+			}
+		}
+		return returnValue;
+	}//end of getEdgeCount method
+
+	/**
+	 * Returns the number of chases the specified attacker started against
+	 * the specified target.
+	 *
+	 * @param attacker the attacker.
+	 * @param target the target.
+	 * @return the number of chases, 0 if either fish is not a node.
+	 */
+	public int getAttacks(Fish attacker, Fish target){
+		int returnValue = 0;
+		int edge = edgeOf(attacker, target);
+		if(edge >= 0){
+			returnValue = attacks[edge];
+		}
+		return returnValue;
+	}//end of getAttacks method
+
+	/**
+	 * Returns the time the specified attacker spent chasing the specified
+	 * target.
+	 *
+	 * @param attacker the attacker.
+	 * @param target the target.
+	 * @return the time, in seconds, 0 if either fish is not a node.
+	 */
+	public float getChaseTime(Fish attacker, Fish target){
+		float returnValue = 0;
+		int edge = edgeOf(attacker, target);
+		if(edge >= 0){
+			returnValue = chaseTimes[edge];
+		}
+		return returnValue;
+	}//end of getChaseTime method
+
+	/**
+	 * Returns the number of nodes in the last ranking.
+	 *
+	 * @return the number of nodes ranked.
+	 */
+	public int getRankedCount(){
+		return rankedCount;
+	}//end of getRankedCount method
+
+	/**
+	 * Returns the node at the specified place in the last ranking.
+	 *
+	 * @param place the place, from 0 for the most dominant.
+	 * @return the node.
+	 */
+	public int getRanked(int place){
+		return ranking[place];
+	}//end of getRanked method
+
+	/**
+	 * Returns the David's score of the specified node as of the last ranking.
+	 *
+	 * @param node the node.
+	 * @return the score.
+	 */
+	public double getScore(int node){
+		return scores[node];
+	}//end of getScore method
+
+	/**
+	 * Returns the name of the fish the specified node belongs to.
+	 *
+	 * @param node the node.
+	 * @return the name, null if there is no such node.
+	 */
+	public String getNodeName(int node){
+		return (node >= 0 && node < nodeCount) ? nodeNames[node] : null;
+	}//end of getNodeName method
+
+	/**
+	 * Returns the id of the fish the specified node belongs to.
+	 *
+	 * @param node the node.
+	 * @return the id.
+	 */
+	public long getNodeID(int node){
+		return nodeIDs[node];
+	}//end of getNodeID method
+
+	/**
+	 * Returns the number of chases the specified node started.
+	 *
+	 * @param node the node.
+	 * @return the number of chases.
+	 */
+	public int getWins(int node){
+		int returnValue = 0;
+		for(int j=0; j<nodeCount; j++){
+			returnValue += attacks[node * capacity + j];
+		}
+		return returnValue;
+	}//end of getWins method
+
+	/**
+	 * Returns the number of chases started against the specified node.
+	 *
+	 * @param node the node.
+	 * @return the number of chases.
+	 */
+	public int getLosses(int node){
+		int returnValue = 0;
+		for(int i=0; i<nodeCount; i++){
+			returnValue += attacks[i * capacity + node];
+		}
+		return returnValue;
+	}//end of getLosses method
+
+	//OPERATIONS
+	/**
+	 * Records one tick of the specified attacker chasing the specified
+	 * target. Does nothing if either fish is not in a scenario.
+	 *
+	 * @param attacker the attacker.
+	 * @param target the target.
+	 * @param started true if the chase started this tick, false if it
+	 * carries on from an earlier tick.
+	 * @param tpf the simulation time of the tick, in seconds.
+	 * @param time the simulation time, in seconds.
+	 */
+	public void record(Fish attacker, Fish target, boolean started, float tpf, double time){
+		if(attacker.getHandle() >= 0 && target.getHandle() >= 0){
+			int a = claimNode(attacker);
+			int t = claimNode(target);
+			int edge = a * capacity + t;
+			if(started){
+				attacks[edge]++;
+				attackCount++;
+			}
+			chaseTimes[edge] += tpf;
+			lastTimes[edge] = (float)time;
+		}
+	}//end of record method
+
+	/**
+	 * Clears every node and edge.
+	 */
+	public void reset(){
+		nodeCount = 0;
+		Arrays.fill(handleNodes, NO_NODE);
+		idNodes.clear();
+		Arrays.fill(nodeNames, null);
+		Arrays.fill(attacks, 0);
+		Arrays.fill(chaseTimes, 0);
+		Arrays.fill(lastTimes, 0);
+		rankedCount = 0;
+		attackCount = 0;
+	}//end of reset method
+
+	/**
+	 * Ranks the nodes by their David's scores, highest first. The score of a
+	 * fish is <code>w + w2 - l - l2</code>, where <code>w</code> sums, over
+	 * every fish it has interacted with, the proportion of the chases
+	 * between the two that it started, <code>w2</code> sums those
+	 * proportions weighted by the other fish's <code>w</code>, and
+	 * <code>l</code> and <code>l2</code> are the same for the chases
+	 * started against it. Takes time in the square of the number of nodes.
+	 *
+	 * @return the number of nodes ranked.
+	 */
+	public int rank(){
+		double[] w = new double[nodeCount];
+		double[] l = new double[nodeCount];
+		for(int i=0; i<nodeCount; i++){
+			for(int j=0; j<nodeCount; j++){
+				int total = attacks[i * capacity + j] + attacks[j * capacity + i];
+				if(total > 0){
+					double p = (double)attacks[i * capacity + j] / total;
+					w[i] += p;
+					l[j] += p;
+				}
+			}
+		}
+		rankedCount = 0;
+		for(int i=0; i<nodeCount; i++){
+			double w2 = 0;
+			double l2 = 0;
+			for(int j=0; j<nodeCount; j++){
+				int total = attacks[i * capacity + j] + attacks[j * capacity + i];
+				if(total > 0){
+					double p = (double)attacks[i * capacity + j] / total;
+					w2 += p * w[j];
+					l2 += (1 - p) * l[j];
+				}
+			}
+			scores[i] = w[i] + w2 - l[i] - l2;
+			int place = rankedCount++;
+			while(place > 0 && scores[ranking[place - 1]] < scores[i]){
+				ranking[place] = ranking[place - 1];
+				place--;
+			}
+			ranking[place] = i;
+		}
+		return rankedCount;
+	}//end of rank method
+
+	/**
+	 * Returns a summary of the top of the last ranking, one line per fish
+	 * with its place, name, score and the chases it started and suffered.
+	 *
+	 * @param top the number of fish listed.
+	 * @return the summary, empty if no fish are ranked.
+	 */
+	public String getRankingText(int top){
+		StringBuilder returnValue = new StringBuilder();
+		for(int place=0; place<Math.min(top, rankedCount); place++){
+			int node = ranking[place];
+			if(place > 0){
+				returnValue.append('\n');
+			}
+			returnValue.append(String.format(Locale.ROOT, "%d. %s  %.2f  (%d/%d)",
+					place + 1, nodeNames[node], scores[node], getWins(node), getLosses(node)));
+		}
+		return returnValue.toString();
+	}//end of getRankingText method
+
+	/**
+	 * Writes the edges as comma separated values, one line per edge with at
+	 * least one chase: the ids of the attacker and target, the number of
+	 * chases, the time spent chasing and the time last chased, in seconds.
+	 * The <code>source</code>, <code>target</code> and <code>weight</code>
+	 * columns follow the edge list format read by common network analysis
+	 * tools.
+	 *
+	 * @param file the file.
+	 * @return true if the graph was written, false otherwise.
+	 */
+	public boolean writeCSV(File file){
+		boolean returnValue = false;
+		if(file.getParentFile() != null){
+			file.getParentFile().mkdirs();
+		}
+		PrintWriter out = null;
+		try{
+			out = new PrintWriter(new BufferedWriter(new FileWriter(file)));
+			out.println("source,target,weight,chase_time,last_time");
+			for(int i=0; i<nodeCount; i++){
+				for(int j=0; j<nodeCount; j++){
+					int edge = i * capacity + j;
+					if(chaseTimes[edge] > 0 || attacks[edge] > 0){
+						out.println(String.format(Locale.ROOT, "%d,%d,%d,%.3f,%.3f",
+								nodeIDs[i], nodeIDs[j], attacks[edge], chaseTimes[edge], lastTimes[edge]));
+					}
+				}
+			}
+			returnValue = !out.checkError();
+		}
+		catch(IOException ex){
+			ex.printStackTrace();
+		}
+		finally{
+			if(out != null){
+				out.close();
+			}
+		}
+		return returnValue;
+	}//end of writeCSV method
+
+	/**
+	 * Writes the graph as GraphML, with the name and David's score of each
+	 * node and the number of chases, time spent chasing and time last
+	 * chased of each edge. Ranks the nodes first.
+	 *
+	 * @param file the file.
+	 * @return true if the graph was written, false otherwise.
+	 */
+	public boolean writeGraphML(File file){
+		boolean returnValue = false;
+		if(file.getParentFile() != null){
+			file.getParentFile().mkdirs();
+		}
+		rank();
+		PrintWriter out = null;
+		try{
+			out = new PrintWriter(new BufferedWriter(new FileWriter(file)));
+			out.println("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+			out.println("<graphml xmlns=\"http://graphml.graphdrawing.org/xmlns\">");
+			out.println("  <key id=\"name\" for=\"node\" attr.name=\"name\" attr.type=\"string\"/>");
+			out.println("  <key id=\"score\" for=\"node\" attr.name=\"davids_score\" attr.type=\"double\"/>");
+			out.println("  <key id=\"weight\" for=\"edge\" attr.name=\"weight\" attr.type=\"int\"/>");
+			out.println("  <key id=\"chase_time\" for=\"edge\" attr.name=\"chase_time\" attr.type=\"double\"/>");
+			out.println("  <key id=\"last_time\" for=\"edge\" attr.name=\"last_time\" attr.type=\"double\"/>");
+			out.println("  <graph id=\"interactions\" edgedefault=\"directed\">");
+			for(int i=0; i<nodeCount; i++){
+				out.println("    <node id=\"n" + nodeIDs[i] + "\">");
+				out.println("      <data key=\"name\">" + escape(nodeNames[i]) + "</data>");
+				out.println(String.format(Locale.ROOT, "      <data key=\"score\">%.4f</data>", scores[i]));
+				out.println("    </node>");
+			}
+			for(int i=0; i<nodeCount; i++){
+				for(int j=0; j<nodeCount; j++){
+					int edge = i * capacity + j;
+					if(chaseTimes[edge] > 0 || attacks[edge] > 0){
+						out.println("    <edge source=\"n" + nodeIDs[i] + "\" target=\"n" + nodeIDs[j] + "\">");
+						out.println("      <data key=\"weight\">" + attacks[edge] + "</data>");
+						out.println(String.format(Locale.ROOT, "      <data key=\"chase_time\">%.3f</data>", chaseTimes[edge]));
+						out.println(String.format(Locale.ROOT, "      <data key=\"last_time\">%.3f</data>", lastTimes[edge]));
+						out.println("    </edge>");
+					}
+				}
+			}
+			out.println("  </graph>");
+			out.println("</graphml>");
+			returnValue = !out.checkError();
+		}
+		catch(IOException ex){
+			ex.printStackTrace();
+		}
+		finally{
+			if(out != null){
+				out.close();
+			}
+		}
+		return returnValue;
+	}//end of writeGraphML method
+
+	/**
+	 * Returns the index of the edge between the specified fish.
+	 *
+	 * @param attacker the attacker.
+	 * @param target the target.
+	 * @return the index, -1 if either fish is not a node.
+	 */
+	private int edgeOf(Fish attacker, Fish target){
+		int returnValue = -1;
+		int a = nodeOf(attacker);
+		int t = nodeOf(target);
+		if(a != NO_NODE && t != NO_NODE){
+			returnValue = a * capacity + t;
+		}
+		return returnValue;
+	}//end of edgeOf method
+
+	/**
+	 * Returns the node of the specified fish, looking it up by id if the
+	 * fish's handle was last seen with another fish.
+	 *
+	 * @param fish the fish.
+	 * @return the node, <code>NO_NODE</code> if the fish is not a node.
+	 */
+	private int nodeOf(Fish fish){
+		int returnValue = NO_NODE;
+		int handle = fish.getHandle();
+		if(handle >= 0 && handle < handleNodes.length && handleNodes[handle] != NO_NODE
+				&& nodeIDs[handleNodes[handle]] == fish.getID()){
+			returnValue = handleNodes[handle];
+		}
+		else{
+			Integer node = idNodes.get(fish.getID());
+			if(node != null){
+				returnValue = node;
+			}
+		}
+		return returnValue;
+	}//end of nodeOf method
+
+	/**
+	 * Returns the node of the specified fish, adding one if the fish has
+	 * none and growing the matrices if needed, and remembers it for the
+	 * fish's handle.
+	 *
+	 * @param fish the fish.
+	 * @return the node.
+	 */
+	private int claimNode(Fish fish){
+		int returnValue = nodeOf(fish);
+		if(returnValue == NO_NODE){
+			if(nodeCount >= capacity){
+				grow(capacity * 2);
+			}
+			returnValue = nodeCount++;
+			nodeIDs[returnValue] = fish.getID();
+			nodeNames[returnValue] = fish.getName();
+			idNodes.put(fish.getID(), returnValue);
+		}
+		int handle = fish.getHandle();
+		if(handle >= handleNodes.length){
+			int oldLength = handleNodes.length;
+			handleNodes = Arrays.copyOf(handleNodes, Math.max(oldLength * 2, handle + 1));
+			Arrays.fill(handleNodes, oldLength, handleNodes.length, NO_NODE);
+		}
+		handleNodes[handle] = returnValue;
+		return returnValue;
+	}//end of claimNode method
+
+	/**
+	 * Grows the matrices to the specified number of nodes, keeping every
+	 * node and edge.
+	 *
+	 * @param newCapacity the new number of nodes.
+	 */
+	private void grow(int newCapacity){
+		int oldCapacity = capacity;
+		long[] oldIDs = nodeIDs;
+		String[] oldNames = nodeNames;
+		int[] oldAttacks = attacks;
+		float[] oldChaseTimes = chaseTimes;
+		float[] oldLastTimes = lastTimes;
+		allocate(newCapacity);
+		System.arraycopy(oldIDs, 0, nodeIDs, 0, oldCapacity);
+		System.arraycopy(oldNames, 0, nodeNames, 0, oldCapacity);
+		for(int i=0; i<oldCapacity; i++){
+			System.arraycopy(oldAttacks, i * oldCapacity, attacks, i * newCapacity, oldCapacity);
+			System.arraycopy(oldChaseTimes, i * oldCapacity, chaseTimes, i * newCapacity, oldCapacity);
+			System.arraycopy(oldLastTimes, i * oldCapacity, lastTimes, i * newCapacity, oldCapacity);
+		}
+	}//end of grow method
+
+	/**
+	 * Makes new, empty arrays for the specified number of nodes.
+	 *
+	 * @param newCapacity the number of nodes.
+	 */
+	private void allocate(int newCapacity){
+		capacity = newCapacity;
+		nodeIDs = new long[capacity];
+		nodeNames = new String[capacity];
+		attacks = new int[capacity * capacity];
+		chaseTimes = new float[capacity * capacity];
+		lastTimes = new float[capacity * capacity];
+		scores = new double[capacity];
+		ranking = new int[capacity];
+		rankedCount = 0;
+	}//end of allocate method
+
+	//---------------------static main---------------------------------
+	//---------------------static methods------------------------------
+	/**
+	 * Escapes the characters of the specified text that are special in XML.
+	 *
+	 * @param text the text.
+	 * @return the escaped text.
+	 */
+	private static String escape(String text){
+		StringBuilder returnValue = new StringBuilder();
+		if(text != null){
+			for(int i=0; i<text.length(); i++){
+				char c = text.charAt(i);
+				switch(c){
+					case '&':
+						returnValue.append("&amp;");
+						break;
+					case '<':
+						returnValue.append("&lt;");
+						break;
+					case '>':
+						returnValue.append("&gt;");
+						break;
+					case '"':
+						returnValue.append("&quot;");
+						break;
+					default:
+						returnValue.append(c);
+				}
+			}
+		}
+		return returnValue.toString();
+	}//end of escape method
+}//end of InteractionGraph class
@@ -0,0 +1,185 @@
+package thinktank.simulator.analytics;
+
+/**
+ * Open addressing map from long keys to int values, held in two primitive
+ * arrays so that lookups and updates do not box or allocate. Grows by
+ * doubling when half full.
+ *
+ * @author Vasher Lor
+ * @version %I%, %G%
+ */
+class LongIntMap{
+	//---------------------static constants----------------------------
+	/**
+	 * Constant value marking an unused slot. Keys must not take this value.
+	 */
+	static final long EMPTY = Long.MIN_VALUE;
+
+	//---------------------static variables----------------------------
+	//---------------------instance constants--------------------------
+	//---------------------instance variables--------------------------
+	/**
+	 * The key in each slot, <code>EMPTY</code> if unused.
+	 */
+	private long[] keys;
+	/**
+	 * The value in each slot.
+	 */
+	private int[] values;
+	/**
+	 * The number of keys held.
+	 */
+	private int size;
+
+	//---------------------constructors--------------------------------
+	/**
+	 * Constructs a new, empty map with room for the specified number of
+	 * keys before it grows.
+	 *
+	 * @param expected the expected number of keys.
+	 */
+	LongIntMap(int expected){
+		int capacity = Integer.highestOneBit(Math.max(expected, 8) * 2 - 1) << 1;
+		keys = new long[capacity];
+		values = new int[capacity];
+		clear();
+	}//end of (int) constructor
+
+	//---------------------instance methods----------------------------
+	//GETTERS
+	/**
+	 * Returns the number of keys held.
+	 *
+	 * @return the size.
+	 */
+	int size(){
+		return size;
+	}//end of size method
+
+	/**
+	 * Returns the number of slots, for iterating with <code>getKey()</code>
+	 * and <code>getValue()</code>.
+	 *
+	 * @return the capacity.
+	 */
+	int getCapacity(){
+		return keys.length;
+	}//end of getCapacity method
+
+	/**
+	 * Returns the key in the specified slot.
+	 *
+	 * @param slot the slot.
+	 * @return the key, <code>EMPTY</code> if the slot is unused.
+	 */
+	long getKey(int slot){
+		return keys[slot];
+	}//end of getKey method
+
+	/**
+	 * Returns the value in the specified slot.
+	 *
+	 * @param slot the slot.
+	 * @return the value.
+	 */
+	int getValue(int slot){
+		return values[slot];
+	}//end of getValue method
+
+	/**
+	 * Returns the value for the specified key.
+	 *
+	 * @param key the key.
+	 * @param absent the value returned if the key is not held.
+	 * @return the value.
+	 */
+	int get(long key, int absent){
+		int returnValue = absent;
+		int slot = find(key);
+		if(keys[slot] == key){
+			returnValue = values[slot];
+		}
+		return returnValue;
+	}//end of get method
+
+	//OPERATIONS
+	/**
+	 * Sets the value for the specified key.
+	 *
+	 * @param key the key.
+	 * @param value the value.
+	 */
+	void put(long key, int value){
+		int slot = find(key);
+		if(keys[slot] != key){
+			keys[slot] = key;
+			size++;
+		}
+		values[slot] = value;
+		if(size * 2 > keys.length){
+			grow();
+		}
+	}//end of put method
+
+	/**
+	 * Adds to the value for the specified key, which starts at 0.
+	 *
+	 * @param key the key.
+	 * @param delta the amount added.
+	 * @return the new value.
+	 */
+	int add(long key, int delta){
+		int returnValue = get(key, 0) + delta;
+		put(key, returnValue);
+		return returnValue;
+	}//end of add method
+
+	/**
+	 * Removes every key.
+	 */
+	void clear(){
+		for(int i=0; i<keys.length; i++){
+			keys[i] = EMPTY;
+		}
+		size = 0;
+	}//end of clear method
+
+	/**
+	 * Returns the slot holding the specified key, or the unused slot where
+	 * it would be put.
+	 *
+	 * @param key the key.
+	 * @return the slot.
+	 */
+	private int find(long key){
+		int mask = keys.length - 1;
+		long hash = key * 0x9E3779B97F4A7C15L;
+		int returnValue = (int)(hash ^ (hash >>> 32)) & mask;
+		while(keys[returnValue] != EMPTY && keys[returnValue] != key){
+			returnValue = (returnValue + 1) & mask;
+		}
+		return returnValue;
+	}//end of find method
+
+	/**
+	 * Doubles the number of slots, putting every key again.
+	 */
+	private void grow(){
+		long[] oldKeys = keys;
+		int[] oldValues = values;
+		keys = new long[oldKeys.length * 2];
+		values = new int[oldValues.length * 2];
+		clear();
+		for(int i=0; i<oldKeys.length; i++){
+			if(oldKeys[i] != EMPTY){
+				int slot = find(oldKeys[i]);
+				keys[slot] = oldKeys[i];
+				values[slot] = oldValues[i];
+				size++;
+			}
+		}
+	}//end of grow method
+
+	//---------------------static main---------------------------------
+	//---------------------static methods------------------------------
+}//end of LongIntMap class
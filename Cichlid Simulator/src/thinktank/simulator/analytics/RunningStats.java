@@ -0,0 +1,150 @@
+package thinktank.simulator.analytics;
+
+import java.util.Locale;
+
+/**
+ * Running count, mean, variance and range of a series of values, updated
+ * in constant time per value with Welford's method, so the values
+ * themselves are never kept.
+ *
+ * @author Vasher Lor
+ * @version %I%, %G%
+ */
+public class RunningStats{
+	//---------------------static constants----------------------------
+	//---------------------static variables----------------------------
+	//---------------------instance constants--------------------------
+	//---------------------instance variables--------------------------
+	/**
+	 * The number of values added.
+	 */
+	private long count;
+	/**
+	 * The mean of the values added.
+	 */
+	private double mean;
+	/**
+	 * The sum of the squared differences from the mean.
+	 */
+	private double m2;
+	/**
+	 * The smallest value added.
+	 */
+	private double min;
+	/**
+	 * The largest value added.
+	 */
+	private double max;
+
+	//---------------------constructors--------------------------------
+	/**
+	 * Constructs a new, empty series.
+	 */
+	public RunningStats(){
+		reset();
+	}//end of default constructor
+
+	//---------------------instance methods----------------------------
+	//GETTERS
+	/**
+	 * Returns the number of values added.
+	 *
+	 * @return the count.
+	 */
+	public long getCount(){
+		return count;
+	}//end of getCount method
+
+	/**
+	 * Returns the mean of the values added.
+	 *
+	 * @return the mean, 0 if no values are added.
+	 */
+	public double getMean(){
+		return mean;
+	}//end of getMean method
+
+	/**
+	 * Returns the sample variance of the values added.
+	 *
+	 * @return the variance, 0 if fewer than two values are added.
+	 */
+	public double getVariance(){
+		double returnValue = 0;
+		if(count > 1){
+			returnValue = m2 / (count - 1);
+		}
+		return returnValue;
+	}//end of getVariance method
+
+	/**
+	 * Returns the sample standard deviation of the values added.
+	 *
+	 * @return the standard deviation, 0 if fewer than two values are added.
+	 */
+	public double getStandardDeviation(){
+		return Math.sqrt(getVariance());
+	}//end of getStandardDeviation method
+
+	/**
+	 * Returns the smallest value added.
+	 *
+	 * @return the minimum, 0 if no values are added.
+	 */
+	public double getMin(){
+		return (count > 0) ? min : 0;
+	}//end of getMin method
+
+	/**
+	 * Returns the largest value added.
+	 *
+	 * @return the maximum, 0 if no values are added.
+	 */
+	public double getMax(){
+		return (count > 0) ? max : 0;
+	}//end of getMax method
+
+	//OPERATIONS
+	/**
+	 * Adds a value to the series.
+	 *
+	 * @param value the value.
+	 */
+	public void add(double value){
+		count++;
+		double delta = value - mean;
+		mean += delta / count;
+		m2 += delta * (value - mean);
+		if(value < min){
+			min = value;
+		}
+		if(value > max){
+			max = value;
+		}
+	}//end of add method
+
+	/**
+	 * Clears the series.
+	 */
+	public void reset(){
+		count = 0;
+		mean = 0;
+		m2 = 0;
+		min = Double.POSITIVE_INFINITY;
+		max = Double.NEGATIVE_INFINITY;
+	}//end of reset method
+
+	/**
+	 * Returns a summary of the series.
+	 *
+	 * @return the summary.
+	 */
+	@Override
+	public String toString(){
+		return String.format(Locale.ROOT, "n=%d, mean=%.3f, sd=%.3f, min=%.3f, max=%.3f",
+				count, mean, getStandardDeviation(), getMin(), getMax());
+	}//end of toString method
+
+	//---------------------static main---------------------------------
+	//---------------------static methods------------------------------
+}//end of RunningStats class
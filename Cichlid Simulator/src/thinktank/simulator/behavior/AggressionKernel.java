@@ -0,0 +1,641 @@
+package thinktank.simulator.behavior;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+import com.jme3.math.Vector3f;
+
+import thinktank.simulator.entity.Cichlid;
+import thinktank.simulator.entity.Fish;
+import thinktank.simulator.scenario.EntityView;
+import thinktank.simulator.scenario.Grid;
+
+/**
+ * Computes the aggression of every fish towards every other fish in
+ * batches, from a snapshot of the fish taken at the start of each tick.
+ *
+ * The snapshot is held as flat primitive arrays (positions, sizes, speeds,
+ * and sex as a byte code), so that each row of the aggression matrix is a
+ * single loop over contiguous arrays, which the JIT compiler can unroll
+ * and vectorize. Choosing a target is then an argmax over the fish's row.
+ *
+ * Each fish keeps its slot in the arrays for as long as it is in the
+ * scenario, and the aggression of each pair is kept between ticks along
+ * with the state epochs of the two fish it was computed from. A fish's
+ * state epoch changes when it moves further than the tracking distance,
+ * or when its size, speed or sex changes, so a pair is only recomputed,
+ * visibility query included, when one of its fish has changed. Changes to
+ * the environment objects invalidate only the pairs whose line of sight
+ * passes through the changed cells. Other fish crossing a line of sight
+ * do not invalidate it, so in <code>VISIBILITY_MODE.RAYCAST</code> the
+ * blocking by other fish is only refreshed when one of the pair moves.
+ *
+ * @author Vasher Lor
+ * @version %I%, %G%
+ */
+public class AggressionKernel{
+	//---------------------static constants----------------------------
+	/**
+	 * Constant value for the initial capacity of the arrays.
+	 */
+	private static final int INITIAL_CAPACITY = 16;
+	/**
+	 * Constant value for the default tracking distance, in world units.
+	 */
+	public static final float DEFAULT_EPSILON = 0.05f;
+	/**
+	 * Constant value stored as the epoch of a pair that must be recomputed.
+	 */
+	private static final int DIRTY = -1;
+
+	//---------------------static variables----------------------------
+	//---------------------instance constants--------------------------
+	/**
+	 * Maps each sex string to its byte code.
+	 */
+	private final HashMap<String,Byte> sexCodes;
+	/**
+	 * Reusable array for the cell ranges changed in the grid.
+	 */
+	private final int[] changes;
+
+	//---------------------instance variables--------------------------
+	/**
+	 * The slot of the fish with each entity handle, -1 for handles
+	 * without a slot.
+	 */
+	private int[] slotsByHandle;
+	/**
+	 * The fish in each slot.
+	 */
+	private Fish[] fish;
+	/**
+	 * The entity handle of the fish in each slot, as it was when the fish
+	 * was given the slot.
+	 */
+	private int[] handles;
+	/**
+	 * The X-coordinates of the fish.
+	 */
+	private float[] posX;
+	/**
+	 * The Y-coordinates of the fish.
+	 */
+	private float[] posY;
+	/**
+	 * The Z-coordinates of the fish.
+	 */
+	private float[] posZ;
+	/**
+	 * The sizes of the fish.
+	 */
+	private float[] sizes;
+	/**
+	 * The speeds of the fish.
+	 */
+	private float[] speeds;
+	/**
+	 * The sex codes of the fish.
+	 */
+	private byte[] sexes;
+	/**
+	 * The last movement epoch seen for each fish.
+	 */
+	private int[] movementEpochs;
+	/**
+	 * The state epoch of each slot.
+	 */
+	private int[] stateEpochs;
+	/**
+	 * The tick in which each slot was last gathered.
+	 */
+	private long[] seen;
+	/**
+	 * Flags for whether or not each row has been brought up to date in
+	 * this tick.
+	 */
+	private boolean[] computed;
+	/**
+	 * The aggression matrix, in row-major order: the entry at
+	 * <code>i * capacity + j</code> is the aggression of the fish in
+	 * slot i towards the fish in slot j.
+	 */
+	private double[] aggression;
+	/**
+	 * The state epoch of the aggressive fish when each pair was computed.
+	 */
+	private int[] pairFrom;
+	/**
+	 * The state epoch of the other fish when each pair was computed.
+	 */
+	private int[] pairTo;
+	/**
+	 * The slots of the fish in the scenario, in scenario order.
+	 */
+	private int[] order;
+	/**
+	 * Stack of slots that have been released and can be reused.
+	 */
+	private int[] freeSlots;
+	/**
+	 * The number of entries on the free slot stack.
+	 */
+	private int freeCount;
+	/**
+	 * The number of slots that have ever been handed out.
+	 */
+	private int slotCount;
+	/**
+	 * The number of fish in the snapshot.
+	 */
+	private int count;
+	/**
+	 * The number of the current tick.
+	 */
+	private long tick;
+	/**
+	 * The grid the pairs were last checked against.
+	 */
+	private Grid grid;
+	/**
+	 * The obstacle epoch of the grid when the pairs were last checked.
+	 */
+	private int obstacleEpoch;
+	/**
+	 * The distance a fish must move before its pairs are recomputed.
+	 */
+	private float epsilon;
+	/**
+	 * The number of pairs computed since the last reset of the metrics.
+	 */
+	private long pairsComputed;
+	/**
+	 * The number of pairs reused from the cache since the last reset of
+	 * the metrics.
+	 */
+	private long pairsReused;
+
+	//---------------------constructors--------------------------------
+	/**
+	 * Constructs a new, empty kernel.
+	 */
+	public AggressionKernel(){
+		slotsByHandle = new int[INITIAL_CAPACITY];
+		Arrays.fill(slotsByHandle, -1);
+		sexCodes = new HashMap<String,Byte>();
+		changes = new int[Grid.CHANGE_LOG_SIZE * 6];
+		allocate(INITIAL_CAPACITY);
+		freeCount = 0;
+		slotCount = 0;
+		count = 0;
+		tick = 0;
+		grid = null;
+		obstacleEpoch = 0;
+		epsilon = DEFAULT_EPSILON;
+		pairsComputed = 0;
+		pairsReused = 0;
+	}//end of constructor
+
+	//---------------------instance methods----------------------------
+	//GETTERS
+	/**
+	 * Returns the number of fish in the snapshot.
+	 *
+	 * @return the number of fish.
+	 */
+	public int getCount(){
+		return count;
+	}//end of getCount method
+
+	/**
+	 * Returns the slot of the specified fish.
+	 *
+	 * @param f the fish.
+	 * @return the slot, -1 if the fish is not in the snapshot.
+	 */
+	public int indexOf(Fish f){
+		int returnValue = -1;
+		int handle = f.getHandle();
+		if(handle > -1 && handle < slotsByHandle.length){
+			int slot = slotsByHandle[handle];
+			if(slot > -1 && fish[slot] == f){
+				returnValue = slot;
+			}
+		}
+		return returnValue;
+	}//end of indexOf method
+
+	/**
+	 * Returns the fish in the specified slot.
+	 *
+	 * @param slot the slot.
+	 * @return the fish.
+	 */
+	public Fish getFish(int slot){
+		return fish[slot];
+	}//end of getFish method
+
+	/**
+	 * Returns the aggression of one fish towards another, bringing the
+	 * row of the first fish up to date if it is not already.
+	 *
+	 * @param from the slot of the aggressive fish.
+	 * @param to the slot of the other fish.
+	 * @return the aggression value.
+	 */
+	public double getAggression(int from, int to){
+		if(!computed[from]){
+			computeRow(from);
+		}
+		return aggression[from * fish.length + to];
+	}//end of getAggression method
+
+	/**
+	 * Returns the distance a fish must move before its pairs are recomputed.
+	 *
+	 * @return the tracking distance, in world units.
+	 */
+	public float getEpsilon(){
+		return epsilon;
+	}//end of getEpsilon method
+
+	/**
+	 * Returns the number of pairs computed since the last reset of the
+	 * metrics.
+	 *
+	 * @return the number of pairs computed.
+	 */
+	public long getPairsComputed(){
+		return pairsComputed;
+	}//end of getPairsComputed method
+
+	/**
+	 * Returns the number of pairs reused from the cache since the last
+	 * reset of the metrics.
+	 *
+	 * @return the number of pairs reused.
+	 */
+	public long getPairsReused(){
+		return pairsReused;
+	}//end of getPairsReused method
+
+	//SETTERS
+	/**
+	 * Sets the distance a fish must move before its pairs are recomputed.
+	 *
+	 * @param epsilon the tracking distance, in world units.
+	 */
+	public void setEpsilon(float epsilon){
+		this.epsilon = Math.max(0, epsilon);
+	}//end of setEpsilon method
+
+	//OPERATIONS
+	/**
+	 * Takes a snapshot of the specified fish, and marks the pairs that
+	 * must be recomputed: those involving fish that have moved or changed,
+	 * and those whose line of sight crosses a changed part of the grid.
+	 * Should be called once per tick, before any fish look for a target.
+	 * Fish without an entity handle are left out of the snapshot.
+	 *
+	 * @param view the view of the fish in the scenario.
+	 * @param grid the grid of the scenario, may be null.
+	 */
+	public void gather(EntityView<Fish> view, Grid grid){
+		tick++;
+		count = 0;
+		for(int n=0; n<view.size(); n++){
+			Fish next = view.get(n);
+			int handle = next.getHandle();
+			if(handle > -1){
+				if(handle >= slotsByHandle.length){
+					int[] newSlots = new int[Math.max(slotsByHandle.length * 2, handle + 1)];
+					Arrays.fill(newSlots, slotsByHandle.length, newSlots.length, -1);
+					System.arraycopy(slotsByHandle, 0, newSlots, 0, slotsByHandle.length);
+					slotsByHandle = newSlots;
+				}
+				int slot = slotsByHandle[handle];
+				if(slot == -1 || fish[slot] != next){//new fish, or a removed fish's handle reused
+					slot = allocateSlot();
+					slotsByHandle[handle] = slot;
+					fish[slot] = next;
+					handles[slot] = handle;
+					movementEpochs[slot] = next.getMovementEpoch() - 1;//forces a snapshot of the new fish
+					stateEpochs[slot]++;
+				}
+				int movement = next.trackMovement(epsilon);
+				byte sex = sexCode(next.getSex());
+				if(movement != movementEpochs[slot] || sizes[slot] != next.getSize() ||
+						speeds[slot] != next.getSpeed() || sexes[slot] != sex){
+					Vector3f pos = next.getObj().getLocalTranslation();
+					posX[slot] = pos.x;
+					posY[slot] = pos.y;
+					posZ[slot] = pos.z;
+					sizes[slot] = next.getSize();
+					speeds[slot] = next.getSpeed();
+					sexes[slot] = sex;
+					movementEpochs[slot] = movement;
+					stateEpochs[slot]++;
+				}
+				if(count == order.length){
+					int[] newOrder = new int[order.length * 2];
+					System.arraycopy(order, 0, newOrder, 0, count);
+					order = newOrder;
+				}
+				order[count++] = slot;
+				seen[slot] = tick;
+				computed[slot] = false;
+			}
+		}
+		for(int slot=0; slot<slotCount; slot++){
+			if(fish[slot] != null && seen[slot] != tick){//removed from the scenario
+				if(slotsByHandle[handles[slot]] == slot){
+					slotsByHandle[handles[slot]] = -1;
+				}
+				fish[slot] = null;
+				stateEpochs[slot]++;
+				freeSlots[freeCount++] = slot;
+			}
+		}
+		checkEnvironment(grid);
+	}//end of gather method
+
+	/**
+	 * Brings every row of the aggression matrix up to date.
+	 */
+	public void computeAll(){
+		for(int n=0; n<count; n++){
+			if(!computed[order[n]]){
+				computeRow(order[n]);
+			}
+		}
+	}//end of computeAll method
+
+	/**
+	 * Returns the slot of the fish towards which the specified fish is most
+	 * aggressive, if that aggression is greater than the specified minimum.
+	 * Ties are won by the fish first in scenario order.
+	 *
+	 * @param from the slot of the aggressive fish.
+	 * @param minimum the aggression the target must exceed.
+	 * @return the slot of the target, -1 if no fish exceeds the minimum.
+	 */
+	public int argmax(int from, double minimum){
+		if(!computed[from]){
+			computeRow(from);
+		}
+		int returnValue = -1;
+		double best = minimum;
+		int base = from * fish.length;
+		for(int n=0; n<count; n++){
+			int j = order[n];
+			if(aggression[base + j] > best){
+				best = aggression[base + j];
+				returnValue = j;
+			}
+		}
+		return returnValue;
+	}//end of argmax method
+
+	/**
+	 * Marks every pair to be recomputed.
+	 */
+	public void invalidateAll(){
+		for(int i=0; i<pairFrom.length; i++){
+			pairFrom[i] = DIRTY;
+		}
+	}//end of invalidateAll method
+
+	/**
+	 * Clears the pair count metrics.
+	 */
+	public void resetMetrics(){
+		pairsComputed = 0;
+		pairsReused = 0;
+	}//end of resetMetrics method
+
+	/**
+	 * Brings the row of the aggression matrix for the specified fish up to
+	 * date, recomputing only the pairs whose fish have changed. Only
+	 * cichlids can see the other fish, so the row of any other fish has no
+	 * aggression at all.
+	 *
+	 * Aggression grows with closeness, relative size and relative speed,
+	 * each weighted by the species profile of the aggressive fish, is
+	 * doubled towards the opposite sex, and is scaled by visibility before
+	 * being mapped so that it approaches 2 from below.
+	 *
+	 * @param from the slot of the aggressive fish.
+	 */
+	private void computeRow(int from){
+		int base = from * fish.length;
+		int fromEpoch = stateEpochs[from];
+		Cichlid viewer = null;
+		SpeciesProfile profile = null;
+		if(fish[from] instanceof Cichlid){
+			viewer = (Cichlid)fish[from];
+			profile = viewer.getProfile();
+		}
+		for(int n=0; n<count; n++){
+			int j = order[n];
+			int pair = base + j;
+			if(pairFrom[pair] == fromEpoch && pairTo[pair] == stateEpochs[j]){
+				pairsReused++;
+			}
+			else{
+				double value = Double.NEGATIVE_INFINITY;
+				if(viewer != null && j != from){
+					float dx = posX[j] - posX[from];
+					float dy = posY[j] - posY[from];
+					float dz = posZ[j] - posZ[from];
+					double range = Math.sqrt(dx * dx + dy * dy + dz * dz);
+					value = 1 / range * profile.getDistanceWeight() +
+							sizes[from] / sizes[j] * profile.getSizeWeight() +
+							speeds[from] / speeds[j] * profile.getSpeedWeight();
+					value *= (sexes[j] == sexes[from]) ? 1 : 2;//different sexes attempt to mate
+					value *= viewer.calculateRelationships(fish[j]).getVisibility();//0 is blocked, 100 is visible
+					value = 2 - (1 / value);
+				}
+				aggression[pair] = value;
+				pairFrom[pair] = fromEpoch;
+				pairTo[pair] = stateEpochs[j];
+				pairsComputed++;
+			}
+		}
+		computed[from] = true;
+	}//end of computeRow method
+
+	/**
+	 * Marks the pairs whose line of sight crosses a part of the grid that
+	 * has changed since the last check.
+	 *
+	 * @param current the grid of the scenario, may be null.
+	 */
+	private void checkEnvironment(Grid current){
+		if(current != grid){
+			grid = current;
+			if(grid != null){
+				obstacleEpoch = grid.getObstacleEpoch();
+			}
+			invalidateAll();
+		}
+		else if(grid != null && grid.getObstacleEpoch() != obstacleEpoch){
+			int changed = grid.getChangesSince(obstacleEpoch, changes);
+			obstacleEpoch = grid.getObstacleEpoch();
+			if(changed < 0){
+				invalidateAll();
+			}
+			else{
+				for(int a=0; a<count; a++){
+					for(int b=a+1; b<count; b++){
+						int i = order[a];
+						int j = order[b];
+						if(crossesChange(i, j, changed)){
+							pairFrom[i * fish.length + j] = DIRTY;
+							pairFrom[j * fish.length + i] = DIRTY;
+						}
+					}
+				}
+			}
+		}
+	}//end of checkEnvironment method
+
+	/**
+	 * Returns whether or not the line between the two specified fish
+	 * crosses any of the changed cell ranges.
+	 *
+	 * @param i the slot of the first fish.
+	 * @param j the slot of the second fish.
+	 * @param changed the number of changed ranges.
+	 * @return true if the line crosses a changed range, false otherwise.
+	 */
+	private boolean crossesChange(int i, int j, int changed){
+		boolean returnValue = false;
+		float[] from = {posX[i], posY[i], posZ[i]};
+		float[] delta = {posX[j] - posX[i], posY[j] - posY[i], posZ[j] - posZ[i]};
+		float[] origin = {grid.getOriginX(), grid.getOriginY(), grid.getOriginZ()};
+		float[] incr = {grid.getXIncr(), grid.getYIncr(), grid.getZIncr()};
+		for(int c=0; c<changed && !returnValue; c++){
+			float tMin = 0;
+			float tMax = 1;
+			for(int axis=0; axis<3 && tMin <= tMax; axis++){//slab test against the range, widened by a cell
+				float low = origin[axis] + (changes[c * 6 + axis] - 1.5f) * incr[axis];
+				float high = origin[axis] + (changes[c * 6 + axis + 3] + 1.5f) * incr[axis];
+				if(delta[axis] == 0){
+					if(from[axis] < low || from[axis] > high){
+						tMax = -1;
+					}
+				}
+				else{
+					float t1 = (low - from[axis]) / delta[axis];
+					float t2 = (high - from[axis]) / delta[axis];
+					tMin = Math.max(tMin, Math.min(t1, t2));
+					tMax = Math.min(tMax, Math.max(t1, t2));
+				}
+			}
+			returnValue = tMin <= tMax;
+		}
+		return returnValue;
+	}//end of crossesChange method
+
+	/**
+	 * Returns the byte code for the specified sex, assigning a new code the
+	 * first time a sex is seen.
+	 *
+	 * @param sex the sex string.
+	 * @return the code.
+	 */
+	private byte sexCode(String sex){
+		Byte returnValue = sexCodes.get(sex);
+		if(returnValue == null){
+			returnValue = (byte)sexCodes.size();
+			sexCodes.put(sex, returnValue);
+		}
+		return returnValue;
+	}//end of sexCode method
+
+	/**
+	 * Returns a free slot for a new fish, growing the arrays as needed.
+	 *
+	 * @return the slot.
+	 */
+	private int allocateSlot(){
+		int returnValue;
+		if(freeCount > 0){
+			returnValue = freeSlots[--freeCount];
+		}
+		else{
+			if(slotCount == fish.length){
+				grow();
+			}
+			returnValue = slotCount++;
+		}
+		return returnValue;
+	}//end of allocateSlot method
+
+	/**
+	 * Doubles the capacity of the arrays. Since the stride of the matrix
+	 * changes, every pair is recomputed.
+	 */
+	private void grow(){
+		Fish[] oldFish = fish;
+		int[] oldHandles = handles;
+		float[] oldX = posX;
+		float[] oldY = posY;
+		float[] oldZ = posZ;
+		float[] oldSizes = sizes;
+		float[] oldSpeeds = speeds;
+		byte[] oldSexes = sexes;
+		int[] oldMovement = movementEpochs;
+		int[] oldState = stateEpochs;
+		long[] oldSeen = seen;
+		boolean[] oldComputed = computed;
+		int[] oldOrder = order;
+		allocate(fish.length * 2);
+		System.arraycopy(oldFish, 0, fish, 0, slotCount);
+		System.arraycopy(oldHandles, 0, handles, 0, slotCount);
+		System.arraycopy(oldX, 0, posX, 0, slotCount);
+		System.arraycopy(oldY, 0, posY, 0, slotCount);
+		System.arraycopy(oldZ, 0, posZ, 0, slotCount);
+		System.arraycopy(oldSizes, 0, sizes, 0, slotCount);
+		System.arraycopy(oldSpeeds, 0, speeds, 0, slotCount);
+		System.arraycopy(oldSexes, 0, sexes, 0, slotCount);
+		System.arraycopy(oldMovement, 0, movementEpochs, 0, slotCount);
+		System.arraycopy(oldState, 0, stateEpochs, 0, slotCount);
+		System.arraycopy(oldSeen, 0, seen, 0, slotCount);
+		System.arraycopy(oldComputed, 0, computed, 0, slotCount);
+		System.arraycopy(oldOrder, 0, order, 0, count);
+		for(int i=0; i<slotCount; i++){
+			computed[i] = false;
+		}
+		invalidateAll();
+	}//end of grow method
+
+	/**
+	 * Allocates empty arrays with the specified capacity.
+	 *
+	 * @param capacity the number of fish the arrays can hold.
+	 */
+	private void allocate(int capacity){
+		fish = new Fish[capacity];
+		handles = new int[capacity];
+		posX = new float[capacity];
+		posY = new float[capacity];
+		posZ = new float[capacity];
+		sizes = new float[capacity];
+		speeds = new float[capacity];
+		sexes = new byte[capacity];
+		movementEpochs = new int[capacity];
+		stateEpochs = new int[capacity];
+		seen = new long[capacity];
+		computed = new boolean[capacity];
+		order = new int[capacity];
+		freeSlots = new int[capacity];
+		aggression = new double[capacity * capacity];
+		pairFrom = new int[capacity * capacity];
+		pairTo = new int[capacity * capacity];
+		invalidateAll();
+	}//end of allocate method
+
+	//---------------------static main---------------------------------
+	//---------------------static methods------------------------------
+}//end of AggressionKernel class
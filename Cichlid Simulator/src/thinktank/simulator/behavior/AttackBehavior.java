@@ -0,0 +1,126 @@
+package thinktank.simulator.behavior;
+
+import thinktank.simulator.entity.Cichlid;
+import thinktank.simulator.entity.Fish;
+import thinktank.simulator.entity.Fish.BEHAVIOR;
+import thinktank.simulator.event.EventStream;
+import thinktank.simulator.main.SimulationContext;
+
+/**
+ * Handler for <code>BEHAVIOR.ATTACK</code>. The cichlid chases its target
+ * fish when its aggression towards the target passes the threshold of its
+ * species, and is greater than the target's own aggression, in which case
+ * the target is made to run.
+ *
+ * @author Vasher Lor
+ * @version %I%, %G%
+ */
+public class AttackBehavior implements IBehaviorHandler{
+	//---------------------static constants----------------------------
+	/**
+	 * Constant value for the cost of a tick; chasing follows a flow field.
+	 */
+	private static final int COST = 3;
+
+	//---------------------static variables----------------------------
+	/**
+	 * Singleton instance for the handler.
+	 */
+	private static AttackBehavior instance = null;
+
+	//---------------------instance constants--------------------------
+	//---------------------instance variables--------------------------
+	//---------------------constructors--------------------------------
+	/**
+	 * Constructs a basic, default <code>AttackBehavior</code>.
+	 */
+	private AttackBehavior(){}
+
+	//---------------------instance methods----------------------------
+	//GETTERS
+	/**
+	 * Returns the behavior this handler performs.
+	 *
+	 * @return <code>BEHAVIOR.ATTACK</code>.
+	 */
+	@Override
+	public BEHAVIOR getBehavior(){
+		return BEHAVIOR.ATTACK;
+	}//end of getBehavior method
+
+	/**
+	 * Returns the relative cost of one tick of this behavior.
+	 *
+	 * @return the cost.
+	 */
+	@Override
+	public int getCost(){
+		return COST;
+	}//end of getCost method
+
+	//OPERATIONS
+	/**
+	 * Clears the aggression left over from any previous attack, so the
+	 * target is chosen afresh.
+	 *
+	 * @param cichlid the cichlid.
+	 */
+	@Override
+	public void enter(Cichlid cichlid){
+		cichlid.setTargetAggression(0);
+	}//end of enter method
+
+	/**
+	 * Chases the target fish if the cichlid's aggression towards it is
+	 * high enough, letting the target know it is being chased. The start of
+	 * each chase is published to the context's event stream, if any, and every
+	 * tick of it is recorded on the context's interaction graph.
+	 *
+	 * @param cichlid the cichlid.
+	 * @param tpf time per frame.
+	 */
+	@Override
+	public void tick(Cichlid cichlid, float tpf){
+		Fish target = cichlid.getTargetFish();
+		double aggression = cichlid.getTargetAggression();
+		if(aggression > cichlid.getProfile().getAggressionThreshold() && aggression > target.getTargetAggression()){
+			SimulationContext context = cichlid.getContext();
+			boolean started = target.getTargetFish() != cichlid;
+			EventStream events = context.getEventStream();
+			if(events != null && started){
+				events.attack(context.getTime(), cichlid, target, (float)aggression);
+			}
+			context.getInteractionGraph().record(cichlid, target, started, tpf, context.getTime());
+			target.setRun();
+			target.setSpeed(cichlid.getSpeed() * (context.getRNG().nextFloat()));
+			target.setTargetFish(cichlid);
+			cichlid.attack(tpf);
+		}
+	}//end of tick method
+
+	/**
+	 * Nothing to clean up; the target keeps running until its own next
+	 * decision.
+	 *
+	 * @param cichlid the cichlid.
+	 */
+	@Override
+	public void exit(Cichlid cichlid){
+
+	}//end of exit method
+
+	//---------------------static main---------------------------------
+	//---------------------static methods------------------------------
+	/**
+	 * Returns the singleton instance of the handler.
+	 *
+	 * @return the singleton instance.
+	 */
+	public static AttackBehavior getInstance(){
+		if(instance == null){
+			instance = new AttackBehavior();
+		}
+		return instance;
+	}//end of getInstance method
+
+}//end of AttackBehavior class
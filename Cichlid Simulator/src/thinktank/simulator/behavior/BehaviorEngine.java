@@ -0,0 +1,195 @@
+package thinktank.simulator.behavior;
+
+import thinktank.simulator.entity.Cichlid;
+import thinktank.simulator.entity.Fish.BEHAVIOR;
+
+/**
+ * Dispatches the behaviors of cichlids to their handlers. Each
+ * <code>Fish.BEHAVIOR</code> has one registered <code>IBehaviorHandler</code>,
+ * looked up by ordinal, so adding a behavior means adding its enum value,
+ * its handler, and its transitions in the species profiles.
+ *
+ * The engine also enforces a budget on the total cost of the behavior
+ * ticks performed in one simulation tick. A cichlid whose tick would go
+ * over the budget keeps its current course instead, and is guaranteed its
+ * tick on the following simulation tick.
+ *
+ * @author Vasher Lor
+ * @version %I%, %G%
+ */
+public class BehaviorEngine{
+	//---------------------static constants----------------------------
+	//---------------------static variables----------------------------
+	//---------------------instance constants--------------------------
+	/**
+	 * The handler for each behavior, indexed by ordinal.
+	 */
+	private final IBehaviorHandler[] handlers;
+
+	//---------------------instance variables--------------------------
+	/**
+	 * The largest total cost of the behavior ticks in one simulation tick,
+	 * 0 for no limit.
+	 */
+	private int budget;
+	/**
+	 * The total cost of the behavior ticks in the current simulation tick.
+	 */
+	private int spent;
+	/**
+	 * The number of behavior ticks skipped in the current simulation tick.
+	 */
+	private int skipped;
+
+	//---------------------constructors--------------------------------
+	/**
+	 * Constructs a new engine with the handlers for all of the standard
+	 * behaviors registered, and no budget.
+	 */
+	public BehaviorEngine(){
+		handlers = new IBehaviorHandler[BEHAVIOR.values().length];
+		budget = 0;
+		spent = 0;
+		skipped = 0;
+		register(AttackBehavior.getInstance());
+		register(HideBehavior.getInstance());
+		register(DartBehavior.getInstance());
+		register(LoiterBehavior.getInstance());
+		register(RunBehavior.getInstance());
+	}//end of constructor
+
+	//---------------------instance methods----------------------------
+	//GETTERS
+	/**
+	 * Returns the handler registered for the specified behavior.
+	 *
+	 * @param behavior the behavior.
+	 * @return the handler, null if none is registered.
+	 */
+	public IBehaviorHandler getHandler(BEHAVIOR behavior){
+		IBehaviorHandler returnValue = null;
+		if(behavior != null){
+			returnValue = handlers[behavior.ordinal()];
+		}
+		return returnValue;
+	}//end of getHandler method
+
+	/**
+	 * Returns the largest total cost of the behavior ticks in one
+	 * simulation tick.
+	 *
+	 * @return the budget, 0 for no limit.
+	 */
+	public int getBudget(){
+		return budget;
+	}//end of getBudget method
+
+	/**
+	 * Returns the total cost of the behavior ticks in the current
+	 * simulation tick.
+	 *
+	 * @return the cost spent.
+	 */
+	public int getSpent(){
+		return spent;
+	}//end of getSpent method
+
+	/**
+	 * Returns the number of behavior ticks skipped in the current
+	 * simulation tick for lack of budget.
+	 *
+	 * @return the number of skipped ticks.
+	 */
+	public int getSkipped(){
+		return skipped;
+	}//end of getSkipped method
+
+	//SETTERS
+	/**
+	 * Sets the largest total cost of the behavior ticks in one
+	 * simulation tick.
+	 *
+	 * @param budget the budget, 0 or less for no limit.
+	 */
+	public void setBudget(int budget){
+		this.budget = Math.max(0, budget);
+	}//end of setBudget method
+
+	//OPERATIONS
+	/**
+	 * Registers the specified handler for its behavior, replacing any
+	 * handler previously registered for it.
+	 *
+	 * @param handler the handler.
+	 */
+	public void register(IBehaviorHandler handler){
+		handlers[handler.getBehavior().ordinal()] = handler;
+	}//end of register method
+
+	/**
+	 * Starts a new simulation tick. Should be called once per tick, before
+	 * any cichlids are updated.
+	 */
+	public void beginTick(){
+		spent = 0;
+		skipped = 0;
+	}//end of beginTick method
+
+	/**
+	 * Performs one tick of the specified cichlid's current behavior, if it
+	 * fits in the budget or is forced.
+	 *
+	 * @param cichlid the cichlid.
+	 * @param tpf time per frame.
+	 * @param force whether or not to perform the tick regardless of the budget.
+	 * @return true if the tick was performed, false if it was skipped.
+	 */
+	public boolean tick(Cichlid cichlid, float tpf, boolean force){
+		boolean returnValue = false;
+		IBehaviorHandler handler = getHandler(cichlid.getBehavior());
+		if(handler != null){
+			int cost = handler.getCost();
+			if(force || budget == 0 || spent + cost <= budget){
+				spent += cost;
+				handler.tick(cichlid, tpf);
+				returnValue = true;
+			}
+			else{
+				skipped++;
+			}
+		}
+		return returnValue;
+	}//end of tick method
+
+	/**
+	 * Calls the exit hook of the specified behavior for the specified
+	 * cichlid. On a change of behavior, the cichlid calls this before
+	 * setting its new behavior, and <code>enter()</code> after.
+	 *
+	 * @param cichlid the cichlid.
+	 * @param from the old behavior.
+	 */
+	public void exit(Cichlid cichlid, BEHAVIOR from){
+		IBehaviorHandler handler = getHandler(from);
+		if(handler != null){
+			handler.exit(cichlid);
+		}
+	}//end of exit method
+
+	/**
+	 * Calls the enter hook of the specified behavior for the specified
+	 * cichlid.
+	 *
+	 * @param cichlid the cichlid.
+	 * @param to the new behavior.
+	 */
+	public void enter(Cichlid cichlid, BEHAVIOR to){
+		IBehaviorHandler handler = getHandler(to);
+		if(handler != null){
+			handler.enter(cichlid);
+		}
+	}//end of enter method
+
+	//---------------------static main---------------------------------
+	//---------------------static methods------------------------------
+}//end of BehaviorEngine class
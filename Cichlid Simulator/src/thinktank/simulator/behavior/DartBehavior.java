@@ -0,0 +1,102 @@
+package thinktank.simulator.behavior;
+
+import thinktank.simulator.entity.Cichlid;
+import thinktank.simulator.entity.Fish.BEHAVIOR;
+
+/**
+ * Handler for <code>BEHAVIOR.DART</code>. The cichlid darts away from its
+ * target fish, in the same way as running, but by its own decision.
+ *
+ * @author Vasher Lor
+ * @version %I%, %G%
+ */
+public class DartBehavior implements IBehaviorHandler{
+	//---------------------static constants----------------------------
+	/**
+	 * Constant value for the cost of a tick; darting steps away along a flow field.
+	 */
+	private static final int COST = 2;
+
+	//---------------------static variables----------------------------
+	/**
+	 * Singleton instance for the handler.
+	 */
+	private static DartBehavior instance = null;
+
+	//---------------------instance constants--------------------------
+	//---------------------instance variables--------------------------
+	//---------------------constructors--------------------------------
+	/**
+	 * Constructs a basic, default <code>DartBehavior</code>.
+	 */
+	private DartBehavior(){}
+
+	//---------------------instance methods----------------------------
+	//GETTERS
+	/**
+	 * Returns the behavior this handler performs.
+	 *
+	 * @return <code>BEHAVIOR.DART</code>.
+	 */
+	@Override
+	public BEHAVIOR getBehavior(){
+		return BEHAVIOR.DART;
+	}//end of getBehavior method
+
+	/**
+	 * Returns the relative cost of one tick of this behavior.
+	 *
+	 * @return the cost.
+	 */
+	@Override
+	public int getCost(){
+		return COST;
+	}//end of getCost method
+
+	//OPERATIONS
+	/**
+	 * Nothing to set up.
+	 *
+	 * @param cichlid the cichlid.
+	 */
+	@Override
+	public void enter(Cichlid cichlid){
+
+	}//end of enter method
+
+	/**
+	 * Moves the cichlid one cell away from its target fish.
+	 *
+	 * @param cichlid the cichlid.
+	 * @param tpf time per frame.
+	 */
+	@Override
+	public void tick(Cichlid cichlid, float tpf){
+		cichlid.run(tpf);
+	}//end of tick method
+
+	/**
+	 * Nothing to clean up.
+	 *
+	 * @param cichlid the cichlid.
+	 */
+	@Override
+	public void exit(Cichlid cichlid){
+
+	}//end of exit method
+
+	//---------------------static main---------------------------------
+	//---------------------static methods------------------------------
+	/**
+	 * Returns the singleton instance of the handler.
+	 *
+	 * @return the singleton instance.
+	 */
+	public static DartBehavior getInstance(){
+		if(instance == null){
+			instance = new DartBehavior();
+		}
+		return instance;
+	}//end of getInstance method
+
+}//end of DartBehavior class
@@ -0,0 +1,110 @@
+package thinktank.simulator.behavior;
+
+import thinktank.simulator.entity.Cichlid;
+import thinktank.simulator.entity.Fish.BEHAVIOR;
+import thinktank.simulator.event.EventStream;
+
+/**
+ * Handler for <code>BEHAVIOR.HIDE</code>. The cichlid moves behind the
+ * nearest shelter, as seen from its target fish, if it has found one.
+ *
+ * @author Vasher Lor
+ * @version %I%, %G%
+ */
+public class HideBehavior implements IBehaviorHandler{
+	//---------------------static constants----------------------------
+	/**
+	 * Constant value for the cost of a tick; hiding searches the shelter field and follows a flow field.
+	 */
+	private static final int COST = 3;
+
+	//---------------------static variables----------------------------
+	/**
+	 * Singleton instance for the handler.
+	 */
+	private static HideBehavior instance = null;
+
+	//---------------------instance constants--------------------------
+	//---------------------instance variables--------------------------
+	//---------------------constructors--------------------------------
+	/**
+	 * Constructs a basic, default <code>HideBehavior</code>.
+	 */
+	private HideBehavior(){}
+
+	//---------------------instance methods----------------------------
+	//GETTERS
+	/**
+	 * Returns the behavior this handler performs.
+	 *
+	 * @return <code>BEHAVIOR.HIDE</code>.
+	 */
+	@Override
+	public BEHAVIOR getBehavior(){
+		return BEHAVIOR.HIDE;
+	}//end of getBehavior method
+
+	/**
+	 * Returns the relative cost of one tick of this behavior.
+	 *
+	 * @return the cost.
+	 */
+	@Override
+	public int getCost(){
+		return COST;
+	}//end of getCost method
+
+	//OPERATIONS
+	/**
+	 * Publishes the start of hiding, behind the shelter last found, to the
+	 * context's event stream, if any; the shelter itself is found on each
+	 * tick.
+	 *
+	 * @param cichlid the cichlid.
+	 */
+	@Override
+	public void enter(Cichlid cichlid){
+		EventStream events = cichlid.getContext().getEventStream();
+		if(events != null){
+			events.hide(cichlid.getContext().getTime(), cichlid, cichlid.getShelterObject(), (float)cichlid.getShelterWeight());
+		}
+	}//end of enter method
+
+	/**
+	 * Moves the cichlid towards the cell behind its shelter, if it has one.
+	 *
+	 * @param cichlid the cichlid.
+	 * @param tpf time per frame.
+	 */
+	@Override
+	public void tick(Cichlid cichlid, float tpf){
+		if(cichlid.getShelterWeight() > 0){
+			cichlid.hide(tpf);
+		}
+	}//end of tick method
+
+	/**
+	 * Nothing to clean up.
+	 *
+	 * @param cichlid the cichlid.
+	 */
+	@Override
+	public void exit(Cichlid cichlid){
+
+	}//end of exit method
+
+	//---------------------static main---------------------------------
+	//---------------------static methods------------------------------
+	/**
+	 * Returns the singleton instance of the handler.
+	 *
+	 * @return the singleton instance.
+	 */
+	public static HideBehavior getInstance(){
+		if(instance == null){
+			instance = new HideBehavior();
+		}
+		return instance;
+	}//end of getInstance method
+
+}//end of HideBehavior class
@@ -0,0 +1,58 @@
+package thinktank.simulator.behavior;
+
+import thinktank.simulator.entity.Cichlid;
+import thinktank.simulator.entity.Fish.BEHAVIOR;
+
+/**
+ * Interface for the handler of one <code>Fish.BEHAVIOR</code>. The
+ * <code>BehaviorEngine</code> calls <code>enter()</code> when a cichlid
+ * starts the behavior, <code>tick()</code> on each of its full AI updates
+ * while performing it, and <code>exit()</code> when it changes to another
+ * behavior.
+ *
+ * Handlers are shared by all cichlids, so any state they need must be
+ * kept on the cichlid itself.
+ *
+ * @author Vasher Lor
+ * @version %I%, %G%
+ */
+public interface IBehaviorHandler{
+
+	/**
+	 * Returns the behavior this handler performs.
+	 *
+	 * @return the behavior.
+	 */
+	BEHAVIOR getBehavior();
+
+	/**
+	 * Returns the relative cost of one tick of this behavior, which is
+	 * charged against the engine's per-tick budget.
+	 *
+	 * @return the cost, at least 1.
+	 */
+	int getCost();
+
+	/**
+	 * Called when the specified cichlid starts performing the behavior.
+	 *
+	 * @param cichlid the cichlid.
+	 */
+	void enter(Cichlid cichlid);
+
+	/**
+	 * Performs one tick of the behavior for the specified cichlid.
+	 *
+	 * @param cichlid the cichlid.
+	 * @param tpf time per frame.
+	 */
+	void tick(Cichlid cichlid, float tpf);
+
+	/**
+	 * Called when the specified cichlid stops performing the behavior.
+	 *
+	 * @param cichlid the cichlid.
+	 */
+	void exit(Cichlid cichlid);
+
+}//end of IBehaviorHandler interface
@@ -0,0 +1,102 @@
+package thinktank.simulator.behavior;
+
+import thinktank.simulator.entity.Cichlid;
+import thinktank.simulator.entity.Fish.BEHAVIOR;
+
+/**
+ * Handler for <code>BEHAVIOR.LOITER</code>. The cichlid stops and hovers
+ * in place.
+ *
+ * @author Vasher Lor
+ * @version %I%, %G%
+ */
+public class LoiterBehavior implements IBehaviorHandler{
+	//---------------------static constants----------------------------
+	/**
+	 * Constant value for the cost of a tick; loitering only hovers in place.
+	 */
+	private static final int COST = 1;
+
+	//---------------------static variables----------------------------
+	/**
+	 * Singleton instance for the handler.
+	 */
+	private static LoiterBehavior instance = null;
+
+	//---------------------instance constants--------------------------
+	//---------------------instance variables--------------------------
+	//---------------------constructors--------------------------------
+	/**
+	 * Constructs a basic, default <code>LoiterBehavior</code>.
+	 */
+	private LoiterBehavior(){}
+
+	//---------------------instance methods----------------------------
+	//GETTERS
+	/**
+	 * Returns the behavior this handler performs.
+	 *
+	 * @return <code>BEHAVIOR.LOITER</code>.
+	 */
+	@Override
+	public BEHAVIOR getBehavior(){
+		return BEHAVIOR.LOITER;
+	}//end of getBehavior method
+
+	/**
+	 * Returns the relative cost of one tick of this behavior.
+	 *
+	 * @return the cost.
+	 */
+	@Override
+	public int getCost(){
+		return COST;
+	}//end of getCost method
+
+	//OPERATIONS
+	/**
+	 * Nothing to set up.
+	 *
+	 * @param cichlid the cichlid.
+	 */
+	@Override
+	public void enter(Cichlid cichlid){
+
+	}//end of enter method
+
+	/**
+	 * Stops the cichlid and makes it hover.
+	 *
+	 * @param cichlid the cichlid.
+	 * @param tpf time per frame.
+	 */
+	@Override
+	public void tick(Cichlid cichlid, float tpf){
+		cichlid.loiter(tpf);
+	}//end of tick method
+
+	/**
+	 * Nothing to clean up.
+	 *
+	 * @param cichlid the cichlid.
+	 */
+	@Override
+	public void exit(Cichlid cichlid){
+
+	}//end of exit method
+
+	//---------------------static main---------------------------------
+	//---------------------static methods------------------------------
+	/**
+	 * Returns the singleton instance of the handler.
+	 *
+	 * @return the singleton instance.
+	 */
+	public static LoiterBehavior getInstance(){
+		if(instance == null){
+			instance = new LoiterBehavior();
+		}
+		return instance;
+	}//end of getInstance method
+
+}//end of LoiterBehavior class
@@ -0,0 +1,102 @@
+package thinktank.simulator.behavior;
+
+import thinktank.simulator.entity.Cichlid;
+import thinktank.simulator.entity.Fish.BEHAVIOR;
+
+/**
+ * Handler for <code>BEHAVIOR.RUN</code>. The cichlid flees from its target
+ * fish, which is usually the fish attacking it.
+ *
+ * @author Vasher Lor
+ * @version %I%, %G%
+ */
+public class RunBehavior implements IBehaviorHandler{
+	//---------------------static constants----------------------------
+	/**
+	 * Constant value for the cost of a tick; running steps away along a flow field.
+	 */
+	private static final int COST = 2;
+
+	//---------------------static variables----------------------------
+	/**
+	 * Singleton instance for the handler.
+	 */
+	private static RunBehavior instance = null;
+
+	//---------------------instance constants--------------------------
+	//---------------------instance variables--------------------------
+	//---------------------constructors--------------------------------
+	/**
+	 * Constructs a basic, default <code>RunBehavior</code>.
+	 */
+	private RunBehavior(){}
+
+	//---------------------instance methods----------------------------
+	//GETTERS
+	/**
+	 * Returns the behavior this handler performs.
+	 *
+	 * @return <code>BEHAVIOR.RUN</code>.
+	 */
+	@Override
+	public BEHAVIOR getBehavior(){
+		return BEHAVIOR.RUN;
+	}//end of getBehavior method
+
+	/**
+	 * Returns the relative cost of one tick of this behavior.
+	 *
+	 * @return the cost.
+	 */
+	@Override
+	public int getCost(){
+		return COST;
+	}//end of getCost method
+
+	//OPERATIONS
+	/**
+	 * Nothing to set up; the attacker sets the cichlid's target and speed.
+	 *
+	 * @param cichlid the cichlid.
+	 */
+	@Override
+	public void enter(Cichlid cichlid){
+
+	}//end of enter method
+
+	/**
+	 * Moves the cichlid one cell away from its target fish.
+	 *
+	 * @param cichlid the cichlid.
+	 * @param tpf time per frame.
+	 */
+	@Override
+	public void tick(Cichlid cichlid, float tpf){
+		cichlid.run(tpf);
+	}//end of tick method
+
+	/**
+	 * Nothing to clean up; the cichlid's speed is reset at its next decision.
+	 *
+	 * @param cichlid the cichlid.
+	 */
+	@Override
+	public void exit(Cichlid cichlid){
+
+	}//end of exit method
+
+	//---------------------static main---------------------------------
+	//---------------------static methods------------------------------
+	/**
+	 * Returns the singleton instance of the handler.
+	 *
+	 * @return the singleton instance.
+	 */
+	public static RunBehavior getInstance(){
+		if(instance == null){
+			instance = new RunBehavior();
+		}
+		return instance;
+	}//end of getInstance method
+
+}//end of RunBehavior class
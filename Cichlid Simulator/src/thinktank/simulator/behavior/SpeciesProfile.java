@@ -0,0 +1,435 @@
+package thinktank.simulator.behavior;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Random;
+
+import thinktank.simulator.entity.Fish.BEHAVIOR;
+import thinktank.simulator.util.ConfigLoader;
+
+/**
+ * The behavioral parameters of one species of fish: the weights used to
+ * calculate aggression, the timing of behavior decisions, and the
+ * probability of changing from each behavior to each other behavior.
+ *
+ * A profile is read from the file "settings/behavior/&lt;species&gt;.txt",
+ * if it exists. Any values not contained in the file keep their defaults,
+ * which reproduce the original hard-coded cichlid behavior. The structure
+ * of the entries follows "config.txt":
+ *
+ * 		name=value
+ * 		transition.FROM.TO=weight
+ *
+ * with one entry per line, and lines starting with '#' ignored. The
+ * transition weights from a behavior are relative to each other; a
+ * behavior whose weights are all zero is kept until it is changed by
+ * something other than a decision.
+ *
+ * The profile returned by <code>getProfile()</code> is shared by every
+ * simulation. A simulation whose parameters differ, such as a run of a
+ * parameter sweep, is given its own copy by its context.
+ *
+ * @author Vasher Lor
+ * @version %I%, %G%
+ */
+public class SpeciesProfile{
+	//---------------------static constants----------------------------
+	/**
+	 * Constant string representation of the behavior settings folder name.
+	 */
+	public static final String BEHAVIOR_FOLDER = "behavior";
+	/**
+	 * Constant string for the prefix of transition entries.
+	 */
+	private static final String TRANSITION_PREFIX = "transition.";
+	/**
+	 * Constant string for the prefix of hold time entries.
+	 */
+	private static final String HOLD_PREFIX = "hold.";
+
+	//---------------------static variables----------------------------
+	/**
+	 * The profiles loaded so far, by species name.
+	 */
+	private static HashMap<String,SpeciesProfile> profiles = new HashMap<String,SpeciesProfile>();
+
+	//---------------------instance constants--------------------------
+	/**
+	 * The name of the species.
+	 */
+	private final String species;
+	/**
+	 * The relative weight of changing from each behavior (first index) to
+	 * each behavior (second index), indexed by ordinal.
+	 */
+	private final float[][] transitions;
+	/**
+	 * The running totals of each row of <code>transitions</code>, for
+	 * picking the next behavior with a single random number.
+	 */
+	private final float[][] cumulative;
+	/**
+	 * The longest time, in seconds, until the decision following the choice
+	 * of each behavior, indexed by ordinal.
+	 */
+	private final float[] holdTimes;
+
+	//---------------------instance variables--------------------------
+	/**
+	 * The aggression a fish must exceed before it attacks.
+	 */
+	private double aggressionThreshold;
+	/**
+	 * The weight of the distance between two fish in their aggression.
+	 */
+	private double distanceWeight;
+	/**
+	 * The weight of the relative size of two fish in their aggression.
+	 */
+	private double sizeWeight;
+	/**
+	 * The weight of the relative speed of two fish in their aggression.
+	 */
+	private double speedWeight;
+	/**
+	 * The longest time, in seconds, until a new fish's first decision.
+	 */
+	private float initialInterval;
+	/**
+	 * The smallest factor by which a fish's speed is multiplied when it
+	 * makes a decision.
+	 */
+	private float speedBoostMin;
+	/**
+	 * The largest factor by which a fish's speed is multiplied when it
+	 * makes a decision.
+	 */
+	private float speedBoostMax;
+
+	//---------------------constructors--------------------------------
+	/**
+	 * Constructs a profile with the default values for the specified species.
+	 *
+	 * @param species the name of the species.
+	 */
+	public SpeciesProfile(String species){
+		int count = BEHAVIOR.values().length;
+		this.species = species;
+		transitions = new float[count][count];
+		cumulative = new float[count][count];
+		holdTimes = new float[count];
+		aggressionThreshold = 1.998;
+		distanceWeight = 1.005;
+		sizeWeight = 1.002;
+		speedWeight = 1;
+		initialInterval = 10;
+		speedBoostMin = 1;
+		speedBoostMax = 2;
+		for(BEHAVIOR from : BEHAVIOR.values()){
+			holdTimes[from.ordinal()] = 4;
+			//attacking may always be chosen, the other moves only if they are a change
+			transitions[from.ordinal()][BEHAVIOR.ATTACK.ordinal()] = 1;
+			for(BEHAVIOR to : new BEHAVIOR[]{BEHAVIOR.HIDE, BEHAVIOR.DART, BEHAVIOR.LOITER}){
+				if(to != from){
+					transitions[from.ordinal()][to.ordinal()] = 1;
+				}
+			}
+		}
+		holdTimes[BEHAVIOR.ATTACK.ordinal()] = 15;//long enough to allow the attack to happen
+		buildTables();
+	}//end of constructor
+
+	/**
+	 * Constructs a copy of the specified profile, whose values may be
+	 * changed without affecting the original.
+	 *
+	 * @param other the profile copied.
+	 */
+	public SpeciesProfile(SpeciesProfile other){
+		int count = BEHAVIOR.values().length;
+		species = other.species;
+		transitions = new float[count][count];
+		cumulative = new float[count][count];
+		for(int i=0; i<count; i++){
+			System.arraycopy(other.transitions[i], 0, transitions[i], 0, count);
+		}
+		holdTimes = other.holdTimes.clone();
+		aggressionThreshold = other.aggressionThreshold;
+		distanceWeight = other.distanceWeight;
+		sizeWeight = other.sizeWeight;
+		speedWeight = other.speedWeight;
+		initialInterval = other.initialInterval;
+		speedBoostMin = other.speedBoostMin;
+		speedBoostMax = other.speedBoostMax;
+		buildTables();
+	}//end of (SpeciesProfile) constructor
+
+	//---------------------instance methods----------------------------
+	//GETTERS
+	/**
+	 * Returns the name of the species.
+	 *
+	 * @return the species name.
+	 */
+	public String getSpecies(){
+		return species;
+	}//end of getSpecies method
+
+	/**
+	 * Returns the aggression a fish must exceed before it attacks.
+	 *
+	 * @return the aggression threshold.
+	 */
+	public double getAggressionThreshold(){
+		return aggressionThreshold;
+	}//end of getAggressionThreshold method
+
+	/**
+	 * Returns the weight of the distance between two fish in their aggression.
+	 *
+	 * @return the distance weight.
+	 */
+	public double getDistanceWeight(){
+		return distanceWeight;
+	}//end of getDistanceWeight method
+
+	/**
+	 * Returns the weight of the relative size of two fish in their aggression.
+	 *
+	 * @return the size weight.
+	 */
+	public double getSizeWeight(){
+		return sizeWeight;
+	}//end of getSizeWeight method
+
+	/**
+	 * Returns the weight of the relative speed of two fish in their aggression.
+	 *
+	 * @return the speed weight.
+	 */
+	public double getSpeedWeight(){
+		return speedWeight;
+	}//end of getSpeedWeight method
+
+	/**
+	 * Returns the longest time until a new fish's first decision.
+	 *
+	 * @return the initial interval, in seconds.
+	 */
+	public float getInitialInterval(){
+		return initialInterval;
+	}//end of getInitialInterval method
+
+	/**
+	 * Returns the longest time until the decision following the choice of
+	 * the specified behavior.
+	 *
+	 * @param behavior the chosen behavior.
+	 * @return the hold time, in seconds.
+	 */
+	public float getHoldTime(BEHAVIOR behavior){
+		return holdTimes[behavior.ordinal()];
+	}//end of getHoldTime method
+
+	/**
+	 * Returns the relative weight of changing between the specified behaviors.
+	 *
+	 * @param from the current behavior.
+	 * @param to the next behavior.
+	 * @return the transition weight.
+	 */
+	public float getTransition(BEHAVIOR from, BEHAVIOR to){
+		return transitions[from.ordinal()][to.ordinal()];
+	}//end of getTransition method
+
+	//SETTERS
+	/**
+	 * Sets the value of the specified entry, named as in a profile file,
+	 * such as "aggression-threshold" or "transition.LOITER.ATTACK".
+	 *
+	 * @param name the entry name.
+	 * @param value the entry value.
+	 * @throws IllegalArgumentException if there is no such entry.
+	 */
+	public void setParameter(String name, double value){
+		if(!apply(name, Double.toString(value))){
+			throw new IllegalArgumentException("Unknown behavior setting: " + name);
+		}
+		buildTables();
+	}//end of setParameter method
+
+	//OPERATIONS
+	/**
+	 * Picks the behavior following the specified behavior, at random
+	 * according to the transition weights.
+	 *
+	 * @param current the current behavior.
+	 * @param rng the random number generator to use.
+	 * @return the next behavior, or the current behavior if it has no
+	 * transitions.
+	 */
+	public BEHAVIOR pickNext(BEHAVIOR current, Random rng){
+		BEHAVIOR returnValue = current;
+		float[] row = cumulative[current.ordinal()];
+		float total = row[row.length - 1];
+		if(total > 0){
+			float pick = rng.nextFloat() * total;
+			int low = 0;
+			int high = row.length - 1;
+			while(low < high){//first entry whose running total exceeds the pick
+				int mid = (low + high) >>> 1;
+				if(row[mid] > pick){
+					high = mid;
+				}
+				else{
+					low = mid + 1;
+				}
+			}
+			returnValue = BEHAVIOR.values()[low];
+		}
+		return returnValue;
+	}//end of pickNext method
+
+	/**
+	 * Returns a random time until the decision following the choice of the
+	 * specified behavior, up to its hold time.
+	 *
+	 * @param behavior the chosen behavior.
+	 * @param rng the random number generator to use.
+	 * @return the time, in seconds.
+	 */
+	public float pickHoldTime(BEHAVIOR behavior, Random rng){
+		return rng.nextFloat() * holdTimes[behavior.ordinal()];
+	}//end of pickHoldTime method
+
+	/**
+	 * Returns a random factor for the change of speed that comes with a
+	 * decision.
+	 *
+	 * @param rng the random number generator to use.
+	 * @return the speed factor.
+	 */
+	public float pickSpeedBoost(Random rng){
+		return speedBoostMin + rng.nextFloat() * (speedBoostMax - speedBoostMin);
+	}//end of pickSpeedBoost method
+
+	/**
+	 * Sets the value of the specified entry, as read from a profile file.
+	 *
+	 * @param name the entry name.
+	 * @param value the entry value.
+	 * @return true if the entry exists, false otherwise.
+	 */
+	private boolean apply(String name, String value){
+		boolean returnValue = true;
+		if(name.startsWith(TRANSITION_PREFIX)){
+			String[] pair = name.substring(TRANSITION_PREFIX.length()).split("\\.");
+			if(pair.length == 2){
+				transitions[BEHAVIOR.valueOf(pair[0]).ordinal()][BEHAVIOR.valueOf(pair[1]).ordinal()] =
+						Math.max(0, Float.parseFloat(value));
+			}
+		}
+		else if(name.startsWith(HOLD_PREFIX)){
+			holdTimes[BEHAVIOR.valueOf(name.substring(HOLD_PREFIX.length())).ordinal()] = Float.parseFloat(value);
+		}
+		else if(name.equals("aggression-threshold")){
+			aggressionThreshold = Double.parseDouble(value);
+		}
+		else if(name.equals("distance-weight")){
+			distanceWeight = Double.parseDouble(value);
+		}
+		else if(name.equals("size-weight")){
+			sizeWeight = Double.parseDouble(value);
+		}
+		else if(name.equals("speed-weight")){
+			speedWeight = Double.parseDouble(value);
+		}
+		else if(name.equals("initial-interval")){
+			initialInterval = Float.parseFloat(value);
+		}
+		else if(name.equals("speed-boost-min")){
+			speedBoostMin = Float.parseFloat(value);
+		}
+		else if(name.equals("speed-boost-max")){
+			speedBoostMax = Float.parseFloat(value);
+		}
+		else{
+			returnValue = false;
+		}
+		return returnValue;
+	}//end of apply method
+
+	/**
+	 * Recomputes the running totals of the transition weights.
+	 */
+	private void buildTables(){
+		for(int from=0; from<transitions.length; from++){
+			float total = 0;
+			for(int to=0; to<transitions[from].length; to++){
+				total += transitions[from][to];
+				cumulative[from][to] = total;
+			}
+		}
+	}//end of buildTables method
+
+	//---------------------static main---------------------------------
+	//---------------------static methods------------------------------
+	/**
+	 * Returns the profile for the specified species, loading it from its
+	 * file the first time it is requested.
+	 *
+	 * @param species the name of the species.
+	 * @return the profile.
+	 */
+	public static synchronized SpeciesProfile getProfile(String species){
+		SpeciesProfile returnValue = profiles.get(species);
+		if(returnValue == null){
+			returnValue = load(species);
+			profiles.put(species, returnValue);
+		}
+		return returnValue;
+	}//end of getProfile method
+
+	/**
+	 * Loads the profile for the specified species from its file. Entries
+	 * that cannot be read are reported and skipped.
+	 *
+	 * @param species the name of the species.
+	 * @return the profile, with default values if the file does not exist.
+	 */
+	public static SpeciesProfile load(String species){
+		SpeciesProfile returnValue = new SpeciesProfile(species);
+		Path path = FileSystems.getDefault().getPath(ConfigLoader.SETTINGS_FOLDER, BEHAVIOR_FOLDER, species + ".txt");
+		if(path.toFile().exists()){
+			try(BufferedReader reader = Files.newBufferedReader(path, Charset.forName("US-ASCII"))){
+				String line = null;
+				while((line = reader.readLine()) != null){
+					line = line.trim();
+					int delimiterIndex = line.indexOf('=');
+					if(line.length() > 0 && !line.startsWith("#") && delimiterIndex > 0){
+						try{
+							String name = line.substring(0, delimiterIndex).trim();
+							if(!returnValue.apply(name, line.substring(delimiterIndex + 1).trim())){
+								System.err.println("Unknown behavior setting for " + species + ": " + name);
+							}
+						}
+						catch(IllegalArgumentException ex){
+							System.err.println("Invalid behavior setting for " + species + ": " + line);
+						}
+					}
+				}
+			}
+			catch(IOException x){
+				System.err.format("IOException: %s%n", x);
+			}
+		}
+		returnValue.buildTables();
+		return returnValue;
+	}//end of load method
+
+}//end of SpeciesProfile class
@@ -0,0 +1,142 @@
+package thinktank.simulator.benchmark;
+
+import java.util.Random;
+
+import com.jme3.system.AppSettings;
+
+import thinktank.simulator.environment.TANK_TYPE;
+import thinktank.simulator.main.SimulationSession;
+import thinktank.simulator.scenario.Scenario;
+import thinktank.simulator.scenario.ScenarioGenerator;
+
+/**
+ * A headless scenario populated with a set number of fish, plants and
+ * pots by the <code>ScenarioGenerator</code>, for benchmarks to run against. The
+ * scenario is simulated by a <code>SimulationSession</code>, which has
+ * been stepped for a short while so the fish have spread out and chosen
+ * their behaviors.
+ *
+ * @author Vasher Lor
+ * @version %I%, %G%
+ */
+public class BenchmarkFixture{
+	//---------------------static constants----------------------------
+	/**
+	 * Constant value for the tank type used, which is the largest.
+	 */
+	public static final TANK_TYPE TANK = TANK_TYPE.FIFTY_GAL;
+	/**
+	 * Constant value for the number of ticks the session is stepped before
+	 * the fixture is used.
+	 */
+	public static final int SETTLE_TICKS = 30;
+
+	//---------------------static variables----------------------------
+	//---------------------instance constants--------------------------
+	/**
+	 * The number of fish in the scenario.
+	 */
+	private final int fishCount;
+	/**
+	 * The number of plants in the scenario.
+	 */
+	private final int plantCount;
+	/**
+	 * The number of pots in the scenario.
+	 */
+	private final int potCount;
+	/**
+	 * The session simulating the scenario.
+	 */
+	private final SimulationSession session;
+	/**
+	 * The seeded random number generator for the benchmarks' own use.
+	 */
+	private final Random rng;
+
+	//---------------------instance variables--------------------------
+	//---------------------constructors--------------------------------
+	/**
+	 * Constructs a new fixture with the specified numbers of entities.
+	 *
+	 * @param fishCount the number of fish.
+	 * @param plantCount the number of plants.
+	 * @param potCount the number of pots.
+	 * @param seed the seed for placing the entities and for the benchmarks.
+	 * @param settings the simulation settings.
+	 */
+	public BenchmarkFixture(int fishCount, int plantCount, int potCount, long seed, AppSettings settings){
+		this.fishCount = fishCount;
+		this.plantCount = plantCount;
+		this.potCount = potCount;
+		rng = new Random(seed);
+		SimulationSession.initAssets();
+		ScenarioGenerator generator = new ScenarioGenerator(seed);
+		generator.setTankType(TANK);
+		generator.setFishCount(fishCount);
+		generator.setPlantCount(plantCount);
+		generator.setPotCount(potCount);
+		Scenario scenario = generator.generate();
+		session = new SimulationSession(scenario, settings);
+		session.step(SETTLE_TICKS);
+	}//end of constructor
+
+	//---------------------instance methods----------------------------
+	//GETTERS
+	/**
+	 * Returns the number of fish in the scenario.
+	 *
+	 * @return the number of fish.
+	 */
+	public int getFishCount(){
+		return fishCount;
+	}//end of getFishCount method
+
+	/**
+	 * Returns the number of plants in the scenario.
+	 *
+	 * @return the number of plants.
+	 */
+	public int getPlantCount(){
+		return plantCount;
+	}//end of getPlantCount method
+
+	/**
+	 * Returns the number of pots in the scenario.
+	 *
+	 * @return the number of pots.
+	 */
+	public int getPotCount(){
+		return potCount;
+	}//end of getPotCount method
+
+	/**
+	 * Returns the session simulating the scenario.
+	 *
+	 * @return the session.
+	 */
+	public SimulationSession getSession(){
+		return session;
+	}//end of getSession method
+
+	/**
+	 * Returns the scenario.
+	 *
+	 * @return the scenario.
+	 */
+	public Scenario getScenario(){
+		return session.getScenario();
+	}//end of getScenario method
+
+	/**
+	 * Returns the seeded random number generator of the fixture.
+	 *
+	 * @return the random number generator.
+	 */
+	public Random getRNG(){
+		return rng;
+	}//end of getRNG method
+
+	//---------------------static main---------------------------------
+	//---------------------static methods------------------------------
+}//end of BenchmarkFixture class
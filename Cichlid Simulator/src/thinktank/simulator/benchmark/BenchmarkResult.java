@@ -0,0 +1,270 @@
+package thinktank.simulator.benchmark;
+
+import java.util.Locale;
+
+/**
+ * The measurements of one benchmark for one combination of fish, plant
+ * and pot counts: the average time per operation in each measurement
+ * iteration, and the statistics over them.
+ *
+ * Results are written as JSON in the layout used by JMH, so existing tools
+ * for comparing JMH results can read them.
+ *
+ * @author Vasher Lor
+ * @version %I%, %G%
+ */
+public class BenchmarkResult{
+	//---------------------static constants----------------------------
+	/**
+	 * Constant string for the unit of the scores.
+	 */
+	public static final String UNIT = "ns/op";
+	/**
+	 * Constant value for the confidence of the interval given as the error
+	 * of the score, as in JMH.
+	 */
+	private static final double CONFIDENCE = 0.999;
+
+	//---------------------static variables----------------------------
+	//---------------------instance constants--------------------------
+	/**
+	 * The name of the benchmark.
+	 */
+	private final String name;
+	/**
+	 * The number of fish in the fixture.
+	 */
+	private final int fishCount;
+	/**
+	 * The number of plants in the fixture.
+	 */
+	private final int plantCount;
+	/**
+	 * The number of pots in the fixture.
+	 */
+	private final int potCount;
+	/**
+	 * The number of warmup iterations run.
+	 */
+	private final int warmupIterations;
+	/**
+	 * The average time per operation in each measurement iteration, in
+	 * nanoseconds.
+	 */
+	private final double[] scores;
+
+	//---------------------instance variables--------------------------
+	//---------------------constructors--------------------------------
+	/**
+	 * Constructs a new result.
+	 *
+	 * @param name the name of the benchmark.
+	 * @param fishCount the number of fish.
+	 * @param plantCount the number of plants.
+	 * @param potCount the number of pots.
+	 * @param warmupIterations the number of warmup iterations.
+	 * @param scores the time per operation in each measurement iteration.
+	 */
+	public BenchmarkResult(String name, int fishCount, int plantCount, int potCount, int warmupIterations, double[] scores){
+		this.name = name;
+		this.fishCount = fishCount;
+		this.plantCount = plantCount;
+		this.potCount = potCount;
+		this.warmupIterations = warmupIterations;
+		this.scores = scores;
+	}//end of constructor
+
+	//---------------------instance methods----------------------------
+	//GETTERS
+	/**
+	 * Returns the name of the benchmark.
+	 *
+	 * @return the name.
+	 */
+	public String getName(){
+		return name;
+	}//end of getName method
+
+	/**
+	 * Returns the mean time per operation over the measurement iterations.
+	 *
+	 * @return the score, in nanoseconds.
+	 */
+	public double getScore(){
+		double returnValue = 0;
+		for(int i=0; i<scores.length; i++){
+			returnValue += scores[i];
+		}
+		if(scores.length > 0){
+			returnValue /= scores.length;
+		}
+		return returnValue;
+	}//end of getScore method
+
+	/**
+	 * Returns the half-width of the 99.9% confidence interval of the score,
+	 * from the Student's t distribution with one degree of freedom fewer
+	 * than the number of iterations, as JMH reports it.
+	 *
+	 * @return the error, in nanoseconds, 0 with fewer than two iterations.
+	 */
+	public double getScoreError(){
+		double returnValue = 0;
+		if(scores.length > 1){
+			double mean = getScore();
+			double sum = 0;
+			for(int i=0; i<scores.length; i++){
+				sum += (scores[i] - mean) * (scores[i] - mean);
+			}
+			double deviation = Math.sqrt(sum / (scores.length - 1));
+			returnValue = studentQuantile(CONFIDENCE, scores.length - 1) * deviation / Math.sqrt(scores.length);
+		}
+		return returnValue;
+	}//end of getScoreError method
+
+	/**
+	 * Returns the lowest time per operation of the measurement iterations.
+	 *
+	 * @return the minimum, in nanoseconds.
+	 */
+	public double getMin(){
+		double returnValue = Double.MAX_VALUE;
+		for(int i=0; i<scores.length; i++){
+			returnValue = Math.min(returnValue, scores[i]);
+		}
+		return returnValue;
+	}//end of getMin method
+
+	/**
+	 * Returns the highest time per operation of the measurement iterations.
+	 *
+	 * @return the maximum, in nanoseconds.
+	 */
+	public double getMax(){
+		double returnValue = 0;
+		for(int i=0; i<scores.length; i++){
+			returnValue = Math.max(returnValue, scores[i]);
+		}
+		return returnValue;
+	}//end of getMax method
+
+	//OPERATIONS
+	/**
+	 * Appends the result, as a JSON object, to the specified builder.
+	 *
+	 * @param out the builder.
+	 */
+	public void appendJSON(StringBuilder out){
+		out.append("  {\n");
+		out.append("    \"benchmark\" : \"").append(name).append("\",\n");
+		out.append("    \"mode\" : \"avgt\",\n");
+		out.append("    \"warmupIterations\" : ").append(warmupIterations).append(",\n");
+		out.append("    \"measurementIterations\" : ").append(scores.length).append(",\n");
+		out.append("    \"params\" : {\n");
+		out.append("      \"fish\" : \"").append(fishCount).append("\",\n");
+		out.append("      \"plants\" : \"").append(plantCount).append("\",\n");
+		out.append("      \"pots\" : \"").append(potCount).append("\"\n");
+		out.append("    },\n");
+		out.append("    \"primaryMetric\" : {\n");
+		out.append("      \"score\" : ").append(format(getScore())).append(",\n");
+		out.append("      \"scoreError\" : ").append(format(getScoreError())).append(",\n");
+		out.append("      \"scoreUnit\" : \"").append(UNIT).append("\",\n");
+		out.append("      \"min\" : ").append(format(getMin())).append(",\n");
+		out.append("      \"max\" : ").append(format(getMax())).append(",\n");
+		out.append("      \"rawData\" : [ [ ");
+		for(int i=0; i<scores.length; i++){
+			if(i > 0){
+				out.append(", ");
+			}
+			out.append(format(scores[i]));
+		}
+		out.append(" ] ]\n");
+		out.append("    }\n");
+		out.append("  }");
+	}//end of appendJSON method
+
+	/**
+	 * Returns a one line summary of the result.
+	 *
+	 * @return the summary.
+	 */
+	@Override
+	public String toString(){
+		return String.format(Locale.ROOT, "%-28s fish=%-4d plants=%-4d pots=%-4d %14.1f +- %.1f %s",
+				name, fishCount, plantCount, potCount, getScore(), getScoreError(), UNIT);
+	}//end of toString method
+
+	//---------------------static main---------------------------------
+	//---------------------static methods------------------------------
+	/**
+	 * Formats the specified value for JSON.
+	 *
+	 * @param value the value.
+	 * @return the formatted value.
+	 */
+	private static String format(double value){
+		return String.format(Locale.ROOT, "%.3f", value);
+	}//end of format method
+
+	/**
+	 * Returns the value that the magnitude of a Student's t variable with the
+	 * specified degrees of freedom stays below with the specified
+	 * probability, found by bisection on <code>studentCoverage</code>.
+	 *
+	 * @param confidence the probability, between 0 and 1.
+	 * @param degrees the degrees of freedom, at least 1.
+	 * @return the quantile.
+	 */
+	private static double studentQuantile(double confidence, int degrees){
+		double low = 0;
+		double high = 1;
+		while(studentCoverage(high, degrees) < confidence){
+			low = high;
+			high *= 2;
+		}
+		for(int i=0; i<100; i++){
+			double middle = (low + high) / 2;
+			if(studentCoverage(middle, degrees) < confidence){
+				low = middle;
+			}
+			else{
+				high = middle;
+			}
+		}
+		return (low + high) / 2;
+	}//end of studentQuantile method
+
+	/**
+	 * Returns the probability that the magnitude of a Student's t variable
+	 * with the specified degrees of freedom is below the specified value,
+	 * from the closed form for whole degrees of freedom in terms of
+	 * <code>theta = atan(t / sqrt(degrees))</code>.
+	 *
+	 * @param t the value, not negative.
+	 * @param degrees the degrees of freedom, at least 1.
+	 * @return the probability.
+	 */
+	private static double studentCoverage(double t, int degrees){
+		double returnValue;
+		double theta = Math.atan(t / Math.sqrt(degrees));
+		double cos2 = Math.cos(theta) * Math.cos(theta);
+		double term = 1;
+		double sum = 1;
+		if(degrees % 2 == 1){
+			for(int k=1; k<=(degrees - 3) / 2; k++){
+				term *= cos2 * (2 * k) / (2 * k + 1);
+				sum += term;
+			}
+			returnValue = 2 / Math.PI * (theta + (degrees > 1 ? Math.sin(theta) * Math.cos(theta) * sum : 0));
+		}
+		else{
+			for(int k=1; k<=(degrees - 2) / 2; k++){
+				term *= cos2 * (2 * k - 1) / (2 * k);
+				sum += term;
+			}
+			returnValue = Math.sin(theta) * sum;
+		}
+		return returnValue;
+	}//end of studentCoverage method
+
+}//end of BenchmarkResult class
@@ -0,0 +1,324 @@
+package thinktank.simulator.benchmark;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+
+import com.jme3.system.AppSettings;
+
+import thinktank.simulator.util.ConfigLoader;
+
+/**
+ * Runs the simulator's benchmarks headless, across every combination of
+ * the configured fish, plant and pot counts, and writes the results as
+ * JSON so they can be compared between versions.
+ *
+ * Each benchmark is given a fresh fixture, run for a number of timed
+ * warmup iterations, then for a number of timed measurement iterations,
+ * each of which repeats the operation until its time is used up. The
+ * score of an iteration is its average time per operation.
+ *
+ * Options are given as <code>name=value</code> arguments:
+ * <ul>
+ * <li><code>fish</code>, <code>plants</code>, <code>pots</code> - comma
+ * separated lists of counts.</li>
+ * <li><code>warmup</code>, <code>iterations</code> - the numbers of
+ * warmup and measurement iterations.</li>
+ * <li><code>time</code> - the length of each iteration, in milliseconds.</li>
+ * <li><code>filter</code> - only run benchmarks whose names contain it.</li>
+ * <li><code>seed</code> - the seed for placing the entities.</li>
+ * <li><code>out</code> - the results file, by default a time stamped
+ * file in the <code>benchmarks</code> folder.</li>
+ * </ul>
+ *
+ * @author Vasher Lor
+ * @version %I%, %G%
+ */
+public class BenchmarkRunner{
+	//---------------------static constants----------------------------
+	/**
+	 * Constant string for the folder the results are written to by default.
+	 */
+	public static final String RESULTS_FOLDER = "benchmarks";
+	/**
+	 * Constant values for the default fish counts.
+	 */
+	public static final int[] DEFAULT_FISH = {2, 10, 40};
+	/**
+	 * Constant values for the default plant counts.
+	 */
+	public static final int[] DEFAULT_PLANTS = {0, 10};
+	/**
+	 * Constant values for the default pot counts.
+	 */
+	public static final int[] DEFAULT_POTS = {0, 5};
+	/**
+	 * Constant value for the default number of warmup iterations.
+	 */
+	public static final int DEFAULT_WARMUP = 3;
+	/**
+	 * Constant value for the default number of measurement iterations.
+	 */
+	public static final int DEFAULT_ITERATIONS = 5;
+	/**
+	 * Constant value for the default length of an iteration, in milliseconds.
+	 */
+	public static final long DEFAULT_TIME = 500;
+	/**
+	 * Constant value for the default seed for placing the entities.
+	 */
+	public static final long DEFAULT_SEED = 42;
+
+	//---------------------static variables----------------------------
+	/**
+	 * Sum of the values returned by the benchmarks, kept so the work they
+	 * do cannot be optimized away.
+	 */
+	private static volatile long sink = 0;
+
+	//---------------------instance constants--------------------------
+	//---------------------instance variables--------------------------
+	/**
+	 * The fish counts to run each benchmark with.
+	 */
+	private int[] fish;
+	/**
+	 * The plant counts to run each benchmark with.
+	 */
+	private int[] plants;
+	/**
+	 * The pot counts to run each benchmark with.
+	 */
+	private int[] pots;
+	/**
+	 * The number of warmup iterations.
+	 */
+	private int warmup;
+	/**
+	 * The number of measurement iterations.
+	 */
+	private int iterations;
+	/**
+	 * The length of each iteration, in milliseconds.
+	 */
+	private long time;
+	/**
+	 * The text benchmark names must contain to be run, null to run all.
+	 */
+	private String filter;
+	/**
+	 * The seed for placing the entities.
+	 */
+	private long seed;
+	/**
+	 * The file the results are written to.
+	 */
+	private File out;
+
+	//---------------------constructors--------------------------------
+	/**
+	 * Constructs a new runner with the default options.
+	 */
+	public BenchmarkRunner(){
+		fish = DEFAULT_FISH;
+		plants = DEFAULT_PLANTS;
+		pots = DEFAULT_POTS;
+		warmup = DEFAULT_WARMUP;
+		iterations = DEFAULT_ITERATIONS;
+		time = DEFAULT_TIME;
+		filter = null;
+		seed = DEFAULT_SEED;
+		out = new File(RESULTS_FOLDER, "results-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + ".json");
+	}//end of constructor
+
+	//---------------------instance methods----------------------------
+	//SETTERS
+	/**
+	 * Sets the option with the specified name to the specified value.
+	 *
+	 * @param name the name of the option.
+	 * @param value the value.
+	 * @throws IllegalArgumentException if there is no such option.
+	 */
+	public void setOption(String name, String value){
+		if(name.equals("fish")){
+			fish = parseCounts(value);
+		}
+		else if(name.equals("plants")){
+			plants = parseCounts(value);
+		}
+		else if(name.equals("pots")){
+			pots = parseCounts(value);
+		}
+		else if(name.equals("warmup")){
+			warmup = Integer.parseInt(value);
+		}
+		else if(name.equals("iterations")){
+			iterations = Integer.parseInt(value);
+		}
+		else if(name.equals("time")){
+			time = Long.parseLong(value);
+		}
+		else if(name.equals("filter")){
+			filter = value;
+		}
+		else if(name.equals("seed")){
+			seed = Long.parseLong(value);
+		}
+		else if(name.equals("out")){
+			out = new File(value);
+		}
+		else{
+			throw new IllegalArgumentException("Unknown option: " + name);
+		}
+	}//end of setOption method
+
+	//OPERATIONS
+	/**
+	 * Runs the specified benchmarks across every combination of counts.
+	 *
+	 * @param benchmarks the benchmarks.
+	 * @return the results.
+	 */
+	public ArrayList<BenchmarkResult> run(ArrayList<IBenchmark> benchmarks){
+		ArrayList<BenchmarkResult> returnValue = new ArrayList<BenchmarkResult>();
+		AppSettings settings = ConfigLoader.getSettings();
+		for(int f=0; f<fish.length; f++){
+			for(int pl=0; pl<plants.length; pl++){
+				for(int po=0; po<pots.length; po++){
+					for(IBenchmark benchmark : benchmarks){
+						if(filter == null || benchmark.getName().contains(filter)){
+							BenchmarkFixture fixture = new BenchmarkFixture(fish[f], plants[pl], pots[po], seed, settings);
+							BenchmarkResult result = run(benchmark, fixture);
+							if(result != null){
+								System.out.println(result);
+								returnValue.add(result);
+							}
+						}
+					}
+				}
+			}
+		}
+		return returnValue;
+	}//end of run method
+
+	/**
+	 * Runs the specified benchmark against the specified fixture.
+	 *
+	 * @param benchmark the benchmark.
+	 * @param fixture the fixture.
+	 * @return the result, null if the benchmark does not apply to the fixture.
+	 */
+	private BenchmarkResult run(IBenchmark benchmark, BenchmarkFixture fixture){
+		BenchmarkResult returnValue = null;
+		if(benchmark.setup(fixture)){
+			try{
+				for(int i=0; i<warmup; i++){
+					iterate(benchmark);
+				}
+				double[] scores = new double[iterations];
+				for(int i=0; i<iterations; i++){
+					scores[i] = iterate(benchmark);
+				}
+				returnValue = new BenchmarkResult(benchmark.getName(), fixture.getFishCount(),
+						fixture.getPlantCount(), fixture.getPotCount(), warmup, scores);
+			}
+			finally{
+				benchmark.tearDown();
+			}
+		}
+		return returnValue;
+	}//end of run(IBenchmark,BenchmarkFixture) method
+
+	/**
+	 * Runs one timed iteration of the specified benchmark.
+	 *
+	 * @param benchmark the benchmark.
+	 * @return the average time per operation, in nanoseconds.
+	 */
+	private double iterate(IBenchmark benchmark){
+		long consumed = 0;
+		long operations = 0;
+		long start = System.nanoTime();
+		long end = start + time * 1000000L;
+		long now = start;
+		while(now < end){
+			consumed += benchmark.run();
+			operations++;
+			now = System.nanoTime();
+		}
+		sink += consumed;
+		return (double)(now - start) / operations;
+	}//end of iterate method
+
+	/**
+	 * Writes the specified results to the results file as a JSON array.
+	 *
+	 * @param results the results.
+	 * @throws IOException if the file could not be written.
+	 */
+	public void write(ArrayList<BenchmarkResult> results) throws IOException{
+		StringBuilder json = new StringBuilder("[\n");
+		for(int i=0; i<results.size(); i++){
+			if(i > 0){
+				json.append(",\n");
+			}
+			results.get(i).appendJSON(json);
+		}
+		json.append("\n]\n");
+		File folder = out.getAbsoluteFile().getParentFile();
+		if(folder != null && !folder.exists()){
+			folder.mkdirs();
+		}
+		try(Writer writer = new OutputStreamWriter(new FileOutputStream(out), Charset.forName("UTF-8"))){
+			writer.write(json.toString());
+		}
+		System.out.println("Results written to " + out.getPath());
+	}//end of write method
+
+	//---------------------static main---------------------------------
+	/**
+	 * Runs all of the benchmarks with the options in the specified arguments.
+	 *
+	 * @param args the options, as <code>name=value</code> pairs.
+	 */
+	public static void main(String[] args){
+		BenchmarkRunner runner = new BenchmarkRunner();
+		for(String arg : args){
+			int split = arg.indexOf('=');
+			if(split < 1){
+				throw new IllegalArgumentException("Options must be name=value: " + arg);
+			}
+			runner.setOption(arg.substring(0, split), arg.substring(split + 1));
+		}
+		try{
+			runner.write(runner.run(SimulatorBenchmarks.createAll()));
+		}
+		catch(IOException ex){
+			ex.printStackTrace();
+		}
+	}//end of main method
+
+	//---------------------static methods------------------------------
+	/**
+	 * Parses a comma separated list of counts.
+	 *
+	 * @param value the list.
+	 * @return the counts.
+	 */
+	private static int[] parseCounts(String value){
+		String[] tokens = value.split(",");
+		int[] returnValue = new int[tokens.length];
+		for(int i=0; i<tokens.length; i++){
+			returnValue[i] = Integer.parseInt(tokens[i].trim());
+		}
+		return returnValue;
+	}//end of parseCounts method
+
+}//end of BenchmarkRunner class
@@ -0,0 +1,43 @@
+package thinktank.simulator.benchmark;
+
+/**
+ * Interface for a benchmark of one of the simulator's kernels, run by the
+ * <code>BenchmarkRunner</code> against a <code>BenchmarkFixture</code> for
+ * each combination of fish, plant and pot counts.
+ *
+ * @author Vasher Lor
+ * @version %I%, %G%
+ */
+public interface IBenchmark{
+
+	/**
+	 * Returns the name of the benchmark, as written to the results.
+	 *
+	 * @return the name.
+	 */
+	public String getName();
+
+	/**
+	 * Prepares the benchmark to run against the specified fixture. Not
+	 * included in the measured time.
+	 *
+	 * @param fixture the fixture.
+	 * @return true if the benchmark applies to the fixture, false if it
+	 * should be skipped, such as a benchmark of plants with none in the tank.
+	 */
+	public boolean setup(BenchmarkFixture fixture);
+
+	/**
+	 * Runs one operation of the benchmark. The returned value is consumed
+	 * by the runner so the work cannot be optimized away.
+	 *
+	 * @return a value depending on the work done.
+	 */
+	public long run();
+
+	/**
+	 * Releases anything held since <code>setup</code> was called.
+	 */
+	public void tearDown();
+
+}//end of IBenchmark interface
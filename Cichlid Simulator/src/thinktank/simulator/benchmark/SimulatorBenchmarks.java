@@ -0,0 +1,404 @@
+package thinktank.simulator.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+
+import com.jme3.math.Vector3f;
+
+import thinktank.simulator.behavior.AggressionKernel;
+import thinktank.simulator.entity.Cichlid;
+import thinktank.simulator.entity.EnvironmentObject;
+import thinktank.simulator.entity.Fish;
+import thinktank.simulator.main.SimulationContext;
+import thinktank.simulator.scenario.EntityView;
+import thinktank.simulator.scenario.Grid;
+import thinktank.simulator.scenario.Scenario;
+import thinktank.simulator.scenario.ScenarioIO;
+
+/**
+ * The benchmarks of the simulator's hot kernels: the aggression kernel
+ * behind target finding, the visibility between fish, building and
+ * updating the grid, looking entities up in the scenario, saving and
+ * loading scenarios, and a full simulation tick.
+ *
+ * @author Vasher Lor
+ * @version %I%, %G%
+ */
+public class SimulatorBenchmarks{
+	//---------------------static constants----------------------------
+	//---------------------static variables----------------------------
+	//---------------------instance constants--------------------------
+	//---------------------instance variables--------------------------
+	//---------------------constructors--------------------------------
+	/**
+	 * Provides only static methods.
+	 */
+	private SimulatorBenchmarks(){}
+
+	//---------------------instance methods----------------------------
+	//---------------------static main---------------------------------
+	//---------------------static methods------------------------------
+	/**
+	 * Creates all of the benchmarks.
+	 *
+	 * @return the benchmarks.
+	 */
+	public static ArrayList<IBenchmark> createAll(){
+		ArrayList<IBenchmark> returnValue = new ArrayList<IBenchmark>();
+		returnValue.add(createStepBenchmark());
+		returnValue.add(createAggressionBenchmark());
+		returnValue.add(createVisibilityBenchmark(Cichlid.VISIBILITY_MODE.OCCLUSION_VOLUME));
+		returnValue.add(createVisibilityBenchmark(Cichlid.VISIBILITY_MODE.RAYCAST));
+		returnValue.add(createGridBuildBenchmark());
+		returnValue.add(createGridUpdateBenchmark());
+		returnValue.add(createLookupBenchmark());
+		returnValue.add(createSaveBenchmark());
+		returnValue.add(createLoadBenchmark());
+		return returnValue;
+	}//end of createAll method
+
+	/**
+	 * Creates the benchmark of one full simulation tick.
+	 *
+	 * @return the benchmark.
+	 */
+	public static IBenchmark createStepBenchmark(){
+		return new IBenchmark(){
+			private BenchmarkFixture fixture;
+
+			@Override
+			public String getName(){
+				return "simulation.step";
+			}//end of getName method
+
+			@Override
+			public boolean setup(BenchmarkFixture fixture){
+				this.fixture = fixture;
+				return true;
+			}//end of setup method
+
+			@Override
+			public long run(){
+				fixture.getSession().step();
+				return fixture.getSession().getTickCount();
+			}//end of run method
+
+			@Override
+			public void tearDown(){
+				fixture = null;
+			}//end of tearDown method
+		};
+	}//end of createStepBenchmark method
+
+	/**
+	 * Creates the benchmark of gathering the fish into the aggression kernel
+	 * and computing every pair from scratch, which is the work behind each
+	 * cichlid finding its target.
+	 *
+	 * @return the benchmark.
+	 */
+	public static IBenchmark createAggressionBenchmark(){
+		return new IBenchmark(){
+			private AggressionKernel kernel;
+			private EntityView<Fish> view;
+			private Grid grid;
+
+			@Override
+			public String getName(){
+				return "aggression.computeAll";
+			}//end of getName method
+
+			@Override
+			public boolean setup(BenchmarkFixture fixture){
+				kernel = new AggressionKernel();//separate from the session's, so its cache is not disturbed
+				view = fixture.getScenario().getFishView();
+				grid = fixture.getScenario().getGrid();
+				return view.size() > 1;
+			}//end of setup method
+
+			@Override
+			public long run(){
+				kernel.invalidateAll();
+				kernel.gather(view, grid);
+				kernel.computeAll();
+				return kernel.getPairsComputed();
+			}//end of run method
+
+			@Override
+			public void tearDown(){
+				kernel = null;
+				view = null;
+				grid = null;
+			}//end of tearDown method
+		};
+	}//end of createAggressionBenchmark method
+
+	/**
+	 * Creates the benchmark of calculating the visibility from every cichlid
+	 * to every other fish, by the specified method.
+	 *
+	 * @param mode the visibility method.
+	 * @return the benchmark.
+	 */
+	public static IBenchmark createVisibilityBenchmark(final Cichlid.VISIBILITY_MODE mode){
+		return new IBenchmark(){
+			private EntityView<Fish> view;
+			private SimulationContext context;
+			private Cichlid.VISIBILITY_MODE previous;
+
+			@Override
+			public String getName(){
+				return "visibility." + mode.name().toLowerCase();
+			}//end of getName method
+
+			@Override
+			public boolean setup(BenchmarkFixture fixture){
+				view = fixture.getScenario().getFishView();
+				context = fixture.getScenario().getContext();
+				previous = context.getVisibilityMode();
+				context.setVisibilityMode(mode);
+				return view.size() > 1;
+			}//end of setup method
+
+			@Override
+			public long run(){
+				long returnValue = 0;
+				for(int i=0; i<view.size(); i++){
+					if(view.get(i) instanceof Cichlid){
+						Cichlid cichlid = (Cichlid)view.get(i);
+						cichlid.clearRelationships();
+						for(int j=0; j<view.size(); j++){
+							if(j != i){
+								returnValue += cichlid.calculateRelationships(view.get(j)).getVisibility();
+							}
+						}
+					}
+				}
+				return returnValue;
+			}//end of run method
+
+			@Override
+			public void tearDown(){
+				context.setVisibilityMode(previous);
+				context = null;
+				view = null;
+			}//end of tearDown method
+		};
+	}//end of createVisibilityBenchmark method
+
+	/**
+	 * Creates the benchmark of building the grid for the scenario.
+	 *
+	 * @return the benchmark.
+	 */
+	public static IBenchmark createGridBuildBenchmark(){
+		return new IBenchmark(){
+			private Scenario scenario;
+
+			@Override
+			public String getName(){
+				return "grid.build";
+			}//end of getName method
+
+			@Override
+			public boolean setup(BenchmarkFixture fixture){
+				scenario = fixture.getScenario();
+				return true;
+			}//end of setup method
+
+			@Override
+			public long run(){
+				return new Grid(scenario).getCellCount();
+			}//end of run method
+
+			@Override
+			public void tearDown(){
+				scenario = null;
+			}//end of tearDown method
+		};
+	}//end of createGridBuildBenchmark method
+
+	/**
+	 * Creates the benchmark of updating the grid after an environment object
+	 * has moved. Each operation moves one object back and forth.
+	 *
+	 * @return the benchmark.
+	 */
+	public static IBenchmark createGridUpdateBenchmark(){
+		return new IBenchmark(){
+			private final Vector3f offset = new Vector3f(0.1f, 0, 0.1f);
+			private Grid grid;
+			private EnvironmentObject obj;
+			private boolean moved;
+
+			@Override
+			public String getName(){
+				return "grid.update";
+			}//end of getName method
+
+			@Override
+			public boolean setup(BenchmarkFixture fixture){
+				grid = fixture.getScenario().getGrid();
+				EntityView<EnvironmentObject> view = fixture.getScenario().getEnvironmentObjectView();
+				obj = (view.size() > 0) ? view.get(fixture.getRNG().nextInt(view.size())) : null;
+				moved = false;
+				return obj != null;
+			}//end of setup method
+
+			@Override
+			public long run(){
+				if(moved){
+					obj.getObj().move(-offset.x, -offset.y, -offset.z);
+				}
+				else{
+					obj.getObj().move(offset);
+				}
+				moved = !moved;
+				grid.update(obj);
+				return grid.getObstacleEpoch();
+			}//end of run method
+
+			@Override
+			public void tearDown(){
+				if(moved){
+					obj.getObj().move(-offset.x, -offset.y, -offset.z);
+					grid.update(obj);
+				}
+				grid = null;
+				obj = null;
+			}//end of tearDown method
+		};
+	}//end of createGridUpdateBenchmark method
+
+	/**
+	 * Creates the benchmark of looking up every fish in the scenario, both
+	 * from its model, as picking does, and by its id.
+	 *
+	 * @return the benchmark.
+	 */
+	public static IBenchmark createLookupBenchmark(){
+		return new IBenchmark(){
+			private Scenario scenario;
+			private EntityView<Fish> view;
+
+			@Override
+			public String getName(){
+				return "scenario.getEntity";
+			}//end of getName method
+
+			@Override
+			public boolean setup(BenchmarkFixture fixture){
+				scenario = fixture.getScenario();
+				view = scenario.getFishView();
+				return view.size() > 0;
+			}//end of setup method
+
+			@Override
+			public long run(){
+				long returnValue = 0;
+				for(int i=0; i<view.size(); i++){
+					returnValue += scenario.getEntity(view.get(i).getObj()).getHandle();
+					returnValue += scenario.getEntityByID(view.get(i).getID()).getHandle();
+				}
+				return returnValue;
+			}//end of run method
+
+			@Override
+			public void tearDown(){
+				scenario = null;
+				view = null;
+			}//end of tearDown method
+		};
+	}//end of createLookupBenchmark method
+
+	/**
+	 * Creates the benchmark of saving the scenario to a file.
+	 *
+	 * @return the benchmark.
+	 */
+	public static IBenchmark createSaveBenchmark(){
+		return new IBenchmark(){
+			private Scenario scenario;
+			private File file;
+
+			@Override
+			public String getName(){
+				return "scenarioIO.save";
+			}//end of getName method
+
+			@Override
+			public boolean setup(BenchmarkFixture fixture){
+				scenario = fixture.getScenario();
+				file = createTempFile();
+				return file != null;
+			}//end of setup method
+
+			@Override
+			public long run(){
+				ScenarioIO.saveScenario(scenario, file);
+				return file.length();
+			}//end of run method
+
+			@Override
+			public void tearDown(){
+				file.delete();
+				scenario = null;
+				file = null;
+			}//end of tearDown method
+		};
+	}//end of createSaveBenchmark method
+
+	/**
+	 * Creates the benchmark of loading the scenario from a file.
+	 *
+	 * @return the benchmark.
+	 */
+	public static IBenchmark createLoadBenchmark(){
+		return new IBenchmark(){
+			private File file;
+
+			@Override
+			public String getName(){
+				return "scenarioIO.load";
+			}//end of getName method
+
+			@Override
+			public boolean setup(BenchmarkFixture fixture){
+				file = createTempFile();
+				return file != null && ScenarioIO.saveScenario(fixture.getScenario(), file);
+			}//end of setup method
+
+			@Override
+			public long run(){
+				return ScenarioIO.loadScenario(file).getFishCount();
+			}//end of run method
+
+			@Override
+			public void tearDown(){
+				if(file != null){
+					file.delete();
+				}
+				file = null;
+			}//end of tearDown method
+		};
+	}//end of createLoadBenchmark method
+
+	/**
+	 * Creates a temporary scenario file, deleted when the program exits.
+	 *
+	 * @return the file, null if it could not be created.
+	 */
+	private static File createTempFile(){
+		File returnValue = null;
+		try{
+			returnValue = File.createTempFile("benchmark", ScenarioIO.SCENARIO_FILE_EXTENSION);
+			returnValue.deleteOnExit();
+		}
+		catch(IOException ex){
+			ex.printStackTrace();
+		}
+		return returnValue;
+	}//end of createTempFile method
+
+}//end of SimulatorBenchmarks class
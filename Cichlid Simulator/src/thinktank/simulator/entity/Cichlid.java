@@ -5,14 +5,13 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.ObjectStreamException;
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.Random;
 import com.jme3.animation.AnimChannel;
 import com.jme3.animation.AnimControl;
 import com.jme3.animation.LoopMode;
 import com.jme3.asset.TextureKey;
-import com.jme3.bullet.BulletAppState;
+import com.jme3.bullet.PhysicsSpace;
 import com.jme3.bullet.collision.PhysicsCollisionObject;
 import com.jme3.bullet.collision.shapes.CollisionShape;
 import com.jme3.bullet.util.CollisionShapeFactory;
@@ -21,17 +20,22 @@ import com.jme3.collision.CollisionResults;
 import com.jme3.math.ColorRGBA;
 import com.jme3.math.Quaternion;
 import com.jme3.math.Ray;
-import com.jme3.math.Ring;
 import com.jme3.math.Transform;
 import com.jme3.math.Vector3f;
 import com.jme3.scene.Node;
 import com.jme3.scene.Spatial;
 import com.jme3.material.Material;
 
-import thinktank.simulator.Starter;
+import thinktank.simulator.behavior.AggressionKernel;
+import thinktank.simulator.behavior.BehaviorEngine;
+import thinktank.simulator.behavior.SpeciesProfile;
 import thinktank.simulator.environment.Environment;
+import thinktank.simulator.event.EventStream;
+import thinktank.simulator.main.FrameProfiler;
 import thinktank.simulator.main.Main;
-import thinktank.simulator.scenario.Scenario;
+import thinktank.simulator.main.SimulationContext;
+import thinktank.simulator.monitor.MonitorEvents;
+import thinktank.simulator.scenario.Grid;
 import thinktank.simulator.util.CichlidRelationships;
 
 /**
@@ -100,6 +104,25 @@ public class Cichlid extends Fish implements IMoving{
 		
 	}//end of POSSIBLE_SIZES enum
 	
+	/**
+	 * List of methods for calculating the visibility between 
+	 * a cichlid and another entity.
+	 */
+	public enum VISIBILITY_MODE{
+		/**
+		 * Casts rays against the scenario's entities.
+		 */
+		RAYCAST,
+		/**
+		 * Walks the grid's occlusion volume.
+		 */
+		OCCLUSION_VOLUME,
+		/**
+		 * Calculates both, records the difference, and uses the raycast value.
+		 */
+		COMPARE;
+	}//end of VISIBILITY_MODE enum
+	
 	//---------------------static constants----------------------------
 	private static final long serialVersionUID = 8763564513637299079L;
 	/**
@@ -107,31 +130,34 @@ public class Cichlid extends Fish implements IMoving{
 	 */
 	private static final float MODEL_DEPTH = 2f;//z-axis
 	/**
-	 * 
+	 * The number of times a new destination is picked before giving up 
+	 * when the picked cells are blocked by environment objects.
 	 */
-	private static final float OBJECT_DISTANCE = 30;
-
-	//---------------------static variables----------------------------
+	private static final int MAX_DESTINATION_ATTEMPTS = 10;
 	/**
-	 * Determines the aggression threshold requirement
+	 * The cosine of the widest angle between the directions to the attacker 
+	 * and to a shelter for which the cichlid will hide behind the shelter.
 	 */
-	private static  double AGGRESSION_THRESHOLD = 1.998;
+	private static final float COS_QUARTER_PI = (float)Math.cos(Math.PI / 4);
 	/**
-	 * Provides weight based on the distance and what
-	 * impact it has on interacting with other fish
+	 * The name of the species, which identifies its behavior profile.
 	 */
-	private static double DISTANCE_WEIGHT = 1.005;
+	public static final String SPECIES = "cichlid";
 	/**
-	 * Provides weight based on the size and what
-	 * impact it has on interacting with other fish
+	 * The number of distinct phases over which the full AI updates of 
+	 * cichlids at a reduced level of detail are spread.
 	 */
-	private static double SIZE_WEIGHT = 1.002;
+	private static final int AI_PHASES = 64;
 	/**
-	 * Provides weight based on the speed and what
-	 * impact it has on interacting with other fish
+	 * The lowest starting speed of a cichlid.
 	 */
-	private static float SPEED_WEIGHT = 1;
-	
+	private static final float MIN_START_SPEED = 1.5f;
+	/**
+	 * The range of the starting speeds of cichlids above the lowest.
+	 */
+	private static final float START_SPEED_RANGE = 2f;
+
+	//---------------------static variables----------------------------
 	//---------------------instance constants--------------------------
 	//---------------------instance variables--------------------------
 	/**
@@ -144,10 +170,6 @@ public class Cichlid extends Fish implements IMoving{
 	 * of the cichlid.
 	 */
 	private POSSIBLE_COLORS pColor;
-	/**
-	 * A reference to the grid values for the scenario.
-	 */
-	private Vector3f[][][] gridXYZ;
 	/**
 	 * Stores the most recently calculated relationships of this 
 	 * cichlid to all other objects in the scenario, allowing them 
@@ -166,6 +188,11 @@ public class Cichlid extends Fish implements IMoving{
 	 * The ghost attached to this cichlid.
 	 */
 	private FishGhost ghost;
+	/**
+	 * The physics space the ghost has been added to, null if it is not 
+	 * in one.
+	 */
+	private PhysicsSpace ghostSpace;
 	/**
 	 * The vector representing the destination the cichlid is 
 	 * traveling to.
@@ -219,18 +246,43 @@ public class Cichlid extends Fish implements IMoving{
 	 * Value for calculating the cichlid's idle movement.
 	 */
 	private float idleSine;
-	/**
-	 * Time since the cichlid's last action.
-	 */
-	private float elapsed;
 	/**
 	 * The original speed of the cichlid.
 	 */
 	private float originalSpeed;
+	/**
+	 * The tick offset of the cichlid's full AI updates, so that cichlids 
+	 * at a reduced level of detail do not all update on the same tick.
+	 */
+	private int aiPhase;
+	/**
+	 * Whether or not the speed of the cichlid was given when it was made, 
+	 * rather than drawn when it is first bound to a context.
+	 */
+	private boolean speedGiven;
+	/**
+	 * Whether or not the starting values of the cichlid have been drawn 
+	 * from the random number generator of its context.
+	 */
+	private boolean started;
+	/**
+	 * Time passed since the cichlid's last full AI update that it has 
+	 * not yet moved for.
+	 */
+	private float aiDeferred;
 	/**
 	 * A weighting value for the cichlid's shelter mechanism.
 	 */
 	private double shelterWeight;
+	/**
+	 * The behavioral parameters of the cichlid's species.
+	 */
+	private SpeciesProfile profile;
+	/**
+	 * Flag for whether or not the cichlid's last behavior tick was skipped 
+	 * for lack of budget, in which case its next one is not.
+	 */
+	private boolean behaviorStarved;
 
 	//fish is 10cm long, 4.5cm tall, 2.5cm wide in blender
 	//the orge file seems to have scaled the model to 2 world units.
@@ -260,6 +312,7 @@ public class Cichlid extends Fish implements IMoving{
 		pColor = POSSIBLE_COLORS.BLACK;
 		setSize(pSize.LENGTH_INCHES);
 		setSpeed(speed);
+		speedGiven = true;
 		setSex(sex);
 	}//end of (float,float,String) constructor
 
@@ -278,6 +331,7 @@ public class Cichlid extends Fish implements IMoving{
 		pColor = POSSIBLE_COLORS.BLACK;
 		setSize(pSize.LENGTH_INCHES);
 		setSpeed(speed);
+		speedGiven = true;
 		setSex(sex);
 		setName(name);
 	}//end of (float,float,String,String) constructor
@@ -313,6 +367,44 @@ public class Cichlid extends Fish implements IMoving{
 		return pColor;
 	}//end of getPColor method
 
+	/**
+	 * Returns the behavioral parameters of the cichlid's species.
+	 * 
+	 * @return the species profile.
+	 */
+	public SpeciesProfile getProfile(){
+		return profile;
+	}//end of getProfile method
+
+	/**
+	 * Returns the environment object the cichlid last found to hide behind.
+	 * 
+	 * @return the shelter object, null if none was found.
+	 */
+	public EnvironmentObject getShelterObject(){
+		return shelterObject;
+	}//end of getShelterObject method
+
+	/**
+	 * Returns the weighting value of the cichlid's current shelter.
+	 * 
+	 * @return the shelter weight, 0 if there is no shelter.
+	 */
+	public double getShelterWeight(){
+		return shelterWeight;
+	}//end of getShelterWeight method
+
+	/**
+	 * Returns whether or not anything is near enough to the cichlid to 
+	 * overlap its ghost. The cichlid only behaves, and so only makes 
+	 * decisions, while something is.
+	 * 
+	 * @return true if something overlaps the ghost, false otherwise.
+	 */
+	public boolean hasCompany(){
+		return getGhost().getOverlappingCount() > 0;
+	}//end of hasCompany method
+
 	//SETTERS
 	/**
 	 * Sets the cichlid's size to the specified <code>POSSIBLE_SIZES</code> value.
@@ -366,6 +458,66 @@ public class Cichlid extends Fish implements IMoving{
 		glowColor = color;
 	}//end of setGlowColor method
 
+	/**
+	 * Sets the cichlid's current behavior. When the behavior changes, the 
+	 * exit hook of the old behavior's handler and the enter hook of the 
+	 * new behavior's handler are called.
+	 * 
+	 * @param behave the new behavior.
+	 */
+	@Override
+	public void setBehavior(BEHAVIOR behave){
+		BEHAVIOR current = this.getBehavior();
+		if(behave != current){
+			if(getContext() != null){
+				BehaviorEngine engine = getContext().getBehaviorEngine();
+				engine.exit(this, current);
+				super.setBehavior(behave);
+				engine.enter(this, behave);
+				MonitorEvents.behaviorTransition(this, current, behave, getContext().getTime());
+				EventStream events = getContext().getEventStream();
+				if(events != null){
+					events.behaviorChanged(getContext().getTime(), this, current, behave);
+				}
+			}
+			else{
+				super.setBehavior(behave);
+			}
+		}
+	}//end of setBehavior method
+
+	/**
+	 * Sets the behavioral parameters the cichlid follows.
+	 * 
+	 * @param profile the species profile.
+	 */
+	public void setProfile(SpeciesProfile profile){
+		this.profile = profile;
+	}//end of setProfile method
+
+	/**
+	 * Binds this cichlid to the specified simulation context, following 
+	 * the context's profile for its species and adding its ghost to the 
+	 * context's physics space if it has one. The first time the cichlid is 
+	 * bound, its starting values are drawn from the context's random 
+	 * number generator.
+	 * 
+	 * @param context the simulation context.
+	 */
+	@Override
+	public void setContext(SimulationContext context){
+		super.setContext(context);
+		if(context != null){
+			profile = context.getProfile(SPECIES);
+			if(!started){
+				start(context.getRNG());
+			}
+		}
+		if(context != null && context.getPhysicsSpace() != null){
+			attachGhost(context.getPhysicsSpace());
+		}
+	}//end of setContext method
+
 	//OPERATIONS
 	/**
 	 * Initializes the values of this <code>Cichilid</code> object and 
@@ -376,12 +528,16 @@ public class Cichlid extends Fish implements IMoving{
 		collisionDetected = false;
 		hasDestination = false;
 		idleSine = 90;
+		profile = SpeciesProfile.getProfile(SPECIES);
+		behaviorStarved = false;
 		
 		currentRelationships = new HashMap<Long,CichlidRelationships>();
-		setSpeed(1.5f + 2 * Main.RNG.nextFloat());
+		setSpeed(MIN_START_SPEED);//drawn when the cichlid is first bound to a context
 		originalSpeed = this.getSpeed();
+		speedGiven = false;
+		started = false;
 		setSize(pSize);
-		idleTimer = Main.RNG.nextFloat();
+		idleTimer = 0;
 		
 		setObj(Main.asset_manager.loadModel("Cichlid/Cube.mesh.xml"));
 		Material cichlidMat = new Material(Main.asset_manager, "Common/MatDefs/Misc/Unshaded.j3md");
@@ -391,8 +547,10 @@ public class Cichlid extends Fish implements IMoving{
 		glowColor = ColorRGBA.Yellow;
 		
 		setDimensions();
-		attachGhost();//collision radius
-		this.setTimeControl(Main.RNG.nextInt(10));//this sets the starting random time interval for behavior decision
+		createGhost();//collision radius
+		aiPhase = 0;
+		aiDeferred = 0;
+		this.setTimeControl(0);
 		
 		//animation stuff
 		control = getObj().getControl(AnimControl.class);
@@ -400,14 +558,28 @@ public class Cichlid extends Fish implements IMoving{
 		channel = control.createChannel();
 		channel.setAnim("Float", 2f);
 		channel.setLoopMode(LoopMode.Loop);
+		destination = null;//picked on the first update, once the context's grid is built
+		loc = null;
+	}//end of init method
 
-		gridX = Main.RNG.nextInt(10);
-		gridY = Main.RNG.nextInt(10);
-		gridZ = Main.RNG.nextInt(10);
-		gridXYZ = Main.getGrid().getGrid();
-		destination = gridXYZ[gridX][gridY][gridZ];
+	/**
+	 * Picks the cichlid's starting cell on the grid of its context, 
+	 * avoiding cells blocked by environment objects.
+	 */
+	private void placeOnGrid(){
+		Random rng = getContext().getRNG();
+		Grid grid = getContext().getGrid();
+		gridX = rng.nextInt(10);
+		gridY = rng.nextInt(10);
+		gridZ = rng.nextInt(10);
+		for(int i=0; i<MAX_DESTINATION_ATTEMPTS && grid.isBlocked(gridX, gridY, gridZ); i++){
+			gridX = rng.nextInt(10);
+			gridY = rng.nextInt(10);
+			gridZ = rng.nextInt(10);
+		}
+		destination = grid.getGrid()[gridX][gridY][gridZ];
 		loc = destination;
-	}//end of init method
+	}//end of placeOnGrid method
 
 	/**
 	 * Calculates and sets the values for the dimensions of this 
@@ -424,18 +596,52 @@ public class Cichlid extends Fish implements IMoving{
 	 * This creates a mesh for the object and places it on top of the model.
 	 * TODO Potenially remove - VASH
 	 */
-	private void attachGhost(){
+	private void createGhost(){
 		CollisionShape ghostShape = CollisionShapeFactory.createDynamicMeshShape(getObj());
 		ghost = new FishGhost(ghostShape, this);
 		getObj().addControl(ghost);
-		Starter.getClient().getStateManager().getState(BulletAppState.class).getPhysicsSpace().add(ghost); //TODO convert to 
+		ghostSpace = null;
+	}//end of createGhost method
+
+	/**
+	 * Adds the cichlid's ghost to the specified physics space, unless it 
+	 * is already in a physics space.
+	 * 
+	 * @param space the physics space.
+	 */
+	public void attachGhost(PhysicsSpace space){
+		if(ghostSpace == null){
+			space.add(ghost);
+			ghostSpace = space;
+		}
 	}//end of attachGhost method
 
+	/**
+	 * Draws the starting values of the cichlid: its speed, unless it was 
+	 * given one, its idle time, the phase of its reduced AI updates and the 
+	 * time until its first decision.
+	 * 
+	 * @param rng the random number generator to use.
+	 */
+	private void start(Random rng){
+		originalSpeed = MIN_START_SPEED + START_SPEED_RANGE * rng.nextFloat();
+		if(!speedGiven){
+			setSpeed(originalSpeed);
+		}
+		idleTimer = rng.nextFloat();
+		aiPhase = rng.nextInt(AI_PHASES);
+		this.setTimeControl(rng.nextFloat() * profile.getInitialInterval());//this sets the starting random time interval for behavior decision
+		started = true;
+	}//end of start method
+
 	/**
 	 * Moves the fish based on time per frame
 	 */
 	@Override
 	public void move(float tpf){
+		if(loc == null){
+			placeOnGrid();
+		}
 		if (atLoc){
 			getDestination();
 			if (idleTimer > 0){
@@ -448,14 +654,72 @@ public class Cichlid extends Fish implements IMoving{
 		}
 		else {
 			hasDestination = false;
-			if (getGhost().getOverlappingCount() > 0){
+			if (hasCompany()){
 				this.behavioralMovement(tpf);
+				FrameProfiler profiler = getContext().getProfiler();
+				long start = profiler.begin();
 				avoid(tpf);
+				profiler.end(FrameProfiler.PHASE.AVOIDANCE, start);
 			}
 			else moveToLoc(tpf, loc);
 		}
 	}//end of move method
 	
+	/**
+	 * Updates the cichlid at a level of detail. The full behavior, visibility 
+	 * and avoidance logic in <code>move()</code> runs once every <code>interval</code> 
+	 * ticks. On the ticks in between, the cichlid either extrapolates its motion 
+	 * towards its current destination, or defers the time until its next full 
+	 * update. A full update that moves the cichlid for the deferred time is cut 
+	 * short where it would reach its destination, since the move is a single 
+	 * straight step and would otherwise carry it past; the rest of the time 
+	 * stays deferred.
+	 * 
+	 * @param tpf time per frame.
+	 * @param tick the number of the current tick.
+	 * @param interval the number of ticks between full updates.
+	 * @param extrapolate whether or not to extrapolate motion between full updates.
+	 */
+	public void updateAI(float tpf, long tick, int interval, boolean extrapolate){
+		if(interval <= 1 || (tick + aiPhase) % interval == 0){
+			float step = tpf + aiDeferred;
+			aiDeferred = 0;
+			if(!atLoc && loc != null && getSpeed() > 0){
+				Vector3f position = getObj().getWorldTranslation();
+				float worldSpeed = getNextLoc(1f).distance(position);//the model's scale applies to the speed
+				float reach = Math.max(tpf, position.distance(loc) / worldSpeed);
+				if(worldSpeed > 0 && step > reach){
+					aiDeferred = step - reach;
+					step = reach;
+				}
+			}
+			clearRelationships();
+			move(step);
+		}
+		else if(extrapolate){
+			coast(tpf);
+		}
+		else{
+			aiDeferred += tpf;
+		}
+	}//end of updateAI method
+
+	/**
+	 * Continues the cichlid's current motion without evaluating its behavior 
+	 * or checking for collisions: it keeps swimming to its destination, or 
+	 * hovering if it is there.
+	 * 
+	 * @param tpf time per frame.
+	 */
+	private void coast(float tpf){
+		if(atLoc){
+			hover(tpf);
+		}
+		else if(loc != null){
+			moveToLoc(tpf, loc);
+		}
+	}//end of coast method
+
 	/**
 	 * Uses a sine wave and tpf to calculate hovering motion
 	 * @param tpf
@@ -473,11 +737,13 @@ public class Cichlid extends Fish implements IMoving{
 	 */
 	private void getDestination(){
 		if(!hasDestination){
-			idleTimer = Main.RNG.nextFloat();
-			gridX = getNextPoint(gridX);
-			gridY = getNextPoint(gridY);
-			gridZ = getNextPoint(gridZ);
-			loc = gridXYZ[gridX][gridY][gridZ];
+			idleTimer = getContext().getRNG().nextFloat();
+			for(int i=0; i<MAX_DESTINATION_ATTEMPTS; i++){
+				if(setGridPoint(getNextPoint(gridX), getNextPoint(gridY), getNextPoint(gridZ))){
+					break;
+				}
+			}
+			loc = getContext().getGrid().getGrid()[gridX][gridY][gridZ];
 			hasDestination = true;
 		}
 	}//end of getDestination method
@@ -534,7 +800,7 @@ public class Cichlid extends Fish implements IMoving{
 
 		//Need to add all spatials back to entity node to be rendered
 		for(Spatial spatial : collision.getChildren()){
-			Starter.getClient().getWorkingScenario().getEntityNode().attachChild(spatial);
+			getContext().getScenario().getEntityNode().attachChild(spatial);
 		}
 		if(collisionDetected){
 			this.setGlow(true);
@@ -547,286 +813,174 @@ public class Cichlid extends Fish implements IMoving{
 	}//end of avoid method
 	
 	/**
-	 * This is the handler for behavioral movement. It receives the scenario object and handles iteration through all the objects
-	 * in the tank and calls independent interaction methods for each item.
+	 * This is the handler for behavioral movement. It determines the cichlid's target fish 
+	 * and shelter, then performs one tick of its current behavior through the behavior engine.
 	 * 
 	 * @param tpf time per frame
 	 */
 	private void behavioralMovement(float tpf){
-		//this decides what action to take for the next random amount of time.
-		this.decision();
+		FrameProfiler profiler = getContext().getProfiler();
+		long start = profiler.begin();
 		this.fishFinder();
+		profiler.end(FrameProfiler.PHASE.TARGETING, start);
+		start = profiler.begin();
 		this.shelterFinder();
+		profiler.end(FrameProfiler.PHASE.SHELTER, start);
 		if(collisionDetected){
 			this.setBehavior(BEHAVIOR.RUN);
 		}
-		
-		//handles the attack behavior. this will measure the aggression and find a target
-		//it then lets the target fish know it is chasing it
-		if(this.getBehavior() == BEHAVIOR.ATTACK){
-			if(this.getTargetAggression() > AGGRESSION_THRESHOLD){
-				if(this.getTargetAggression() > getTargetFish().getTargetAggression()){
-					this.getTargetFish().setRun();
-					this.getTargetFish().setSpeed(this.getSpeed() * (Main.RNG.nextFloat()));
-					this.getTargetFish().setTargetFish(this);
-					this.attack(tpf);
-				}
-			}
-		}
-		else if(this.getBehavior() == BEHAVIOR.HIDE){//Handles the decision to hide
-			if(shelterWeight > 0){
-				this.hide(shelterObject, tpf);
-			}	
-		}
-		else if(this.getBehavior() == BEHAVIOR.RUN){//handles running
-			this.run(tpf);
-		}
-		else if(this.getBehavior() == BEHAVIOR.LOITER){//handles loitering
-			this.loiter(tpf);
-		}
-		else if(this.getBehavior() == BEHAVIOR.DART){//handles darting behavior
-			this.dart(tpf);
-		}
+		start = profiler.begin();
+		behaviorStarved = !getContext().getBehaviorEngine().tick(this, tpf, behaviorStarved);
+		profiler.end(FrameProfiler.PHASE.BEHAVIOR, start);
 	}//end of behavioralMovement method
 
 	/**
 	 * This is where the Cichlid determines what his course of action will be. also this will be overridden if
-	 * another fish attempts to attack him. it uses a random time interval between 0 and 10 seconds to 
-	 * decide between Fish.BEHAVIOR options. if it is before the time limit is up, then the fish does not make a new 
-	 * decision.
+	 * another fish attempts to attack him. Called by the <code>DecisionScheduler</code> when the cichlid's 
+	 * decision time is reached while it has company; the returned random interval sets when the next 
+	 * decision is made.
 	 * 
-	 * @param tpf time per frame
-	 */
-	private void decision(){
-		//here we enter the loop based on a random amount of time and the fish decides what to do.
-		if(Main.getTime() >= this.elapsed + this.getTimeControl()){
-			if(this.getSpeed() != originalSpeed){
-				this.setSpeed(originalSpeed);
-			}
-			if(this.getSpeed() == 0){
-				this.setSpeed(1);
-			}
-			//reset the variables used for movement as well as the aggression level.
-			this.elapsed = Main.getTime();//to cover the unlikely scenario of time change during the loop
-			this.setTimeControl(Main.RNG.nextInt(4));
-			setTargetAggression(0);
-			setTargetFish(this);
-			this.nextMove();
-			System.out.println("Change Behavior: " + this.getBehavior());
-		}	
-	}//end of decision method
-
-	/**
-	 * Determines the cichlid's next move.
+	 * @return the time, in seconds, until the cichlid's next decision.
 	 */
-	private void nextMove(){
-		int decision = Main.RNG.nextInt(4);
-		if(decision == 0){
-			this.setSpeed(this.getSpeed()*(Main.RNG.nextFloat()+1));
-			this.setTimeControl(Main.RNG.nextInt(15)); //set a time that is long enough to allow the attack to happen
-			this.setBehavior(BEHAVIOR.ATTACK);
-		}
-		else if(decision == 1 && !(this.getBehavior().equals(BEHAVIOR.HIDE))){
-			this.setSpeed(this.getSpeed()*(Main.RNG.nextFloat()+1));
-			this.setBehavior(BEHAVIOR.HIDE);
-		}
-		else if(decision == 2 && !(this.getBehavior().equals(BEHAVIOR.DART))){
-			this.setSpeed(this.getSpeed()*(Main.RNG.nextFloat()+1));
-			this.setBehavior(BEHAVIOR.DART);
+	public float decide(){
+		if(this.getSpeed() != originalSpeed){
+			this.setSpeed(originalSpeed);
 		}
-		else if(decision == 3 && !(this.getBehavior().equals(BEHAVIOR.LOITER))){
-			this.setSpeed(this.getSpeed()*(Main.RNG.nextFloat()+1));
-			this.setBehavior(BEHAVIOR.LOITER);
+		if(this.getSpeed() == 0){
+			this.setSpeed(1);
 		}
-		else{
-			this.nextMove();
-		}
-	}//end of nextMove method
+		//reset the variables used for movement as well as the aggression level.
+		setTargetAggression(0);
+		setTargetFish(this);
+		this.nextMove();
+		return this.getTimeControl();
+	}//end of decide method
 
 	/**
-	 * This controls the fish action of darting.
-	 * 
-	 * @param tpf time per frame.
+	 * Determines the cichlid's next move, chosen at random by the transition 
+	 * weights of its species profile, along with its change of speed and the 
+	 * time until its next decision.
 	 */
-	private void dart(float tpf){
-		this.run(tpf);
-	}//end of dart method
+	private void nextMove(){
+		Random rng = getContext().getRNG();
+		BEHAVIOR next = profile.pickNext(this.getBehavior(), rng);
+		this.setSpeed(this.getSpeed() * profile.pickSpeedBoost(rng));
+		this.setTimeControl(profile.pickHoldTime(next, rng));
+		this.setBehavior(next);
+	}//end of nextMove method
 
 	/**
 	 * Simple Loiter behavior that stops the fish.
 	 * 
 	 * @param tpf time per frame.
 	 */
-	private void loiter(float tpf){
+	public void loiter(float tpf){
 		hover(tpf);
 		atLoc = true;
 	}//end of loiter method
 	
+	/**
+	 * Finds the fish towards which the cichlid is most aggressive, from its 
+	 * row of the aggression matrix, and makes it the target if that aggression 
+	 * exceeds both the threshold and the aggression towards the current target.
+	 */
 	private void fishFinder(){
-		//Iterate through the fish and determine the aggression level for each fish
-		Iterator<Fish> itrF = Starter.getClient().getWorkingScenario().getFish();
-		if(itrF.hasNext()){
-			//Here determine which fish is a target fish. If none targetAggression will remain 0
-			while(itrF.hasNext()){
-				Fish nextFish =itrF.next();
-				if(this.getID() != nextFish.getID()){
-					double nextAggression = fishInteract(nextFish);
-					if(nextAggression > this.getTargetAggression() && nextAggression > AGGRESSION_THRESHOLD){
-						this.setTargetAggression(nextAggression);
-						this.setTargetFish(nextFish);
-					}
-				}
+		AggressionKernel kernel = getContext().getAggressionKernel();
+		int index = kernel.indexOf(this);
+		if(index != -1){
+			int target = kernel.argmax(index, Math.max(this.getTargetAggression(), profile.getAggressionThreshold()));
+			if(target != -1){
+				this.setTargetAggression(kernel.getAggression(index, target));
+				this.setTargetFish(kernel.getFish(target));
 			}
 		}
 	}//end of fishFinder method
 	
 	/**
 	 * Finds a suitable environment object for the cichlid to 
-	 * hide behind.
+	 * hide behind, by looking up the nearest shelter to the cichlid's 
+	 * cell in the grid's shelter field.
 	 */
 	private void shelterFinder(){
-		double shelterWeight = 0;
-		Iterator<EnvironmentObject> itrO = Starter.getClient().getWorkingScenario().getEnvironmentObjects();
-		//This has to be here so that it fish interaction occurs first and takes into account 
-		while(itrO.hasNext()){
-			EnvironmentObject nextObject = itrO.next();
-			shelterWeight = objectInteract(nextObject);
+		shelterObject = null;
+		shelterWeight = 0;
+		Grid grid = getContext().getGrid();
+		EnvironmentObject nearest = grid.getShelterField().getShelter(grid.toCell(this.getObj().getWorldTranslation()));
+		if(nearest != null){
+			shelterWeight = objectInteract(nearest);
 			if(shelterWeight > 0){
-				shelterObject = nextObject;
+				shelterObject = nearest;
 			}
 		}
 	}//end of shelterFinder method
 	
 	/**
-	 * This Cichlid will hide near EnvironmentObjects.
+	 * This Cichlid will hide near its current shelter object. Should only be 
+	 * called when the cichlid has a shelter, that is when its shelter weight 
+	 * is positive.
 	 * 
-	 * @param shelterObject the object to hide behind.
 	 * @param tpf time per frame.
 	 */
-	private void hide(EnvironmentObject shelterObject, float tpf){
-		float xPos = this.getObj().getWorldTranslation().getX();
-		float yPos = this.getObj().getWorldTranslation().getY();
-		float zPos = this.getObj().getWorldTranslation().getZ();
-		float xAvoid = this.getTargetFish().getObj().getWorldTranslation().getX();
-		float yAvoid = this.getTargetFish().getObj().getWorldTranslation().getY();
-		float zAvoid = this.getTargetFish().getObj().getWorldTranslation().getZ();
-		float xShelter = shelterObject.getObj().getWorldTranslation().getX();
-		float yShelter = shelterObject.getObj().getWorldTranslation().getY();
-		float zShelter = shelterObject.getObj().getWorldTranslation().getZ();
+	public void hide(float tpf){
+		Vector3f pos = this.getObj().getWorldTranslation();
+		Vector3f avoid = this.getTargetFish().getObj().getWorldTranslation();
+		Vector3f shelter = shelterObject.getObj().getWorldTranslation();
 
 		//here we are setting this fish as the origin and comparing two vectors to the other objects for manuever info
-		float diffXAvoid = xAvoid - xPos;
-		float diffYAvoid = yAvoid - yPos;
-		float diffZAvoid = zAvoid - zPos;
-		float diffXShelter = xShelter - xPos;
-		float diffYShelter = yShelter - yPos;
-		float diffZShelter = zShelter - zPos;
-		Vector3f toAvoid = new Vector3f(diffXAvoid, diffYAvoid, diffZAvoid);
-		Vector3f toShelter = new Vector3f(diffXShelter, diffYShelter, diffZShelter);
-		float angle = toAvoid.angleBetween(toShelter);
+		float diffXAvoid = avoid.x - pos.x;
+		float diffYAvoid = avoid.y - pos.y;
+		float diffZAvoid = avoid.z - pos.z;
+		float diffXShelter = shelter.x - pos.x;
+		float diffYShelter = shelter.y - pos.y;
+		float diffZShelter = shelter.z - pos.z;
+		float avoidLength = (float)Math.sqrt(diffXAvoid * diffXAvoid + diffYAvoid * diffYAvoid + diffZAvoid * diffZAvoid);
+		float shelterLength = (float)Math.sqrt(diffXShelter * diffXShelter + diffYShelter * diffYShelter + diffZShelter * diffZShelter);
 
 		//Here the fish will look to see if the shelter object and the opponent fish are 
-		//within a close proximity from its line of sight. It then checks to see if the pot is 
-		//closer than the opponent fish and if it is it attempts to hide behind it. If it is not, 
-		//it fails to attempt to hide behind the object.
-		if(angle < Math.PI / 4){
-			if(toShelter.length() < toAvoid.length()){
-				if(shelterObject instanceof Pot){
-					loc = gridXYZ[(int)xShelter][(int)yShelter][(int)zShelter];
-					moveToLoc(tpf, loc); 
-				}
-				else{
-					int newPositionX = getHidePosition(xShelter, xAvoid, OBJECT_DISTANCE);
-					int newPositionY = getHidePosition(yShelter, yAvoid, OBJECT_DISTANCE);
-					int newPositionZ = getHidePosition(zShelter, zAvoid, OBJECT_DISTANCE);
-					//here we increase the speed a little bit to encourage a more realistic scenario.
-					loc = gridXYZ[newPositionX][newPositionY][newPositionZ];
-					moveToLoc(tpf, loc); 
+		//within a close proximity from its line of sight. It then checks to see if the shelter is 
+		//closer than the opponent fish and if it is it moves to the cell behind the shelter, 
+		//as seen from the opponent. If it is not, it fails to attempt to hide behind the object.
+		if(avoidLength > 0 && shelterLength > 0 && shelterLength < avoidLength){
+			float cosAngle = (diffXAvoid * diffXShelter + diffYAvoid * diffYShelter + diffZAvoid * diffZShelter) / (avoidLength * shelterLength);
+			if(cosAngle > COS_QUARTER_PI){
+				Grid grid = getContext().getGrid();
+				int cell = grid.toCell(pos);
+				int hideCell = grid.getShelterField().findHidingCell(cell, avoid.x, avoid.y, avoid.z);
+				if(hideCell != -1){
+					moveToCell(grid.getNavigator().stepToward(cell, hideCell), tpf);
 				}
 			}
 		}
 	}//end of hide method
 
 	/**
-	 * Determines the new position for destination based on the two points passed to it
-	 * with the distance from the object added to the total.
-	 * NOTE: this is only in D1, must call 3 times for each XYZ coordinate
-	 * 
-	 * @param shelter float
-	 * @param avoid float
-	 * @param distance float
-	 * @return the point in D1 desired
-	 */
-	private int getHidePosition(float shelter, float avoid, float distance){
-		int returnValue = (int)(shelter - distance);
-		float newPosition = shelter - avoid;
-		if(newPosition < shelter){
-			returnValue = (int)(shelter + distance);
-		}
-		return returnValue;
-	}//end of getHidePosition method
-
-	/**
-	 * Used by Cichlid to chase target. This method uses getChasingPoint to 
-	 * determine where to move in order to chase target.
+	 * Used by Cichlid to chase target. This method follows the flow field 
+	 * leading to the target's cell, one cell at a time.
 	 * 
 	 * @param tpf time per frame.
 	 */
-	private void attack(float tpf){
-		float xPos = this.getObj().getWorldTranslation().getX();
-		float yPos = this.getObj().getWorldTranslation().getY();
-		float zPos = this.getObj().getWorldTranslation().getZ();
-		float xTarget = this.getTargetFish().getObj().getWorldTranslation().getX();
-		float yTarget = this.getTargetFish().getObj().getWorldTranslation().getY();
-		float zTarget = this.getTargetFish().getObj().getWorldTranslation().getZ();
-		gridX = getChasingPoint(xPos, xTarget, gridX);
-		gridY = getChasingPoint(yPos, yTarget, gridY);
-		gridZ = getChasingPoint(zPos, zTarget, gridZ);
-		//here we increase the speed a little bit to encourage a more realistic scenario.
-		loc = gridXYZ[gridX][gridY][gridZ];//Using loc overwrites the old destination
-		moveToLoc(tpf, loc);
+	public void attack(float tpf){
+		Grid grid = getContext().getGrid();
+		int cell = grid.toCell(this.getObj().getWorldTranslation());
+		int targetCell = grid.toCell(this.getTargetFish().getObj().getWorldTranslation());
+		//Using loc overwrites the old destination
+		moveToCell(grid.getNavigator().stepToward(cell, targetCell), tpf);
 	}//end of attack method
 
 	/**
-	 * Used by Cichlid to run away from target. This method uses getAvoidingPoint
-	 * to determine the next location to run towards.
+	 * Used by Cichlid to run away from target. This method moves to the 
+	 * neighboring cell farthest from the target along the flow field 
+	 * leading to the target's cell.
 	 * 
 	 * @param tpf time per frame.
 	 */
-	private void run(float tpf){
-		float xPos = this.getObj().getWorldTranslation().getX();
-		float yPos = this.getObj().getWorldTranslation().getY();
-		float zPos = this.getObj().getWorldTranslation().getZ();
-		float xAvoid = this.getTargetFish().getObj().getWorldTranslation().getX();
-		float yAvoid = this.getTargetFish().getObj().getWorldTranslation().getY();
-		float zAvoid = this.getTargetFish().getObj().getWorldTranslation().getZ();
-		gridX = getAvoidingPoint(xPos, xAvoid, gridX);
-		gridY = getAvoidingPoint(yPos, yAvoid, gridY);
-		gridZ = getAvoidingPoint(zPos, zAvoid, gridZ);
-		loc = gridXYZ[gridX][gridY][gridZ];//Using loc overwrites the old destination
-		moveToLoc(tpf, loc);
+	public void run(float tpf){
+		Grid grid = getContext().getGrid();
+		int cell = grid.toCell(this.getObj().getWorldTranslation());
+		int avoidCell = grid.toCell(this.getTargetFish().getObj().getWorldTranslation());
+		moveToCell(grid.getNavigator().stepAway(cell, avoidCell), tpf);
 	}//end of run method
 	
-	/**
-	 * DO NOT CALL DIRECTLY: Use behavioralMovement() Handles the interactions with other 
-	 * fish via range with a weight, size with a weight, and speed with a weight
-	 * 
-	 * @param opponent the other fish.
-	 * TODO add tank temp to this calculation
-	 */
-	private double fishInteract(Fish opponent){
-		double aggression = 0;
-		aggression = (1 / calculateRelationships(opponent).getRange() * DISTANCE_WEIGHT);
-		aggression = aggression + (this.getSize() / opponent.getSize() * SIZE_WEIGHT);
-		aggression = aggression + (this.getSpeed() / opponent.getSpeed() * SPEED_WEIGHT);
-		if(!this.getSex().matches(opponent.getSex())){
-			aggression = aggression * 2; //This will accoint for different sex's with an attemot to mate
-		}
-		aggression = aggression * calculateRelationships(opponent).getVisibility(); //here we account for visibility 0 is blocked, 100 is visible
-		aggression = 2 - (1 / aggression);
-		return aggression;
-	}//end of fishInteract method
-	
 	/**
 	 * NOT YET IMPLEMENTED
 	 * 
@@ -843,77 +997,53 @@ public class Cichlid extends Fish implements IMoving{
 
 
 	/**
-	 * Used by Cichlid to run away from target. This method uses getAvoidingPoint
-	 * to determine the next location to run towards.
+	 * Used by Cichlid to move away from a point it is about to collide with. 
+	 * This method moves to the neighboring cell farthest from the point 
+	 * along the flow field leading to the point's cell.
 	 * 
 	 * @param tpf time per frame.
 	 * @param p point to avoid.
 	 */
 	private void moveAround(float tpf, Vector3f p){
-		float xPos = this.getObj().getWorldTranslation().getX();
-		float yPos = this.getObj().getWorldTranslation().getY();
-		float zPos = this.getObj().getWorldTranslation().getZ();
-		gridX = getAvoidingPoint(xPos, p.x, gridX);
-		gridY = getAvoidingPoint(yPos, p.y, gridY);
-		gridZ = getAvoidingPoint(zPos, p.z, gridZ);
-		loc = gridXYZ[gridX][gridY][gridZ];//Using loc overwrites the old destination
-		moveToLoc(tpf, loc);
+		Grid grid = getContext().getGrid();
+		int cell = grid.toCell(this.getObj().getWorldTranslation());
+		moveToCell(grid.getNavigator().stepAway(cell, grid.toCell(p)), tpf);
 	}//end of moveAround method
-	
+
 	/**
-	 * Used by avoidance algorithm to determine relative positions of colliding fishes. 
-	 * This method compares the Cichlid's object to the target's position and 
-	 * moves away from the target. This methods needs to be called for each axis.
+	 * Sets the cichlid's destination to the specified cell and moves 
+	 * towards it.
 	 * 
-	 * @param pos this objects own coordinate position.
-	 * @param avoid colliding fish's coordinate position.
-	 * @param gridPos this objects position on the grid.
-	 * @return new position to move to, on the grid.
-	 */
-	private int getAvoidingPoint(float pos, float avoid, int gridPos){
-		int size = Main.getGrid().getSize();
-		if(pos > avoid){
-			gridPos++;
-			if(gridPos >= size){
-				gridPos--;
-			}
-		}
-		else{
-			gridPos--;
-			if(gridPos < 0){
-				gridPos++;
-			}
-		}
-		return gridPos;
-	}//end of getAvoidingPoint method
+	 * @param cell the cell index to move to.
+	 * @param tpf time per frame.
+	 */
+	private void moveToCell(int cell, float tpf){
+		Grid grid = getContext().getGrid();
+		setGridPoint(grid.cellX(cell), grid.cellY(cell), grid.cellZ(cell));
+		loc = grid.getGrid()[gridX][gridY][gridZ];//Using loc overwrites the old destination
+		moveToLoc(tpf, loc);
+	}//end of moveToCell method
 	
 	/**
-	 * Used by attack algorithm to find next movement on an axis. Must be called for each axis.
-	 * This method compares this Cichlid's own position on an axis to 
-	 * target's position. If the target's position is less than the Cichlid's position, 
-	 * the Cichlid moves towards one position less than it's current location.
+	 * Moves the cichlid's grid position to the specified cell, unless the 
+	 * cell is filled by an environment object, in which case the grid 
+	 * position is left unchanged.
 	 * 
-	 * @param pos this objects own coordinate position.
-	 * @param target Desired Targets coordinate position.
-	 * @param gridPos this objects position on the grid.
-	 * @return new position to move to, on the grid.
-	 */
-	private int getChasingPoint(float pos, float target, int gridPos){
-		int size = Main.getGrid().getSize();
-		if(target > pos){
-			gridPos++;
-			if(gridPos >= size){
-				gridPos--;
-			}
+	 * @param x the X-coordinate on the grid.
+	 * @param y the Y-coordinate on the grid.
+	 * @param z the Z-coordinate on the grid.
+	 * @return true if the grid position was changed, false if the cell is blocked.
+	 */
+	private boolean setGridPoint(int x, int y, int z){
+		boolean returnValue = false;
+		if(!getContext().getGrid().isBlocked(x, y, z)){
+			gridX = x;
+			gridY = y;
+			gridZ = z;
+			returnValue = true;
 		}
-		else{
-			gridPos--;
-			if(gridPos < 0){
-				gridPos++;
-			}
-		}
-		return gridPos;
-	}//end of getDesiredPoint method
+		return returnValue;
+	}//end of setGridPoint method
 
 	/**
 	 * Used to find next destination on 3d grid. Must be called for each axis. 
@@ -923,23 +1053,24 @@ public class Cichlid extends Fish implements IMoving{
 	 * @return the next point.
 	 */
 	private int getNextPoint(int x){
-		boolean add = Main.RNG.nextBoolean();
-		int size = Main.getGrid().getSize();
+		Random rng = getContext().getRNG();
+		boolean add = rng.nextBoolean();
+		int size = getContext().getGrid().getSize();
 		int limit = 5;
 		if(add){
 			if(x >= size - limit){
-				x -= (Main.RNG.nextInt(limit) + 1);
+				x -= (rng.nextInt(limit) + 1);
 			}
 			else{
-				x += (Main.RNG.nextInt(limit) + 1);
+				x += (rng.nextInt(limit) + 1);
 			}
 		}
 		else{
 			if(x <= limit){
-				x =+ (Main.RNG.nextInt(limit) + 1);
+				x =+ (rng.nextInt(limit) + 1);
 			}
 			else{
-				x = x - (Main.RNG.nextInt(limit) + 1);
+				x = x - (rng.nextInt(limit) + 1);
 			}
 		}
 		return x;
@@ -988,6 +1119,7 @@ public class Cichlid extends Fish implements IMoving{
 			returnValue = new CichlidRelationships(this,entity);
 			returnValue.setVisibility(visibilityFactor(entity));
 			returnValue.setRange(range(entity));
+			currentRelationships.put(entity.getID(), returnValue);
 		}
 		return returnValue;
 	}//end of calculateRelationships method
@@ -1009,7 +1141,8 @@ public class Cichlid extends Fish implements IMoving{
 
 	/**
 	 * Calculates a value (0-100) that represents the visibility between the 
-	 * cichlid and the specified entity. A value of 0 is fully obstructed, while 
+	 * cichlid and the specified entity, using the <code>VISIBILITY_MODE</code> 
+	 * of the cichlid's context. A value of 0 is fully obstructed, while 
 	 * a value of 100 is fully clear.
 	 * 
 	 * @param entity the other entity.
@@ -1017,57 +1150,37 @@ public class Cichlid extends Fish implements IMoving{
 	 */
 	private int visibilityFactor(Entity entity){
 		int returnValue = 0;
-		Vector3f loc = getObj().getLocalTranslation();
-		Vector3f tar = entity.getObj().getLocalTranslation();
-		Vector3f viewVec = tar.subtract(loc);
-		Ring ring = new Ring(loc,viewVec,0,0.001f);
-		ArrayList<Ray> rayList = new ArrayList<Ray>();
-		rayList.add(new Ray(loc,viewVec));
-		for(int i=0; i<50; i++){
-			Vector3f origin = ring.random();
-			rayList.add(new Ray(origin,viewVec));
+		long start = MonitorEvents.begin();
+		VISIBILITY_MODE visibilityMode = getContext().getVisibilityMode();
+		if(visibilityMode == VISIBILITY_MODE.RAYCAST){
+			returnValue = raycastVisibility(entity);
 		}
-		for(Ray ray : rayList){
-			Scenario scenario = Starter.getClient().getWorkingScenario();
-			CollisionResults results = new CollisionResults();
-			Node entityNode = scenario.getEntityNode();
-			entityNode.collideWith(ray, results);
-			if(results.size() > 0){
-				CollisionResult closest = results.getClosestCollision();
-				String closestName = closest.getGeometry().getName();
-				Entity closestEntity = scenario.getEntity(closestName);
-				if(closestEntity != null){
-					if(closestEntity.equals(entity)){
-						returnValue++;
-					}
-					else if(closestEntity.equals(this)){
-						Iterator<CollisionResult> it = results.iterator();
-						Entity nextClosest = null;
-						float nextClosestDist = Float.POSITIVE_INFINITY;
-						while(it.hasNext()){
-							CollisionResult collision = it.next();
-							Entity colEntity = scenario.getEntity(collision.getGeometry().getName());
-							if(!colEntity.equals(this)){
-								if(nextClosestDist > collision.getDistance()){
-									nextClosestDist = collision.getDistance();
-									nextClosest = colEntity;
-								}
-							}
-						}
-						if(nextClosest == null || nextClosest.equals(entity)){
-							returnValue++;
-						}
-					}
-				}
-			}
-			else{
-				returnValue++;
+		else{
+			returnValue = getContext().getGrid().getOcclusionVolume().visibility(getObj().getWorldTranslation(), 
+					entity.getObj().getWorldTranslation());
+			if(visibilityMode == VISIBILITY_MODE.COMPARE){
+				int reference = raycastVisibility(entity);
+				getContext().getVisibilityStats().record(reference, returnValue);
+				returnValue = reference;
 			}
 		}
-		returnValue *= 2;
+		MonitorEvents.visibilityQuery(this, entity, visibilityMode.name(), returnValue, start);
 		return returnValue;
 	}//end of visibilityFactor method
 
+	/**
+	 * Calculates a value (0-100) that represents the visibility between the 
+	 * cichlid and the specified entity by casting rays against the scenario's 
+	 * entities, using the adaptive visibility sampler. This is the reference 
+	 * for the occlusion volume.
+	 * 
+	 * @param entity the other entity.
+	 * @return the visibility factor value.
+	 */
+	private int raycastVisibility(Entity entity){
+		return getContext().getVisibilitySampler().visibility(this, entity, getContext().getScenario());
+	}//end of raycastVisibility method
+
 	/**
 	 * Used to get next location to test before moving.
 	 * 
@@ -1086,7 +1199,10 @@ public class Cichlid extends Fish implements IMoving{
 	 */
 	public void removeGhost(){
 		getObj().removeControl(ghost);	
-		Starter.getClient().getStateManager().getState(BulletAppState.class).getPhysicsSpace().remove(ghost);
+		if(ghostSpace != null){
+			ghostSpace.remove(ghost);
+			ghostSpace = null;
+		}
 	}//end of removeGhost method
 
 	/**
@@ -9,7 +9,7 @@ import java.io.Serializable;
 import com.jme3.math.Vector3f;
 import com.jme3.scene.Spatial;
 
-import thinktank.simulator.main.Main;
+import thinktank.simulator.main.SimulationContext;
 
 /**
  * Abstract base type for all animate and inanimate objects that make up a scenario.
@@ -25,7 +25,9 @@ public abstract class Entity implements Serializable{
 	//---------------------instance constants--------------------------
 	//---------------------instance variables--------------------------
 	/**
-	 * Unique number to identify a specific entity.
+	 * Unique number to identify a specific entity. Zero until a new entity 
+	 * is first bound to a simulation context, which then draws it from its 
+	 * own random number generator; kept when the entity is saved and loaded.
 	 */
 	private long id;
 	/**
@@ -45,13 +47,28 @@ public abstract class Entity implements Serializable{
 	 * Value for the entity depth (on the z-axis) in game world units.
 	 */
 	protected float worldUnitWidth;
+	/**
+	 * The handle of this entity in the registry of the scenario it is in.
+	 */
+	private int handle;
+	/**
+	 * The context of the simulation this entity was last added to.
+	 */
+	private SimulationContext context;
+	/**
+	 * Whether or not the entity has been bound to a simulation context.
+	 */
+	private transient boolean bound;
 	
 	//---------------------constructors--------------------------------
 	/**
 	 * Constructs a basic, default entity.
 	 */
 	public Entity(){
-		id = Main.RNG.nextLong();
+		id = 0;
+		handle = -1;
+		context = null;
+		bound = false;
 	}//end of default constructor
 	
 	//---------------------instance methods----------------------------
@@ -65,6 +82,26 @@ public abstract class Entity implements Serializable{
 		return id;
 	}//end of getID method
 
+	/**
+	 * Gets the handle of this entity in the registry of the scenario 
+	 * it is in.
+	 * 
+	 * @return the handle, -1 if the entity is not in a scenario.
+	 */
+	public int getHandle(){
+		return handle;
+	}//end of getHandle method
+
+	/**
+	 * Gets the context of the simulation this entity was last added to.
+	 * 
+	 * @return the simulation context, null if the entity has never been 
+	 * added to a scenario.
+	 */
+	public SimulationContext getContext(){
+		return context;
+	}//end of getContext method
+
 	/**
 	 * Gets the model for this entity.
 	 * 
@@ -112,6 +149,34 @@ public abstract class Entity implements Serializable{
 		this.obj = obj;
 	}//end of setObj method
 	
+	/**
+	 * Sets the handle of this entity. Should only be called by the 
+	 * <code>EntityRegistry</code> the entity is registered in.
+	 * 
+	 * @param handle the handle, -1 if the entity is not registered.
+	 */
+	public void setHandle(int handle){
+		this.handle = handle;
+	}//end of setHandle method
+	
+	/**
+	 * Binds this entity to the specified simulation context. Should only 
+	 * be called by the <code>Scenario</code> the entity is added to, 
+	 * before the entity is registered. The first time a new entity is bound, 
+	 * its id is drawn from the context's random number generator, so that 
+	 * a scenario built the same way with the same seed has the same ids. 
+	 * Entities read from a file keep the id they were saved with.
+	 * 
+	 * @param context the simulation context.
+	 */
+	public void setContext(SimulationContext context){
+		if(context != null && !bound){
+			id = context.getRNG().nextLong();
+			bound = true;
+		}
+		this.context = context;
+	}//end of setContext method
+	
 	//OPERATIONS
 	/**
 	 * Implementing subclasses must specify how they glow.
@@ -157,6 +222,9 @@ public abstract class Entity implements Serializable{
 	 */
 	private void readObject(ObjectInputStream stream) throws IOException, ClassNotFoundException{
 		id = stream.readLong();
+		handle = -1;
+		context = null;
+		bound = true;//keeps the saved id when the entity is added to its scenario
 	}//end of readObject method
 
 	/**
@@ -6,6 +6,7 @@ import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.ObjectStreamException;
 
+import com.jme3.math.Vector3f;
 import com.jme3.scene.Geometry;
 import com.jme3.scene.Node;
 
@@ -82,7 +83,17 @@ public class Fish extends Entity{
 	/**
 	 * Value for the time delay between behavior choices.
 	 */
-	private int randomTimeControl;
+	private float randomTimeControl;
+	/**
+	 * Value incremented every time the fish moves further than the 
+	 * tracking distance from where it was when the value was last 
+	 * incremented.
+	 */
+	private int movementEpoch;
+	/**
+	 * The position of the fish when its movement epoch was last incremented.
+	 */
+	private Vector3f movementAnchor;
 	
 	//---------------------constructors--------------------------------
 	/**
@@ -99,6 +110,8 @@ public class Fish extends Entity{
 		this.targetAggression = 0;
 		this.targetFish = null;
 		this.randomTimeControl = 0;
+		this.movementEpoch = 0;
+		this.movementAnchor = null;
 	}//end of default constructor
 	
 	//---------------------instance methods----------------------------
@@ -151,9 +164,9 @@ public class Fish extends Entity{
 	/**
 	 * Returns the current time between the fish's behavior choices.
 	 * 
-	 * @return the current time.
+	 * @return the current time, in seconds.
 	 */
-	public int getTimeControl(){
+	public float getTimeControl(){
 		return randomTimeControl;
 	}//end of getTimeControl method
 	
@@ -193,6 +206,16 @@ public class Fish extends Entity{
 		return behavior;
 	}//end of getBehavior method
 	
+	/**
+	 * Returns the movement epoch of the fish, which changes whenever the 
+	 * fish has moved meaningfully, as determined by <code>trackMovement()</code>.
+	 * 
+	 * @return the movement epoch.
+	 */
+	public int getMovementEpoch(){
+		return movementEpoch;
+	}//end of getMovementEpoch method
+	
 	//SETTERS
 	/**
 	 * Sets the value for the speed of this fish to the specified value.
@@ -209,9 +232,9 @@ public class Fish extends Entity{
 	/**
 	 * Sets the time control variable.
 	 * 
-	 * @param time the time control.
+	 * @param time the time control, in seconds.
 	 */
-	public void setTimeControl(int time) {
+	public void setTimeControl(float time) {
 		this.randomTimeControl = time;
 	}//end of setTimeControl method
 
@@ -323,6 +346,26 @@ public class Fish extends Entity{
 		//TODO implement or remove
 	}//end of move method
 	
+	/**
+	 * Increments the fish's movement epoch if it has moved further than the 
+	 * specified distance since the epoch was last incremented.
+	 * 
+	 * @param epsilon the tracking distance, in world units.
+	 * @return the movement epoch.
+	 */
+	public int trackMovement(float epsilon){
+		Vector3f pos = getObj().getLocalTranslation();
+		if(movementAnchor == null){
+			movementAnchor = new Vector3f(pos);
+			movementEpoch++;
+		}
+		else if(movementAnchor.distanceSquared(pos) > epsilon * epsilon){
+			movementAnchor.set(pos);
+			movementEpoch++;
+		}
+		return movementEpoch;
+	}//end of trackMovement method
+	
 	/**
 	 * The readObject method is responsible for reading from the stream and restoring 
 	 * the fields of the class.
@@ -337,6 +380,8 @@ public class Fish extends Entity{
 		this.targetAggression = 0;
 		this.targetFish = null;
 		randomTimeControl = 0;
+		movementEpoch = 0;
+		movementAnchor = null;
 		baseSpeed = stream.readFloat();
 		sex = (String)(stream.readObject());
 		size = stream.readFloat();
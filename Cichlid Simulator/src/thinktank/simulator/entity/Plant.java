@@ -5,6 +5,7 @@ import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.ObjectStreamException;
 import java.util.ArrayList;
+import java.util.Random;
 
 import com.jme3.material.Material;
 import com.jme3.math.ColorRGBA;
@@ -17,6 +18,7 @@ import com.jme3.scene.Spatial.CullHint;
 
 import thinktank.simulator.environment.Environment;
 import thinktank.simulator.main.Main;
+import thinktank.simulator.main.SimulationContext;
 
 /**
  * Concrete type of <code>Entity</code> representing a plant environment object.
@@ -47,6 +49,12 @@ public class Plant extends EnvironmentObject{
 	 * A list of references to the materials for the plant's model.
 	 */
 	private ArrayList<Material> mats;
+	/**
+	 * Whether or not the rotation and size of the plant have been set, 
+	 * either drawn from the random number generator of its context or 
+	 * read with the plant.
+	 */
+	private boolean shaped;
 	
 	//---------------------constructors--------------------------------
 	/**
@@ -77,6 +85,21 @@ public class Plant extends EnvironmentObject{
 		}
 	}//end of setGlow method
 	
+	/**
+	 * Binds this plant to the specified simulation context. The first time 
+	 * a new plant is bound, its rotation and size are drawn from the 
+	 * context's random number generator.
+	 * 
+	 * @param context the simulation context.
+	 */
+	@Override
+	public void setContext(SimulationContext context){
+		super.setContext(context);
+		if(context != null && !shaped){
+			shape(context.getRNG());
+		}
+	}//end of setContext method
+	
 	//OPERATIONS
 	/**
 	 * Loads the model and initializes this plant to the appropriate values.
@@ -100,15 +123,26 @@ public class Plant extends EnvironmentObject{
 			mats.add(geom.getMaterial());
 		}
 		
-		float y = (float) Math.toRadians(Main.RNG.nextInt(360));
-		getObj().rotate(0, y, 0);
 		getObj().setCullHint(CullHint.Never);
 		getObj().setLocalTranslation(0, Environment.inchesToWorldUnits(1f), 0);
 		setDimensions();
-		int next = Main.RNG.nextInt(50);
+		shaped = false;
+	}//end of init method
+
+	/**
+	 * Gives the plant a random rotation about its vertical axis and a 
+	 * random size.
+	 * 
+	 * @param rng the random number generator to use.
+	 */
+	private void shape(Random rng){
+		float y = (float) Math.toRadians(rng.nextInt(360));
+		getObj().rotate(0, y, 0);
+		int next = rng.nextInt(50);
 		float scale = 0.3f + (float)next/100;
 		getObj().scale(scale, scale, scale);
-	}//end of init method
+		shaped = true;
+	}//end of shape method
 
 	/**
 	 * Scales the model to the appropriate dimensions as defined in the 
@@ -154,6 +188,7 @@ public class Plant extends EnvironmentObject{
 		//set Spatial transform
 		Transform xform = new Transform(trans, rot, scale);
 		getObj().setLocalTransform(xform);
+		shaped = true;
 	}//end of readObject method
 
 	/**
@@ -19,6 +19,8 @@ import com.jme3.terrain.geomipmap.TerrainQuad;
 
 import thinktank.simulator.Starter;
 import thinktank.simulator.environment.Tank;
+import thinktank.simulator.event.EventStream;
+import thinktank.simulator.scenario.Scenario;
 
 /**
  * 
@@ -149,6 +151,10 @@ public class Player extends Cichlid implements ActionListener{
      * Used to trigger sprint action
      */
     private boolean sprint = false;
+    /**
+     * The spatial last collided with, so each collision is published once
+     */
+    private Spatial lastCollision = null;
 	//---------------------constructors--------------------------------
     /**
      * 
@@ -425,6 +431,10 @@ public class Player extends Cichlid implements ActionListener{
 		Vector3f testVec = new Vector3f();
     	testVec = player.getNode().localToWorld(getNextLoc(tpf),getNextLoc(tpf));
     	spatial = getCollisions(testVec);
+    	if(spatial != lastCollision){
+    		publishCollision(spatial);
+    		lastCollision = spatial;
+    	}
     	if(spatial != null){
     		//TODO collision stuff 
 				if(spatial.getName().contains("ray")){
@@ -445,7 +455,6 @@ public class Player extends Cichlid implements ActionListener{
 					move = player.getNode().localToWorld(movement,movement);
 				}
 				else if(spatial.getName().contains("pot")){
-					System.out.println("Pot");
 					canHide = true;
 					if(wantsToHide()){
 						movement = hide(spatial, tpf);
@@ -460,8 +469,7 @@ public class Player extends Cichlid implements ActionListener{
 					}
 				}
 				else if(spatial.getName().contains("cichlid")){
-					System.out.println("Cichlid");
-					
+					//published by publishCollision(spatial)
 				}
     	}
     	else{
@@ -484,6 +492,19 @@ public class Player extends Cichlid implements ActionListener{
         alreadyMoved = false;
 	}//end of update method
 
+	/**
+	 * Publishes a collision with the specified spatial to the application's
+	 * event stream, if any.
+	 * @param spatial the spatial collided with, null if none
+	 */
+	private void publishCollision(Spatial spatial){
+		EventStream events = Starter.getClient().getEventStream();
+		Scenario scenario = Starter.getClient().getWorkingScenario();
+		if(spatial != null && events != null && scenario != null){
+			events.collision(scenario.getContext().getTime(), this, scenario.getEntity(spatial));
+		}
+	}//end of publishCollision method
+
 	/**
 	 * Checks for player collision with sand and surface level. 
 	 * @param tpf
@@ -599,11 +620,9 @@ public class Player extends Cichlid implements ActionListener{
 					float distanceToLoc = getObj().getWorldTranslation().distance(getNextLoc(tpf));
 					if(distanceToLoc >= closestDis && closestDis < 0.05f){
 						Vector3f direction = dir.subtract(getObj().getWorldTranslation()).mult(tpf);
-						System.out.println(direction);
 						move.setX(move.x - direction.x);
 						move.setZ(move.z - direction.z);
 						player.getNode().setLocalTranslation(move);
-						System.out.println("Moved via RayTesting");
 						alreadyMoved = true;
 					}
 				}
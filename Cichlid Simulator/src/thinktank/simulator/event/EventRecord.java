@@ -0,0 +1,220 @@
+package thinktank.simulator.event;
+
+import thinktank.simulator.entity.Fish.BEHAVIOR;
+
+/**
+ * One event from an <code>EventStream</code>, as handed to its subscribers.
+ * The stream reuses a single record for every event it dispatches, so a
+ * subscriber that keeps an event must copy the values it needs.
+ *
+ * @author Vasher Lor
+ * @version %I%, %G%
+ */
+public class EventRecord{
+	//---------------------static constants----------------------------
+	/**
+	 * Constant value for an id that refers to no entity.
+	 */
+	public static final long NO_ID = -1;
+
+	/**
+	 * Enum for the kinds of events.
+	 */
+	public enum EVENT_TYPE{
+		/**
+		 * A cichlid changed its behavior, from <code>getFrom()</code> to
+		 * <code>getTo()</code>.
+		 */
+		BEHAVIOR,
+		/**
+		 * A cichlid attacked its target, the other entity, with the value
+		 * as its aggression.
+		 */
+		ATTACK,
+		/**
+		 * A cichlid began hiding behind a shelter, the other entity, with
+		 * the value as the shelter's weight.
+		 */
+		HIDE,
+		/**
+		 * A fish collided with the other entity.
+		 */
+		COLLISION,
+		/**
+		 * The simulation finished a tick, with the value as the number of
+		 * fish; not about any entity.
+		 */
+		TICK;
+	}//end of EVENT_TYPE enum
+
+	/**
+	 * The event types, by ordinal.
+	 */
+	private static final EVENT_TYPE[] TYPES = EVENT_TYPE.values();
+	/**
+	 * The behaviors, by ordinal.
+	 */
+	private static final BEHAVIOR[] BEHAVIORS = BEHAVIOR.values();
+
+	//---------------------static variables----------------------------
+	//---------------------instance constants--------------------------
+	//---------------------instance variables--------------------------
+	/**
+	 * The kind of event, by ordinal.
+	 */
+	private int type;
+	/**
+	 * The simulation time of the event, in seconds.
+	 */
+	private double time;
+	/**
+	 * The id of the entity the event is about.
+	 */
+	private long subjectID;
+	/**
+	 * The id of the other entity involved, <code>NO_ID</code> if none.
+	 */
+	private long otherID;
+	/**
+	 * The old behavior, by ordinal, -1 if none.
+	 */
+	private int from;
+	/**
+	 * The new behavior, by ordinal, -1 if none.
+	 */
+	private int to;
+	/**
+	 * The value attached to the event.
+	 */
+	private float value;
+
+	//---------------------constructors--------------------------------
+	/**
+	 * Constructs a new, empty record.
+	 */
+	public EventRecord(){
+		type = 0;
+		time = 0;
+		subjectID = NO_ID;
+		otherID = NO_ID;
+		from = -1;
+		to = -1;
+		value = 0;
+	}//end of default constructor
+
+	//---------------------instance methods----------------------------
+	//GETTERS
+	/**
+	 * Returns the kind of event.
+	 *
+	 * @return the event type.
+	 */
+	public EVENT_TYPE getType(){
+		return TYPES[type];
+	}//end of getType method
+
+	/**
+	 * Returns the simulation time of the event.
+	 *
+	 * @return the time, in seconds.
+	 */
+	public double getTime(){
+		return time;
+	}//end of getTime method
+
+	/**
+	 * Returns the id of the entity the event is about.
+	 *
+	 * @return the subject's id.
+	 */
+	public long getSubjectID(){
+		return subjectID;
+	}//end of getSubjectID method
+
+	/**
+	 * Returns the id of the other entity involved in the event.
+	 *
+	 * @return the other entity's id, <code>NO_ID</code> if none.
+	 */
+	public long getOtherID(){
+		return otherID;
+	}//end of getOtherID method
+
+	/**
+	 * Returns the old behavior of a behavior change.
+	 *
+	 * @return the old behavior, null if none.
+	 */
+	public BEHAVIOR getFrom(){
+		return (from >= 0) ? BEHAVIORS[from] : null;
+	}//end of getFrom method
+
+	/**
+	 * Returns the new behavior of a behavior change.
+	 *
+	 * @return the new behavior, null if none.
+	 */
+	public BEHAVIOR getTo(){
+		return (to >= 0) ? BEHAVIORS[to] : null;
+	}//end of getTo method
+
+	/**
+	 * Returns the value attached to the event.
+	 *
+	 * @return the value.
+	 */
+	public float getValue(){
+		return value;
+	}//end of getValue method
+
+	//SETTERS
+	/**
+	 * Sets every value of the record.
+	 *
+	 * @param type the kind of event, by ordinal.
+	 * @param time the simulation time.
+	 * @param subjectID the id of the entity the event is about.
+	 * @param otherID the id of the other entity involved.
+	 * @param from the old behavior, by ordinal.
+	 * @param to the new behavior, by ordinal.
+	 * @param value the value attached to the event.
+	 */
+	void set(int type, double time, long subjectID, long otherID, int from, int to, float value){
+		this.type = type;
+		this.time = time;
+		this.subjectID = subjectID;
+		this.otherID = otherID;
+		this.from = from;
+		this.to = to;
+		this.value = value;
+	}//end of set method
+
+	//OPERATIONS
+	/**
+	 * Returns the record as one line of comma separated values: the time,
+	 * type, subject, other entity, old and new behaviors, and value.
+	 *
+	 * @return the line.
+	 */
+	@Override
+	public String toString(){
+		StringBuilder returnValue = new StringBuilder(96);
+		returnValue.append(time).append(',').append(getType()).append(',').append(subjectID).append(',');
+		if(otherID != NO_ID){
+			returnValue.append(otherID);
+		}
+		returnValue.append(',');
+		if(from >= 0){
+			returnValue.append(BEHAVIORS[from]);
+		}
+		returnValue.append(',');
+		if(to >= 0){
+			returnValue.append(BEHAVIORS[to]);
+		}
+		returnValue.append(',').append(value);
+		return returnValue.toString();
+	}//end of toString method
+
+	//---------------------static main---------------------------------
+	//---------------------static methods------------------------------
+}//end of EventRecord class
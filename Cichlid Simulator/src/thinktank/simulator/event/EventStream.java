@@ -0,0 +1,448 @@
+package thinktank.simulator.event;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import thinktank.simulator.entity.Entity;
+import thinktank.simulator.entity.Fish.BEHAVIOR;
+
+/**
+ * A stream of the events of the simulation, such as behavior changes,
+ * attacks, hides and collisions, published by the threads stepping the
+ * simulation and delivered to subscribers on a separate dispatch thread.
+ *
+ * Events are written into a fixed size ring of primitive arrays, so
+ * publishing neither locks nor allocates. Any number of threads may publish
+ * at once; each claims a slot by advancing the tail, fills it, and then
+ * marks it published. The dispatch thread takes the published slots in
+ * order. When the ring is full the event is dropped and counted, rather
+ * than stalling the simulation. While there are no subscribers, nothing is
+ * written.
+ *
+ * @author Vasher Lor
+ * @version %I%, %G%
+ */
+public class EventStream{
+	//---------------------static constants----------------------------
+	/**
+	 * Constant value for the default capacity of the ring.
+	 */
+	public static final int DEFAULT_CAPACITY = 65536;
+	/**
+	 * Constant value for how long the dispatch thread waits when there are no
+	 * events, in nanoseconds.
+	 */
+	private static final long IDLE_WAIT = 1000000L;
+	/**
+	 * Constant value for how long closing the stream waits for the dispatch
+	 * thread by default, in milliseconds.
+	 */
+	private static final long CLOSE_WAIT = 1000L;
+
+	//---------------------static variables----------------------------
+	//---------------------instance constants--------------------------
+	/**
+	 * The mask turning a sequence number into a slot of the ring.
+	 */
+	private final int mask;
+	/**
+	 * The kind of each event, by ordinal.
+	 */
+	private final int[] types;
+	/**
+	 * The simulation time of each event.
+	 */
+	private final double[] times;
+	/**
+	 * The id of the entity each event is about.
+	 */
+	private final long[] subjects;
+	/**
+	 * The id of the other entity involved in each event.
+	 */
+	private final long[] others;
+	/**
+	 * The old behavior of each event, by ordinal.
+	 */
+	private final int[] froms;
+	/**
+	 * The new behavior of each event, by ordinal.
+	 */
+	private final int[] tos;
+	/**
+	 * The value attached to each event.
+	 */
+	private final float[] values;
+	/**
+	 * The sequence number last published in each slot.
+	 */
+	private final AtomicLongArray published;
+	/**
+	 * The sequence number of the next slot to be claimed.
+	 */
+	private final AtomicLong tail;
+	/**
+	 * The number of events dropped because the ring was full.
+	 */
+	private final AtomicLong dropped;
+	/**
+	 * The subscribers to the stream.
+	 */
+	private final CopyOnWriteArrayList<IEventSubscriber> subscribers;
+	/**
+	 * The record handed to the subscribers, reused for every event.
+	 */
+	private final EventRecord record;
+
+	//---------------------instance variables--------------------------
+	/**
+	 * The sequence number of the next slot to be dispatched. Only written
+	 * by the dispatch thread.
+	 */
+	private volatile long head;
+	/**
+	 * Whether events are being published, which is while there are
+	 * subscribers.
+	 */
+	private volatile boolean active;
+	/**
+	 * Whether the dispatch thread should keep running.
+	 */
+	private volatile boolean running;
+	/**
+	 * The dispatch thread, null until the first subscriber.
+	 */
+	private Thread dispatcher;
+
+	//---------------------constructors--------------------------------
+	/**
+	 * Constructs a new stream with the default capacity.
+	 */
+	public EventStream(){
+		this(DEFAULT_CAPACITY);
+	}//end of default constructor
+
+	/**
+	 * Constructs a new stream holding up to the specified number of
+	 * undispatched events, rounded up to a power of two.
+	 *
+	 * @param capacity the capacity.
+	 */
+	public EventStream(int capacity){
+		int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+		mask = size - 1;
+		types = new int[size];
+		times = new double[size];
+		subjects = new long[size];
+		others = new long[size];
+		froms = new int[size];
+		tos = new int[size];
+		values = new float[size];
+		published = new AtomicLongArray(size);
+		for(int i=0; i<size; i++){
+			published.set(i, -1);
+		}
+		tail = new AtomicLong();
+		dropped = new AtomicLong();
+		subscribers = new CopyOnWriteArrayList<IEventSubscriber>();
+		record = new EventRecord();
+		head = 0;
+		active = false;
+		running = false;
+		dispatcher = null;
+	}//end of (int) constructor
+
+	//---------------------instance methods----------------------------
+	//GETTERS
+	/**
+	 * Returns whether events are being published, which is while the
+	 * stream has subscribers.
+	 *
+	 * @return true if events are published, false otherwise.
+	 */
+	public boolean isActive(){
+		return active;
+	}//end of isActive method
+
+	/**
+	 * Returns the number of events the ring can hold.
+	 *
+	 * @return the capacity.
+	 */
+	public int getCapacity(){
+		return mask + 1;
+	}//end of getCapacity method
+
+	/**
+	 * Returns the number of events published but not yet dispatched.
+	 *
+	 * @return the backlog.
+	 */
+	public long getBacklog(){
+		return Math.max(0, tail.get() - head);
+	}//end of getBacklog method
+
+	/**
+	 * Returns the number of events dropped because the ring was full.
+	 *
+	 * @return the number of dropped events.
+	 */
+	public long getDropped(){
+		return dropped.get();
+	}//end of getDropped method
+
+	//OPERATIONS
+	/**
+	 * Adds a subscriber, starting the dispatch thread if it is the first.
+	 *
+	 * @param subscriber the subscriber.
+	 */
+	public synchronized void subscribe(IEventSubscriber subscriber){
+		if(subscriber != null && subscribers.addIfAbsent(subscriber)){
+			active = true;
+			if(dispatcher == null){
+				running = true;
+				dispatcher = new Thread(new Runnable(){
+					@Override
+					public void run(){
+						dispatch();
+					}//end of run method
+				}, "event-dispatcher");
+				dispatcher.setDaemon(true);
+				dispatcher.start();
+			}
+		}
+	}//end of subscribe method
+
+	/**
+	 * Removes a subscriber. Events stop being published once the last is
+	 * removed.
+	 *
+	 * @param subscriber the subscriber.
+	 */
+	public synchronized void unsubscribe(IEventSubscriber subscriber){
+		subscribers.remove(subscriber);
+		active = !subscribers.isEmpty();
+	}//end of unsubscribe method
+
+	/**
+	 * Stops publishing, and stops the dispatch thread once it has delivered
+	 * the events already published, waiting up to a second for it.
+	 *
+	 * @return true if the dispatch thread delivered every event and
+	 * stopped, false otherwise.
+	 */
+	public boolean close(){
+		return close(CLOSE_WAIT);
+	}//end of close method
+
+	/**
+	 * Stops publishing, and stops the dispatch thread once it has delivered
+	 * the events already published, waiting up to the specified time for it.
+	 *
+	 * @param timeout the longest time to wait in milliseconds, or 0 to wait
+	 * until the events are delivered.
+	 * @return true if the dispatch thread delivered every event and
+	 * stopped, false otherwise.
+	 */
+	public boolean close(long timeout){
+		boolean returnValue = true;
+		Thread thread;
+		synchronized(this){
+			active = false;
+			running = false;
+			thread = dispatcher;
+			dispatcher = null;
+		}
+		if(thread != null){
+			LockSupport.unpark(thread);
+			try{
+				thread.join(timeout);
+			}
+			catch(InterruptedException ex){
+				Thread.currentThread().interrupt();
+			}
+			returnValue = !thread.isAlive();
+		}
+		return returnValue;
+	}//end of close(long) method
+
+	/**
+	 * Publishes a change of behavior.
+	 *
+	 * @param time the simulation time.
+	 * @param subject the entity whose behavior changed.
+	 * @param from the old behavior, may be null.
+	 * @param to the new behavior.
+	 */
+	public void behaviorChanged(double time, Entity subject, BEHAVIOR from, BEHAVIOR to){
+		if(active){
+			publish(EventRecord.EVENT_TYPE.BEHAVIOR, time, subject.getID(), EventRecord.NO_ID,
+					(from != null) ? from.ordinal() : -1, (to != null) ? to.ordinal() : -1, 0);
+		}
+	}//end of behaviorChanged method
+
+	/**
+	 * Publishes the start of an attack.
+	 *
+	 * @param time the simulation time.
+	 * @param subject the attacking entity.
+	 * @param target the entity attacked.
+	 * @param aggression the attacker's aggression towards the target.
+	 */
+	public void attack(double time, Entity subject, Entity target, float aggression){
+		if(active){
+			publish(EventRecord.EVENT_TYPE.ATTACK, time, subject.getID(), idOf(target), -1, -1, aggression);
+		}
+	}//end of attack method
+
+	/**
+	 * Publishes the start of hiding.
+	 *
+	 * @param time the simulation time.
+	 * @param subject the hiding entity.
+	 * @param shelter the shelter hidden behind, may be null.
+	 * @param weight the weight of the shelter.
+	 */
+	public void hide(double time, Entity subject, Entity shelter, float weight){
+		if(active){
+			publish(EventRecord.EVENT_TYPE.HIDE, time, subject.getID(), idOf(shelter), -1, -1, weight);
+		}
+	}//end of hide method
+
+	/**
+	 * Publishes a collision.
+	 *
+	 * @param time the simulation time.
+	 * @param subject the entity that collided.
+	 * @param other the entity collided with, may be null.
+	 */
+	public void collision(double time, Entity subject, Entity other){
+		if(active){
+			publish(EventRecord.EVENT_TYPE.COLLISION, time, subject.getID(), idOf(other), -1, -1, 0);
+		}
+	}//end of collision method
+
+	/**
+	 * Publishes the end of a tick, so subscribers can follow the simulation
+	 * clock between the other events.
+	 *
+	 * @param time the simulation time.
+	 * @param fishCount the number of fish in the scenario.
+	 */
+	public void tick(double time, int fishCount){
+		if(active){
+			publish(EventRecord.EVENT_TYPE.TICK, time, EventRecord.NO_ID, EventRecord.NO_ID, -1, -1, fishCount);
+		}
+	}//end of tick method
+
+	/**
+	 * Publishes an event, unless there are no subscribers or the ring is
+	 * full. Safe to call from any number of threads.
+	 *
+	 * @param type the kind of event.
+	 * @param time the simulation time.
+	 * @param subjectID the id of the entity the event is about.
+	 * @param otherID the id of the other entity involved.
+	 * @param from the old behavior, by ordinal.
+	 * @param to the new behavior, by ordinal.
+	 * @param value the value attached to the event.
+	 * @return true if the event was published, false otherwise.
+	 */
+	public boolean publish(EventRecord.EVENT_TYPE type, double time, long subjectID, long otherID, int from, int to, float value){
+		boolean returnValue = false;
+		if(active){
+			long seq = tail.get();
+			boolean claimed = false;
+			while(!claimed && seq - head <= mask){
+				claimed = tail.compareAndSet(seq, seq + 1);
+				if(!claimed){
+					seq = tail.get();
+				}
+			}
+			if(claimed){
+				int slot = (int)(seq & mask);
+				types[slot] = type.ordinal();
+				times[slot] = time;
+				subjects[slot] = subjectID;
+				others[slot] = otherID;
+				froms[slot] = from;
+				tos[slot] = to;
+				values[slot] = value;
+				published.lazySet(slot, seq);
+				returnValue = true;
+			}
+			else{
+				dropped.incrementAndGet();
+			}
+		}
+		return returnValue;
+	}//end of publish method
+
+	/**
+	 * Runs the dispatch thread, delivering events until the stream is
+	 * closed, and then delivering what remains.
+	 */
+	private void dispatch(){
+		boolean pending = false;
+		while(running){
+			if(drain() > 0){
+				pending = true;
+			}
+			else{
+				if(pending){
+					for(IEventSubscriber subscriber : subscribers){
+						subscriber.onDrained();
+					}
+					pending = false;
+				}
+				LockSupport.parkNanos(IDLE_WAIT);
+			}
+		}
+		drain();
+		for(IEventSubscriber subscriber : subscribers){
+			subscriber.onDrained();
+		}
+	}//end of dispatch method
+
+	/**
+	 * Delivers every event published in order so far to the subscribers.
+	 *
+	 * @return the number of events delivered.
+	 */
+	private int drain(){
+		int returnValue = 0;
+		long next = head;
+		int slot = (int)(next & mask);
+		while(published.get(slot) == next){
+			record.set(types[slot], times[slot], subjects[slot], others[slot], froms[slot], tos[slot], values[slot]);
+			for(IEventSubscriber subscriber : subscribers){
+				try{
+					subscriber.onEvent(record);
+				}
+				catch(RuntimeException ex){
+					ex.printStackTrace();
+				}
+			}
+			next++;
+			head = next;
+			slot = (int)(next & mask);
+			returnValue++;
+		}
+		return returnValue;
+	}//end of drain method
+
+	//---------------------static main---------------------------------
+	//---------------------static methods------------------------------
+	/**
+	 * Returns the id of the specified entity.
+	 *
+	 * @param entity the entity, may be null.
+	 * @return the id, <code>EventRecord.NO_ID</code> if the entity is null.
+	 */
+	private static long idOf(Entity entity){
+		return (entity != null) ? entity.getID() : EventRecord.NO_ID;
+	}//end of idOf method
+}//end of EventStream class
@@ -0,0 +1,123 @@
+package thinktank.simulator.event;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Subscriber writing every event of an <code>EventStream</code> to a file,
+ * one line of comma separated values each, apart from the ticks, which only
+ * mark the passing of time. The file is written on the
+ * stream's dispatch thread and flushed whenever the stream is drained.
+ *
+ * @author Vasher Lor
+ * @version %I%, %G%
+ */
+public class FileEventSink implements IEventSubscriber{
+	//---------------------static constants----------------------------
+	/**
+	 * Constant value for the header line of the file.
+	 */
+	public static final String HEADER = "time,type,subject,other,from,to,value";
+
+	//---------------------static variables----------------------------
+	//---------------------instance constants--------------------------
+	/**
+	 * The file written.
+	 */
+	private final File file;
+
+	//---------------------instance variables--------------------------
+	/**
+	 * The writer for the file, null if it could not be opened or has been
+	 * closed.
+	 */
+	private PrintWriter out;
+	/**
+	 * The number of events written.
+	 */
+	private long written;
+
+	//---------------------constructors--------------------------------
+	/**
+	 * Constructs a new sink writing to the specified file, creating its
+	 * folder if necessary and replacing any existing file.
+	 *
+	 * @param file the file.
+	 */
+	public FileEventSink(File file){
+		this.file = file;
+		out = null;
+		written = 0;
+		try{
+			if(file.getParentFile() != null){
+				file.getParentFile().mkdirs();
+			}
+			out = new PrintWriter(new BufferedWriter(new FileWriter(file)));
+			out.println(HEADER);
+		}
+		catch(IOException ex){
+			ex.printStackTrace();
+		}
+	}//end of (File) constructor
+
+	//---------------------instance methods----------------------------
+	//GETTERS
+	/**
+	 * Returns the file written.
+	 *
+	 * @return the file.
+	 */
+	public File getFile(){
+		return file;
+	}//end of getFile method
+
+	/**
+	 * Returns the number of events written.
+	 *
+	 * @return the number of events.
+	 */
+	public long getWritten(){
+		return written;
+	}//end of getWritten method
+
+	//OPERATIONS
+	/**
+	 * Writes the event as a line of the file, unless it is a tick.
+	 *
+	 * @param record the event.
+	 */
+	@Override
+	public void onEvent(EventRecord record){
+		if(out != null && record.getType() != EventRecord.EVENT_TYPE.TICK){
+			out.println(record.toString());
+			written++;
+		}
+	}//end of onEvent method
+
+	/**
+	 * Flushes the lines written so far.
+	 */
+	@Override
+	public void onDrained(){
+		if(out != null){
+			out.flush();
+		}
+	}//end of onDrained method
+
+	/**
+	 * Closes the file. Should be called once the sink is unsubscribed, or
+	 * the stream is closed.
+	 */
+	public void close(){
+		if(out != null){
+			out.close();
+			out = null;
+		}
+	}//end of close method
+
+	//---------------------static main---------------------------------
+	//---------------------static methods------------------------------
+}//end of FileEventSink class
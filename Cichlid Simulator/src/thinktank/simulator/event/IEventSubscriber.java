@@ -0,0 +1,27 @@
+package thinktank.simulator.event;
+
+/**
+ * Interface for classes receiving the events of an <code>EventStream</code>.
+ * Subscribers are called on the stream's dispatch thread, never on the
+ * thread publishing the events.
+ *
+ * @author Vasher Lor
+ * @version %I%, %G%
+ */
+public interface IEventSubscriber{
+
+	/**
+	 * Called for each event, in the order published. The record is reused
+	 * for the next event once this returns.
+	 *
+	 * @param record the event.
+	 */
+	public void onEvent(EventRecord record);
+
+	/**
+	 * Called when the stream has dispatched every event published so far,
+	 * such as to flush buffered output.
+	 */
+	public void onDrained();
+
+}//end of IEventSubscriber interface
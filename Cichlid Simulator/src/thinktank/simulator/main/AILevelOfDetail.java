@@ -0,0 +1,228 @@
+package thinktank.simulator.main;
+
+import com.jme3.bounding.BoundingBox;
+import com.jme3.bounding.BoundingSphere;
+import com.jme3.bounding.BoundingVolume;
+import com.jme3.renderer.Camera;
+import com.jme3.system.AppSettings;
+
+import thinktank.simulator.entity.Cichlid;
+import thinktank.simulator.util.DEFAULT_SETTINGS;
+
+/**
+ * Level of detail for cichlid AI, based on each fish's distance to the
+ * active camera and its size on screen. Near fish run their full behavior
+ * every tick, mid-range fish every few ticks with their motion extrapolated
+ * in between, and far fish, including fish outside the view, on a coarse
+ * schedule.
+ *
+ * Both the fly cam and the player's follow cam drive the application's
+ * camera, so the application camera is always the active one.
+ *
+ * @author Vasher Lor
+ * @version %I%, %G%
+ */
+public class AILevelOfDetail{
+	/**
+	 * List of AI detail tiers.
+	 */
+	public enum LOD_TIER{
+		NEAR,
+		MID,
+		FAR;
+	}//end of LOD_TIER enum
+
+	//---------------------static constants----------------------------
+	//---------------------static variables----------------------------
+	//---------------------instance constants--------------------------
+	/**
+	 * The active camera.
+	 */
+	private final Camera camera;
+	/**
+	 * The number of fish in each tier during the last tick.
+	 */
+	private final int[] tierCounts;
+
+	//---------------------instance variables--------------------------
+	/**
+	 * Flag for whether or not the level of detail is applied. When it is
+	 * not, every fish is updated as near.
+	 */
+	private boolean enabled;
+	/**
+	 * The distance within which fish are always near.
+	 */
+	private float nearDistance;
+	/**
+	 * The distance beyond which fish are far.
+	 */
+	private float farDistance;
+	/**
+	 * The screen radius, in pixels, above which fish are always near.
+	 */
+	private float nearPixels;
+	/**
+	 * The screen radius, in pixels, below which fish are far.
+	 */
+	private float farPixels;
+	/**
+	 * The number of ticks between full updates of mid-range fish.
+	 */
+	private int midInterval;
+	/**
+	 * The number of ticks between full updates of far fish.
+	 */
+	private int farInterval;
+	/**
+	 * The number of ticks since the level of detail was created.
+	 */
+	private long tick;
+
+	//---------------------constructors--------------------------------
+	/**
+	 * Constructs a new level of detail for the specified camera, reading
+	 * its budgets from the specified settings.
+	 *
+	 * @param camera the active camera.
+	 * @param settings the application settings.
+	 */
+	public AILevelOfDetail(Camera camera, AppSettings settings){
+		this.camera = camera;
+		this.tierCounts = new int[LOD_TIER.values().length];
+		this.enabled = settings.getBoolean(DEFAULT_SETTINGS.AI_LOD_ENABLED.NAME);
+		this.nearDistance = settings.getFloat(DEFAULT_SETTINGS.AI_LOD_NEAR_DISTANCE.NAME);
+		this.farDistance = settings.getFloat(DEFAULT_SETTINGS.AI_LOD_FAR_DISTANCE.NAME);
+		this.nearPixels = settings.getFloat(DEFAULT_SETTINGS.AI_LOD_NEAR_PIXELS.NAME);
+		this.farPixels = settings.getFloat(DEFAULT_SETTINGS.AI_LOD_FAR_PIXELS.NAME);
+		this.midInterval = Math.max(1, settings.getInteger(DEFAULT_SETTINGS.AI_LOD_MID_INTERVAL.NAME));
+		this.farInterval = Math.max(1, settings.getInteger(DEFAULT_SETTINGS.AI_LOD_FAR_INTERVAL.NAME));
+		this.tick = 0;
+	}//end of constructor
+
+	//---------------------instance methods----------------------------
+	//GETTERS
+	/**
+	 * Returns whether or not the level of detail is applied.
+	 *
+	 * @return true if enabled, false otherwise.
+	 */
+	public boolean isEnabled(){
+		return enabled;
+	}//end of isEnabled method
+
+	/**
+	 * Returns the number of fish in the specified tier during the last tick.
+	 *
+	 * @param tier the tier.
+	 * @return the number of fish.
+	 */
+	public int getTierCount(LOD_TIER tier){
+		return tierCounts[tier.ordinal()];
+	}//end of getTierCount method
+
+	/**
+	 * Returns the number of ticks between full updates for the
+	 * specified tier.
+	 *
+	 * @param tier the tier.
+	 * @return the number of ticks.
+	 */
+	public int getInterval(LOD_TIER tier){
+		int returnValue = 1;
+		if(tier == LOD_TIER.MID){
+			returnValue = midInterval;
+		}
+		else if(tier == LOD_TIER.FAR){
+			returnValue = farInterval;
+		}
+		return returnValue;
+	}//end of getInterval method
+
+	//SETTERS
+	/**
+	 * Sets whether or not the level of detail is applied.
+	 *
+	 * @param enabled true to enable, false to update every fish as near.
+	 */
+	public void setEnabled(boolean enabled){
+		this.enabled = enabled;
+	}//end of setEnabled method
+
+	//OPERATIONS
+	/**
+	 * Starts a new tick. Should be called once per tick, before any fish
+	 * are updated.
+	 */
+	public void beginTick(){
+		tick++;
+		for(int i=0; i<tierCounts.length; i++){
+			tierCounts[i] = 0;
+		}
+	}//end of beginTick method
+
+	/**
+	 * Updates the specified cichlid at the level of detail for its tier.
+	 *
+	 * @param cichlid the cichlid.
+	 * @param tpf the time since the last tick.
+	 */
+	public void update(Cichlid cichlid, float tpf){
+		LOD_TIER tier = LOD_TIER.NEAR;
+		if(enabled){
+			tier = classify(cichlid);
+		}
+		tierCounts[tier.ordinal()]++;
+		cichlid.updateAI(tpf, tick, getInterval(tier), tier == LOD_TIER.MID);
+	}//end of update method
+
+	/**
+	 * Returns the tier for the specified cichlid, based on its distance to
+	 * the camera and its radius on screen.
+	 *
+	 * @param cichlid the cichlid.
+	 * @return the tier.
+	 */
+	public LOD_TIER classify(Cichlid cichlid){
+		LOD_TIER returnValue = LOD_TIER.MID;
+		BoundingVolume bound = cichlid.getObj().getWorldBound();
+		float distance = camera.getLocation().distance(cichlid.getObj().getWorldTranslation());
+		float pixels = screenRadius(bound, distance);
+		if(distance <= nearDistance || pixels >= nearPixels){
+			returnValue = LOD_TIER.NEAR;
+		}
+		else if(distance >= farDistance || pixels < farPixels ||
+				(bound != null && camera.contains(bound) == Camera.FrustumIntersect.Outside)){
+			returnValue = LOD_TIER.FAR;
+		}
+		return returnValue;
+	}//end of classify method
+
+	/**
+	 * Returns the approximate radius, in pixels, of the specified bound
+	 * on screen at the specified distance.
+	 *
+	 * @param bound the bound.
+	 * @param distance the distance from the camera.
+	 * @return the radius in pixels.
+	 */
+	private float screenRadius(BoundingVolume bound, float distance){
+		float radius = 0;
+		if(bound instanceof BoundingSphere){
+			radius = ((BoundingSphere)bound).getRadius();
+		}
+		else if(bound instanceof BoundingBox){
+			BoundingBox box = (BoundingBox)bound;
+			radius = Math.max(box.getXExtent(), Math.max(box.getYExtent(), box.getZExtent()));
+		}
+		float returnValue = Float.POSITIVE_INFINITY;
+		float tanHalfFov = camera.getFrustumTop() / camera.getFrustumNear();
+		if(distance > 0 && tanHalfFov > 0){
+			returnValue = radius * camera.getHeight() / (2 * distance * tanHalfFov);
+		}
+		return returnValue;
+	}//end of screenRadius method
+
+	//---------------------static main---------------------------------
+	//---------------------static methods------------------------------
+}//end of AILevelOfDetail class
@@ -0,0 +1,395 @@
+package thinktank.simulator.main;
+
+import java.util.Arrays;
+
+import thinktank.simulator.entity.Cichlid;
+
+/**
+ * Schedules the behavior decisions of cichlids on simulation time. Each
+ * cichlid registers the time of its next decision, and only the cichlids
+ * whose decision times have passed are returned each tick, so fish between
+ * decisions cost nothing.
+ *
+ * The schedule is an indexed binary min-heap keyed on decision time, which
+ * allows a cichlid's pending decision to be moved or cancelled in
+ * logarithmic time. The heap position of each cichlid is found through
+ * its entity handle, so only cichlids registered in the scenario can be
+ * scheduled.
+ *
+ * A cichlid whose decision has to wait for something outside the schedule,
+ * such as company, can be parked: it leaves the heap and is only looked up
+ * by its handle until it is scheduled again, so parked cichlids cost nothing
+ * each tick.
+ *
+ * @author Vasher Lor
+ * @version %I%, %G%
+ */
+public class DecisionScheduler{
+	//---------------------static constants----------------------------
+	/**
+	 * Constant value for the initial capacity of the heap.
+	 */
+	private static final int INITIAL_CAPACITY = 16;
+
+	//---------------------static variables----------------------------
+	//---------------------instance constants--------------------------
+	//---------------------instance variables--------------------------
+	/**
+	 * The heap position of the entry for each entity handle, -1 for
+	 * handles without an entry.
+	 */
+	private int[] positions;
+	/**
+	 * The entity handle of each entry in the heap, as it was when the
+	 * entry was scheduled.
+	 */
+	private int[] handles;
+	/**
+	 * The scheduled cichlids, in heap order.
+	 */
+	private Cichlid[] heap;
+	/**
+	 * The decision time of each entry in the heap.
+	 */
+	private double[] times;
+	/**
+	 * The cichlid parked at each entity handle, null for handles without
+	 * one.
+	 */
+	private Cichlid[] parked;
+	/**
+	 * The number of entries in the heap.
+	 */
+	private int size;
+	/**
+	 * The number of parked cichlids.
+	 */
+	private int parkedCount;
+	/**
+	 * The current simulation time, in seconds.
+	 */
+	private double time;
+
+	//---------------------constructors--------------------------------
+	/**
+	 * Constructs a new, empty scheduler at simulation time zero.
+	 */
+	public DecisionScheduler(){
+		positions = new int[INITIAL_CAPACITY];
+		Arrays.fill(positions, -1);
+		handles = new int[INITIAL_CAPACITY];
+		heap = new Cichlid[INITIAL_CAPACITY];
+		times = new double[INITIAL_CAPACITY];
+		parked = new Cichlid[INITIAL_CAPACITY];
+		size = 0;
+		parkedCount = 0;
+		time = 0;
+	}//end of constructor
+
+	//---------------------instance methods----------------------------
+	//GETTERS
+	/**
+	 * Returns the current simulation time.
+	 *
+	 * @return the simulation time, in seconds.
+	 */
+	public double getTime(){
+		return time;
+	}//end of getTime method
+
+	/**
+	 * Returns the number of cichlids with a pending decision.
+	 *
+	 * @return the number of scheduled cichlids.
+	 */
+	public int getScheduledCount(){
+		return size;
+	}//end of getScheduledCount method
+
+	/**
+	 * Returns the number of parked cichlids.
+	 *
+	 * @return the number of parked cichlids.
+	 */
+	public int getParkedCount(){
+		return parkedCount;
+	}//end of getParkedCount method
+
+	/**
+	 * Returns whether or not the specified cichlid has a pending decision.
+	 *
+	 * @param cichlid the cichlid.
+	 * @return true if the cichlid is scheduled, false otherwise.
+	 */
+	public boolean isScheduled(Cichlid cichlid){
+		int position = positionOf(cichlid.getHandle());
+		return position > -1 && heap[position] == cichlid;
+	}//end of isScheduled method
+
+	/**
+	 * Returns whether or not the specified cichlid is parked.
+	 *
+	 * @param cichlid the cichlid.
+	 * @return true if the cichlid is parked, false otherwise.
+	 */
+	public boolean isParked(Cichlid cichlid){
+		int handle = cichlid.getHandle();
+		return handle > -1 && handle < parked.length && parked[handle] == cichlid;
+	}//end of isParked method
+
+	//OPERATIONS
+	/**
+	 * Advances the simulation time.
+	 *
+	 * @param tpf the simulation time elapsed since the last tick, in seconds.
+	 */
+	public void advance(float tpf){
+		time += tpf;
+	}//end of advance method
+
+	/**
+	 * Schedules the next decision of the specified cichlid at the specified
+	 * delay from the current simulation time, replacing any pending decision.
+	 * The decision is always scheduled after the current time, so a delay of
+	 * zero makes it due on the next tick. A parked cichlid stops being
+	 * parked. Cichlids without an entity handle are not scheduled.
+	 *
+	 * @param cichlid the cichlid.
+	 * @param delay the delay, in seconds.
+	 */
+	public void schedule(Cichlid cichlid, double delay){
+		double when = Math.max(time + delay, Math.nextUp(time));
+		int handle = cichlid.getHandle();
+		unpark(handle);
+		int position = positionOf(handle);
+		if(position > -1 && heap[position] != cichlid){//left by a removed cichlid whose handle was reused
+			removeAt(position);
+			position = -1;
+		}
+		if(handle > -1 && position == -1){
+			if(size == heap.length){
+				Cichlid[] newHeap = new Cichlid[heap.length * 2];
+				System.arraycopy(heap, 0, newHeap, 0, size);
+				heap = newHeap;
+				double[] newTimes = new double[times.length * 2];
+				System.arraycopy(times, 0, newTimes, 0, size);
+				times = newTimes;
+				int[] newHandles = new int[handles.length * 2];
+				System.arraycopy(handles, 0, newHandles, 0, size);
+				handles = newHandles;
+			}
+			ensureHandle(handle);
+			heap[size] = cichlid;
+			times[size] = when;
+			handles[size] = handle;
+			positions[handle] = size;
+			siftUp(size++);
+		}
+		else if(position > -1){
+			double old = times[position];
+			times[position] = when;
+			if(when < old){
+				siftUp(position);
+			}
+			else{
+				siftDown(position);
+			}
+		}
+	}//end of schedule method
+
+	/**
+	 * Parks the specified cichlid, removing its pending decision, if any,
+	 * until it is scheduled again. Cichlids without an entity handle are
+	 * not parked.
+	 *
+	 * @param cichlid the cichlid.
+	 */
+	public void park(Cichlid cichlid){
+		int handle = cichlid.getHandle();
+		if(handle > -1){
+			cancel(cichlid);
+			ensureHandle(handle);
+			if(parked[handle] == null){
+				parkedCount++;
+			}
+			parked[handle] = cichlid;
+		}
+	}//end of park method
+
+	/**
+	 * Removes the pending decision of the specified cichlid, if any, and
+	 * stops it being parked.
+	 *
+	 * @param cichlid the cichlid.
+	 */
+	public void cancel(Cichlid cichlid){
+		int position = positionOf(cichlid.getHandle());
+		if(position > -1 && heap[position] == cichlid){
+			removeAt(position);
+		}
+		if(isParked(cichlid)){
+			unpark(cichlid.getHandle());
+		}
+	}//end of cancel method
+
+	/**
+	 * Removes and returns the cichlid with the earliest decision time, if
+	 * that time has been reached.
+	 *
+	 * @return the cichlid whose decision is due, null if none are due.
+	 */
+	public Cichlid pollDue(){
+		Cichlid returnValue = null;
+		if(size > 0 && times[0] <= time){
+			returnValue = heap[0];
+			removeAt(0);
+		}
+		return returnValue;
+	}//end of pollDue method
+
+	/**
+	 * Removes all pending decisions and parked cichlids, and resets the
+	 * simulation time to zero.
+	 */
+	public void clear(){
+		for(int i=0; i<size; i++){
+			heap[i] = null;
+			positions[handles[i]] = -1;
+		}
+		Arrays.fill(parked, null);
+		size = 0;
+		parkedCount = 0;
+		time = 0;
+	}//end of clear method
+
+	/**
+	 * Grows the arrays indexed by entity handle to hold the specified handle.
+	 *
+	 * @param handle the entity handle.
+	 */
+	private void ensureHandle(int handle){
+		if(handle >= positions.length){
+			int[] newPositions = new int[Math.max(positions.length * 2, handle + 1)];
+			Arrays.fill(newPositions, positions.length, newPositions.length, -1);
+			System.arraycopy(positions, 0, newPositions, 0, positions.length);
+			positions = newPositions;
+		}
+		if(handle >= parked.length){
+			Cichlid[] newParked = new Cichlid[Math.max(parked.length * 2, handle + 1)];
+			System.arraycopy(parked, 0, newParked, 0, parked.length);
+			parked = newParked;
+		}
+	}//end of ensureHandle method
+
+	/**
+	 * Removes whatever cichlid is parked at the specified handle, which may
+	 * be a removed cichlid whose handle was reused.
+	 *
+	 * @param handle the entity handle.
+	 */
+	private void unpark(int handle){
+		if(handle > -1 && handle < parked.length && parked[handle] != null){
+			parked[handle] = null;
+			parkedCount--;
+		}
+	}//end of unpark method
+
+	/**
+	 * Returns the heap position of the entry for the specified handle.
+	 *
+	 * @param handle the entity handle.
+	 * @return the heap position, -1 if the handle has no entry.
+	 */
+	private int positionOf(int handle){
+		int returnValue = -1;
+		if(handle > -1 && handle < positions.length){
+			returnValue = positions[handle];
+		}
+		return returnValue;
+	}//end of positionOf method
+
+	/**
+	 * Removes the entry at the specified heap position.
+	 *
+	 * @param position the heap position.
+	 */
+	private void removeAt(int position){
+		positions[handles[position]] = -1;
+		size--;
+		if(position != size){
+			heap[position] = heap[size];
+			times[position] = times[size];
+			handles[position] = handles[size];
+			positions[handles[position]] = position;
+			heap[size] = null;
+			siftDown(position);
+			siftUp(position);
+		}
+		else{
+			heap[size] = null;
+		}
+	}//end of removeAt method
+
+	/**
+	 * Moves the entry at the specified heap position up until its parent
+	 * is not later than it.
+	 *
+	 * @param position the heap position.
+	 */
+	private void siftUp(int position){
+		while(position > 0){
+			int parent = (position - 1) / 2;
+			if(times[parent] <= times[position]){
+				break;
+			}
+			swap(position, parent);
+			position = parent;
+		}
+	}//end of siftUp method
+
+	/**
+	 * Moves the entry at the specified heap position down until neither
+	 * child is earlier than it.
+	 *
+	 * @param position the heap position.
+	 */
+	private void siftDown(int position){
+		while(true){
+			int child = 2 * position + 1;
+			if(child >= size){
+				break;
+			}
+			if(child + 1 < size && times[child + 1] < times[child]){
+				child++;
+			}
+			if(times[position] <= times[child]){
+				break;
+			}
+			swap(position, child);
+			position = child;
+		}
+	}//end of siftDown method
+
+	/**
+	 * Swaps the entries at the two specified heap positions.
+	 *
+	 * @param a the first heap position.
+	 * @param b the second heap position.
+	 */
+	private void swap(int a, int b){
+		Cichlid tempCichlid = heap[a];
+		heap[a] = heap[b];
+		heap[b] = tempCichlid;
+		double tempTime = times[a];
+		times[a] = times[b];
+		times[b] = tempTime;
+		int tempHandle = handles[a];
+		handles[a] = handles[b];
+		handles[b] = tempHandle;
+		positions[handles[a]] = a;
+		positions[handles[b]] = b;
+	}//end of swap method
+
+	//---------------------static main---------------------------------
+	//---------------------static methods------------------------------
+}//end of DecisionScheduler class
@@ -0,0 +1,317 @@
+package thinktank.simulator.main;
+
+import java.nio.ByteBuffer;
+
+import com.jme3.app.Application;
+import com.jme3.app.SimpleApplication;
+import com.jme3.app.state.AbstractAppState;
+import com.jme3.app.state.AppStateManager;
+import com.jme3.material.Material;
+import com.jme3.material.RenderState.BlendMode;
+import com.jme3.material.RenderState.FaceCullMode;
+import com.jme3.math.FastMath;
+import com.jme3.math.Quaternion;
+import com.jme3.math.Vector3f;
+import com.jme3.renderer.queue.RenderQueue.Bucket;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Node;
+import com.jme3.scene.shape.Quad;
+import com.jme3.texture.Image;
+import com.jme3.texture.Texture;
+import com.jme3.texture.Texture2D;
+import com.jme3.util.BufferUtils;
+
+import thinktank.simulator.entity.Entity;
+import thinktank.simulator.entity.Fish;
+import thinktank.simulator.scenario.DwellMap;
+import thinktank.simulator.scenario.Grid;
+import thinktank.simulator.scenario.Scenario;
+
+/**
+ * Custom <code>AppState</code> implementation showing the dwell map of the
+ * working scenario's grid as a translucent heatmap across the tank. The
+ * heatmap is either the columns of cells summed over their height, drawn
+ * just above the floor, or one horizontal layer of cells, drawn at the
+ * layer's height. It shows the selected fish if a fish is selected, and
+ * every fish otherwise.
+ *
+ * The texture is rebuilt at most once every <code>REFRESH_INTERVAL</code>
+ * seconds, and only while the overlay is shown.
+ *
+ * @author Vasher Lor
+ * @version %I%, %G%
+ */
+public class DwellOverlay extends AbstractAppState{
+	//---------------------static constants----------------------------
+	/**
+	 * Constant value for the time between refreshes of the overlay, in seconds.
+	 */
+	public static final float REFRESH_INTERVAL = 1f;
+	/**
+	 * Constant value for the layer setting that shows the columns of cells.
+	 */
+	public static final int COLUMNS = -1;
+	/**
+	 * Constant value for the opacity of the least visited cells shown.
+	 */
+	private static final float MIN_ALPHA = 0.2f;
+	/**
+	 * Constant value for the opacity of the most visited cells.
+	 */
+	private static final float MAX_ALPHA = 0.7f;
+
+	//---------------------static variables----------------------------
+	//---------------------instance constants--------------------------
+	//---------------------instance variables--------------------------
+	/**
+	 * The scenario whose dwell map is shown, null if none.
+	 */
+	private Scenario scenario;
+	/**
+	 * The node the overlay is attached to while shown.
+	 */
+	private Node rootNode;
+	/**
+	 * The geometry the heatmap is drawn on.
+	 */
+	private Geometry geometry;
+	/**
+	 * The image of the heatmap, one texel per column of cells.
+	 */
+	private Image image;
+	/**
+	 * The texels of the image.
+	 */
+	private ByteBuffer texels;
+	/**
+	 * The values of the cells shown, indexed by <code>x * size + z</code>.
+	 */
+	private int[] values;
+	/**
+	 * The grid the overlay was last placed over.
+	 */
+	private Grid placedGrid;
+	/**
+	 * The layer shown, <code>COLUMNS</code> for the columns of cells.
+	 */
+	private int layer;
+	/**
+	 * The dwell map epoch last shown.
+	 */
+	private int shownEpoch;
+	/**
+	 * The time since the overlay was last refreshed, in seconds.
+	 */
+	private float sinceRefresh;
+	/**
+	 * Whether or not the overlay is shown.
+	 */
+	private boolean visible;
+
+	//---------------------constructors--------------------------------
+	/**
+	 * Constructs a new, hidden overlay showing the columns of cells.
+	 */
+	public DwellOverlay(){
+		scenario = null;
+		rootNode = null;
+		geometry = null;
+		image = null;
+		texels = null;
+		values = null;
+		placedGrid = null;
+		layer = COLUMNS;
+		shownEpoch = -1;
+		sinceRefresh = 0;
+		visible = false;
+	}//end of default constructor
+
+	//---------------------instance methods----------------------------
+	//GETTERS
+	/**
+	 * Returns whether or not the overlay is shown.
+	 *
+	 * @return true if shown, false otherwise.
+	 */
+	public boolean isVisible(){
+		return visible;
+	}//end of isVisible method
+
+	/**
+	 * Returns the layer shown.
+	 *
+	 * @return the grid Y-coordinate of the layer, <code>COLUMNS</code> for
+	 * the columns of cells.
+	 */
+	public int getLayer(){
+		return layer;
+	}//end of getLayer method
+
+	//SETTERS
+	/**
+	 * Shows or hides the overlay.
+	 *
+	 * @param visible true to show the overlay, false to hide it.
+	 */
+	public void setVisible(boolean visible){
+		this.visible = visible;
+		sinceRefresh = REFRESH_INTERVAL;
+		shownEpoch = -1;
+		if(geometry != null && !visible){
+			geometry.removeFromParent();
+		}
+	}//end of setVisible method
+
+	/**
+	 * Sets the layer shown.
+	 *
+	 * @param layer the grid Y-coordinate of the layer, <code>COLUMNS</code>
+	 * for the columns of cells.
+	 */
+	public void setLayer(int layer){
+		this.layer = layer;
+		placedGrid = null;
+		shownEpoch = -1;
+	}//end of setLayer method
+
+	/**
+	 * Sets the scenario whose dwell map is shown.
+	 *
+	 * @param scenario the scenario, null for none.
+	 */
+	public void setScenario(Scenario scenario){
+		this.scenario = scenario;
+		placedGrid = null;
+		shownEpoch = -1;
+	}//end of setScenario method
+
+	//OPERATIONS
+	/**
+	 * Called during initialization of this app state.
+	 *
+	 * @param stateManager the app state manager.
+	 * @param app the application.
+	 */
+	@Override
+	public void initialize(AppStateManager stateManager, Application app){
+		super.initialize(stateManager, app);
+		rootNode = ((SimpleApplication)app).getRootNode();
+		geometry = new Geometry("dwell-overlay", new Quad(1, 1));
+		geometry.setLocalRotation(new Quaternion().fromAngleAxis(-FastMath.HALF_PI, Vector3f.UNIT_X));
+		Material material = new Material(app.getAssetManager(), "Common/MatDefs/Misc/Unshaded.j3md");
+		material.getAdditionalRenderState().setBlendMode(BlendMode.Alpha);
+		material.getAdditionalRenderState().setFaceCullMode(FaceCullMode.Off);
+		material.getAdditionalRenderState().setDepthWrite(false);
+		geometry.setMaterial(material);
+		geometry.setQueueBucket(Bucket.Transparent);
+	}//end of initialize method
+
+	/**
+	 * Refreshes the overlay once every <code>REFRESH_INTERVAL</code> seconds
+	 * while it is shown.
+	 *
+	 * @param tpf "time per frame" - the duration of the last cycle through the
+	 * game loop
+	 */
+	@Override
+	public void update(float tpf){
+		sinceRefresh += tpf;
+		if(visible && sinceRefresh >= REFRESH_INTERVAL){
+			sinceRefresh = 0;
+			refresh();
+		}
+	}//end of update method
+
+	/**
+	 * Removes the overlay.
+	 */
+	@Override
+	public void cleanup(){
+		super.cleanup();
+		if(geometry != null){
+			geometry.removeFromParent();
+		}
+	}//end of cleanup method
+
+	/**
+	 * Rebuilds the heatmap from the dwell map, if it has changed, and places
+	 * it over the grid.
+	 */
+	private void refresh(){
+		Grid grid = (scenario != null) ? scenario.getContext().getGrid() : null;
+		if(grid == null){
+			geometry.removeFromParent();
+		}
+		else{
+			if(grid != placedGrid){
+				place(grid);
+			}
+			DwellMap dwellMap = grid.getDwellMap();
+			Entity selected = scenario.getSelectedEntity();
+			Fish fish = (selected instanceof Fish) ? (Fish)selected : null;
+			if(dwellMap.getEpoch() != shownEpoch || fish != null){
+				shownEpoch = dwellMap.getEpoch();
+				int max = (layer == COLUMNS) ? dwellMap.project(fish, values) : dwellMap.slice(fish, layer, values);
+				paint(grid.getSize(), max);
+			}
+			if(geometry.getParent() == null){
+				rootNode.attachChild(geometry);
+			}
+		}
+	}//end of refresh method
+
+	/**
+	 * Sizes the heatmap to the specified grid and moves it to the height of
+	 * the layer shown.
+	 *
+	 * @param grid the grid.
+	 */
+	private void place(Grid grid){
+		int size = grid.getSize();
+		if(values == null || values.length != size * size){
+			values = new int[size * size];
+			texels = BufferUtils.createByteBuffer(size * size * 4);
+			image = new Image(Image.Format.RGBA8, size, size, texels);
+			Texture2D texture = new Texture2D(image);
+			texture.setMagFilter(Texture.MagFilter.Bilinear);
+			texture.setWrap(Texture.WrapMode.EdgeClamp);
+			geometry.getMaterial().setTexture("ColorMap", texture);
+		}
+		float width = size * grid.getXIncr();
+		float depth = size * grid.getZIncr();
+		float minX = grid.getOriginX() - grid.getXIncr() / 2;
+		float maxZ = grid.getOriginZ() - grid.getZIncr() / 2 + depth;
+		float y = grid.getOriginY() + ((layer == COLUMNS) ? grid.getYIncr() / 2 : Math.min(layer, size - 1) * grid.getYIncr());
+		geometry.setLocalScale(width, depth, 1);
+		geometry.setLocalTranslation(minX, y, maxZ);//the quad's rows run from +Z to -Z once rotated
+		placedGrid = grid;
+	}//end of place method
+
+	/**
+	 * Writes the values shown into the texels, from blue through green to
+	 * red on a square root scale, with unvisited cells left clear.
+	 *
+	 * @param size the size of the grid.
+	 * @param max the largest value shown.
+	 */
+	private void paint(int size, int max){
+		texels.clear();
+		for(int row=0; row<size; row++){
+			int z = size - 1 - row;
+			for(int x=0; x<size; x++){
+				int value = values[x * size + z];
+				float t = (max > 0) ? FastMath.sqrt((float)value / max) : 0;
+				float r = (t < 0.5f) ? 0 : 2 * t - 1;
+				float g = (t < 0.5f) ? 2 * t : 2 - 2 * t;
+				float b = (t < 0.5f) ? 1 - 2 * t : 0;
+				float a = (value > 0) ? MIN_ALPHA + (MAX_ALPHA - MIN_ALPHA) * t : 0;
+				texels.put((byte)(r * 255)).put((byte)(g * 255)).put((byte)(b * 255)).put((byte)(a * 255));
+			}
+		}
+		texels.flip();
+		image.setUpdateNeeded();
+	}//end of paint method
+
+	//---------------------static main---------------------------------
+	//---------------------static methods------------------------------
+}//end of DwellOverlay class
@@ -0,0 +1,330 @@
+package thinktank.simulator.main;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Lightweight profiler for the phases of each frame. The code being
+ * measured brackets a phase with <code>begin()</code> and <code>end()</code>;
+ * the time spent in each phase is summed over the frame, and at the end of
+ * the frame the sums are stored in a ring buffer holding the most recent
+ * frames, from which rolling percentiles are read.
+ *
+ * Frame listeners are told of each frame as it ends, and may read the time
+ * spent in each phase of it. The profiler measures while it is enabled or
+ * has any listeners.
+ *
+ * All of the storage is allocated up front, so profiling a frame allocates
+ * nothing. While the profiler is not measuring, <code>begin()</code> does
+ * not even read the clock, and the other operations return immediately.
+ *
+ * @author Vasher Lor
+ * @version %I%, %G%
+ */
+public class FrameProfiler{
+	//---------------------static constants----------------------------
+	/**
+	 * Constant value for the number of frames kept for the percentiles.
+	 */
+	public static final int WINDOW = 240;
+	/**
+	 * Constant value for the number of nanoseconds in a millisecond.
+	 */
+	public static final double NANOS_PER_MILLI = 1000000.0;
+
+	/**
+	 * Enum for the phases of a frame. Some phases are nested in others: the
+	 * cichlid phases from <code>TARGETING</code> to <code>AVOIDANCE</code>
+	 * are part of <code>AI</code>, and every phase is part of <code>FRAME</code>.
+	 */
+	public enum PHASE{
+		/**
+		 * The whole frame, from the end of one frame to the end of the next.
+		 */
+		FRAME("frame", 0),
+		/**
+		 * Applying the scenario commands queued since the last tick.
+		 */
+		COMMANDS("commands", 1),
+		/**
+		 * Gathering the fish into the aggression kernel.
+		 */
+		GATHER("gather", 1),
+		/**
+		 * The behavior decisions that were due.
+		 */
+		DECISIONS("decisions", 1),
+		/**
+		 * Updating the cichlids.
+		 */
+		AI("ai", 1),
+		/**
+		 * The cichlids finding their targets, including the visibility
+		 * calculated along the way.
+		 */
+		TARGETING("targeting", 2),
+		/**
+		 * The cichlids finding their shelters.
+		 */
+		SHELTER("shelter", 2),
+		/**
+		 * The ticks of the cichlids' behaviors.
+		 */
+		BEHAVIOR("behavior", 2),
+		/**
+		 * The cichlids avoiding collisions.
+		 */
+		AVOIDANCE("avoidance", 2),
+		/**
+		 * Updating the logical and geometric state of the scene.
+		 */
+		SCENE("scene", 1),
+		/**
+		 * Stepping the physics space.
+		 */
+		PHYSICS("physics", 1),
+		/**
+		 * Rendering the scene and the interface.
+		 */
+		RENDER("render", 1);
+
+		/**
+		 * The name shown for the phase.
+		 */
+		public final String LABEL;
+		/**
+		 * The depth the phase is nested at.
+		 */
+		public final int DEPTH;
+
+		/**
+		 * Constructs a new phase with the specified label and depth.
+		 *
+		 * @param label the name shown for the phase.
+		 * @param depth the depth the phase is nested at.
+		 */
+		private PHASE(String label, int depth){
+			LABEL = label;
+			DEPTH = depth;
+		}//end of constructor
+	}//end of PHASE enum
+
+	//---------------------static variables----------------------------
+	//---------------------instance constants--------------------------
+	/**
+	 * The time spent in each phase during the current frame, in nanoseconds.
+	 */
+	private final long[] current;
+	/**
+	 * The time spent in each phase during the most recent frames, in
+	 * nanoseconds, indexed by phase and then by slot in the ring buffer.
+	 */
+	private final long[][] samples;
+	/**
+	 * The array the samples of one phase are sorted in to find percentiles.
+	 */
+	private final long[] sorted;
+	/**
+	 * The listeners told of each frame as it ends.
+	 */
+	private final ArrayList<IFrameListener> listeners;
+
+	//---------------------instance variables--------------------------
+	/**
+	 * Whether or not the profiler is enabled.
+	 */
+	private boolean enabled;
+	/**
+	 * Whether or not the profiler is measuring, because it is enabled or
+	 * has listeners.
+	 */
+	private boolean measuring;
+	/**
+	 * The slot in the ring buffer the next frame is stored in.
+	 */
+	private int head;
+	/**
+	 * The number of frames stored, up to <code>WINDOW</code>.
+	 */
+	private int count;
+	/**
+	 * The phase whose samples are currently in <code>sorted</code>, null if
+	 * none are.
+	 */
+	private PHASE sortedPhase;
+
+	//---------------------constructors--------------------------------
+	/**
+	 * Constructs a new, disabled profiler.
+	 */
+	public FrameProfiler(){
+		current = new long[PHASE.values().length];
+		samples = new long[PHASE.values().length][WINDOW];
+		sorted = new long[WINDOW];
+		listeners = new ArrayList<IFrameListener>();
+		enabled = false;
+		measuring = false;
+		head = 0;
+		count = 0;
+		sortedPhase = null;
+	}//end of default constructor
+
+	//---------------------instance methods----------------------------
+	//GETTERS
+	/**
+	 * Returns whether or not the profiler is enabled.
+	 *
+	 * @return true if enabled, false otherwise.
+	 */
+	public boolean isEnabled(){
+		return enabled;
+	}//end of isEnabled method
+
+	/**
+	 * Returns whether or not the profiler is measuring, because it is
+	 * enabled or has listeners.
+	 *
+	 * @return true if measuring, false otherwise.
+	 */
+	public boolean isMeasuring(){
+		return measuring;
+	}//end of isMeasuring method
+
+	/**
+	 * Returns the time spent in the specified phase during the current
+	 * frame. Frame listeners read the frame that is ending with this.
+	 *
+	 * @param phase the phase.
+	 * @return the time, in nanoseconds.
+	 */
+	public long getFrameTime(PHASE phase){
+		return current[phase.ordinal()];
+	}//end of getFrameTime method
+
+	/**
+	 * Returns the number of frames the percentiles are taken over.
+	 *
+	 * @return the number of frames stored.
+	 */
+	public int getFrameCount(){
+		return count;
+	}//end of getFrameCount method
+
+	/**
+	 * Returns the time spent in the specified phase at the specified
+	 * percentile of the stored frames.
+	 *
+	 * @param phase the phase.
+	 * @param percentile the percentile, from 0 to 100.
+	 * @return the time, in nanoseconds, 0 if no frames are stored.
+	 */
+	public long getPercentile(PHASE phase, float percentile){
+		long returnValue = 0;
+		if(count > 0){
+			if(sortedPhase != phase){
+				System.arraycopy(samples[phase.ordinal()], 0, sorted, 0, count);
+				Arrays.sort(sorted, 0, count);
+				sortedPhase = phase;
+			}
+			int index = (int)Math.ceil(percentile / 100f * count) - 1;
+			returnValue = sorted[Math.max(0, Math.min(count - 1, index))];
+		}
+		return returnValue;
+	}//end of getPercentile method
+
+	//SETTERS
+	/**
+	 * Sets whether or not the profiler is enabled. Enabling the profiler
+	 * clears the frames stored before it was disabled.
+	 *
+	 * @param enabled true to enable, false to disable.
+	 */
+	public void setEnabled(boolean enabled){
+		if(enabled && !this.enabled){
+			reset();
+		}
+		this.enabled = enabled;
+		measuring = enabled || !listeners.isEmpty();
+	}//end of setEnabled method
+
+	/**
+	 * Adds the specified listener, to be told of each frame as it ends.
+	 *
+	 * @param listener the listener.
+	 */
+	public void addFrameListener(IFrameListener listener){
+		if(!listeners.contains(listener)){
+			listeners.add(listener);
+		}
+		measuring = true;
+	}//end of addFrameListener method
+
+	/**
+	 * Removes the specified listener.
+	 *
+	 * @param listener the listener.
+	 */
+	public void removeFrameListener(IFrameListener listener){
+		listeners.remove(listener);
+		measuring = enabled || !listeners.isEmpty();
+	}//end of removeFrameListener method
+
+	//OPERATIONS
+	/**
+	 * Starts measuring a phase.
+	 *
+	 * @return the start time, to be passed to <code>end()</code>; 0 if the
+	 * profiler is not measuring.
+	 */
+	public long begin(){
+		return measuring ? System.nanoTime() : 0;
+	}//end of begin method
+
+	/**
+	 * Finishes measuring the specified phase, adding the time since the
+	 * specified start to the phase's time for the current frame.
+	 *
+	 * @param phase the phase.
+	 * @param start the start time returned by <code>begin()</code>.
+	 */
+	public void end(PHASE phase, long start){
+		if(measuring && start != 0){
+			current[phase.ordinal()] += System.nanoTime() - start;
+		}
+	}//end of end method
+
+	/**
+	 * Finishes the current frame: the listeners are told of it, the time
+	 * spent in each phase is stored in the ring buffer, and the next frame
+	 * starts from zero.
+	 */
+	public void endFrame(){
+		if(measuring){
+			for(int i=0; i<listeners.size(); i++){
+				listeners.get(i).frameEnded(this);
+			}
+			for(int i=0; i<current.length; i++){
+				samples[i][head] = current[i];
+				current[i] = 0;
+			}
+			head = (head + 1) % WINDOW;
+			if(count < WINDOW){
+				count++;
+			}
+			sortedPhase = null;
+		}
+	}//end of endFrame method
+
+	/**
+	 * Clears the current frame and the stored frames.
+	 */
+	public void reset(){
+		Arrays.fill(current, 0);
+		head = 0;
+		count = 0;
+		sortedPhase = null;
+	}//end of reset method
+
+	//---------------------static main---------------------------------
+	//---------------------static methods------------------------------
+}//end of FrameProfiler class
@@ -0,0 +1,22 @@
+package thinktank.simulator.main;
+
+/**
+ * Interface for classes told of each frame measured by a
+ * <code>FrameProfiler</code> as it ends.
+ *
+ * @author Vasher Lor
+ * @version %I%, %G%
+ */
+public interface IFrameListener{
+
+	/**
+	 * Called as a frame ends, while the profiler still holds its times.
+	 * Called on the thread that steps the simulation, so it should return
+	 * quickly.
+	 *
+	 * @param profiler the profiler, whose <code>getFrameTime()</code> returns
+	 * the time spent in each phase of the frame.
+	 */
+	public void frameEnded(FrameProfiler profiler);
+
+}//end of IFrameListener interface
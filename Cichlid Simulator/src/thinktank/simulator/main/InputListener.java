@@ -20,6 +20,8 @@ import thinktank.simulator.actions.RotateEntityRightAction;
 import thinktank.simulator.actions.SaveScenarioAction;
 import thinktank.simulator.actions.SelectEntityAction;
 import thinktank.simulator.actions.ToggleMouselookAction;
+import thinktank.simulator.actions.ToggleDwellOverlayAction;
+import thinktank.simulator.actions.ToggleProfilerAction;
 
 /**
  * Main listener class for user actions and scenario management actions.
@@ -81,6 +83,12 @@ public class InputListener implements AnalogListener, ActionListener{
 			case ToggleMouselookAction.NAME:
 				ToggleMouselookAction.getInstance().actionPerformed(null);
 				break;
+			case ToggleProfilerAction.NAME:
+				ToggleProfilerAction.getInstance().actionPerformed(null);
+				break;
+			case ToggleDwellOverlayAction.NAME:
+				ToggleDwellOverlayAction.getInstance().actionPerformed(null);
+				break;
 			case MoveEntityLeftAction.NAME:
 				MoveEntityLeftAction.getInstance().actionPerformed(null);
 				break;
@@ -1,6 +1,9 @@
 package thinktank.simulator.main;
 
+import java.io.File;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.Random;
 import java.util.concurrent.TimeUnit;
 import com.jme3.app.SimpleApplication;
@@ -43,12 +46,20 @@ import thinktank.simulator.actions.RotateEntityRightAction;
 import thinktank.simulator.actions.SelectEntityAction;
 import thinktank.simulator.actions.ToggleCamModeAction;
 import thinktank.simulator.actions.ToggleMouselookAction;
+import thinktank.simulator.actions.ToggleDwellOverlayAction;
+import thinktank.simulator.actions.ToggleProfilerAction;
+import thinktank.simulator.analytics.BehaviorAnalytics;
 import thinktank.simulator.entity.Player;
+import thinktank.simulator.event.EventStream;
+import thinktank.simulator.event.FileEventSink;
+import thinktank.simulator.monitor.HitchDetector;
+import thinktank.simulator.monitor.SimulationMonitor;
 import thinktank.simulator.scenario.DEFAULT_SCENARIO;
-import thinktank.simulator.scenario.Grid;
 import thinktank.simulator.scenario.Scenario;
+import thinktank.simulator.scenario.ScenarioCommandQueue;
 import thinktank.simulator.scenario.ScenarioDefinition;
 import thinktank.simulator.scenario.ScenarioIO;
+import thinktank.simulator.util.DEFAULT_SETTINGS;
 
 /**
  * The main client for the application, extending the JMonkeyEngine class
@@ -84,17 +95,13 @@ public class Main extends SimpleApplication implements ActionListener{
 	 */
 	public static AssetManager asset_manager = null;
 	/**
-	 * A reference to the current grid for the simulation.
+	 * The queue of changes to the working scenario.
 	 */
-	private static Grid grid = null;
+	private static ScenarioCommandQueue command_queue = new ScenarioCommandQueue();
 	/**
 	 * Flag for whether or not the application is in the process of loading.
 	 */
 	private static boolean loading = true;
-	/**
-	 * Value for tracking elapsed time during execution.
-	 */
-	private static long timer = 0;
 
 	// ---------------------instance constants--------------------------
 	// ---------------------instance variables--------------------------
@@ -126,6 +133,10 @@ public class Main extends SimpleApplication implements ActionListener{
 	 * @deprecated
 	 */
 	private CAM_MODE activeCam; 
+	/**
+	 * The level of detail applied to the AI of the cichlids.
+	 */
+	private AILevelOfDetail aiLevelOfDetail;
 	/**
 	 * Flag for whether or not the mouse is currently active (visible).
 	 */
@@ -146,6 +157,10 @@ public class Main extends SimpleApplication implements ActionListener{
 	 * Value for calculating and tracking elapsed time.
 	 */
 	private long defTime;
+	/**
+	 * Value for tracking elapsed time during execution.
+	 */
+	private long timer;
 	/**
 	 * @deprecated
 	 */
@@ -154,6 +169,39 @@ public class Main extends SimpleApplication implements ActionListener{
 	 * App state for pausing and playing the simulation.
 	 */
 	private RootNodeController simulator;
+	/**
+	 * The profiler for the phases of each frame, shared by every working scenario.
+	 */
+	private FrameProfiler profiler;
+	/**
+	 * App state showing the profiler over the HUD.
+	 */
+	private ProfilerOverlay profilerOverlay;
+	/**
+	 * App state showing the dwell map of the working scenario in the tank.
+	 */
+	private DwellOverlay dwellOverlay;
+	/**
+	 * The JMX monitor, shared by every working scenario.
+	 */
+	private SimulationMonitor monitor;
+	/**
+	 * The detector dumping the frames before each hitch, null if disabled.
+	 */
+	private HitchDetector hitchDetector;
+	/**
+	 * The stream the events of the simulation are published to, shared by
+	 * every working scenario; null until the settings are applied.
+	 */
+	private EventStream eventStream;
+	/**
+	 * The sink logging the events to a file, null if disabled.
+	 */
+	private FileEventSink eventLog;
+	/**
+	 * The analytics computed from the event stream, null if disabled.
+	 */
+	private BehaviorAnalytics analytics;
 
 	// ---------------------constructors--------------------------------
 	/**
@@ -172,6 +220,16 @@ public class Main extends SimpleApplication implements ActionListener{
 		ctrlDown = false;
 		pause = true;
 		defTime = 0;
+		timer = 0;
+		profiler = new FrameProfiler();
+		profilerOverlay = new ProfilerOverlay(profiler);
+		dwellOverlay = new DwellOverlay();
+		monitor = new SimulationMonitor();
+		monitor.setCommandQueue(command_queue);
+		hitchDetector = null;
+		eventStream = null;
+		eventLog = null;
+		analytics = null;
 	}//end of default constructor
 
 	// ---------------------instance methods----------------------------
@@ -212,6 +270,43 @@ public class Main extends SimpleApplication implements ActionListener{
 		return ctrlDown;
 	}//end of isCTRLDown method
 
+	/**
+	 * Returns the level of detail applied to the AI of the cichlids.
+	 * 
+	 * @return the AI level of detail.
+	 */
+	public AILevelOfDetail getAILevelOfDetail(){
+		return aiLevelOfDetail;
+	}//end of getAILevelOfDetail method
+
+	/**
+	 * Returns the stream the events of the simulation are published to.
+	 * 
+	 * @return the event stream, null until the application is initialized.
+	 */
+	public EventStream getEventStream(){
+		return eventStream;
+	}//end of getEventStream method
+
+	/**
+	 * Returns the analytics computed from the event stream for the current 
+	 * simulation.
+	 * 
+	 * @return the analytics, null if disabled.
+	 */
+	public BehaviorAnalytics getAnalytics(){
+		return analytics;
+	}//end of getAnalytics method
+
+	/**
+	 * Returns the time the application has been running.
+	 * 
+	 * @return timer, in seconds.
+	 */
+	public long getTime(){
+		return timer;
+	}//end of getTime method
+
 	/**
 	 * Getter for activeCam.
 	 * 
@@ -328,6 +423,21 @@ public class Main extends SimpleApplication implements ActionListener{
 		if(scenario != null){
 			clearScenario();
 			workingScenario = scenario;
+			command_queue.clearJournal();
+			scenario.getContext().configure(settings);
+			scenario.getContext().setProfiler(profiler);
+			scenario.getContext().setMonitor(monitor);
+			scenario.getContext().setEventStream(eventStream);
+			if(analytics != null){
+				analytics.reset();
+			}
+			if(hitchDetector != null){
+				hitchDetector.setScenario(scenario);
+			}
+			dwellOverlay.setScenario(scenario);
+			if(bulletAppState != null){
+				scenario.getContext().setPhysicsSpace(bulletAppState.getPhysicsSpace());
+			}
 			setGrid();
 			displayScenario();
 		}
@@ -348,7 +458,7 @@ public class Main extends SimpleApplication implements ActionListener{
 	 * Sets the grid based on the current working scenario.
 	 */
 	public void setGrid(){
-		grid = new Grid(getWorkingScenario());
+		getWorkingScenario().getContext().buildGrid();
 	}//end of setGrid method
 
 	// OPERATIONS
@@ -460,6 +570,39 @@ public class Main extends SimpleApplication implements ActionListener{
 		}
 	}//end of toggleMouseMode method
 
+	/**
+	 * Shows or hides the profiler overlay.
+	 */
+	public void toggleProfiler(){
+		profilerOverlay.setVisible(!profilerOverlay.isVisible());
+	}//end of toggleProfiler method
+
+	/**
+	 * Shows or hides the dwell map overlay.
+	 */
+	public void toggleDwellOverlay(){
+		dwellOverlay.setVisible(!dwellOverlay.isVisible());
+	}//end of toggleDwellOverlay method
+
+	/**
+	 * Unregisters the JMX monitor, stops the hitch detector, and closes the 
+	 * event stream when the application closes.
+	 */
+	@Override
+	public void destroy(){
+		monitor.unregister();
+		if(hitchDetector != null){
+			hitchDetector.shutdown();
+		}
+		if(eventStream != null){
+			eventStream.close();
+		}
+		if(eventLog != null){
+			eventLog.close();
+		}
+		super.destroy();
+	}//end of destroy method
+
 	/**
 	 * Main update method called as part of the game loop.
 	 */
@@ -467,12 +610,11 @@ public class Main extends SimpleApplication implements ActionListener{
 	public void simpleUpdate(float tpf){
 		// tpf stands for "time per frame"
 		tpf = tpf * mult;
-		long oldTime = timer;
 		timer = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - defTime);
 
-		if(oldTime != timer){
-			System.out.println("Time Elapsed: " + timer);
-		}
+		long start = profiler.begin();
+		command_queue.applyPending(getWorkingScenario());//between simulation ticks, even while paused
+		profiler.end(FrameProfiler.PHASE.COMMANDS, start);
 
 		super.simpleUpdate(tpf);
 	}//end of simpleUpdate method
@@ -549,14 +691,45 @@ public class Main extends SimpleApplication implements ActionListener{
 	}//end of hideStatsInfo method
 	
 	//INITIALIZATION
+	/**
+	 * Applies the simulation values from the application settings.
+	 */
+	private void applySimulationSettings(){
+		aiLevelOfDetail = new AILevelOfDetail(cam, settings);
+		if(settings.getBoolean(DEFAULT_SETTINGS.HITCH_DETECTOR_ENABLED.NAME)){
+			hitchDetector = new HitchDetector(settings.getInteger(DEFAULT_SETTINGS.HITCH_HISTORY.NAME), 
+					settings.getFloat(DEFAULT_SETTINGS.HITCH_THRESHOLD.NAME));
+			hitchDetector.setScenario(workingScenario);
+			profiler.addFrameListener(hitchDetector);
+		}
+		eventStream = new EventStream(settings.getInteger(DEFAULT_SETTINGS.EVENT_QUEUE_CAPACITY.NAME));
+		if(settings.getBoolean(DEFAULT_SETTINGS.EVENT_LOG_ENABLED.NAME)){
+			eventLog = new FileEventSink(new File("events", "events-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + ".csv"));
+			eventStream.subscribe(eventLog);
+		}
+		if(settings.getBoolean(DEFAULT_SETTINGS.ANALYTICS_ENABLED.NAME)){
+			analytics = new BehaviorAnalytics();
+			eventStream.subscribe(analytics);
+		}
+		if(workingScenario != null){
+			workingScenario.getContext().setEventStream(eventStream);
+		}
+	}//end of applySimulationSettings method
+
 	/**
 	 * Initializes the values and objects necessary for the application to run.
 	 */
 	@Override
 	public void simpleInitApp(){
 		setupPhys();
+		applySimulationSettings();
 		
 		hideStatsInfo(); //turn off stats display
+		stateManager.attach(profilerOverlay);//hidden until toggled
+		stateManager.attach(dwellOverlay);//hidden until toggled
+		if(settings.getBoolean(DEFAULT_SETTINGS.MONITOR_ENABLED.NAME)){
+			monitor.register(settings.getTitle());
+		}
 
 		asset_manager = this.assetManager;
 		setWorkingScenarioToDefault();
@@ -646,6 +819,8 @@ public class Main extends SimpleApplication implements ActionListener{
 		inputManager.addMapping(AddPlantAction.NAME, new KeyTrigger(KeyInput.KEY_L));
 		inputManager.addMapping(AddFishAction.NAME, new KeyTrigger(KeyInput.KEY_K));
 		inputManager.addMapping(ToggleMouselookAction.NAME, new KeyTrigger(KeyInput.KEY_APOSTROPHE));
+		inputManager.addMapping(ToggleProfilerAction.NAME, new KeyTrigger(KeyInput.KEY_F3));
+		inputManager.addMapping(ToggleDwellOverlayAction.NAME, new KeyTrigger(KeyInput.KEY_F4));
 		inputManager.addMapping(CTRLMaskAction.NAME, new KeyTrigger(KeyInput.KEY_LCONTROL),	new KeyTrigger(KeyInput.KEY_RCONTROL));
 		inputManager.addMapping(SelectEntityAction.NAME, new MouseButtonTrigger(MouseInput.BUTTON_LEFT));
 		
@@ -663,6 +838,8 @@ public class Main extends SimpleApplication implements ActionListener{
 		inputManager.addListener(InputListener.getInstance(), AddPlantAction.NAME);
 		inputManager.addListener(InputListener.getInstance(), AddFishAction.NAME);
 		inputManager.addListener(InputListener.getInstance(), ToggleMouselookAction.NAME);
+		inputManager.addListener(InputListener.getInstance(), ToggleProfilerAction.NAME);
+		inputManager.addListener(InputListener.getInstance(), ToggleDwellOverlayAction.NAME);
 		inputManager.addListener(InputListener.getInstance(), SelectEntityAction.NAME);
 		inputManager.addListener(InputListener.getInstance(), CTRLMaskAction.NAME);
 
@@ -734,13 +911,15 @@ public class Main extends SimpleApplication implements ActionListener{
 	// ---------------------static main---------------------------------
 	// ---------------------static methods------------------------------
 	/**
-	 * Returns a reference to the grid for the current working scenario.
+	 * Returns the queue of changes to the working scenario. All changes 
+	 * requested by the user should be submitted to it rather than made 
+	 * directly.
 	 * 
-	 * @return reference to the grid.
+	 * @return reference to the command queue.
 	 */
-	public static Grid getGrid(){
-		return grid;
-	}//end of getGrid method
+	public static ScenarioCommandQueue getCommandQueue(){
+		return command_queue;
+	}//end of getCommandQueue method
 
 	/**
 	 * Returns whether or not the application is in the process of loading.
@@ -751,13 +930,4 @@ public class Main extends SimpleApplication implements ActionListener{
 		return loading;
 	}//end of isLoading method
 	
-	/**
-	 * Returns the time of the simulation running
-	 * 
-	 * @return timer
-	 */
-	public static long getTime(){
-		return timer;
-	}//end of getTime method
-	
 }// end of Main class
\ No newline at end of file
@@ -0,0 +1,301 @@
+package thinktank.simulator.main;
+
+import com.jme3.app.Application;
+import com.jme3.app.SimpleApplication;
+import com.jme3.app.state.AbstractAppState;
+import com.jme3.app.state.AppStateManager;
+import com.jme3.bullet.BulletAppState;
+import com.jme3.bullet.PhysicsSpace;
+import com.jme3.bullet.PhysicsTickListener;
+import com.jme3.font.BitmapFont;
+import com.jme3.font.BitmapText;
+import com.jme3.math.ColorRGBA;
+import com.jme3.renderer.RenderManager;
+import com.jme3.scene.Node;
+
+/**
+ * Custom <code>AppState</code> implementation showing the rolling
+ * percentiles of a <code>FrameProfiler</code> over the HUD. It also
+ * measures the phases outside of the simulation: the physics step, through
+ * a tick listener on the physics space, and rendering, from the start of
+ * the render pass to the end of the frame, which includes the interface.
+ * It ends each of the profiler's frames after rendering.
+ *
+ * Showing the overlay enables the profiler, and hiding it disables the
+ * profiler again, so unless a frame listener needs the times, nothing is
+ * measured or shown while it is hidden.
+ *
+ * @author Vasher Lor
+ * @version %I%, %G%
+ */
+public class ProfilerOverlay extends AbstractAppState implements PhysicsTickListener{
+	//---------------------static constants----------------------------
+	/**
+	 * Constant value for the time between refreshes of the overlay, in seconds.
+	 */
+	public static final float REFRESH_INTERVAL = 0.5f;
+	/**
+	 * Constant values for the percentiles shown.
+	 */
+	private static final float[] PERCENTILES = {50, 95, 99};
+	/**
+	 * Constant value for the distance of the overlay from the top right
+	 * corner of the screen, in pixels.
+	 */
+	private static final float MARGIN = 10;
+	/**
+	 * Constant value for the width of the overlay, in pixels.
+	 */
+	private static final float WIDTH = 300;
+
+	//---------------------static variables----------------------------
+	//---------------------instance constants--------------------------
+	/**
+	 * The profiler shown.
+	 */
+	private final FrameProfiler profiler;
+	/**
+	 * The buffer the text of the overlay is built in.
+	 */
+	private final StringBuilder buffer;
+
+	//---------------------instance variables--------------------------
+	/**
+	 * The node the overlay is attached to while shown.
+	 */
+	private Node guiNode;
+	/**
+	 * The text of the overlay.
+	 */
+	private BitmapText text;
+	/**
+	 * The physics space being measured, null if there is none.
+	 */
+	private PhysicsSpace physicsSpace;
+	/**
+	 * The start of the current physics step, 0 if none is in progress.
+	 */
+	private long physicsStart;
+	/**
+	 * The start of the current render pass, 0 if none is in progress.
+	 */
+	private long renderStart;
+	/**
+	 * The end of the last frame, 0 if no frame has ended since the profiler
+	 * started measuring.
+	 */
+	private long frameStart;
+	/**
+	 * The time since the overlay was last refreshed, in seconds.
+	 */
+	private float sinceRefresh;
+	/**
+	 * Whether or not the overlay is shown.
+	 */
+	private boolean visible;
+
+	//---------------------constructors--------------------------------
+	/**
+	 * Constructs a new, hidden overlay for the specified profiler.
+	 *
+	 * @param profiler the profiler.
+	 */
+	public ProfilerOverlay(FrameProfiler profiler){
+		this.profiler = profiler;
+		buffer = new StringBuilder(1024);
+		guiNode = null;
+		text = null;
+		physicsSpace = null;
+		physicsStart = 0;
+		renderStart = 0;
+		frameStart = 0;
+		sinceRefresh = 0;
+		visible = false;
+	}//end of (FrameProfiler) constructor
+
+	//---------------------instance methods----------------------------
+	//GETTERS
+	/**
+	 * Returns the profiler shown.
+	 *
+	 * @return the profiler.
+	 */
+	public FrameProfiler getProfiler(){
+		return profiler;
+	}//end of getProfiler method
+
+	/**
+	 * Returns whether or not the overlay is shown.
+	 *
+	 * @return true if shown, false otherwise.
+	 */
+	public boolean isVisible(){
+		return visible;
+	}//end of isVisible method
+
+	//SETTERS
+	/**
+	 * Shows or hides the overlay, enabling or disabling the profiler with it.
+	 *
+	 * @param visible true to show the overlay, false to hide it.
+	 */
+	public void setVisible(boolean visible){
+		this.visible = visible;
+		profiler.setEnabled(visible);
+		sinceRefresh = REFRESH_INTERVAL;
+		if(text != null){
+			if(visible){
+				guiNode.attachChild(text);
+			}
+			else{
+				text.removeFromParent();
+			}
+		}
+	}//end of setVisible method
+
+	//OPERATIONS
+	/**
+	 * Called during initialization of this app state.
+	 *
+	 * @param stateManager the app state manager.
+	 * @param app the application.
+	 */
+	@Override
+	public void initialize(AppStateManager stateManager, Application app){
+		super.initialize(stateManager, app);
+		guiNode = ((SimpleApplication)app).getGuiNode();
+		BitmapFont font = app.getAssetManager().loadFont("Interface/Fonts/Default.fnt");
+		text = new BitmapText(font, false);
+		text.setSize(font.getCharSet().getRenderedSize());
+		text.setColor(ColorRGBA.White);
+		text.setTabPosition(WIDTH * 0.45f, WIDTH * 0.65f, WIDTH * 0.85f);
+		text.setLocalTranslation(app.getCamera().getWidth() - WIDTH - MARGIN, app.getCamera().getHeight() - MARGIN, 0);
+		BulletAppState bulletAppState = stateManager.getState(BulletAppState.class);
+		if(bulletAppState != null){
+			physicsSpace = bulletAppState.getPhysicsSpace();
+			physicsSpace.addTickListener(this);
+		}
+		if(visible){
+			guiNode.attachChild(text);
+		}
+	}//end of initialize method
+
+	/**
+	 * Refreshes the overlay once every <code>REFRESH_INTERVAL</code> seconds
+	 * while it is shown.
+	 *
+	 * @param tpf "time per frame" - the duration of the last cycle through the
+	 * game loop
+	 */
+	@Override
+	public void update(float tpf){
+		sinceRefresh += tpf;
+		if(visible && sinceRefresh >= REFRESH_INTERVAL){
+			sinceRefresh = 0;
+			refresh();
+		}
+	}//end of update method
+
+	/**
+	 * Starts measuring the render pass.
+	 *
+	 * @param rm the render manager.
+	 */
+	@Override
+	public void render(RenderManager rm){
+		renderStart = profiler.begin();
+	}//end of render method
+
+	/**
+	 * Finishes measuring the render pass and the frame, and ends the
+	 * profiler's frame.
+	 */
+	@Override
+	public void postRender(){
+		profiler.end(FrameProfiler.PHASE.RENDER, renderStart);
+		profiler.end(FrameProfiler.PHASE.FRAME, frameStart);
+		profiler.endFrame();
+		frameStart = profiler.begin();
+	}//end of postRender method
+
+	/**
+	 * Starts measuring a physics step.
+	 *
+	 * @param space the physics space.
+	 * @param tpf the length of the step.
+	 */
+	@Override
+	public void prePhysicsTick(PhysicsSpace space, float tpf){
+		physicsStart = profiler.begin();
+	}//end of prePhysicsTick method
+
+	/**
+	 * Finishes measuring a physics step.
+	 *
+	 * @param space the physics space.
+	 * @param tpf the length of the step.
+	 */
+	@Override
+	public void physicsTick(PhysicsSpace space, float tpf){
+		profiler.end(FrameProfiler.PHASE.PHYSICS, physicsStart);
+		physicsStart = 0;
+	}//end of physicsTick method
+
+	/**
+	 * Removes the overlay and stops measuring the physics space.
+	 */
+	@Override
+	public void cleanup(){
+		super.cleanup();
+		if(text != null){
+			text.removeFromParent();
+		}
+		if(physicsSpace != null){
+			physicsSpace.removeTickListener(this);
+			physicsSpace = null;
+		}
+		profiler.setEnabled(false);
+	}//end of cleanup method
+
+	/**
+	 * Rebuilds the text of the overlay from the profiler's percentiles.
+	 */
+	private void refresh(){
+		buffer.setLength(0);
+		buffer.append("Profiler (ms, ").append(profiler.getFrameCount()).append(" frames)");
+		for(int i=0; i<PERCENTILES.length; i++){
+			buffer.append("\tp").append((int)PERCENTILES[i]);
+		}
+		for(FrameProfiler.PHASE phase : FrameProfiler.PHASE.values()){
+			buffer.append('\n');
+			for(int i=0; i<phase.DEPTH; i++){
+				buffer.append("  ");
+			}
+			buffer.append(phase.LABEL);
+			for(int i=0; i<PERCENTILES.length; i++){
+				buffer.append('\t');
+				appendMillis(buffer, profiler.getPercentile(phase, PERCENTILES[i]));
+			}
+		}
+		text.setText(buffer);
+	}//end of refresh method
+
+	//---------------------static main---------------------------------
+	//---------------------static methods------------------------------
+	/**
+	 * Appends the specified time in milliseconds, to two decimal places,
+	 * without allocating.
+	 *
+	 * @param buffer the buffer to append to.
+	 * @param nanos the time, in nanoseconds.
+	 */
+	private static void appendMillis(StringBuilder buffer, long nanos){
+		long hundredths = (nanos + 5000) / 10000;
+		buffer.append(hundredths / 100).append('.');
+		if(hundredths % 100 < 10){
+			buffer.append('0');
+		}
+		buffer.append(hundredths % 100);
+	}//end of appendMillis method
+
+}//end of ProfilerOverlay class
@@ -5,8 +5,6 @@ import com.jme3.app.state.AbstractAppState;
 import com.jme3.app.state.AppStateManager;
 import com.jme3.scene.Node;
 
-import thinktank.simulator.entity.Cichlid;
-import thinktank.simulator.entity.Fish;
 import thinktank.simulator.entity.Player;
 
 /**
@@ -75,7 +73,9 @@ public class RootNodeController extends AbstractAppState{
 
     //OPERATIONS
     /**
-     * The update method called for this app state as part of the game loop.
+     * The update method called for this app state as part of the game loop. 
+     * Steps the working scenario's simulation context, with each cichlid 
+     * updated at the AI level of detail for its tier.
      * 
      * @param tpf "time per frame" - the duration of the last cycle through the 
      * game loop
@@ -83,21 +83,15 @@ public class RootNodeController extends AbstractAppState{
     @Override
     public void update(float tpf){
     	rootNode = app.getRootNode();
-    	java.util.Iterator<Fish> itr = app.getWorkingScenario().getFish();
     	if(player != null){
         	player.update(tpf);
     	}
-		while(itr.hasNext()){
-			Fish fish = (Fish)itr.next();
-			//f.move();
-			if(fish instanceof Cichlid){
-				Cichlid cichlid = (Cichlid)fish;
-				cichlid.clearRelationships();
-				cichlid.move(tpf);
-			}
-		}
+    	SimulationContext context = app.getWorkingScenario().getContext();
+    	context.step(tpf, app.getAILevelOfDetail());
+    	long start = context.getProfiler().begin();
         rootNode.updateLogicalState(tpf);
         rootNode.updateGeometricState();
+        context.getProfiler().end(FrameProfiler.PHASE.SCENE, start);
         super.update(tpf);
     }//end of update method
     
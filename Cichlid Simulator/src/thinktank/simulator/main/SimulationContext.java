@@ -0,0 +1,545 @@
+package thinktank.simulator.main;
+
+import java.util.HashMap;
+import java.util.Random;
+
+import com.jme3.bullet.PhysicsSpace;
+import com.jme3.system.AppSettings;
+
+import thinktank.simulator.analytics.InteractionGraph;
+import thinktank.simulator.behavior.AggressionKernel;
+import thinktank.simulator.behavior.BehaviorEngine;
+import thinktank.simulator.behavior.SpeciesProfile;
+import thinktank.simulator.entity.Cichlid;
+import thinktank.simulator.entity.Fish;
+import thinktank.simulator.event.EventStream;
+import thinktank.simulator.monitor.MonitorEvents;
+import thinktank.simulator.monitor.SimulationMonitor;
+import thinktank.simulator.scenario.DwellMap;
+import thinktank.simulator.scenario.EntityRegistry;
+import thinktank.simulator.scenario.EntityView;
+import thinktank.simulator.scenario.Grid;
+import thinktank.simulator.scenario.Scenario;
+import thinktank.simulator.util.DEFAULT_SETTINGS;
+import thinktank.simulator.util.VisibilitySampler;
+import thinktank.simulator.util.VisibilityStats;
+
+/**
+ * The state of one running simulation: its clock, random number generator,
+ * grid, physics space and entity registry, along with the services the
+ * cichlids use while they are updated. Each scenario owns one context, and
+ * the entities in it reach the context through <code>getContext()</code>,
+ * so any number of scenarios can be stepped independently, and on different
+ * threads, in one process.
+ *
+ * A context is not itself thread safe; each one should be stepped by one
+ * thread at a time.
+ *
+ * @author Vasher Lor
+ * @version %I%, %G%
+ */
+public class SimulationContext{
+	//---------------------static constants----------------------------
+	/**
+	 * The seed of a context that is not given one.
+	 */
+	public static final long DEFAULT_SEED = 0x5EED1E55L;
+	//---------------------static variables----------------------------
+	//---------------------instance constants--------------------------
+	/**
+	 * The scenario being simulated.
+	 */
+	private final Scenario scenario;
+	/**
+	 * The random number generator for the simulation.
+	 */
+	private final Random rng;
+	/**
+	 * The registry of the entities in the scenario.
+	 */
+	private final EntityRegistry registry;
+	/**
+	 * The scheduler for the behavior decisions, which also keeps the
+	 * simulation clock.
+	 */
+	private final DecisionScheduler scheduler;
+	/**
+	 * The engine dispatching the behaviors of the cichlids.
+	 */
+	private final BehaviorEngine behaviorEngine;
+	/**
+	 * The kernel computing the aggression between the fish.
+	 */
+	private final AggressionKernel aggressionKernel;
+	/**
+	 * The sampler used for calculating visibility by raycasting.
+	 */
+	private final VisibilitySampler visibilitySampler;
+	/**
+	 * The error between the occlusion volume and the raycasts, recorded
+	 * while in <code>Cichlid.VISIBILITY_MODE.COMPARE</code>.
+	 */
+	private final VisibilityStats visibilityStats;
+
+	//---------------------instance variables--------------------------
+	/**
+	 * The grid for the scenario, null until it is built.
+	 */
+	private Grid grid;
+	/**
+	 * The physics space the ghosts of the fish are added to, null if the
+	 * simulation has no physics.
+	 */
+	private PhysicsSpace physicsSpace;
+	/**
+	 * The profiler the phases of each tick are measured with.
+	 */
+	private FrameProfiler profiler;
+	/**
+	 * The monitor sampled after each tick, null if the simulation is not
+	 * monitored.
+	 */
+	private SimulationMonitor monitor;
+	/**
+	 * The stream the events of the simulation are published to, null if
+	 * they are not published.
+	 */
+	private EventStream eventStream;
+	/**
+	 * Whether or not the time each fish spends in each cell is counted on
+	 * the grid's dwell map.
+	 */
+	private boolean dwellMapEnabled;
+	/**
+	 * The method used for calculating visibility between the cichlids and
+	 * other entities in this simulation.
+	 */
+	private Cichlid.VISIBILITY_MODE visibilityMode;
+	/**
+	 * The graph of the chases between the fish during this run.
+	 */
+	private InteractionGraph interactionGraph;
+	/**
+	 * The behavioral parameters of each species in this simulation, by
+	 * species name, copied from the shared profiles when first requested.
+	 */
+	private HashMap<String,SpeciesProfile> profiles;
+
+	//---------------------constructors--------------------------------
+	/**
+	 * Constructs a new context for the specified scenario, with the default
+	 * seed. Every run of a scenario starts from the same random sequence
+	 * unless the context is reseeded.
+	 *
+	 * @param scenario the scenario.
+	 */
+	public SimulationContext(Scenario scenario){
+		this(scenario, DEFAULT_SEED);
+	}//end of (Scenario) constructor
+
+	/**
+	 * Constructs a new context for the specified scenario, with the
+	 * specified seed for its random number generator.
+	 *
+	 * @param scenario the scenario.
+	 * @param seed the seed.
+	 */
+	public SimulationContext(Scenario scenario, long seed){
+		this.scenario = scenario;
+		rng = new Random(seed);
+		registry = new EntityRegistry();
+		scheduler = new DecisionScheduler();
+		behaviorEngine = new BehaviorEngine();
+		aggressionKernel = new AggressionKernel();
+		visibilitySampler = new VisibilitySampler();
+		visibilityStats = new VisibilityStats();
+		grid = null;
+		physicsSpace = null;
+		profiler = new FrameProfiler();
+		monitor = null;
+		eventStream = null;
+		dwellMapEnabled = true;
+		visibilityMode = Cichlid.VISIBILITY_MODE.OCCLUSION_VOLUME;
+		interactionGraph = new InteractionGraph();
+		profiles = new HashMap<String,SpeciesProfile>();
+	}//end of (Scenario,long) constructor
+
+	//---------------------instance methods----------------------------
+	//GETTERS
+	/**
+	 * Returns the scenario being simulated.
+	 *
+	 * @return the scenario.
+	 */
+	public Scenario getScenario(){
+		return scenario;
+	}//end of getScenario method
+
+	/**
+	 * Returns the random number generator for the simulation.
+	 *
+	 * @return the random number generator.
+	 */
+	public Random getRNG(){
+		return rng;
+	}//end of getRNG method
+
+	/**
+	 * Returns the behavioral parameters of the specified species in this
+	 * simulation, which start as a copy of the species' shared profile.
+	 *
+	 * @param species the name of the species.
+	 * @return the species profile.
+	 */
+	public SpeciesProfile getProfile(String species){
+		SpeciesProfile returnValue = profiles.get(species);
+		if(returnValue == null){
+			returnValue = new SpeciesProfile(SpeciesProfile.getProfile(species));
+			profiles.put(species, returnValue);
+		}
+		return returnValue;
+	}//end of getProfile method
+
+	/**
+	 * Returns the registry of the entities in the scenario.
+	 *
+	 * @return the entity registry.
+	 */
+	public EntityRegistry getRegistry(){
+		return registry;
+	}//end of getRegistry method
+
+	/**
+	 * Returns the current simulation time.
+	 *
+	 * @return the simulation time, in seconds.
+	 */
+	public double getTime(){
+		return scheduler.getTime();
+	}//end of getTime method
+
+	/**
+	 * Returns the scheduler for the behavior decisions.
+	 *
+	 * @return the decision scheduler.
+	 */
+	public DecisionScheduler getScheduler(){
+		return scheduler;
+	}//end of getScheduler method
+
+	/**
+	 * Returns the engine dispatching the behaviors of the cichlids.
+	 *
+	 * @return the behavior engine.
+	 */
+	public BehaviorEngine getBehaviorEngine(){
+		return behaviorEngine;
+	}//end of getBehaviorEngine method
+
+	/**
+	 * Returns the kernel computing the aggression between the fish.
+	 *
+	 * @return the aggression kernel.
+	 */
+	public AggressionKernel getAggressionKernel(){
+		return aggressionKernel;
+	}//end of getAggressionKernel method
+
+	/**
+	 * Returns the sampler used for calculating visibility by raycasting.
+	 *
+	 * @return the visibility sampler.
+	 */
+	public VisibilitySampler getVisibilitySampler(){
+		return visibilitySampler;
+	}//end of getVisibilitySampler method
+
+	/**
+	 * Returns the error between the occlusion volume and the raycasts.
+	 *
+	 * @return the visibility statistics.
+	 */
+	public VisibilityStats getVisibilityStats(){
+		return visibilityStats;
+	}//end of getVisibilityStats method
+
+	/**
+	 * Returns the grid for the scenario.
+	 *
+	 * @return the grid, null if it has not been built.
+	 */
+	public Grid getGrid(){
+		return grid;
+	}//end of getGrid method
+
+	/**
+	 * Returns the physics space the ghosts of the fish are added to.
+	 *
+	 * @return the physics space, null if the simulation has no physics.
+	 */
+	public PhysicsSpace getPhysicsSpace(){
+		return physicsSpace;
+	}//end of getPhysicsSpace method
+
+	/**
+	 * Returns the profiler the phases of each tick are measured with.
+	 *
+	 * @return the profiler.
+	 */
+	public FrameProfiler getProfiler(){
+		return profiler;
+	}//end of getProfiler method
+
+	/**
+	 * Returns the monitor sampled after each tick.
+	 *
+	 * @return the monitor, null if the simulation is not monitored.
+	 */
+	public SimulationMonitor getMonitor(){
+		return monitor;
+	}//end of getMonitor method
+
+	/**
+	 * Returns the stream the events of the simulation are published to.
+	 *
+	 * @return the event stream, null if events are not published.
+	 */
+	public EventStream getEventStream(){
+		return eventStream;
+	}//end of getEventStream method
+
+	/**
+	 * Returns whether or not the time each fish spends in each cell is
+	 * counted on the grid's dwell map.
+	 *
+	 * @return true if counted, false otherwise.
+	 */
+	public boolean isDwellMapEnabled(){
+		return dwellMapEnabled;
+	}//end of isDwellMapEnabled method
+
+	/**
+	 * Returns the method used for calculating visibility between the
+	 * cichlids and other entities in this simulation.
+	 *
+	 * @return the visibility mode.
+	 */
+	public Cichlid.VISIBILITY_MODE getVisibilityMode(){
+		return visibilityMode;
+	}//end of getVisibilityMode method
+
+	/**
+	 * Returns the graph of the chases between the fish during this run.
+	 *
+	 * @return the interaction graph.
+	 */
+	public InteractionGraph getInteractionGraph(){
+		return interactionGraph;
+	}//end of getInteractionGraph method
+
+	//SETTERS
+	/**
+	 * Sets the physics space the ghosts of the fish are added to, and adds
+	 * the ghosts of the cichlids already in the scenario.
+	 *
+	 * @param physicsSpace the physics space, null for no physics.
+	 */
+	public void setPhysicsSpace(PhysicsSpace physicsSpace){
+		this.physicsSpace = physicsSpace;
+		if(physicsSpace != null){
+			EntityView<Fish> fish = scenario.getFishView();
+			for(int i=0; i<fish.size(); i++){
+				if(fish.get(i) instanceof Cichlid){
+					((Cichlid)fish.get(i)).attachGhost(physicsSpace);
+				}
+			}
+		}
+	}//end of setPhysicsSpace method
+
+	/**
+	 * Sets the profiler the phases of each tick are measured with, such as
+	 * one shared by the application across scenarios.
+	 *
+	 * @param profiler the profiler.
+	 */
+	public void setProfiler(FrameProfiler profiler){
+		this.profiler = profiler;
+	}//end of setProfiler method
+
+	/**
+	 * Sets the monitor sampled after each tick.
+	 *
+	 * @param monitor the monitor, null to stop monitoring the simulation.
+	 */
+	public void setMonitor(SimulationMonitor monitor){
+		this.monitor = monitor;
+	}//end of setMonitor method
+
+	/**
+	 * Sets the stream the events of the simulation are published to, such
+	 * as one shared by the application across scenarios.
+	 *
+	 * @param eventStream the event stream, null to stop publishing events.
+	 */
+	public void setEventStream(EventStream eventStream){
+		this.eventStream = eventStream;
+	}//end of setEventStream method
+
+	/**
+	 * Sets the behavioral parameters of the profile's species in this
+	 * simulation, for the fish already in the scenario as well as those
+	 * added later. The aggression of every pair of fish is recomputed on
+	 * the next tick. Should be called between ticks.
+	 *
+	 * @param profile the species profile.
+	 */
+	public void setProfile(SpeciesProfile profile){
+		profiles.put(profile.getSpecies(), profile);
+		EntityView<Fish> fishView = scenario.getFishView();
+		for(int i=0; i<fishView.size(); i++){
+			Fish fish = fishView.get(i);
+			if(fish instanceof Cichlid && profile.getSpecies().equals(Cichlid.SPECIES)){
+				((Cichlid)fish).setProfile(profile);
+			}
+		}
+		aggressionKernel.invalidateAll();
+	}//end of setProfile method
+
+	/**
+	 * Reseeds the random number generator for the simulation, so that runs
+	 * of the same scenario can be repeated.
+	 *
+	 * @param seed the seed.
+	 */
+	public void setSeed(long seed){
+		rng.setSeed(seed);
+	}//end of setSeed method
+
+	/**
+	 * Sets whether or not the time each fish spends in each cell is counted
+	 * on the grid's dwell map.
+	 *
+	 * @param dwellMapEnabled true to count the time, false otherwise.
+	 */
+	public void setDwellMapEnabled(boolean dwellMapEnabled){
+		this.dwellMapEnabled = dwellMapEnabled;
+	}//end of setDwellMapEnabled method
+
+	/**
+	 * Sets the method used for calculating visibility between the cichlids
+	 * and other entities in this simulation.
+	 *
+	 * @param visibilityMode the visibility mode.
+	 */
+	public void setVisibilityMode(Cichlid.VISIBILITY_MODE visibilityMode){
+		this.visibilityMode = visibilityMode;
+	}//end of setVisibilityMode method
+
+	//OPERATIONS
+	/**
+	 * Applies the simulation values from the specified application settings.
+	 *
+	 * @param settings the settings.
+	 */
+	public void configure(AppSettings settings){
+		visibilitySampler.setTolerance(settings.getFloat(DEFAULT_SETTINGS.VISIBILITY_TOLERANCE.NAME));
+		visibilitySampler.setBatchSize(settings.getInteger(DEFAULT_SETTINGS.VISIBILITY_BATCH_SIZE.NAME));
+		visibilitySampler.setMaxRays(settings.getInteger(DEFAULT_SETTINGS.VISIBILITY_MAX_RAYS.NAME));
+		behaviorEngine.setBudget(settings.getInteger(DEFAULT_SETTINGS.BEHAVIOR_TICK_BUDGET.NAME));
+		aggressionKernel.setEpsilon(settings.getFloat(DEFAULT_SETTINGS.AGGRESSION_EPSILON.NAME));
+		dwellMapEnabled = settings.getBoolean(DEFAULT_SETTINGS.DWELL_MAP_ENABLED.NAME);
+		MonitorEvents.configure(settings);
+	}//end of configure method
+
+	/**
+	 * Builds the grid for the scenario's current tank and environment
+	 * objects, replacing any previous grid. Should be called once the tank
+	 * is set, and again whenever it is replaced.
+	 *
+	 * @return the new grid.
+	 */
+	public Grid buildGrid(){
+		grid = new Grid(scenario);
+		return grid;
+	}//end of buildGrid method
+
+	/**
+	 * Advances the simulation by one tick: the clock moves forward, the
+	 * cichlids whose decisions are due make them, or, while nothing is
+	 * near them, are parked until something is and decide then, every
+	 * cichlid is updated, and, if enabled, every fish is counted on the dwell map.
+	 * Requires the grid to have been built. Ticks slower than the 
+	 * slow tick threshold are reported to the flight recorder, the end of 
+	 * the tick is published to the event stream, if any, and the monitor, 
+	 * if any, is sampled.
+	 *
+	 * @param tpf the simulation time elapsed since the last tick, in seconds.
+	 * @param lod the level of detail for the cichlid updates, null to
+	 * update every cichlid fully.
+	 */
+	public void step(float tpf, AILevelOfDetail lod){
+		long tickStart = MonitorEvents.begin();
+		EntityView<Fish> fishView = scenario.getFishView();//one consistent snapshot for the whole tick
+		scheduler.advance(tpf);
+		if(lod != null){
+			lod.beginTick();
+		}
+		behaviorEngine.beginTick();
+		long start = profiler.begin();
+		aggressionKernel.gather(fishView, grid);
+		profiler.end(FrameProfiler.PHASE.GATHER, start);
+		start = profiler.begin();
+		Cichlid due = scheduler.pollDue();
+		while(due != null){
+			if(scenario.containsFish(due)){
+				if(due.hasCompany()){
+					scheduler.schedule(due, due.decide());
+				}
+				else{
+					scheduler.park(due);//decides once something is near it again
+				}
+			}
+			due = scheduler.pollDue();
+		}
+		profiler.end(FrameProfiler.PHASE.DECISIONS, start);
+		start = profiler.begin();
+		DwellMap dwellMap = dwellMapEnabled ? grid.getDwellMap() : null;
+		for(int i=0; i<fishView.size(); i++){
+			Fish fish = fishView.get(i);
+			if(dwellMap != null){
+				dwellMap.record(fish);
+			}
+			if(fish instanceof Cichlid){
+				Cichlid cichlid = (Cichlid)fish;
+				if(!scheduler.isScheduled(cichlid)){
+					if(!scheduler.isParked(cichlid)){
+						scheduler.schedule(cichlid, cichlid.getTimeControl());//starting interval set in init()
+					}
+					else if(cichlid.hasCompany()){
+						scheduler.schedule(cichlid, cichlid.decide());//makes the decision it waited for before it behaves
+					}
+				}
+				if(lod != null){
+					lod.update(cichlid, tpf);
+				}
+				else{
+					cichlid.updateAI(tpf, 0, 1, false);
+				}
+			}
+		}
+		if(dwellMap != null){
+			dwellMap.endTick(tpf);
+		}
+		profiler.end(FrameProfiler.PHASE.AI, start);
+		MonitorEvents.tick(scenario.getName(), fishView.size(), getTime(), tickStart);
+		if(eventStream != null){
+			eventStream.tick(getTime(), fishView.size());
+		}
+		if(monitor != null){
+			monitor.sample(this);
+		}
+	}//end of step method
+
+	//---------------------static main---------------------------------
+	//---------------------static methods------------------------------
+}//end of SimulationContext class
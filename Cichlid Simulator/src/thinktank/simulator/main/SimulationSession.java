@@ -0,0 +1,574 @@
+package thinktank.simulator.main;
+
+import java.io.File;
+
+import com.jme3.bullet.PhysicsSpace;
+import com.jme3.math.Vector3f;
+import com.jme3.scene.Node;
+import com.jme3.system.AppSettings;
+import com.jme3.system.JmeSystem;
+
+import thinktank.simulator.entity.Cichlid;
+import thinktank.simulator.entity.Entity;
+import thinktank.simulator.entity.Fish;
+import thinktank.simulator.event.EventStream;
+import thinktank.simulator.monitor.HitchDetector;
+import thinktank.simulator.monitor.SimulationMonitor;
+import thinktank.simulator.scenario.DEFAULT_SCENARIO;
+import thinktank.simulator.scenario.EntityView;
+import thinktank.simulator.scenario.Scenario;
+import thinktank.simulator.scenario.ScenarioCommand;
+import thinktank.simulator.scenario.ScenarioCommandQueue;
+import thinktank.simulator.scenario.ScenarioDefinition;
+import thinktank.simulator.scenario.ScenarioIO;
+import thinktank.simulator.util.CichlidRelationships;
+import thinktank.simulator.util.ConfigLoader;
+
+/**
+ * A headless simulation of one scenario, for embedding the simulator in
+ * other programs. A session steps its scenario's <code>SimulationContext</code>
+ * directly, without the jME application loop, the renderer or the GUI,
+ * and without physics unless it is started, and reads the state of the fish into arrays supplied by the
+ * caller, so reading allocates nothing.
+ *
+ * Edits are submitted as <code>ScenarioCommand</code>s and applied at the
+ * start of the next step. The fish are read from the view published by the
+ * scenario, so their order only changes when an edit adds or removes one.
+ *
+ * A session is not thread safe; each one should be used by one thread at
+ * a time, but separate sessions may be stepped on separate threads.
+ *
+ * @author Vasher Lor
+ * @version %I%, %G%
+ */
+public class SimulationSession{
+	//---------------------static constants----------------------------
+	/**
+	 * Constant value for the default duration of a tick, in seconds.
+	 */
+	public static final float DEFAULT_TICK_LENGTH = 1f / 60f;
+	/**
+	 * Constant value for the number of values per fish in a position array.
+	 */
+	public static final int POSITION_STRIDE = 3;
+	/**
+	 * Constant value for the behavior read for a fish that is not a cichlid.
+	 */
+	public static final int NO_BEHAVIOR = -1;
+	/**
+	 * Constant value for the target read for a fish without a target.
+	 */
+	public static final long NO_TARGET = -1;
+	/**
+	 * Lock guarding the creation of the shared asset manager.
+	 */
+	private static final Object ASSET_LOCK = new Object();
+	/**
+	 * Constant value for the extent of the physics space along each axis,
+	 * matching the application's.
+	 */
+	private static final float PHYSICS_EXTENT = 10000f;
+
+	//---------------------static variables----------------------------
+	//---------------------instance constants--------------------------
+	/**
+	 * The scenario being simulated.
+	 */
+	private final Scenario scenario;
+	/**
+	 * The queue of edits to the scenario.
+	 */
+	private final ScenarioCommandQueue commandQueue;
+	/**
+	 * The root of the scene graph holding the scenario, kept up to date so
+	 * the world positions of the entities can be read.
+	 */
+	private final Node rootNode;
+
+	//---------------------instance variables--------------------------
+	/**
+	 * The duration of one tick, in seconds.
+	 */
+	private float tickLength;
+	/**
+	 * The number of ticks the session has been stepped.
+	 */
+	private long tickCount;
+	/**
+	 * The detector watching the session for hitches, null if none is.
+	 */
+	private HitchDetector hitchDetector;
+	/**
+	 * The physics space stepped with the session, null if physics has not
+	 * been started.
+	 */
+	private PhysicsSpace physicsSpace;
+
+	//---------------------constructors--------------------------------
+	/**
+	 * Constructs a new session simulating the specified scenario, which
+	 * should not be displayed or simulated anywhere else, with the
+	 * simulation values from the settings file.
+	 *
+	 * @param scenario the scenario.
+	 */
+	public SimulationSession(Scenario scenario){
+		this(scenario, ConfigLoader.getSettings());
+	}//end of (Scenario) constructor
+
+	/**
+	 * Constructs a new session simulating the specified scenario, which
+	 * should not be displayed or simulated anywhere else, with the
+	 * simulation values from the specified settings.
+	 *
+	 * @param scenario the scenario.
+	 * @param settings the settings.
+	 */
+	public SimulationSession(Scenario scenario, AppSettings settings){
+		this.scenario = scenario;
+		commandQueue = new ScenarioCommandQueue();
+		rootNode = new Node("Session Root Node");
+		tickLength = DEFAULT_TICK_LENGTH;
+		tickCount = 0;
+		hitchDetector = null;
+		physicsSpace = null;
+		scenario.getContext().configure(settings);
+		scenario.getContext().buildGrid();
+		rootNode.attachChild(scenario.getEnvironment().getEnvirionmentNode());
+		rootNode.attachChild(scenario.getEntityNode());
+		rootNode.updateLogicalState(0);
+		rootNode.updateGeometricState();
+	}//end of (Scenario,AppSettings) constructor
+
+	//---------------------instance methods----------------------------
+	//GETTERS
+	/**
+	 * Returns the scenario being simulated.
+	 *
+	 * @return the scenario.
+	 */
+	public Scenario getScenario(){
+		return scenario;
+	}//end of getScenario method
+
+	/**
+	 * Returns the context of the scenario being simulated.
+	 *
+	 * @return the simulation context.
+	 */
+	public SimulationContext getContext(){
+		return scenario.getContext();
+	}//end of getContext method
+
+	/**
+	 * Returns the queue of edits to the scenario, which also keeps a
+	 * journal of the most recent edits applied.
+	 *
+	 * @return the command queue.
+	 */
+	public ScenarioCommandQueue getCommandQueue(){
+		return commandQueue;
+	}//end of getCommandQueue method
+
+	/**
+	 * Returns the duration of one tick.
+	 *
+	 * @return the tick length, in seconds.
+	 */
+	public float getTickLength(){
+		return tickLength;
+	}//end of getTickLength method
+
+	/**
+	 * Returns the number of ticks the session has been stepped.
+	 *
+	 * @return the tick count.
+	 */
+	public long getTickCount(){
+		return tickCount;
+	}//end of getTickCount method
+
+	/**
+	 * Returns the current simulation time.
+	 *
+	 * @return the simulation time, in seconds.
+	 */
+	public double getTime(){
+		return scenario.getContext().getTime();
+	}//end of getTime method
+
+	/**
+	 * Returns the number of fish in the scenario, which is the number of
+	 * entries filled by the read methods.
+	 *
+	 * @return the number of fish.
+	 */
+	public int getFishCount(){
+		return scenario.getFishCount();
+	}//end of getFishCount method
+
+	/**
+	 * Returns the current behavior of the fish with the specified id.
+	 *
+	 * @param fishID the id of the fish.
+	 * @return the behavior, null if there is no such fish.
+	 */
+	public Fish.BEHAVIOR getBehavior(long fishID){
+		Fish.BEHAVIOR returnValue = null;
+		Entity entity = scenario.getEntityByID(fishID);
+		if(entity instanceof Fish){
+			returnValue = ((Fish)entity).getBehavior();
+		}
+		return returnValue;
+	}//end of getBehavior method
+
+	/**
+	 * Returns the id of the current target of the fish with the specified id.
+	 *
+	 * @param fishID the id of the fish.
+	 * @return the id of the target, <code>NO_TARGET</code> if there is no
+	 * such fish or it has no target.
+	 */
+	public long getTargetID(long fishID){
+		long returnValue = NO_TARGET;
+		Entity entity = scenario.getEntityByID(fishID);
+		if(entity instanceof Fish && ((Fish)entity).getTargetFish() != null){
+			returnValue = ((Fish)entity).getTargetFish().getID();
+		}
+		return returnValue;
+	}//end of getTargetID method
+
+	/**
+	 * Returns the aggression of one fish towards another, as computed by
+	 * the aggression kernel during the last step.
+	 *
+	 * @param fromID the id of the aggressive fish.
+	 * @param toID the id of the other fish.
+	 * @return the aggression value, 0 if either fish was not in the last step.
+	 */
+	public double getAggression(long fromID, long toID){
+		double returnValue = 0;
+		Entity from = scenario.getEntityByID(fromID);
+		Entity to = scenario.getEntityByID(toID);
+		if(from instanceof Fish && to instanceof Fish){
+			int fromSlot = scenario.getContext().getAggressionKernel().indexOf((Fish)from);
+			int toSlot = scenario.getContext().getAggressionKernel().indexOf((Fish)to);
+			if(fromSlot > -1 && toSlot > -1){
+				returnValue = scenario.getContext().getAggressionKernel().getAggression(fromSlot, toSlot);
+			}
+		}
+		return returnValue;
+	}//end of getAggression method
+
+	/**
+	 * Returns the relationships between the cichlid with the first id and
+	 * the entity with the second id, as last calculated by the cichlid.
+	 *
+	 * @param cichlidID the id of the cichlid.
+	 * @param otherID the id of the other entity.
+	 * @return the relationships, null if either entity does not exist or
+	 * the first is not a cichlid.
+	 */
+	public CichlidRelationships getRelationships(long cichlidID, long otherID){
+		CichlidRelationships returnValue = null;
+		Entity cichlid = scenario.getEntityByID(cichlidID);
+		Entity other = scenario.getEntityByID(otherID);
+		if(cichlid instanceof Cichlid && other != null){
+			returnValue = ((Cichlid)cichlid).calculateRelationships(other);
+		}
+		return returnValue;
+	}//end of getRelationships method
+
+	//SETTERS
+	/**
+	 * Sets the duration of one tick.
+	 *
+	 * @param tickLength the tick length, in seconds.
+	 */
+	public void setTickLength(float tickLength){
+		if(tickLength > 0){
+			this.tickLength = tickLength;
+		}
+	}//end of setTickLength method
+
+	//OPERATIONS
+	/**
+	 * Starts simulating the ghosts of the fish in a physics space of the
+	 * session's own, stepped after every tick. The cichlids only react to
+	 * the fish around them, including attacking them, while their ghosts
+	 * overlap, so physics is needed for runs that measure aggression. A
+	 * space is created on the calling thread, which should be the one the
+	 * session is stepped on, and stays until the session is discarded.
+	 *
+	 * @return the physics space.
+	 */
+	public PhysicsSpace startPhysics(){
+		if(physicsSpace == null){
+			physicsSpace = new PhysicsSpace(new Vector3f(-PHYSICS_EXTENT, -PHYSICS_EXTENT, -PHYSICS_EXTENT),
+					new Vector3f(PHYSICS_EXTENT, PHYSICS_EXTENT, PHYSICS_EXTENT), PhysicsSpace.BroadphaseType.DBVT);
+			physicsSpace.setGravity(new Vector3f(0, -.00001f, 0));//as in the application, gravity is turned off, sort of
+			scenario.getContext().setPhysicsSpace(physicsSpace);
+		}
+		return physicsSpace;
+	}//end of startPhysics method
+
+	/**
+	 * Starts monitoring the session over JMX, registering a monitor under
+	 * the specified name that is sampled after every step.
+	 *
+	 * @param name the name of the simulation, as shown in JMX clients.
+	 * @return the monitor.
+	 */
+	public SimulationMonitor startMonitor(String name){
+		SimulationMonitor returnValue = new SimulationMonitor();
+		returnValue.setCommandQueue(commandQueue);
+		returnValue.register(name);
+		scenario.getContext().setMonitor(returnValue);
+		return returnValue;
+	}//end of startMonitor method
+
+	/**
+	 * Stops monitoring the session, unregistering its monitor from JMX.
+	 */
+	public void stopMonitor(){
+		SimulationMonitor monitor = scenario.getContext().getMonitor();
+		if(monitor != null){
+			monitor.unregister();
+			scenario.getContext().setMonitor(null);
+		}
+	}//end of stopMonitor method
+
+	/**
+	 * Starts watching the session for hitches: whenever a step takes longer
+	 * than the specified threshold, the last steps and the state of every
+	 * fish are dumped to a file in the detector's folder.
+	 *
+	 * @param history the number of steps kept.
+	 * @param thresholdMillis the shortest step counted as a hitch, in milliseconds.
+	 * @return the detector.
+	 */
+	public HitchDetector startHitchDetector(int history, float thresholdMillis){
+		stopHitchDetector();
+		hitchDetector = new HitchDetector(history, thresholdMillis);
+		hitchDetector.setScenario(scenario);
+		scenario.getContext().getProfiler().addFrameListener(hitchDetector);
+		return hitchDetector;
+	}//end of startHitchDetector method
+
+	/**
+	 * Stops watching the session for hitches.
+	 */
+	public void stopHitchDetector(){
+		if(hitchDetector != null){
+			scenario.getContext().getProfiler().removeFrameListener(hitchDetector);
+			hitchDetector.shutdown();
+			hitchDetector = null;
+		}
+	}//end of stopHitchDetector method
+
+	/**
+	 * Starts publishing the events of the session, such as behavior changes
+	 * and attacks, to a new stream holding up to the specified number of
+	 * undispatched events. Nothing is published until the stream has a
+	 * subscriber.
+	 *
+	 * @param capacity the capacity of the stream.
+	 * @return the event stream.
+	 */
+	public EventStream startEventStream(int capacity){
+		stopEventStream();
+		EventStream returnValue = new EventStream(capacity);
+		scenario.getContext().setEventStream(returnValue);
+		return returnValue;
+	}//end of startEventStream method
+
+	/**
+	 * Stops publishing the events of the session, closing its stream once
+	 * the events already published are delivered. Waits until they are.
+	 *
+	 * @return true if every event published was delivered, false if the
+	 * wait was interrupted.
+	 */
+	public boolean stopEventStream(){
+		boolean returnValue = true;
+		EventStream events = scenario.getContext().getEventStream();
+		if(events != null){
+			scenario.getContext().setEventStream(null);
+			returnValue = events.close(0);
+		}
+		return returnValue;
+	}//end of stopEventStream method
+
+	/**
+	 * Submits the specified edit, to be applied at the start of the next
+	 * step. The command should be made for this session's scenario.
+	 *
+	 * @param command the edit.
+	 */
+	public void submit(ScenarioCommand command){
+		commandQueue.submit(command);
+	}//end of submit method
+
+	/**
+	 * Steps the simulation by one tick, stepping the physics space after it
+	 * if physics has been started. Each tick is one frame for the context's
+	 * profiler, which measures it while enabled.
+	 */
+	public void step(){
+		FrameProfiler profiler = scenario.getContext().getProfiler();
+		long frameStart = profiler.begin();
+		long start = frameStart;
+		commandQueue.applyPending(scenario);
+		profiler.end(FrameProfiler.PHASE.COMMANDS, start);
+		scenario.getContext().step(tickLength, null);
+		start = profiler.begin();
+		rootNode.updateLogicalState(tickLength);
+		rootNode.updateGeometricState();
+		profiler.end(FrameProfiler.PHASE.SCENE, start);
+		if(physicsSpace != null){
+			start = profiler.begin();
+			physicsSpace.update(tickLength);
+			profiler.end(FrameProfiler.PHASE.PHYSICS, start);
+		}
+		profiler.end(FrameProfiler.PHASE.FRAME, frameStart);
+		profiler.endFrame();
+		tickCount++;
+	}//end of step method
+
+	/**
+	 * Steps the simulation by the specified number of ticks.
+	 *
+	 * @param ticks the number of ticks.
+	 */
+	public void step(int ticks){
+		for(int i=0; i<ticks; i++){
+			step();
+		}
+	}//end of step(int) method
+
+	/**
+	 * Reads the ids of the fish into the specified array.
+	 *
+	 * @param out the array, with room for at least <code>getFishCount()</code> entries.
+	 * @return the number of fish read.
+	 */
+	public int readIDs(long[] out){
+		EntityView<Fish> view = scenario.getFishView();
+		int returnValue = Math.min(view.size(), out.length);
+		for(int i=0; i<returnValue; i++){
+			out[i] = view.get(i).getID();
+		}
+		return returnValue;
+	}//end of readIDs method
+
+	/**
+	 * Reads the world positions of the fish into the specified array, as
+	 * consecutive x, y and z values.
+	 *
+	 * @param out the array, with room for at least
+	 * <code>getFishCount() * POSITION_STRIDE</code> entries.
+	 * @return the number of fish read.
+	 */
+	public int readPositions(float[] out){
+		EntityView<Fish> view = scenario.getFishView();
+		int returnValue = Math.min(view.size(), out.length / POSITION_STRIDE);
+		for(int i=0; i<returnValue; i++){
+			Vector3f position = view.get(i).getObj().getWorldTranslation();
+			out[i * POSITION_STRIDE] = position.x;
+			out[i * POSITION_STRIDE + 1] = position.y;
+			out[i * POSITION_STRIDE + 2] = position.z;
+		}
+		return returnValue;
+	}//end of readPositions method
+
+	/**
+	 * Reads the speeds of the fish into the specified array.
+	 *
+	 * @param out the array, with room for at least <code>getFishCount()</code> entries.
+	 * @return the number of fish read.
+	 */
+	public int readSpeeds(float[] out){
+		EntityView<Fish> view = scenario.getFishView();
+		int returnValue = Math.min(view.size(), out.length);
+		for(int i=0; i<returnValue; i++){
+			out[i] = view.get(i).getSpeed();
+		}
+		return returnValue;
+	}//end of readSpeeds method
+
+	/**
+	 * Reads the behaviors of the fish into the specified array, as the
+	 * ordinals of their <code>Fish.BEHAVIOR</code> values.
+	 *
+	 * @param out the array, with room for at least <code>getFishCount()</code> entries.
+	 * @return the number of fish read.
+	 */
+	public int readBehaviors(int[] out){
+		EntityView<Fish> view = scenario.getFishView();
+		int returnValue = Math.min(view.size(), out.length);
+		for(int i=0; i<returnValue; i++){
+			Fish.BEHAVIOR behavior = view.get(i).getBehavior();
+			out[i] = (behavior == null) ? NO_BEHAVIOR : behavior.ordinal();
+		}
+		return returnValue;
+	}//end of readBehaviors method
+
+	/**
+	 * Reads the ids of the targets of the fish into the specified array.
+	 *
+	 * @param out the array, with room for at least <code>getFishCount()</code> entries.
+	 * @return the number of fish read.
+	 */
+	public int readTargets(long[] out){
+		EntityView<Fish> view = scenario.getFishView();
+		int returnValue = Math.min(view.size(), out.length);
+		for(int i=0; i<returnValue; i++){
+			Fish target = view.get(i).getTargetFish();
+			out[i] = (target == null) ? NO_TARGET : target.getID();
+		}
+		return returnValue;
+	}//end of readTargets method
+
+	//---------------------static main---------------------------------
+	//---------------------static methods------------------------------
+	/**
+	 * Creates a session simulating the specified default scenario.
+	 *
+	 * @param def the default scenario.
+	 * @return the session.
+	 */
+	public static SimulationSession create(DEFAULT_SCENARIO def){
+		initAssets();
+		return new SimulationSession(ScenarioDefinition.genScenario(def));
+	}//end of create(DEFAULT_SCENARIO) method
+
+	/**
+	 * Creates a session simulating the scenario saved in the specified file.
+	 *
+	 * @param file the scenario file.
+	 * @return the session, null if the file could not be loaded.
+	 */
+	public static SimulationSession create(File file){
+		SimulationSession returnValue = null;
+		initAssets();
+		Scenario scenario = ScenarioIO.loadScenario(file);
+		if(scenario != null){
+			returnValue = new SimulationSession(scenario);
+		}
+		return returnValue;
+	}//end of create(File) method
+
+	/**
+	 * Creates a headless asset manager for loading the entities' models,
+	 * unless the application has already set one.
+	 */
+	public static void initAssets(){
+		synchronized(ASSET_LOCK){
+			if(Main.asset_manager == null){
+				Main.asset_manager = JmeSystem.newAssetManager(
+						Thread.currentThread().getContextClassLoader().getResource("com/jme3/asset/Desktop.cfg"));
+			}
+		}
+	}//end of initAssets method
+
+}//end of SimulationSession class
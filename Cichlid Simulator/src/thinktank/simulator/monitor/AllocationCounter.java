@@ -0,0 +1,59 @@
+package thinktank.simulator.monitor;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Reads the number of bytes allocated by the calling thread, for the
+ * monitors that report allocation between their samples. The count is only
+ * available on JVMs whose thread bean supports it, and is only comparable
+ * between samples taken on the same thread, so the counter remembers which
+ * thread read it last.
+ *
+ * @author Vasher Lor
+ * @version %I%, %G%
+ */
+class AllocationCounter{
+	//---------------------static constants----------------------------
+	//---------------------static variables----------------------------
+	//---------------------instance constants--------------------------
+	//---------------------instance variables--------------------------
+	/**
+	 * The id of the thread that last read the counter.
+	 */
+	private long lastThread;
+
+	//---------------------constructors--------------------------------
+	/**
+	 * Constructs a new counter, not yet read by any thread.
+	 */
+	AllocationCounter(){
+		lastThread = -1;
+	}//end of constructor
+
+	//---------------------instance methods----------------------------
+	//GETTERS
+	/**
+	 * Returns the number of bytes allocated so far by the current thread.
+	 * If the thread has changed since the counter was last read, the count
+	 * is not comparable, and -1 is returned.
+	 *
+	 * @return the bytes allocated, -1 if unknown.
+	 */
+	long getAllocatedBytes(){
+		long returnValue = -1;
+		long thread = Thread.currentThread().getId();
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if(thread == lastThread && threads instanceof com.sun.management.ThreadMXBean){
+			com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean)threads;
+			if(allocations.isThreadAllocatedMemorySupported() && allocations.isThreadAllocatedMemoryEnabled()){
+				returnValue = allocations.getThreadAllocatedBytes(thread);
+			}
+		}
+		lastThread = thread;
+		return returnValue;
+	}//end of getAllocatedBytes method
+
+	//---------------------static main---------------------------------
+	//---------------------static methods------------------------------
+}//end of AllocationCounter class
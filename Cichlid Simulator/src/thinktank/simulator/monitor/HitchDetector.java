@@ -0,0 +1,465 @@
+package thinktank.simulator.monitor;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.jme3.math.Vector3f;
+
+import thinktank.simulator.entity.Fish;
+import thinktank.simulator.main.FrameProfiler;
+import thinktank.simulator.main.IFrameListener;
+import thinktank.simulator.scenario.EntityView;
+import thinktank.simulator.scenario.Scenario;
+
+/**
+ * Catches frame hitches as they happen. As a frame listener on a
+ * <code>FrameProfiler</code>, it keeps a ring buffer of the last frames:
+ * the time spent in each phase, the entity counts, the bytes allocated by
+ * the simulation thread, and the garbage collections. When a frame takes
+ * longer than the threshold, the buffer and the current state of every
+ * fish are copied and written to a file on a background thread, so the
+ * context of the hitch is kept without stalling the simulation further.
+ *
+ * Only one dump is written at a time; hitches while one is being written
+ * are counted but not dumped.
+ *
+ * @author Vasher Lor
+ * @version %I%, %G%
+ */
+public class HitchDetector implements IFrameListener{
+	//---------------------static constants----------------------------
+	/**
+	 * Constant value for the folder dumps are written to by default.
+	 */
+	public static final String DEFAULT_FOLDER = "hitches";
+	/**
+	 * Constant value for the number of nanoseconds in a millisecond.
+	 */
+	private static final double NANOS_PER_MILLI = 1000000.0;
+
+	//---------------------static variables----------------------------
+	//---------------------instance constants--------------------------
+	/**
+	 * The number of frames kept.
+	 */
+	private final int history;
+	/**
+	 * The time spent in each phase, by slot and then by phase, in nanoseconds.
+	 */
+	private final long[][] phaseTimes;
+	/**
+	 * The number of each frame, by slot.
+	 */
+	private final long[] frames;
+	/**
+	 * The simulation time at the end of each frame, by slot.
+	 */
+	private final double[] simulationTimes;
+	/**
+	 * The number of fish in each frame, by slot.
+	 */
+	private final int[] fishCounts;
+	/**
+	 * The number of environment objects in each frame, by slot.
+	 */
+	private final int[] objectCounts;
+	/**
+	 * The bytes allocated by the simulation thread in each frame, by slot,
+	 * -1 if unknown.
+	 */
+	private final long[] allocations;
+	/**
+	 * The number of garbage collections in each frame, by slot.
+	 */
+	private final long[] collections;
+	/**
+	 * The time spent in garbage collection in each frame, by slot, in milliseconds.
+	 */
+	private final long[] collectionTimes;
+	/**
+	 * Whether or not a dump is being written.
+	 */
+	private final AtomicBoolean writing;
+	/**
+	 * The garbage collectors.
+	 */
+	private final List<GarbageCollectorMXBean> collectors;
+
+	//---------------------instance variables--------------------------
+	/**
+	 * The shortest frame counted as a hitch, in nanoseconds.
+	 */
+	private long threshold;
+	/**
+	 * The folder dumps are written to.
+	 */
+	private File folder;
+	/**
+	 * The scenario whose fish are dumped, may be null.
+	 */
+	private Scenario scenario;
+	/**
+	 * The slot the next frame is stored in.
+	 */
+	private int head;
+	/**
+	 * The number of frames stored, up to <code>history</code>.
+	 */
+	private int count;
+	/**
+	 * The number of frames seen.
+	 */
+	private long frameCount;
+	/**
+	 * The number of hitches seen.
+	 */
+	private long hitches;
+	/**
+	 * The number of hitches not dumped because a dump was being written.
+	 */
+	private long skipped;
+	/**
+	 * The counter of the bytes allocated by the thread each frame ends on.
+	 */
+	private AllocationCounter allocationCounter;
+	/**
+	 * The bytes allocated by that thread at the end of the last frame, -1
+	 * if unknown.
+	 */
+	private long lastAllocated;
+	/**
+	 * The number of garbage collections at the end of the last frame.
+	 */
+	private long lastCollections;
+	/**
+	 * The time spent in garbage collection at the end of the last frame.
+	 */
+	private long lastCollectionTime;
+	/**
+	 * The thread dumps are written on, null until the first dump.
+	 */
+	private ExecutorService writer;
+
+	//---------------------constructors--------------------------------
+	/**
+	 * Constructs a new detector keeping the specified number of frames,
+	 * with the specified threshold.
+	 *
+	 * @param history the number of frames kept, at least 1.
+	 * @param thresholdMillis the shortest frame counted as a hitch, in milliseconds.
+	 */
+	public HitchDetector(int history, float thresholdMillis){
+		this.history = Math.max(1, history);
+		phaseTimes = new long[this.history][FrameProfiler.PHASE.values().length];
+		frames = new long[this.history];
+		simulationTimes = new double[this.history];
+		fishCounts = new int[this.history];
+		objectCounts = new int[this.history];
+		allocations = new long[this.history];
+		collections = new long[this.history];
+		collectionTimes = new long[this.history];
+		writing = new AtomicBoolean(false);
+		collectors = ManagementFactory.getGarbageCollectorMXBeans();
+		setThreshold(thresholdMillis);
+		folder = new File(DEFAULT_FOLDER);
+		scenario = null;
+		head = 0;
+		count = 0;
+		frameCount = 0;
+		hitches = 0;
+		skipped = 0;
+		allocationCounter = new AllocationCounter();
+		lastAllocated = -1;
+		lastCollections = getCollections();
+		lastCollectionTime = getCollectionTime();
+		writer = null;
+	}//end of (int,float) constructor
+
+	//---------------------instance methods----------------------------
+	//GETTERS
+	/**
+	 * Returns the number of hitches seen.
+	 *
+	 * @return the hitch count.
+	 */
+	public long getHitchCount(){
+		return hitches;
+	}//end of getHitchCount method
+
+	/**
+	 * Returns the number of hitches not dumped because a dump was being
+	 * written.
+	 *
+	 * @return the skipped count.
+	 */
+	public long getSkippedCount(){
+		return skipped;
+	}//end of getSkippedCount method
+
+	//SETTERS
+	/**
+	 * Sets the shortest frame counted as a hitch.
+	 *
+	 * @param thresholdMillis the threshold, in milliseconds.
+	 */
+	public void setThreshold(float thresholdMillis){
+		threshold = (long)(thresholdMillis * NANOS_PER_MILLI);
+	}//end of setThreshold method
+
+	/**
+	 * Sets the folder dumps are written to.
+	 *
+	 * @param folder the folder.
+	 */
+	public void setFolder(File folder){
+		this.folder = folder;
+	}//end of setFolder method
+
+	/**
+	 * Sets the scenario whose fish are dumped. Should be called on the
+	 * thread stepping the simulation.
+	 *
+	 * @param scenario the scenario, may be null.
+	 */
+	public void setScenario(Scenario scenario){
+		this.scenario = scenario;
+	}//end of setScenario method
+
+	//OPERATIONS
+	/**
+	 * Stores the frame that is ending, and dumps the stored frames if it
+	 * was a hitch.
+	 *
+	 * @param profiler the profiler.
+	 */
+	@Override
+	public void frameEnded(FrameProfiler profiler){
+		int slot = head;
+		for(FrameProfiler.PHASE phase : FrameProfiler.PHASE.values()){
+			phaseTimes[slot][phase.ordinal()] = profiler.getFrameTime(phase);
+		}
+		frames[slot] = frameCount++;
+		if(scenario != null){
+			simulationTimes[slot] = scenario.getContext().getTime();
+			fishCounts[slot] = scenario.getFishCount();
+			objectCounts[slot] = scenario.getEnvironmentObjectCount();
+		}
+		long allocated = allocationCounter.getAllocatedBytes();
+		allocations[slot] = (allocated >= 0 && lastAllocated >= 0) ? allocated - lastAllocated : -1;
+		lastAllocated = allocated;
+		long gcCount = getCollections();
+		long gcTime = getCollectionTime();
+		collections[slot] = gcCount - lastCollections;
+		collectionTimes[slot] = gcTime - lastCollectionTime;
+		lastCollections = gcCount;
+		lastCollectionTime = gcTime;
+		head = (head + 1) % history;
+		if(count < history){
+			count++;
+		}
+		long frameTime = phaseTimes[slot][FrameProfiler.PHASE.FRAME.ordinal()];
+		if(frameTime >= threshold && threshold > 0){
+			hitches++;
+			if(writing.compareAndSet(false, true)){
+				dump(frameTime);
+			}
+			else{
+				skipped++;
+			}
+		}
+	}//end of frameEnded method
+
+	/**
+	 * Stops the background thread once any dump being written is finished.
+	 */
+	public void shutdown(){
+		if(writer != null){
+			writer.shutdown();
+			writer = null;
+		}
+	}//end of shutdown method
+
+	/**
+	 * Copies the stored frames and the state of every fish, and writes them
+	 * to a file on the background thread.
+	 *
+	 * @param frameTime the length of the hitch, in nanoseconds.
+	 */
+	private void dump(final long frameTime){
+		final int n = count;
+		final long[][] dumpPhases = new long[n][];
+		final long[] dumpFrames = new long[n];
+		final double[] dumpTimes = new double[n];
+		final int[] dumpFish = new int[n];
+		final int[] dumpObjects = new int[n];
+		final long[] dumpAllocations = new long[n];
+		final long[] dumpCollections = new long[n];
+		final long[] dumpCollectionTimes = new long[n];
+		for(int i=0; i<n; i++){
+			int slot = (head - n + i + history) % history;//oldest first
+			dumpPhases[i] = phaseTimes[slot].clone();
+			dumpFrames[i] = frames[slot];
+			dumpTimes[i] = simulationTimes[slot];
+			dumpFish[i] = fishCounts[slot];
+			dumpObjects[i] = objectCounts[slot];
+			dumpAllocations[i] = allocations[slot];
+			dumpCollections[i] = collections[slot];
+			dumpCollectionTimes[i] = collectionTimes[slot];
+		}
+		final String name = (scenario != null) ? scenario.getName() : "";
+		final String[] fish = snapshotFish();
+		final File file = new File(folder, "hitch-" + new SimpleDateFormat("yyyyMMdd-HHmmss-SSS").format(new Date()) + ".txt");
+		if(writer == null){
+			writer = Executors.newSingleThreadExecutor(new ThreadFactory(){
+				@Override
+				public Thread newThread(Runnable r){
+					Thread returnValue = new Thread(r, "hitch-writer");
+					returnValue.setDaemon(true);
+					return returnValue;
+				}//end of newThread method
+			});
+		}
+		writer.execute(new Runnable(){
+			@Override
+			public void run(){
+				try{
+					write(file, name, frameTime, dumpPhases, dumpFrames, dumpTimes, dumpFish, dumpObjects,
+							dumpAllocations, dumpCollections, dumpCollectionTimes, fish);
+				}
+				finally{
+					writing.set(false);
+				}
+			}//end of run method
+		});
+	}//end of dump method
+
+	/**
+	 * Returns the current state of every fish in the scenario, one line of
+	 * comma separated values each.
+	 *
+	 * @return the lines.
+	 */
+	private String[] snapshotFish(){
+		String[] returnValue = new String[0];
+		if(scenario != null){
+			EntityView<Fish> view = scenario.getFishView();
+			returnValue = new String[view.size()];
+			for(int i=0; i<view.size(); i++){
+				Fish fish = view.get(i);
+				Vector3f loc = fish.getObj().getWorldTranslation();
+				Fish target = fish.getTargetFish();
+				returnValue[i] = fish.getID() + "," + fish.getClass().getSimpleName() + "," + fish.getBehavior() + ","
+						+ loc.x + "," + loc.y + "," + loc.z + ","
+						+ ((target != null && target != fish) ? String.valueOf(target.getID()) : "") + ","
+						+ fish.getSpeed();
+			}
+		}
+		return returnValue;
+	}//end of snapshotFish method
+
+	/**
+	 * Writes a dump to the specified file.
+	 *
+	 * @param file the file.
+	 * @param name the name of the scenario.
+	 * @param frameTime the length of the hitch, in nanoseconds.
+	 * @param phases the time spent in each phase of each frame.
+	 * @param frameNumbers the number of each frame.
+	 * @param times the simulation time of each frame.
+	 * @param fishCounts the number of fish in each frame.
+	 * @param objectCounts the number of environment objects in each frame.
+	 * @param allocated the bytes allocated in each frame.
+	 * @param gcCounts the garbage collections in each frame.
+	 * @param gcTimes the time spent in garbage collection in each frame.
+	 * @param fish the state of each fish.
+	 */
+	private void write(File file, String name, long frameTime, long[][] phases, long[] frameNumbers, double[] times,
+			int[] fishCounts, int[] objectCounts, long[] allocated, long[] gcCounts, long[] gcTimes, String[] fish){
+		file.getParentFile().mkdirs();
+		PrintWriter out = null;
+		try{
+			out = new PrintWriter(new BufferedWriter(new FileWriter(file)));
+			out.println("# hitch of " + millis(frameTime) + " ms (threshold " + millis(threshold) + " ms)");
+			out.println("# scenario: " + name);
+			out.println("[frames]");
+			out.print("frame,simulation_time");
+			for(FrameProfiler.PHASE phase : FrameProfiler.PHASE.values()){
+				out.print("," + phase.LABEL + "_ms");
+			}
+			out.println(",fish,objects,allocated_bytes,gc_count,gc_ms");
+			for(int i=0; i<phases.length; i++){
+				out.print(frameNumbers[i] + "," + String.format(Locale.ROOT, "%.3f", times[i]));
+				for(int j=0; j<phases[i].length; j++){
+					out.print("," + millis(phases[i][j]));
+				}
+				out.println("," + fishCounts[i] + "," + objectCounts[i] + "," + allocated[i] + "," + gcCounts[i] + "," + gcTimes[i]);
+			}
+			out.println("[fish]");
+			out.println("id,type,behavior,x,y,z,target,speed");
+			for(int i=0; i<fish.length; i++){
+				out.println(fish[i]);
+			}
+			System.out.println("Hitch of " + millis(frameTime) + " ms dumped to " + file.getPath());
+		}
+		catch(IOException ex){
+			ex.printStackTrace();
+		}
+		finally{
+			if(out != null){
+				out.close();
+			}
+		}
+	}//end of write method
+
+	/**
+	 * Returns the number of garbage collections so far, over all collectors.
+	 *
+	 * @return the collection count.
+	 */
+	private long getCollections(){
+		long returnValue = 0;
+		for(int i=0; i<collectors.size(); i++){
+			returnValue += Math.max(0, collectors.get(i).getCollectionCount());
+		}
+		return returnValue;
+	}//end of getCollections method
+
+	/**
+	 * Returns the time spent in garbage collection so far, over all collectors.
+	 *
+	 * @return the collection time, in milliseconds.
+	 */
+	private long getCollectionTime(){
+		long returnValue = 0;
+		for(int i=0; i<collectors.size(); i++){
+			returnValue += Math.max(0, collectors.get(i).getCollectionTime());
+		}
+		return returnValue;
+	}//end of getCollectionTime method
+
+	//---------------------static main---------------------------------
+	//---------------------static methods------------------------------
+	/**
+	 * Returns the specified time in milliseconds, to three decimal places.
+	 *
+	 * @param nanos the time, in nanoseconds.
+	 * @return the time, in milliseconds.
+	 */
+	private static String millis(long nanos){
+		return String.format(Locale.ROOT, "%.3f", nanos / NANOS_PER_MILLI);
+	}//end of millis method
+
+}//end of HitchDetector class
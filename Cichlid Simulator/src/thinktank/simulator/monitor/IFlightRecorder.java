@@ -0,0 +1,65 @@
+package thinktank.simulator.monitor;
+
+/**
+ * The flight recorder events of the simulator, as seen by
+ * <code>MonitorEvents</code>. The implementation uses the flight recorder
+ * API of Java 11 and later, so it is kept in the separate
+ * <code>src-jfr</code> source folder and loaded by name; the rest of the
+ * simulator builds and runs without it.
+ *
+ * @author Vasher Lor
+ * @version %I%, %G%
+ */
+interface IFlightRecorder{
+
+	/**
+	 * Starts tracking the recordings, reporting to
+	 * <code>MonitorEvents</code> whether any is running.
+	 *
+	 * @return true if the JVM has a usable flight recorder, false otherwise.
+	 */
+	public boolean install();
+
+	/**
+	 * Commits a behavior transition event.
+	 *
+	 * @param cichlidID the id of the cichlid.
+	 * @param from the old behavior.
+	 * @param to the new behavior.
+	 * @param simulationTime the simulation time, in seconds.
+	 */
+	public void behaviorTransition(long cichlidID, String from, String to, double simulationTime);
+
+	/**
+	 * Commits a slow visibility query event.
+	 *
+	 * @param viewerID the id of the viewer.
+	 * @param targetID the id of the target.
+	 * @param mode the visibility method.
+	 * @param visibility the visibility found.
+	 * @param elapsed the time taken, in nanoseconds.
+	 */
+	public void visibilityQuery(long viewerID, long targetID, String mode, int visibility, long elapsed);
+
+	/**
+	 * Commits a scenario load or save event.
+	 *
+	 * @param operation the operation.
+	 * @param path the path of the file.
+	 * @param fishCount the number of fish.
+	 * @param success whether or not the operation succeeded.
+	 * @param elapsed the time taken, in nanoseconds.
+	 */
+	public void scenarioIO(String operation, String path, int fishCount, boolean success, long elapsed);
+
+	/**
+	 * Commits a slow tick event.
+	 *
+	 * @param scenario the name of the scenario.
+	 * @param fishCount the number of fish.
+	 * @param simulationTime the simulation time, in seconds.
+	 * @param elapsed the time taken, in nanoseconds.
+	 */
+	public void slowTick(String scenario, int fishCount, double simulationTime, long elapsed);
+
+}//end of IFlightRecorder interface
@@ -0,0 +1,91 @@
+package thinktank.simulator.monitor;
+
+import java.util.Map;
+
+import javax.management.MXBean;
+
+/**
+ * Management interface for watching a running simulation over JMX, such as
+ * from JConsole or JDK Mission Control. The values are rates and counts
+ * over the last sampling period of the <code>SimulationMonitor</code>.
+ *
+ * @author Vasher Lor
+ * @version %I%, %G%
+ */
+@MXBean
+public interface ISimulationMonitor{
+
+	/**
+	 * Returns the number of simulation ticks per second of wall time.
+	 *
+	 * @return the tick rate.
+	 */
+	public double getTickRate();
+
+	/**
+	 * Returns the simulation time elapsed per second of wall time; below 1
+	 * the simulation runs slower than real time.
+	 *
+	 * @return the ratio of simulation time to wall time.
+	 */
+	public double getTimeRatio();
+
+	/**
+	 * Returns the current simulation time.
+	 *
+	 * @return the simulation time, in seconds.
+	 */
+	public double getSimulationTime();
+
+	/**
+	 * Returns the number of fish in the scenario.
+	 *
+	 * @return the fish count.
+	 */
+	public int getFishCount();
+
+	/**
+	 * Returns the number of cichlids in each behavior.
+	 *
+	 * @return the counts, by behavior name.
+	 */
+	public Map<String, Integer> getBehaviorDistribution();
+
+	/**
+	 * Returns the number of visibility rays fired per second of wall time.
+	 *
+	 * @return the raycast rate.
+	 */
+	public double getRaycastsPerSecond();
+
+	/**
+	 * Returns the fraction of pairs of fish whose aggression was reused from
+	 * the aggression kernel's cache rather than recomputed.
+	 *
+	 * @return the hit rate, from 0 to 1.
+	 */
+	public double getRelationshipCacheHitRate();
+
+	/**
+	 * Returns the number of bytes allocated per second by the thread
+	 * stepping the simulation.
+	 *
+	 * @return the allocation rate, -1 if the JVM cannot measure it.
+	 */
+	public double getAllocationRate();
+
+	/**
+	 * Returns the number of scenario edits waiting to be applied.
+	 *
+	 * @return the command backlog.
+	 */
+	public int getCommandBacklog();
+
+	/**
+	 * Returns the number of samples taken since the monitor was created.
+	 *
+	 * @return the sample count.
+	 */
+	public long getSampleCount();
+
+}//end of ISimulationMonitor interface
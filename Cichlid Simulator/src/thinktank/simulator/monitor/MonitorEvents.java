@@ -0,0 +1,206 @@
+package thinktank.simulator.monitor;
+
+import com.jme3.system.AppSettings;
+
+import thinktank.simulator.entity.Entity;
+import thinktank.simulator.entity.Fish.BEHAVIOR;
+import thinktank.simulator.util.DEFAULT_SETTINGS;
+
+/**
+ * Emits the simulator's flight recorder events, so JDK Mission Control can
+ * show them alongside garbage collection and compilation: behavior
+ * transitions, visibility queries and ticks slower than their thresholds,
+ * and scenario loads and saves.
+ *
+ * The flight recorder API is only touched when the JVM provides it, through
+ * the <code>IFlightRecorder</code> built from the <code>src-jfr</code>
+ * source folder and loaded by name, so the simulator still builds at its
+ * Java level and runs on JVMs without it. That folder is not part of the
+ * Eclipse build; <code>build-jfr.sh</code> or <code>build-jfr.bat</code>
+ * compiles it into the output folder. Until it has, no events are
+ * recorded. Timed events start from
+ * <code>begin()</code>, which only reads the clock while a recording is
+ * running, so the cost is one field read while none is.
+ *
+ * @author Vasher Lor
+ * @version %I%, %G%
+ */
+public class MonitorEvents{
+	//---------------------static constants----------------------------
+	/**
+	 * Constant value for the number of nanoseconds in a millisecond.
+	 */
+	private static final long NANOS_PER_MILLI = 1000000;
+	/**
+	 * Constant value for the name of the class recording the events.
+	 */
+	private static final String RECORDER_CLASS = "thinktank.simulator.monitor.JFRSupport";
+	/**
+	 * The recorder of the events, null if the JVM has no usable flight
+	 * recorder or the simulator was built without one.
+	 */
+	private static final IFlightRecorder RECORDER;
+
+	//---------------------static variables----------------------------
+	/**
+	 * Whether or not a flight recording is running.
+	 */
+	private static volatile boolean recording = false;
+	/**
+	 * The shortest tick reported as slow, in nanoseconds.
+	 */
+	private static volatile long slowTickThreshold =
+			(long)((float)DEFAULT_SETTINGS.SLOW_TICK_THRESHOLD.VALUE * NANOS_PER_MILLI);
+	/**
+	 * The shortest visibility query reported as slow, in nanoseconds.
+	 */
+	private static volatile long visibilityThreshold =
+			(long)((float)DEFAULT_SETTINGS.VISIBILITY_EVENT_THRESHOLD.VALUE * NANOS_PER_MILLI);
+
+	static{
+		IFlightRecorder recorder = null;
+		try{
+			Class.forName("jdk.jfr.FlightRecorder");
+			IFlightRecorder support = (IFlightRecorder)Class.forName(RECORDER_CLASS).getDeclaredConstructor().newInstance();
+			if(support.install()){
+				recorder = support;
+			}
+		}
+		catch(ReflectiveOperationException ex){
+			//no flight recorder on this JVM, or none built
+		}
+		catch(LinkageError ex){
+			//no flight recorder on this JVM
+		}
+		RECORDER = recorder;
+	}
+
+	//---------------------instance constants--------------------------
+	//---------------------instance variables--------------------------
+	//---------------------constructors--------------------------------
+	/**
+	 * Provides only static methods.
+	 */
+	private MonitorEvents(){}
+
+	//---------------------instance methods----------------------------
+	//---------------------static main---------------------------------
+	//---------------------static methods------------------------------
+	//GETTERS
+	/**
+	 * Returns whether or not the JVM has a usable flight recorder.
+	 *
+	 * @return true if events can be recorded, false otherwise.
+	 */
+	public static boolean isAvailable(){
+		return RECORDER != null;
+	}//end of isAvailable method
+
+	/**
+	 * Returns whether or not a flight recording is running, and so whether
+	 * or not events should be measured.
+	 *
+	 * @return true if a recording is running, false otherwise.
+	 */
+	public static boolean isRecording(){
+		return recording;
+	}//end of isRecording method
+
+	//SETTERS
+	/**
+	 * Sets whether or not a flight recording is running.
+	 *
+	 * @param recording true if a recording is running, false otherwise.
+	 */
+	static void setRecording(boolean recording){
+		MonitorEvents.recording = recording;
+	}//end of setRecording method
+
+	/**
+	 * Applies the event thresholds from the specified application settings.
+	 * The thresholds are shared by every simulation in the process.
+	 *
+	 * @param settings the settings.
+	 */
+	public static void configure(AppSettings settings){
+		slowTickThreshold = (long)(settings.getFloat(DEFAULT_SETTINGS.SLOW_TICK_THRESHOLD.NAME) * NANOS_PER_MILLI);
+		visibilityThreshold = (long)(settings.getFloat(DEFAULT_SETTINGS.VISIBILITY_EVENT_THRESHOLD.NAME) * NANOS_PER_MILLI);
+	}//end of configure method
+
+	//OPERATIONS
+	/**
+	 * Starts timing an event.
+	 *
+	 * @return the start time, to be passed to the event; 0 if no recording
+	 * is running.
+	 */
+	public static long begin(){
+		return recording ? System.nanoTime() : 0;
+	}//end of begin method
+
+	/**
+	 * Records a cichlid changing its behavior.
+	 *
+	 * @param cichlid the cichlid.
+	 * @param from the old behavior.
+	 * @param to the new behavior.
+	 * @param simulationTime the simulation time, in seconds.
+	 */
+	public static void behaviorTransition(Entity cichlid, BEHAVIOR from, BEHAVIOR to, double simulationTime){
+		if(recording){
+			RECORDER.behaviorTransition(cichlid.getID(), String.valueOf(from), String.valueOf(to), simulationTime);
+		}
+	}//end of behaviorTransition method
+
+	/**
+	 * Records a visibility query, if it took at least the visibility event
+	 * threshold.
+	 *
+	 * @param viewer the viewing entity.
+	 * @param target the entity viewed.
+	 * @param mode the name of the visibility method.
+	 * @param visibility the visibility found.
+	 * @param start the start time returned by <code>begin()</code>.
+	 */
+	public static void visibilityQuery(Entity viewer, Entity target, String mode, int visibility, long start){
+		if(recording && start != 0){
+			long elapsed = System.nanoTime() - start;
+			if(elapsed >= visibilityThreshold){
+				RECORDER.visibilityQuery(viewer.getID(), target.getID(), mode, visibility, elapsed);
+			}
+		}
+	}//end of visibilityQuery method
+
+	/**
+	 * Records a scenario being loaded or saved.
+	 *
+	 * @param operation the operation, either "load" or "save".
+	 * @param path the path of the file.
+	 * @param fishCount the number of fish, -1 if the scenario did not load.
+	 * @param success whether or not the operation succeeded.
+	 * @param start the start time returned by <code>begin()</code>.
+	 */
+	public static void scenarioIO(String operation, String path, int fishCount, boolean success, long start){
+		if(recording && start != 0){
+			RECORDER.scenarioIO(operation, path, fishCount, success, System.nanoTime() - start);
+		}
+	}//end of scenarioIO method
+
+	/**
+	 * Records a simulation tick, if it took at least the slow tick threshold.
+	 *
+	 * @param scenario the name of the scenario.
+	 * @param fishCount the number of fish.
+	 * @param simulationTime the simulation time at the end of the tick, in seconds.
+	 * @param start the start time returned by <code>begin()</code>.
+	 */
+	public static void tick(String scenario, int fishCount, double simulationTime, long start){
+		if(recording && start != 0){
+			long elapsed = System.nanoTime() - start;
+			if(elapsed >= slowTickThreshold){
+				RECORDER.slowTick(scenario, fishCount, simulationTime, elapsed);
+			}
+		}
+	}//end of tick method
+
+}//end of MonitorEvents class
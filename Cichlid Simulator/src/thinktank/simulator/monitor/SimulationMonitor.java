@@ -0,0 +1,362 @@
+package thinktank.simulator.monitor;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import thinktank.simulator.behavior.AggressionKernel;
+import thinktank.simulator.entity.Cichlid;
+import thinktank.simulator.entity.Fish;
+import thinktank.simulator.entity.Fish.BEHAVIOR;
+import thinktank.simulator.main.SimulationContext;
+import thinktank.simulator.scenario.EntityView;
+import thinktank.simulator.scenario.ScenarioCommandQueue;
+
+/**
+ * Samples a running simulation for JMX. The simulation thread calls
+ * <code>sample()</code> after every tick; once per sampling period, the
+ * monitor reads the simulation's counters and publishes the rates and
+ * counts over that period, which the JMX getters then return from any
+ * thread. Between samples, <code>sample()</code> only counts the tick.
+ *
+ * @author Vasher Lor
+ * @version %I%, %G%
+ */
+public class SimulationMonitor implements ISimulationMonitor{
+	//---------------------static constants----------------------------
+	/**
+	 * Constant value for the domain of the monitors' JMX names.
+	 */
+	public static final String DOMAIN = "thinktank.simulator";
+	/**
+	 * Constant value for the default sampling period, in nanoseconds.
+	 */
+	public static final long DEFAULT_PERIOD = 1000000000L;
+
+	//---------------------static variables----------------------------
+	//---------------------instance constants--------------------------
+	/**
+	 * The number of cichlids in each behavior, counted during a sample.
+	 */
+	private final int[] behaviorCounts;
+
+	//---------------------instance variables--------------------------
+	/**
+	 * The sampling period, in nanoseconds.
+	 */
+	private long period;
+	/**
+	 * The queue of scenario edits whose backlog is reported, may be null.
+	 */
+	private ScenarioCommandQueue commandQueue;
+	/**
+	 * The name the monitor is registered under, null if it is not registered.
+	 */
+	private ObjectName objectName;
+	/**
+	 * The wall time of the last sample, 0 before the first.
+	 */
+	private long lastSample;
+	/**
+	 * The number of ticks since the last sample.
+	 */
+	private long ticks;
+	/**
+	 * The simulation time at the last sample.
+	 */
+	private double lastSimulationTime;
+	/**
+	 * The number of rays fired at the last sample.
+	 */
+	private long lastRays;
+	/**
+	 * The number of pairs computed at the last sample.
+	 */
+	private long lastPairsComputed;
+	/**
+	 * The number of pairs reused at the last sample.
+	 */
+	private long lastPairsReused;
+	/**
+	 * The counter of the bytes allocated by the thread taking the samples.
+	 */
+	private AllocationCounter allocationCounter;
+	/**
+	 * The bytes allocated by that thread at the last sample, -1 if unknown.
+	 */
+	private long lastAllocated;
+	/**
+	 * The published tick rate.
+	 */
+	private volatile double tickRate;
+	/**
+	 * The published ratio of simulation time to wall time.
+	 */
+	private volatile double timeRatio;
+	/**
+	 * The published simulation time.
+	 */
+	private volatile double simulationTime;
+	/**
+	 * The published fish count.
+	 */
+	private volatile int fishCount;
+	/**
+	 * The published behavior distribution.
+	 */
+	private volatile Map<String, Integer> behaviorDistribution;
+	/**
+	 * The published raycast rate.
+	 */
+	private volatile double raycastsPerSecond;
+	/**
+	 * The published relationship cache hit rate.
+	 */
+	private volatile double cacheHitRate;
+	/**
+	 * The published allocation rate.
+	 */
+	private volatile double allocationRate;
+	/**
+	 * The published command backlog.
+	 */
+	private volatile int commandBacklog;
+	/**
+	 * The number of samples taken.
+	 */
+	private volatile long sampleCount;
+
+	//---------------------constructors--------------------------------
+	/**
+	 * Constructs a new monitor with the default sampling period.
+	 */
+	public SimulationMonitor(){
+		behaviorCounts = new int[BEHAVIOR.values().length];
+		period = DEFAULT_PERIOD;
+		commandQueue = null;
+		objectName = null;
+		lastSample = 0;
+		ticks = 0;
+		lastSimulationTime = 0;
+		lastRays = 0;
+		lastPairsComputed = 0;
+		lastPairsReused = 0;
+		allocationCounter = new AllocationCounter();
+		lastAllocated = -1;
+		tickRate = 0;
+		timeRatio = 0;
+		simulationTime = 0;
+		fishCount = 0;
+		behaviorDistribution = Collections.emptyMap();
+		raycastsPerSecond = 0;
+		cacheHitRate = 0;
+		allocationRate = -1;
+		commandBacklog = 0;
+		sampleCount = 0;
+	}//end of default constructor
+
+	//---------------------instance methods----------------------------
+	//GETTERS
+	@Override
+	public double getTickRate(){
+		return tickRate;
+	}//end of getTickRate method
+
+	@Override
+	public double getTimeRatio(){
+		return timeRatio;
+	}//end of getTimeRatio method
+
+	@Override
+	public double getSimulationTime(){
+		return simulationTime;
+	}//end of getSimulationTime method
+
+	@Override
+	public int getFishCount(){
+		return fishCount;
+	}//end of getFishCount method
+
+	@Override
+	public Map<String, Integer> getBehaviorDistribution(){
+		return behaviorDistribution;
+	}//end of getBehaviorDistribution method
+
+	@Override
+	public double getRaycastsPerSecond(){
+		return raycastsPerSecond;
+	}//end of getRaycastsPerSecond method
+
+	@Override
+	public double getRelationshipCacheHitRate(){
+		return cacheHitRate;
+	}//end of getRelationshipCacheHitRate method
+
+	@Override
+	public double getAllocationRate(){
+		return allocationRate;
+	}//end of getAllocationRate method
+
+	@Override
+	public int getCommandBacklog(){
+		return commandBacklog;
+	}//end of getCommandBacklog method
+
+	@Override
+	public long getSampleCount(){
+		return sampleCount;
+	}//end of getSampleCount method
+
+	/**
+	 * Returns whether or not the monitor is registered with JMX.
+	 *
+	 * @return true if registered, false otherwise.
+	 */
+	public boolean isRegistered(){
+		return objectName != null;
+	}//end of isRegistered method
+
+	//SETTERS
+	/**
+	 * Sets the sampling period.
+	 *
+	 * @param millis the period, in milliseconds, at least 1.
+	 */
+	public void setPeriod(long millis){
+		period = Math.max(1, millis) * 1000000L;
+	}//end of setPeriod method
+
+	/**
+	 * Sets the queue of scenario edits whose backlog is reported.
+	 *
+	 * @param commandQueue the queue, may be null.
+	 */
+	public void setCommandQueue(ScenarioCommandQueue commandQueue){
+		this.commandQueue = commandQueue;
+	}//end of setCommandQueue method
+
+	//OPERATIONS
+	/**
+	 * Registers the monitor with the platform MBean server under the
+	 * specified name, replacing any monitor registered under that name.
+	 *
+	 * @param name the name of the simulation.
+	 * @return true if the monitor was registered, false otherwise.
+	 */
+	public boolean register(String name){
+		boolean returnValue = false;
+		unregister();
+		try{
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName candidate = new ObjectName(DOMAIN + ":type=SimulationMonitor,name=" + ObjectName.quote(name));
+			if(server.isRegistered(candidate)){
+				server.unregisterMBean(candidate);
+			}
+			server.registerMBean(this, candidate);
+			objectName = candidate;
+			returnValue = true;
+		}
+		catch(JMException ex){
+			ex.printStackTrace();
+		}
+		return returnValue;
+	}//end of register method
+
+	/**
+	 * Unregisters the monitor from the platform MBean server, if it is
+	 * registered.
+	 */
+	public void unregister(){
+		if(objectName != null){
+			try{
+				ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+			}
+			catch(JMException ex){
+				ex.printStackTrace();
+			}
+			objectName = null;
+		}
+	}//end of unregister method
+
+	/**
+	 * Counts a tick of the specified simulation, and publishes new values
+	 * if the sampling period has passed. Should be called by the thread
+	 * stepping the simulation, after each tick.
+	 *
+	 * @param context the simulation.
+	 */
+	public void sample(SimulationContext context){
+		ticks++;
+		long now = System.nanoTime();
+		if(lastSample == 0){
+			reset(context, now);
+		}
+		else if(now - lastSample >= period){
+			double seconds = (now - lastSample) / 1e9;
+			double time = context.getTime();
+			long rays = context.getVisibilitySampler().getRays();
+			AggressionKernel kernel = context.getAggressionKernel();
+			long computed = kernel.getPairsComputed() - lastPairsComputed;
+			long reused = kernel.getPairsReused() - lastPairsReused;
+			long allocated = allocationCounter.getAllocatedBytes();
+			tickRate = ticks / seconds;
+			timeRatio = (time - lastSimulationTime) / seconds;
+			simulationTime = time;
+			raycastsPerSecond = Math.max(0, rays - lastRays) / seconds;
+			cacheHitRate = (computed + reused > 0) ? (double)reused / (computed + reused) : 0;
+			allocationRate = (allocated >= 0 && lastAllocated >= 0) ? (allocated - lastAllocated) / seconds : -1;
+			commandBacklog = (commandQueue != null) ? commandQueue.getPendingCount() : 0;
+			countBehaviors(context);
+			sampleCount++;
+			reset(context, now);
+		}
+	}//end of sample method
+
+	/**
+	 * Starts a new sampling period at the specified time.
+	 *
+	 * @param context the simulation.
+	 * @param now the wall time.
+	 */
+	private void reset(SimulationContext context, long now){
+		lastSample = now;
+		ticks = 0;
+		lastSimulationTime = context.getTime();
+		lastRays = context.getVisibilitySampler().getRays();
+		lastPairsComputed = context.getAggressionKernel().getPairsComputed();
+		lastPairsReused = context.getAggressionKernel().getPairsReused();
+		lastAllocated = allocationCounter.getAllocatedBytes();
+	}//end of reset method
+
+	/**
+	 * Counts the fish, and the cichlids in each behavior, and publishes the
+	 * counts.
+	 *
+	 * @param context the simulation.
+	 */
+	private void countBehaviors(SimulationContext context){
+		EntityView<Fish> view = context.getScenario().getFishView();
+		for(int i=0; i<behaviorCounts.length; i++){
+			behaviorCounts[i] = 0;
+		}
+		for(int i=0; i<view.size(); i++){
+			if(view.get(i) instanceof Cichlid && view.get(i).getBehavior() != null){
+				behaviorCounts[view.get(i).getBehavior().ordinal()]++;
+			}
+		}
+		Map<String, Integer> distribution = new LinkedHashMap<String, Integer>();
+		for(BEHAVIOR behavior : BEHAVIOR.values()){
+			distribution.put(behavior.name(), behaviorCounts[behavior.ordinal()]);
+		}
+		fishCount = view.size();
+		behaviorDistribution = Collections.unmodifiableMap(distribution);
+	}//end of countBehaviors method
+
+	//---------------------static main---------------------------------
+	//---------------------static methods------------------------------
+}//end of SimulationMonitor class
@@ -0,0 +1,467 @@
+package thinktank.simulator.scenario;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import thinktank.simulator.entity.Fish;
+
+/**
+ * Occupancy map over the cells of a <code>Grid</code> counting, for every
+ * cell, the ticks the fish have spent in it, both over all fish and for each
+ * fish on its own. Recording a fish for a tick costs one cell lookup and two
+ * increments.
+ *
+ * The counts of each fish are kept in a row indexed by the fish's handle in
+ * the scenario's registry. A row takes one counter per cell and is made the
+ * first time the fish is recorded. If a fish is removed and its handle
+ * handed to a new fish, the removed fish's row is retired under its id and
+ * the new fish gets a fresh row, so the exports still hold the time of
+ * every fish that was in the run. A retired fish that is recorded again
+ * takes its row back.
+ *
+ * @author Vasher Lor
+ * @version %I%, %G%
+ */
+public class DwellMap{
+	//---------------------static constants----------------------------
+	/**
+	 * Constant value identifying the binary export format.
+	 */
+	public static final int MAGIC = 0x4457454C;//"DWEL"
+	/**
+	 * Constant value for the version of the binary export format.
+	 */
+	public static final int VERSION = 1;
+	/**
+	 * Constant value for a row that belongs to no fish.
+	 */
+	private static final long NO_FISH = Long.MIN_VALUE;
+
+	//---------------------static variables----------------------------
+	//---------------------instance constants--------------------------
+	/**
+	 * The grid the map is kept over.
+	 */
+	private final Grid grid;
+	/**
+	 * The ticks spent in each cell, over all fish.
+	 */
+	private final int[] totals;
+	/**
+	 * The rows of the fish whose handles were handed to other fish, by the
+	 * id of the fish, in the order they were retired.
+	 */
+	private final LinkedHashMap<Long,int[]> retired;
+
+	//---------------------instance variables--------------------------
+	/**
+	 * The ticks each fish spent in each cell, indexed by handle and then
+	 * cell; null for handles not yet recorded.
+	 */
+	private int[][] rows;
+	/**
+	 * The id of the fish each row belongs to.
+	 */
+	private long[] rowIDs;
+	/**
+	 * The number of ticks recorded.
+	 */
+	private int ticks;
+	/**
+	 * The simulation time recorded, in seconds.
+	 */
+	private double seconds;
+	/**
+	 * Value incremented every time the counts change, so that views of the
+	 * map can tell when to refresh.
+	 */
+	private int epoch;
+
+	//---------------------constructors--------------------------------
+	/**
+	 * Constructs a new, empty map over the specified grid.
+	 *
+	 * @param grid the grid.
+	 */
+	public DwellMap(Grid grid){
+		this.grid = grid;
+		totals = new int[grid.getCellCount()];
+		rows = new int[16][];
+		rowIDs = new long[rows.length];
+		Arrays.fill(rowIDs, NO_FISH);
+		retired = new LinkedHashMap<Long,int[]>();
+		ticks = 0;
+		seconds = 0;
+		epoch = 0;
+	}//end of (Grid) constructor
+
+	//---------------------instance methods----------------------------
+	//GETTERS
+	/**
+	 * Returns the grid the map is kept over.
+	 *
+	 * @return the grid.
+	 */
+	public Grid getGrid(){
+		return grid;
+	}//end of getGrid method
+
+	/**
+	 * Returns the ticks spent in the specified cell, over all fish.
+	 *
+	 * @param cell the cell index.
+	 * @return the number of ticks.
+	 */
+	public int getTotal(int cell){
+		return totals[cell];
+	}//end of getTotal method
+
+	/**
+	 * Returns the ticks the specified fish spent in the specified cell.
+	 *
+	 * @param fish the fish.
+	 * @param cell the cell index.
+	 * @return the number of ticks, 0 if the fish has not been recorded.
+	 */
+	public int getDwell(Fish fish, int cell){
+		int returnValue = 0;
+		int handle = fish.getHandle();
+		if(handle >= 0 && handle < rows.length && rowIDs[handle] == fish.getID()){
+			returnValue = rows[handle][cell];
+		}
+		return returnValue;
+	}//end of getDwell method
+
+	/**
+	 * Returns the number of ticks recorded.
+	 *
+	 * @return the number of ticks.
+	 */
+	public int getTicks(){
+		return ticks;
+	}//end of getTicks method
+
+	/**
+	 * Returns the simulation time recorded.
+	 *
+	 * @return the time, in seconds.
+	 */
+	public double getSeconds(){
+		return seconds;
+	}//end of getSeconds method
+
+	/**
+	 * Returns a value that changes every time the counts change.
+	 *
+	 * @return the epoch.
+	 */
+	public int getEpoch(){
+		return epoch;
+	}//end of getEpoch method
+
+	//OPERATIONS
+	/**
+	 * Counts one tick for the specified fish in the cell it is in. Does
+	 * nothing for a fish that is not in a scenario.
+	 *
+	 * @param fish the fish.
+	 */
+	public void record(Fish fish){
+		int handle = fish.getHandle();
+		if(handle >= 0){
+			int cell = grid.toCell(fish.getObj().getWorldTranslation());
+			totals[cell]++;
+			if(handle >= rows.length || rowIDs[handle] != fish.getID()){
+				claimRow(handle, fish.getID());
+			}
+			rows[handle][cell]++;
+		}
+	}//end of record method
+
+	/**
+	 * Ends a tick, once every fish has been recorded.
+	 *
+	 * @param tpf the simulation time of the tick, in seconds.
+	 */
+	public void endTick(float tpf){
+		ticks++;
+		seconds += tpf;
+		epoch++;
+	}//end of endTick method
+
+	/**
+	 * Clears every count.
+	 */
+	public void reset(){
+		Arrays.fill(totals, 0);
+		for(int i=0; i<rows.length; i++){
+			rows[i] = null;
+		}
+		Arrays.fill(rowIDs, NO_FISH);
+		retired.clear();
+		ticks = 0;
+		seconds = 0;
+		epoch++;
+	}//end of reset method
+
+	/**
+	 * Adds the ticks in each column of cells, along the Y-axis, into the
+	 * specified array, indexed by <code>x * size + z</code>.
+	 *
+	 * @param fish the fish whose ticks are added, null for all fish.
+	 * @param store the array, of at least size * size values.
+	 * @return the largest value in the array.
+	 */
+	public int project(Fish fish, int[] store){
+		int returnValue = 0;
+		int[] counts = countsOf(fish);
+		int size = grid.getSize();
+		Arrays.fill(store, 0, size * size, 0);
+		if(counts != null){
+			for(int cell=0; cell<counts.length; cell++){
+				store[grid.cellX(cell) * size + grid.cellZ(cell)] += counts[cell];
+			}
+			for(int i=0; i<size * size; i++){
+				returnValue = Math.max(returnValue, store[i]);
+			}
+		}
+		return returnValue;
+	}//end of project method
+
+	/**
+	 * Copies the ticks in one horizontal layer of cells into the specified
+	 * array, indexed by <code>x * size + z</code>.
+	 *
+	 * @param fish the fish whose ticks are copied, null for all fish.
+	 * @param layer the grid Y-coordinate of the layer.
+	 * @param store the array, of at least size * size values.
+	 * @return the largest value in the array.
+	 */
+	public int slice(Fish fish, int layer, int[] store){
+		int returnValue = 0;
+		int[] counts = countsOf(fish);
+		int size = grid.getSize();
+		for(int x=0; x<size; x++){
+			for(int z=0; z<size; z++){
+				int value = (counts != null) ? counts[grid.cellIndex(x, layer, z)] : 0;
+				store[x * size + z] = value;
+				returnValue = Math.max(returnValue, value);
+			}
+		}
+		return returnValue;
+	}//end of slice method
+
+	/**
+	 * Writes the map as comma separated values: one line per cell, with its
+	 * grid coordinates, its world position, the total ticks spent in it,
+	 * and then the ticks of each fish, in columns headed by the fish's id,
+	 * followed by those of the fish retired from the scenario.
+	 *
+	 * @param file the file.
+	 * @return true if the map was written, false otherwise.
+	 */
+	public boolean writeCSV(File file){
+		boolean returnValue = false;
+		if(file.getParentFile() != null){
+			file.getParentFile().mkdirs();
+		}
+		PrintWriter out = null;
+		try{
+			out = new PrintWriter(new BufferedWriter(new FileWriter(file)));
+			out.println("# ticks: " + ticks + ", seconds: " + seconds);
+			out.print("x,y,z,world_x,world_y,world_z,total");
+			for(int i=0; i<rows.length; i++){
+				if(rows[i] != null){
+					out.print("," + rowIDs[i]);
+				}
+			}
+			for(Long id : retired.keySet()){
+				out.print("," + id);
+			}
+			out.println();
+			StringBuilder line = new StringBuilder(256);
+			for(int cell=0; cell<totals.length; cell++){
+				int x = grid.cellX(cell);
+				int y = grid.cellY(cell);
+				int z = grid.cellZ(cell);
+				line.setLength(0);
+				line.append(x).append(',').append(y).append(',').append(z).append(',')
+					.append(grid.getOriginX() + x * grid.getXIncr()).append(',')
+					.append(grid.getOriginY() + y * grid.getYIncr()).append(',')
+					.append(grid.getOriginZ() + z * grid.getZIncr()).append(',')
+					.append(totals[cell]);
+				for(int i=0; i<rows.length; i++){
+					if(rows[i] != null){
+						line.append(',').append(rows[i][cell]);
+					}
+				}
+				for(int[] row : retired.values()){
+					line.append(',').append(row[cell]);
+				}
+				out.println(line);
+			}
+			returnValue = !out.checkError();
+		}
+		catch(IOException ex){
+			ex.printStackTrace();
+		}
+		finally{
+			if(out != null){
+				out.close();
+			}
+		}
+		return returnValue;
+	}//end of writeCSV method
+
+	/**
+	 * Writes the map in a compact binary form, big-endian: the
+	 * <code>MAGIC</code> and <code>VERSION</code> ints, the grid size, the
+	 * ticks and seconds recorded, the origin and cell size of the grid as
+	 * six floats, the totals, the number of fish, and then for each fish its
+	 * id followed by its counts, the retired fish last. Counts are written
+	 * sparsely, as the number of visited cells followed by the index, from
+	 * <code>Grid.cellIndex()</code>, and count of each, as ints.
+	 *
+	 * @param file the file.
+	 * @return true if the map was written, false otherwise.
+	 */
+	public boolean writeBinary(File file){
+		boolean returnValue = false;
+		if(file.getParentFile() != null){
+			file.getParentFile().mkdirs();
+		}
+		DataOutputStream out = null;
+		try{
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(grid.getSize());
+			out.writeInt(ticks);
+			out.writeDouble(seconds);
+			out.writeFloat(grid.getOriginX());
+			out.writeFloat(grid.getOriginY());
+			out.writeFloat(grid.getOriginZ());
+			out.writeFloat(grid.getXIncr());
+			out.writeFloat(grid.getYIncr());
+			out.writeFloat(grid.getZIncr());
+			writeCounts(out, totals);
+			int fishCount = retired.size();
+			for(int i=0; i<rows.length; i++){
+				if(rows[i] != null){
+					fishCount++;
+				}
+			}
+			out.writeInt(fishCount);
+			for(int i=0; i<rows.length; i++){
+				if(rows[i] != null){
+					out.writeLong(rowIDs[i]);
+					writeCounts(out, rows[i]);
+				}
+			}
+			for(Map.Entry<Long,int[]> entry : retired.entrySet()){
+				out.writeLong(entry.getKey());
+				writeCounts(out, entry.getValue());
+			}
+			returnValue = true;
+		}
+		catch(IOException ex){
+			ex.printStackTrace();
+		}
+		finally{
+			if(out != null){
+				try{
+					out.close();
+				}
+				catch(IOException ex){
+					returnValue = false;
+				}
+			}
+		}
+		return returnValue;
+	}//end of writeBinary method
+
+	/**
+	 * Returns the counts of the specified fish.
+	 *
+	 * @param fish the fish, null for all fish.
+	 * @return the counts, null if the fish has not been recorded.
+	 */
+	private int[] countsOf(Fish fish){
+		int[] returnValue = totals;
+		if(fish != null){
+			returnValue = null;
+			int handle = fish.getHandle();
+			if(handle >= 0 && handle < rows.length && rowIDs[handle] == fish.getID()){
+				returnValue = rows[handle];
+			}
+		}
+		return returnValue;
+	}//end of countsOf method
+
+	/**
+	 * Gives the row for the specified handle to the specified fish, retiring
+	 * the row of any previous fish and growing the rows if needed. The fish
+	 * takes back its own row if it was retired or left under another handle.
+	 *
+	 * @param handle the handle.
+	 * @param id the id of the fish.
+	 */
+	private void claimRow(int handle, long id){
+		if(handle >= rows.length){
+			int capacity = Math.max(rows.length * 2, handle + 1);
+			int oldLength = rows.length;
+			rows = Arrays.copyOf(rows, capacity);
+			rowIDs = Arrays.copyOf(rowIDs, capacity);
+			Arrays.fill(rowIDs, oldLength, capacity, NO_FISH);
+		}
+		if(rows[handle] != null){
+			retired.put(rowIDs[handle], rows[handle]);
+		}
+		rows[handle] = retired.remove(id);
+		for(int i=0; i<rowIDs.length && rows[handle] == null; i++){
+			if(rowIDs[i] == id && i != handle){//the fish came back with a new handle
+				rows[handle] = rows[i];
+				rows[i] = null;
+				rowIDs[i] = NO_FISH;
+			}
+		}
+		if(rows[handle] == null){
+			rows[handle] = new int[totals.length];
+		}
+		rowIDs[handle] = id;
+	}//end of claimRow method
+
+	//---------------------static main---------------------------------
+	//---------------------static methods------------------------------
+	/**
+	 * Writes the number of visited cells, then the index and count of each.
+	 *
+	 * @param out the stream.
+	 * @param counts the counts.
+	 * @throws IOException if the stream cannot be written.
+	 */
+	private static void writeCounts(DataOutputStream out, int[] counts) throws IOException{
+		int visited = 0;
+		for(int i=0; i<counts.length; i++){
+			if(counts[i] != 0){
+				visited++;
+			}
+		}
+		out.writeInt(visited);
+		for(int i=0; i<counts.length; i++){
+			if(counts[i] != 0){
+				out.writeInt(i);
+				out.writeInt(counts[i]);
+			}
+		}
+	}//end of writeCounts method
+}//end of DwellMap class
@@ -0,0 +1,317 @@
+package thinktank.simulator.scenario;
+
+import java.util.HashMap;
+
+import com.jme3.scene.Spatial;
+
+import thinktank.simulator.entity.Entity;
+
+/**
+ * Registry of the entities in a scenario, giving each entity a dense
+ * integer handle for as long as it is registered. Handles of removed
+ * entities are reused, so they stay small enough to index arrays.
+ *
+ * The registry looks entities up in constant time by handle, by their
+ * persisted ID, and from their model, which carries its handle as user
+ * data. It also keeps the handles of each <code>ENTITY_GROUP</code> packed
+ * in an array for iteration, from which entities are removed by moving
+ * the last entry of the group into their place.
+ *
+ * The registry is not thread safe; it is only changed through the
+ * scenario, which publishes an <code>EntityView</code> of each group for
+ * readers.
+ *
+ * @author Vasher Lor
+ * @version %I%, %G%
+ */
+public class EntityRegistry{
+	/**
+	 * List of groups into which the registered entities are divided.
+	 */
+	public enum ENTITY_GROUP{
+		FISH,
+		ENVIRONMENT_OBJECT;
+	}//end of ENTITY_GROUP enum
+
+	//---------------------static constants----------------------------
+	/**
+	 * Constant string for the user data key holding an entity's handle on
+	 * its model.
+	 */
+	public static final String HANDLE_KEY = "entity-handle";
+	/**
+	 * Constant value for the handle of an entity that is not registered.
+	 */
+	public static final int NO_HANDLE = -1;
+	/**
+	 * Constant value for the initial capacity of the arrays.
+	 */
+	private static final int INITIAL_CAPACITY = 16;
+
+	//---------------------static variables----------------------------
+	//---------------------instance constants--------------------------
+	/**
+	 * Maps the persisted ID of each registered entity to its handle.
+	 */
+	private final HashMap<Long,Integer> handlesByID;
+	/**
+	 * The handles of the entities in each group, packed in the first
+	 * <code>groupSizes</code> entries, indexed by group ordinal.
+	 */
+	private final int[][] groups;
+	/**
+	 * The number of entities in each group, indexed by group ordinal.
+	 */
+	private final int[] groupSizes;
+
+	//---------------------instance variables--------------------------
+	/**
+	 * The entity with each handle, null for free handles.
+	 */
+	private Entity[] entities;
+	/**
+	 * The group ordinal of each handle.
+	 */
+	private byte[] groupOf;
+	/**
+	 * The position of each handle in its group's array.
+	 */
+	private int[] positions;
+	/**
+	 * Stack of handles that have been released and can be reused.
+	 */
+	private int[] freeHandles;
+	/**
+	 * The number of entries on the free handle stack.
+	 */
+	private int freeCount;
+	/**
+	 * The number of handles that have ever been handed out.
+	 */
+	private int handleCount;
+
+	//---------------------constructors--------------------------------
+	/**
+	 * Constructs a new, empty registry.
+	 */
+	public EntityRegistry(){
+		handlesByID = new HashMap<Long,Integer>();
+		groups = new int[ENTITY_GROUP.values().length][INITIAL_CAPACITY];
+		groupSizes = new int[ENTITY_GROUP.values().length];
+		entities = new Entity[INITIAL_CAPACITY];
+		groupOf = new byte[INITIAL_CAPACITY];
+		positions = new int[INITIAL_CAPACITY];
+		freeHandles = new int[INITIAL_CAPACITY];
+		freeCount = 0;
+		handleCount = 0;
+	}//end of constructor
+
+	//---------------------instance methods----------------------------
+	//GETTERS
+	/**
+	 * Returns the number of handles that have ever been handed out, which
+	 * is one more than the largest handle in use.
+	 *
+	 * @return the handle capacity.
+	 */
+	public int getHandleCount(){
+		return handleCount;
+	}//end of getHandleCount method
+
+	/**
+	 * Returns the entity with the specified handle.
+	 *
+	 * @param handle the handle.
+	 * @return the entity, null if no entity has the handle.
+	 */
+	public Entity get(int handle){
+		Entity returnValue = null;
+		if(handle >= 0 && handle < handleCount){
+			returnValue = entities[handle];
+		}
+		return returnValue;
+	}//end of get method
+
+	/**
+	 * Returns the handle of the entity with the specified persisted ID.
+	 *
+	 * @param id the ID of the entity.
+	 * @return the handle, <code>NO_HANDLE</code> if no such entity is registered.
+	 */
+	public int getHandle(long id){
+		int returnValue = NO_HANDLE;
+		Integer handle = handlesByID.get(id);
+		if(handle != null){
+			returnValue = handle;
+		}
+		return returnValue;
+	}//end of getHandle(long) method
+
+	/**
+	 * Returns the handle of the entity whose model contains the specified
+	 * spatial, such as a geometry hit by a ray.
+	 *
+	 * @param spatial the spatial.
+	 * @return the handle, <code>NO_HANDLE</code> if the spatial is not part
+	 * of a registered entity's model.
+	 */
+	public int getHandle(Spatial spatial){
+		int returnValue = NO_HANDLE;
+		while(spatial != null && returnValue == NO_HANDLE){
+			Integer handle = spatial.getUserData(HANDLE_KEY);
+			if(handle != null && get(handle) != null && get(handle).getObj() == spatial){
+				returnValue = handle;
+			}
+			spatial = spatial.getParent();
+		}
+		return returnValue;
+	}//end of getHandle(Spatial) method
+
+	/**
+	 * Returns whether or not the specified entity is registered.
+	 *
+	 * @param entity the entity.
+	 * @return true if the entity is registered, false otherwise.
+	 */
+	public boolean contains(Entity entity){
+		return entity != null && get(entity.getHandle()) == entity;
+	}//end of contains method
+
+	/**
+	 * Returns the number of entities in the specified group.
+	 *
+	 * @param group the group.
+	 * @return the number of entities.
+	 */
+	public int getSize(ENTITY_GROUP group){
+		return groupSizes[group.ordinal()];
+	}//end of getSize method
+
+	/**
+	 * Returns the handle at the specified position in the specified group.
+	 *
+	 * @param group the group.
+	 * @param index the position, from 0 to <code>getSize(group)</code>.
+	 * @return the handle.
+	 */
+	public int getHandle(ENTITY_GROUP group, int index){
+		return groups[group.ordinal()][index];
+	}//end of getHandle(ENTITY_GROUP,int) method
+
+	/**
+	 * Returns the entity at the specified position in the specified group.
+	 *
+	 * @param group the group.
+	 * @param index the position, from 0 to <code>getSize(group)</code>.
+	 * @return the entity.
+	 */
+	public Entity get(ENTITY_GROUP group, int index){
+		return entities[groups[group.ordinal()][index]];
+	}//end of get(ENTITY_GROUP,int) method
+
+	/**
+	 * Returns a new array of the entities in the specified group, in
+	 * group order.
+	 *
+	 * @param group the group.
+	 * @return the entities.
+	 */
+	public Entity[] toArray(ENTITY_GROUP group){
+		int g = group.ordinal();
+		Entity[] returnValue = new Entity[groupSizes[g]];
+		for(int i=0; i<returnValue.length; i++){
+			returnValue[i] = entities[groups[g][i]];
+		}
+		return returnValue;
+	}//end of toArray method
+
+	//OPERATIONS
+	/**
+	 * Registers the specified entity in the specified group, giving it a
+	 * handle and marking its model with the handle. An entity that is
+	 * already registered keeps its handle.
+	 *
+	 * @param entity the entity.
+	 * @param group the group.
+	 * @return the handle of the entity.
+	 */
+	public int register(Entity entity, ENTITY_GROUP group){
+		int returnValue = entity.getHandle();
+		if(!contains(entity)){
+			if(freeCount > 0){
+				returnValue = freeHandles[--freeCount];
+			}
+			else{
+				if(handleCount == entities.length){
+					grow();
+				}
+				returnValue = handleCount++;
+			}
+			int g = group.ordinal();
+			if(groupSizes[g] == groups[g].length){
+				int[] newGroup = new int[groups[g].length * 2];
+				System.arraycopy(groups[g], 0, newGroup, 0, groupSizes[g]);
+				groups[g] = newGroup;
+			}
+			entities[returnValue] = entity;
+			groupOf[returnValue] = (byte)g;
+			positions[returnValue] = groupSizes[g];
+			groups[g][groupSizes[g]++] = returnValue;
+			handlesByID.put(entity.getID(), returnValue);
+			entity.setHandle(returnValue);
+			if(entity.getObj() != null){
+				entity.getObj().setUserData(HANDLE_KEY, returnValue);
+			}
+		}
+		return returnValue;
+	}//end of register method
+
+	/**
+	 * Removes the specified entity from the registry, releasing its handle.
+	 *
+	 * @param entity the entity.
+	 * @return true if the entity was registered, false otherwise.
+	 */
+	public boolean unregister(Entity entity){
+		boolean returnValue = false;
+		if(contains(entity)){
+			int handle = entity.getHandle();
+			int g = groupOf[handle];
+			int position = positions[handle];
+			int last = groups[g][--groupSizes[g]];
+			groups[g][position] = last;//swap the last handle of the group into the hole
+			positions[last] = position;
+			entities[handle] = null;
+			handlesByID.remove(entity.getID());
+			freeHandles[freeCount++] = handle;
+			entity.setHandle(NO_HANDLE);
+			if(entity.getObj() != null){
+				entity.getObj().setUserData(HANDLE_KEY, null);
+			}
+			returnValue = true;
+		}
+		return returnValue;
+	}//end of unregister method
+
+	/**
+	 * Doubles the number of handles the registry can hold.
+	 */
+	private void grow(){
+		int newLength = entities.length * 2;
+		Entity[] newEntities = new Entity[newLength];
+		System.arraycopy(entities, 0, newEntities, 0, entities.length);
+		entities = newEntities;
+		byte[] newGroupOf = new byte[newLength];
+		System.arraycopy(groupOf, 0, newGroupOf, 0, groupOf.length);
+		groupOf = newGroupOf;
+		int[] newPositions = new int[newLength];
+		System.arraycopy(positions, 0, newPositions, 0, positions.length);
+		positions = newPositions;
+		int[] newFree = new int[newLength];
+		System.arraycopy(freeHandles, 0, newFree, 0, freeHandles.length);
+		freeHandles = newFree;
+	}//end of grow method
+
+	//---------------------static main---------------------------------
+	//---------------------static methods------------------------------
+}//end of EntityRegistry class
@@ -0,0 +1,113 @@
+package thinktank.simulator.scenario;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import thinktank.simulator.entity.Entity;
+
+/**
+ * An unchangeable snapshot of the entities in one group of a scenario, as
+ * they were when the view was published. The scenario publishes a new view
+ * each time the group changes, so a view can be read from any thread, and
+ * looped over by index without allocating, while the scenario is edited.
+ *
+ * Each view carries the epoch in which it was published; views of the same
+ * scenario with the same epoch hold the same entities.
+ *
+ * @author Vasher Lor
+ * @version %I%, %G%
+ * @param <T> the type of entity in the view.
+ */
+public class EntityView<T extends Entity> implements Iterable<T>{
+	//---------------------static constants----------------------------
+	//---------------------static variables----------------------------
+	//---------------------instance constants--------------------------
+	/**
+	 * The entities in the view. Never changed after construction.
+	 */
+	private final Entity[] entities;
+	/**
+	 * The epoch in which the view was published.
+	 */
+	private final int epoch;
+
+	//---------------------instance variables--------------------------
+	//---------------------constructors--------------------------------
+	/**
+	 * Constructs a view over the specified entities. The array is kept, so
+	 * it must not be changed afterwards.
+	 *
+	 * @param entities the entities, all of type <code>T</code>.
+	 * @param epoch the epoch in which the view is published.
+	 */
+	EntityView(Entity[] entities, int epoch){
+		this.entities = entities;
+		this.epoch = epoch;
+	}//end of constructor
+
+	//---------------------instance methods----------------------------
+	//GETTERS
+	/**
+	 * Returns the number of entities in the view.
+	 *
+	 * @return the number of entities.
+	 */
+	public int size(){
+		return entities.length;
+	}//end of size method
+
+	/**
+	 * Returns the entity at the specified index.
+	 *
+	 * @param index the index, from 0 to <code>size()</code>.
+	 * @return the entity.
+	 */
+	@SuppressWarnings("unchecked")
+	public T get(int index){
+		return (T)entities[index];
+	}//end of get method
+
+	/**
+	 * Returns the epoch in which the view was published.
+	 *
+	 * @return the epoch.
+	 */
+	public int getEpoch(){
+		return epoch;
+	}//end of getEpoch method
+
+	//OPERATIONS
+	/**
+	 * Returns an iterator over the entities in the view. Indexed loops
+	 * should be preferred on paths run every frame, since this allocates.
+	 *
+	 * @return the iterator.
+	 */
+	@Override
+	public Iterator<T> iterator(){
+		return new Iterator<T>(){
+			private int next = 0;
+
+			@Override
+			public boolean hasNext(){
+				return next < entities.length;
+			}//end of hasNext method
+
+			@Override
+			public T next(){
+				if(!hasNext()){
+					throw new NoSuchElementException();
+				}
+				return get(next++);
+			}//end of next method
+
+			@Override
+			public void remove(){
+				throw new UnsupportedOperationException();
+			}//end of remove method
+		};
+	}//end of iterator method
+
+	//---------------------static main---------------------------------
+	//---------------------static methods------------------------------
+}//end of EntityView class
@@ -0,0 +1,158 @@
+package thinktank.simulator.scenario;
+
+/**
+ * Direction field over the cells of a <code>Grid</code> leading towards a
+ * single target cell. For every cell the field stores the distance to the
+ * target through free cells and the neighboring cell to step to next, so
+ * any number of fish heading to, or away from, the same target can share
+ * one field.
+ *
+ * @author Vasher Lor
+ * @version %I%, %G%
+ */
+public class FlowField{
+	//---------------------static constants----------------------------
+	//---------------------static variables----------------------------
+	//---------------------instance constants--------------------------
+	/**
+	 * The grid the field is computed over.
+	 */
+	private final Grid grid;
+	/**
+	 * The distance from each cell to the target, in world units.
+	 */
+	private final float[] distance;
+	/**
+	 * The next cell on the path from each cell to the target.
+	 */
+	private final int[] next;
+	/**
+	 * Queue of cells waiting to propagate their distances.
+	 */
+	private final int[] queue;
+	/**
+	 * Flags for whether or not each cell is currently in the queue.
+	 */
+	private final boolean[] queued;
+
+	//---------------------instance variables--------------------------
+	/**
+	 * The cell the field leads towards.
+	 */
+	private int target;
+	/**
+	 * The obstacle epoch of the grid when the field was computed.
+	 */
+	private int epoch;
+
+	//---------------------constructors--------------------------------
+	/**
+	 * Constructs a new, uncomputed flow field for the specified grid.
+	 *
+	 * @param grid the grid the field is computed over.
+	 */
+	public FlowField(Grid grid){
+		this.grid = grid;
+		int cells = grid.getCellCount();
+		distance = new float[cells];
+		next = new int[cells];
+		queue = new int[cells];
+		queued = new boolean[cells];
+		target = -1;
+		epoch = -1;
+	}//end of constructor
+
+	//---------------------instance methods----------------------------
+	//GETTERS
+	/**
+	 * Returns the cell the field leads towards.
+	 *
+	 * @return the target cell index, -1 if the field has not been computed.
+	 */
+	public int getTarget(){
+		return target;
+	}//end of getTarget method
+
+	/**
+	 * Returns whether or not the field reflects the grid's current
+	 * occupancy map.
+	 *
+	 * @return true if the field is current, false otherwise.
+	 */
+	public boolean isCurrent(){
+		return target != -1 && epoch == grid.getObstacleEpoch();
+	}//end of isCurrent method
+
+	/**
+	 * Returns the distance from the specified cell to the target.
+	 *
+	 * @param cell the cell index.
+	 * @return the distance in world units, infinite if the target cannot
+	 * be reached from the cell.
+	 */
+	public float getDistance(int cell){
+		return distance[cell];
+	}//end of getDistance method
+
+	/**
+	 * Returns the next cell on the path from the specified cell to the target.
+	 *
+	 * @param cell the cell index.
+	 * @return the next cell index, or the specified cell itself if it is the
+	 * target or the target cannot be reached from it.
+	 */
+	public int getNextCell(int cell){
+		int returnValue = next[cell];
+		if(returnValue == -1){
+			returnValue = cell;
+		}
+		return returnValue;
+	}//end of getNextCell method
+
+	//OPERATIONS
+	/**
+	 * Computes the field towards the specified target cell from the grid's
+	 * current occupancy map.
+	 *
+	 * @param target the target cell index.
+	 */
+	public void compute(int target){
+		this.target = target;
+		this.epoch = grid.getObstacleEpoch();
+		for(int cell=0; cell<distance.length; cell++){
+			distance[cell] = Float.POSITIVE_INFINITY;
+			next[cell] = -1;
+		}
+		int head = 0;
+		int size = 0;
+		int neighbors = grid.getNeighborCount();
+		distance[target] = 0;
+		queue[0] = target;
+		queued[target] = true;
+		size++;
+		while(size > 0){
+			int cell = queue[head];
+			head = (head + 1) % queue.length;
+			size--;
+			queued[cell] = false;
+			for(int n=0; n<neighbors; n++){
+				int neighbor = grid.getNeighbor(cell, n);
+				if(neighbor != -1 && !grid.isBlocked(neighbor)){
+					float candidate = distance[cell] + grid.getNeighborWeight(n);
+					if(candidate < distance[neighbor]){
+						distance[neighbor] = candidate;
+						next[neighbor] = cell;
+						if(!queued[neighbor]){
+							queue[(head + size) % queue.length] = neighbor;
+							queued[neighbor] = true;
+							size++;
+						}
+					}
+				}
+			}
+		}
+	}//end of compute method
+
+	//---------------------static main---------------------------------
+	//---------------------static methods------------------------------
+}//end of FlowField class
@@ -1,9 +1,10 @@
 package thinktank.simulator.scenario;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.HashMap;
 
 import com.jme3.bounding.BoundingBox;
+import com.jme3.bounding.BoundingSphere;
+import com.jme3.bounding.BoundingVolume;
 import com.jme3.math.Vector2f;
 import com.jme3.math.Vector3f;
 
@@ -12,7 +13,16 @@ import thinktank.simulator.environment.Tank;
 
 /**
  * A grid system used by the game. Calculations are done using tank size.
- * Grid size is 10x10x10
+ * Grid size is 20x20x20
+ *
+ * The grid also maintains an occupancy map recording, for each cell, which
+ * environment object (if any) fills it. The map is updated incrementally as
+ * objects are added, moved, or removed, so that a cell can be tested for
+ * obstruction in constant time. A <code>ShelterField</code> is kept in step
+ * with the occupancy map for shelter lookups, and a <code>Navigator</code>
+ * provides obstacle-aware paths between cells. An <code>OcclusionVolume</code>
+ * built from the same objects answers line-of-sight queries, and a
+ * <code>DwellMap</code> counts the time the fish spend in each cell.
  * 
  * @author Vasher Lor
  * @version %I%, %G%
@@ -23,39 +33,173 @@ public class Grid{
 	 * Constant value for the size of the grid
 	 */
 	private static final int SIZE = 20;
+	/**
+	 * Constant value for the total number of cells in the grid.
+	 */
+	private static final int CELL_COUNT = SIZE * SIZE * SIZE;
+	/**
+	 * Constant value stored in the occupancy map for a cell that is not
+	 * filled by any environment object.
+	 */
+	private static final short EMPTY = 0;
+	/**
+	 * Constant value for the number of values stored per footprint
+	 * (min and max cell on each axis).
+	 */
+	private static final int FOOTPRINT_STRIDE = 6;
+	/**
+	 * Constant value for the number of neighbors of each cell.
+	 */
+	private static final int NEIGHBOR_COUNT = 26;
+	/**
+	 * Constant value for the number of cell ranges kept in the log of
+	 * obstacle changes.
+	 */
+	public static final int CHANGE_LOG_SIZE = 32;
 	
 	//---------------------static variables----------------------------
+	//---------------------instance constants--------------------------
 	/**
-	 * List of environment objects in the grid.
+	 * Multi-dimensional array of vectors representing the grid.
 	 */
-	private static List<EnvironmentObject> objs = new ArrayList<EnvironmentObject>();
+	private final Vector3f[][][] gridXYZ;
 	/**
-	 * Multi-dimensional array of vectors representing the grid.
+	 * The occupancy map for the grid, indexed by cell index. A value of
+	 * <code>EMPTY</code> indicates a free cell, any other value is the
+	 * occupying object's slot plus one.
 	 */
-	private static Vector3f[][][] gridXYZ = new Vector3f[SIZE][SIZE][SIZE];
+	private final short[] occupancy;
 	/**
-	 * 
+	 * Maps the id of each environment object in the grid to its slot.
 	 */
-	private static float xIncr = 0;
+	private final HashMap<Long,Integer> slots;
 	/**
-	 * 
+	 * The shelter field computed over the occupancy map.
 	 */
-	private static float yIncr = 0;
+	private final ShelterField shelterField;
 	/**
-	 * 
+	 * The navigator computing paths over the occupancy map.
+	 */
+	private final Navigator navigator;
+	/**
+	 * The occlusion volume built from the environment objects in the grid.
+	 */
+	private final OcclusionVolume occlusionVolume;
+	/**
+	 * The map of the time the fish spend in each cell.
+	 */
+	private final DwellMap dwellMap;
+	/**
+	 * The X, Y, and Z step to each neighbor of a cell.
+	 */
+	private final int[] neighborStep;
+	/**
+	 * The world distance to each neighbor of a cell.
+	 */
+	private final float[] neighborWeight;
+	/**
+	 * Ring buffer of the cell ranges changed by the most recent obstacle
+	 * changes, stored in the same layout as the footprints.
 	 */
-	private static float zIncr = 0;
+	private final int[] changeLog;
+	/**
+	 * The obstacle epoch of each entry in the change log.
+	 */
+	private final int[] changeEpochs;
 	
-	//---------------------instance constants--------------------------
 	//---------------------instance variables--------------------------
+	/**
+	 * The environment objects in the grid, indexed by slot.
+	 */
+	private EnvironmentObject[] occupants;
+	/**
+	 * The cell range covered by each slot's object, stored as
+	 * min x, min y, min z, max x, max y, max z.
+	 */
+	private int[] footprints;
+	/**
+	 * Stack of slots that have been released and can be reused.
+	 */
+	private int[] freeSlots;
+	/**
+	 * The number of entries on the free slot stack.
+	 */
+	private int freeCount;
+	/**
+	 * The number of slots that have ever been handed out.
+	 */
+	private int slotCount;
+	/**
+	 * The world X-coordinate of the center of the first cell.
+	 */
+	private float originX;
+	/**
+	 * The world Y-coordinate of the center of the first cell.
+	 */
+	private float originY;
+	/**
+	 * The world Z-coordinate of the center of the first cell.
+	 */
+	private float originZ;
+	/**
+	 * Value incremented every time the occupancy map changes.
+	 */
+	private int obstacleEpoch;
+	/**
+	 * The total number of entries ever written to the change log.
+	 */
+	private int changeCount;
+	/**
+	 * The obstacle epoch after which every change is still in the
+	 * change log.
+	 */
+	private int loggedFrom;
+	/**
+	 * The width of a cell on the X-axis, in world units.
+	 */
+	private float xIncr;
+	/**
+	 * The height of a cell on the Y-axis, in world units.
+	 */
+	private float yIncr;
+	/**
+	 * The width of a cell on the Z-axis, in world units.
+	 */
+	private float zIncr;
+
 	//---------------------constructors--------------------------------
 	/**
 	 * Constructs a new <code>Grid</code> object for the specified scenario.
+	 * Any environment objects already in the scenario are added to the
+	 * occupancy map.
 	 * 
 	 * @param scenario the scenario to build the grid for.
 	 */
 	public Grid(Scenario scenario){
+		gridXYZ = new Vector3f[SIZE][SIZE][SIZE];
+		occupancy = new short[CELL_COUNT];
+		slots = new HashMap<Long,Integer>();
+		occupants = new EnvironmentObject[8];
+		footprints = new int[occupants.length * FOOTPRINT_STRIDE];
+		freeSlots = new int[occupants.length];
+		freeCount = 0;
+		slotCount = 0;
+		obstacleEpoch = 0;
+		changeLog = new int[CHANGE_LOG_SIZE * FOOTPRINT_STRIDE];
+		changeEpochs = new int[CHANGE_LOG_SIZE];
+		changeCount = 0;
+		loggedFrom = 0;
+		neighborStep = new int[NEIGHBOR_COUNT * 3];
+		neighborWeight = new float[NEIGHBOR_COUNT];
 		init(scenario.getEnvironment().getTank());
+		shelterField = new ShelterField(this);
+		navigator = new Navigator(this);
+		occlusionVolume = new OcclusionVolume(this);
+		dwellMap = new DwellMap(this);
+		EntityView<EnvironmentObject> objects = scenario.getEnvironmentObjectView();
+		for(int i=0; i<objects.size(); i++){
+			update(objects.get(i));
+		}
 	}//end of constructor
 	
 	//---------------------instance methods----------------------------
@@ -93,6 +237,33 @@ public class Grid{
 		return zIncr;
 	}//end of getZIncr method
 	
+	/**
+	 * Returns the world X-coordinate of the center of the first cell.
+	 *
+	 * @return the X-coordinate of the grid's origin.
+	 */
+	public float getOriginX(){
+		return originX;
+	}//end of getOriginX method
+
+	/**
+	 * Returns the world Y-coordinate of the center of the first cell.
+	 *
+	 * @return the Y-coordinate of the grid's origin.
+	 */
+	public float getOriginY(){
+		return originY;
+	}//end of getOriginY method
+
+	/**
+	 * Returns the world Z-coordinate of the center of the first cell.
+	 *
+	 * @return the Z-coordinate of the grid's origin.
+	 */
+	public float getOriginZ(){
+		return originZ;
+	}//end of getOriginZ method
+
 	/**
 	 * Returns the value for the size of the grid.
 	 * 
@@ -101,20 +272,318 @@ public class Grid{
 	public int getSize(){
 		return SIZE;
 	}//end of getSize method
-	
-	//SETTERS
+
 	/**
-	 * Sets the values of the grid based on the specified tank.
-	 * 
-	 * @param tank the tank to use for seting the grid's values.
+	 * Returns the total number of cells in the grid.
+	 *
+	 * @return the number of cells.
+	 */
+	public int getCellCount(){
+		return CELL_COUNT;
+	}//end of getCellCount method
+
+	/**
+	 * Returns the value of the obstacle epoch, which changes every time
+	 * an environment object is added to, moved within, or removed from
+	 * the occupancy map.
+	 *
+	 * @return the obstacle epoch.
+	 */
+	public int getObstacleEpoch(){
+		return obstacleEpoch;
+	}//end of getObstacleEpoch method
+
+	/**
+	 * Copies the cell ranges changed since the specified obstacle epoch
+	 * into the specified array, six values per range in the same layout
+	 * as <code>getFootprintMin()</code> and <code>getFootprintMax()</code>:
+	 * min x, min y, min z, max x, max y, max z. Moving an object logs both
+	 * its old and its new range.
+	 *
+	 * @param since the obstacle epoch of the caller's last look.
+	 * @param store the array to store the ranges in, with room for
+	 * <code>CHANGE_LOG_SIZE</code> ranges.
+	 * @return the number of ranges stored, or -1 if the log no longer holds
+	 * every change since the epoch, in which case the whole grid must be
+	 * treated as changed.
+	 */
+	public int getChangesSince(int since, int[] store){
+		int returnValue = -1;
+		if(since >= loggedFrom){
+			returnValue = 0;
+			int first = Math.max(0, changeCount - CHANGE_LOG_SIZE);
+			for(int n=first; n<changeCount; n++){
+				int entry = n % CHANGE_LOG_SIZE;
+				if(changeEpochs[entry] > since){
+					System.arraycopy(changeLog, entry * FOOTPRINT_STRIDE, store, returnValue * FOOTPRINT_STRIDE, FOOTPRINT_STRIDE);
+					returnValue++;
+				}
+			}
+		}
+		return returnValue;
+	}//end of getChangesSince method
+
+	/**
+	 * Returns the shelter field maintained over the occupancy map.
+	 *
+	 * @return the shelter field.
+	 */
+	public ShelterField getShelterField(){
+		return shelterField;
+	}//end of getShelterField method
+
+	/**
+	 * Returns the navigator computing paths over the occupancy map.
+	 *
+	 * @return the navigator.
+	 */
+	public Navigator getNavigator(){
+		return navigator;
+	}//end of getNavigator method
+
+	/**
+	 * Returns the occlusion volume built from the environment objects in
+	 * the grid.
+	 *
+	 * @return the occlusion volume.
+	 */
+	public OcclusionVolume getOcclusionVolume(){
+		return occlusionVolume;
+	}//end of getOcclusionVolume method
+
+	/**
+	 * Returns the map of the time the fish spend in each cell.
+	 *
+	 * @return the dwell map.
+	 */
+	public DwellMap getDwellMap(){
+		return dwellMap;
+	}//end of getDwellMap method
+
+	/**
+	 * Returns the number of neighbors considered for each cell.
+	 *
+	 * @return the number of neighbors.
+	 */
+	public int getNeighborCount(){
+		return NEIGHBOR_COUNT;
+	}//end of getNeighborCount method
+
+	/**
+	 * Returns the index of the specified neighbor of the specified cell.
+	 *
+	 * @param cell the cell index.
+	 * @param n the neighbor number, from 0 to <code>getNeighborCount() - 1</code>.
+	 * @return the neighbor's cell index, -1 if the neighbor is outside the grid.
+	 */
+	public int getNeighbor(int cell, int n){
+		int returnValue = -1;
+		int x = cellX(cell) + neighborStep[n * 3];
+		int y = cellY(cell) + neighborStep[n * 3 + 1];
+		int z = cellZ(cell) + neighborStep[n * 3 + 2];
+		if(x >= 0 && x < SIZE && y >= 0 && y < SIZE && z >= 0 && z < SIZE){
+			returnValue = cellIndex(x, y, z);
+		}
+		return returnValue;
+	}//end of getNeighbor method
+
+	/**
+	 * Returns the world distance between a cell and its specified neighbor.
+	 *
+	 * @param n the neighbor number.
+	 * @return the distance in world units.
 	 */
-	public void setGrid(Tank tank){
-		init(tank);
-	}//end of setGrid method
+	public float getNeighborWeight(int n){
+		return neighborWeight[n];
+	}//end of getNeighborWeight method
+
+	/**
+	 * Returns the index of the specified cell within the flattened
+	 * cell arrays of the grid.
+	 *
+	 * @param x the X-coordinate on the grid.
+	 * @param y the Y-coordinate on the grid.
+	 * @param z the Z-coordinate on the grid.
+	 * @return the cell index.
+	 */
+	public int cellIndex(int x, int y, int z){
+		return (x * SIZE + y) * SIZE + z;
+	}//end of cellIndex method
+
+	/**
+	 * Returns the grid X-coordinate of the cell with the specified index.
+	 *
+	 * @param cell the cell index.
+	 * @return the grid X-coordinate.
+	 */
+	public int cellX(int cell){
+		return cell / (SIZE * SIZE);
+	}//end of cellX method
+
+	/**
+	 * Returns the grid Y-coordinate of the cell with the specified index.
+	 *
+	 * @param cell the cell index.
+	 * @return the grid Y-coordinate.
+	 */
+	public int cellY(int cell){
+		return (cell / SIZE) % SIZE;
+	}//end of cellY method
+
+	/**
+	 * Returns the grid Z-coordinate of the cell with the specified index.
+	 *
+	 * @param cell the cell index.
+	 * @return the grid Z-coordinate.
+	 */
+	public int cellZ(int cell){
+		return cell % SIZE;
+	}//end of cellZ method
+
+	/**
+	 * Returns the index of the cell containing the specified world
+	 * position, clamped to the grid.
+	 *
+	 * @param pos the world position.
+	 * @return the cell index.
+	 */
+	public int toCell(Vector3f pos){
+		return cellIndex(toCellX(pos.x), toCellY(pos.y), toCellZ(pos.z));
+	}//end of toCell method
+
+	/**
+	 * Returns the grid X-coordinate of the cell containing the specified
+	 * world X-coordinate, clamped to the grid.
+	 *
+	 * @param worldX the world X-coordinate.
+	 * @return the grid X-coordinate.
+	 */
+	public int toCellX(float worldX){
+		return clampCell(Math.round((worldX - originX) / xIncr));
+	}//end of toCellX method
+
+	/**
+	 * Returns the grid Y-coordinate of the cell containing the specified
+	 * world Y-coordinate, clamped to the grid.
+	 *
+	 * @param worldY the world Y-coordinate.
+	 * @return the grid Y-coordinate.
+	 */
+	public int toCellY(float worldY){
+		return clampCell(Math.round((worldY - originY) / yIncr));
+	}//end of toCellY method
+
+	/**
+	 * Returns the grid Z-coordinate of the cell containing the specified
+	 * world Z-coordinate, clamped to the grid.
+	 *
+	 * @param worldZ the world Z-coordinate.
+	 * @return the grid Z-coordinate.
+	 */
+	public int toCellZ(float worldZ){
+		return clampCell(Math.round((worldZ - originZ) / zIncr));
+	}//end of toCellZ method
+
+	/**
+	 * Returns whether or not the specified cell is filled by an
+	 * environment object.
+	 *
+	 * @param x the X-coordinate on the grid.
+	 * @param y the Y-coordinate on the grid.
+	 * @param z the Z-coordinate on the grid.
+	 * @return true if the cell is blocked, false otherwise.
+	 */
+	public boolean isBlocked(int x, int y, int z){
+		return occupancy[cellIndex(x, y, z)] != EMPTY;
+	}//end of isBlocked(int,int,int) method
+
+	/**
+	 * Returns whether or not the cell with the specified index is filled
+	 * by an environment object.
+	 *
+	 * @param cell the cell index.
+	 * @return true if the cell is blocked, false otherwise.
+	 */
+	public boolean isBlocked(int cell){
+		return occupancy[cell] != EMPTY;
+	}//end of isBlocked(int) method
+
+	/**
+	 * Returns the environment object filling the specified cell.
+	 *
+	 * @param x the X-coordinate on the grid.
+	 * @param y the Y-coordinate on the grid.
+	 * @param z the Z-coordinate on the grid.
+	 * @return the occupying object, null if the cell is free.
+	 */
+	public EnvironmentObject getOccupant(int x, int y, int z){
+		EnvironmentObject returnValue = null;
+		short value = occupancy[cellIndex(x, y, z)];
+		if(value != EMPTY){
+			returnValue = occupants[value - 1];
+		}
+		return returnValue;
+	}//end of getOccupant method
+
+	/**
+	 * Returns the slot of the environment object filling the cell with the
+	 * specified index.
+	 *
+	 * @param cell the cell index.
+	 * @return the occupying object's slot, -1 if the cell is free.
+	 */
+	public int getOccupantSlot(int cell){
+		return occupancy[cell] - 1;
+	}//end of getOccupantSlot method
+
+	/**
+	 * Returns the number of slots that have been handed out. Slots from 0
+	 * to one less than this value may hold an environment object.
+	 *
+	 * @return the number of slots.
+	 */
+	public int getSlotCount(){
+		return slotCount;
+	}//end of getSlotCount method
+
+	/**
+	 * Returns the environment object stored in the specified slot.
+	 *
+	 * @param slot the slot.
+	 * @return the object, null if the slot is unused.
+	 */
+	public EnvironmentObject getSlotObject(int slot){
+		return occupants[slot];
+	}//end of getSlotObject method
+
+	/**
+	 * Returns the lowest grid coordinate covered by the specified slot's
+	 * object along the specified axis.
+	 *
+	 * @param slot the slot.
+	 * @param axis the axis; 0 for X, 1 for Y, 2 for Z.
+	 * @return the lowest covered grid coordinate.
+	 */
+	public int getFootprintMin(int slot, int axis){
+		return footprints[slot * FOOTPRINT_STRIDE + axis];
+	}//end of getFootprintMin method
+
+	/**
+	 * Returns the highest grid coordinate covered by the specified slot's
+	 * object along the specified axis.
+	 *
+	 * @param slot the slot.
+	 * @param axis the axis; 0 for X, 1 for Y, 2 for Z.
+	 * @return the highest covered grid coordinate.
+	 */
+	public int getFootprintMax(int slot, int axis){
+		return footprints[slot * FOOTPRINT_STRIDE + axis + 3];
+	}//end of getFootprintMax method
 	
+	//SETTERS
 	//OPERATIONS
 	/**
-	 * Takes tank and creates a 10x10x10 grid based on depth, height, width.
+	 * Takes tank and creates a 20x20x20 grid based on depth, height, width.
 	 * 
 	 * @param tank the tank to base the grid values on.
 	 */
@@ -126,10 +595,12 @@ public class Grid{
 		float negX = -x / 2;
 		float negZ = -z / 2;
 		float zeroY = tank.getTerrain().getHeight(Vector2f.ZERO);
-		System.out.println(zeroY);
 		xIncr = x / SIZE;
 		yIncr = y / SIZE;
 		zIncr = z / SIZE;
+		originX = negX;
+		originY = zeroY;
+		originZ = negZ;
 		
 		for (int i=0; i<SIZE; i++){
 			for (int j=0; j<SIZE; j++){
@@ -138,45 +609,241 @@ public class Grid{
 				}
 			}
 		}
+		int n = 0;
+		for(int dx=-1; dx<=1; dx++){
+			for(int dy=-1; dy<=1; dy++){
+				for(int dz=-1; dz<=1; dz++){
+					if(dx != 0 || dy != 0 || dz != 0){
+						neighborStep[n * 3] = dx;
+						neighborStep[n * 3 + 1] = dy;
+						neighborStep[n * 3 + 2] = dz;
+						float wx = dx * xIncr;
+						float wy = dy * yIncr;
+						float wz = dz * zIncr;
+						neighborWeight[n] = (float)Math.sqrt(wx * wx + wy * wy + wz * wz);
+						n++;
+					}
+				}
+			}
+		}
+		for(int cell=0; cell<CELL_COUNT; cell++){
+			occupancy[cell] = EMPTY;
+		}
+		obstacleEpoch++;
+		loggedFrom = obstacleEpoch;//the whole grid changed
 	}//end of init method
 	
 	/**
-	 * Adds object to a list and stores it's location.
-	 * 
+	 * Adds the specified object to the occupancy map, or refreshes the
+	 * cells it fills if it is already in the map. Should be called whenever
+	 * an environment object is added to the scenario or moved.
+	 *
 	 * @param obj the object to store.
 	 */
-	public static void update(EnvironmentObject obj) {
-		objs.add(obj);
-		int X = 0;
-		int Y = 0;
-		int Z = 0;
-		float objX = obj.getLoc().getX();
-		float objY = obj.getLoc().getY();
-		float objZ = obj.getLoc().getZ();
-		if(obj.getName().contains("plant")){
-			if(obj.getObj().getWorldBound() instanceof BoundingBox){
-				BoundingBox bound = (BoundingBox)obj.getObj().getWorldBound();
-				objY = bound.getYExtent() * 2;
+	public void update(EnvironmentObject obj){
+		if(obj != null && obj.getObj() != null){
+			Integer slot = slots.get(obj.getID());
+			if(slot == null){
+				slot = allocateSlot();
+				slots.put(obj.getID(), slot);
+				occupants[slot] = obj;
 			}
+			else{
+				clear(slot);
+				shelterField.objectRemoved(slot);
+				logChange(slot, obstacleEpoch + 1);
+			}
+			computeFootprint(obj, slot);
+			stamp(slot);
+			shelterField.objectAdded(slot);
+			obstacleEpoch++;
+			logChange(slot, obstacleEpoch);
 		}
-		
-		for(int i=0; i<SIZE; i++){
-			for(int j=0; j<SIZE; j++){
-				for(int k=0; k<SIZE; k++){
-					Vector3f testVector = gridXYZ[i][j][k];
-					if(objZ < testVector.getZ() + zIncr && objZ > testVector.getZ() - zIncr){
-						Z = k;
-					}
-					if(objY < testVector.getY() + yIncr && objY > testVector.getY() - yIncr){
-						Y = j;
-					}
-					if(objX < testVector.getX() + xIncr && objX > testVector.getX() - xIncr){
-						X = i;
+	}//end of update method
+
+	/**
+	 * Removes the specified object from the occupancy map.
+	 *
+	 * @param obj the object to remove.
+	 */
+	public void remove(EnvironmentObject obj){
+		if(obj != null){
+			Integer slot = slots.remove(obj.getID());
+			if(slot != null){
+				clear(slot);
+				occupants[slot] = null;
+				shelterField.objectRemoved(slot);
+				freeSlots[freeCount++] = slot;
+				obstacleEpoch++;
+				logChange(slot, obstacleEpoch);
+			}
+		}
+	}//end of remove method
+
+	/**
+	 * Writes the current footprint of the specified slot to the change log.
+	 *
+	 * @param slot the slot.
+	 * @param epoch the obstacle epoch of the change.
+	 */
+	private void logChange(int slot, int epoch){
+		int entry = changeCount % CHANGE_LOG_SIZE;
+		if(changeCount >= CHANGE_LOG_SIZE){
+			loggedFrom = Math.max(loggedFrom, changeEpochs[entry]);//the overwritten change is lost
+		}
+		System.arraycopy(footprints, slot * FOOTPRINT_STRIDE, changeLog, entry * FOOTPRINT_STRIDE, FOOTPRINT_STRIDE);
+		changeEpochs[entry] = epoch;
+		changeCount++;
+	}//end of logChange method
+
+	/**
+	 * Returns a free slot for a new object, growing the slot arrays
+	 * as needed.
+	 *
+	 * @return the slot.
+	 */
+	private int allocateSlot(){
+		int returnValue;
+		if(freeCount > 0){
+			returnValue = freeSlots[--freeCount];
+		}
+		else{
+			if(slotCount == occupants.length){
+				int newLength = occupants.length * 2;
+				EnvironmentObject[] newOccupants = new EnvironmentObject[newLength];
+				System.arraycopy(occupants, 0, newOccupants, 0, occupants.length);
+				occupants = newOccupants;
+				int[] newFootprints = new int[newLength * FOOTPRINT_STRIDE];
+				System.arraycopy(footprints, 0, newFootprints, 0, footprints.length);
+				footprints = newFootprints;
+				int[] newFree = new int[newLength];
+				System.arraycopy(freeSlots, 0, newFree, 0, freeSlots.length);
+				freeSlots = newFree;
+			}
+			returnValue = slotCount++;
+		}
+		return returnValue;
+	}//end of allocateSlot method
+
+	/**
+	 * Calculates and stores the range of cells covered by the world
+	 * bounds of the specified object.
+	 *
+	 * @param obj the object.
+	 * @param slot the slot of the object.
+	 */
+	private void computeFootprint(EnvironmentObject obj, int slot){
+		BoundingVolume bound = obj.getObj().getWorldBound();
+		Vector3f center = obj.getLoc();
+		float extentX = 0;
+		float extentY = 0;
+		float extentZ = 0;
+		if(bound instanceof BoundingBox){
+			BoundingBox box = (BoundingBox)bound;
+			center = box.getCenter();
+			extentX = box.getXExtent();
+			extentY = box.getYExtent();
+			extentZ = box.getZExtent();
+		}
+		else if(bound instanceof BoundingSphere){
+			BoundingSphere sphere = (BoundingSphere)bound;
+			center = sphere.getCenter();
+			extentX = sphere.getRadius();
+			extentY = extentX;
+			extentZ = extentX;
+		}
+		int base = slot * FOOTPRINT_STRIDE;
+		footprints[base] = toCellX(center.x - extentX);
+		footprints[base + 1] = toCellY(center.y - extentY);
+		footprints[base + 2] = toCellZ(center.z - extentZ);
+		footprints[base + 3] = toCellX(center.x + extentX);
+		footprints[base + 4] = toCellY(center.y + extentY);
+		footprints[base + 5] = toCellZ(center.z + extentZ);
+	}//end of computeFootprint method
+
+	/**
+	 * Marks every cell within the footprint of the specified slot as
+	 * filled by that slot.
+	 *
+	 * @param slot the slot to stamp.
+	 */
+	private void stamp(int slot){
+		int base = slot * FOOTPRINT_STRIDE;
+		short value = (short)(slot + 1);
+		for(int i=footprints[base]; i<=footprints[base + 3]; i++){
+			for(int j=footprints[base + 1]; j<=footprints[base + 4]; j++){
+				for(int k=footprints[base + 2]; k<=footprints[base + 5]; k++){
+					occupancy[cellIndex(i, j, k)] = value;
+				}
+			}
+		}
+	}//end of stamp method
+
+	/**
+	 * Releases every cell filled by the specified slot. Other objects
+	 * whose footprints overlap the released cells are stamped again so
+	 * that cells they share remain blocked.
+	 *
+	 * @param slot the slot to clear.
+	 */
+	private void clear(int slot){
+		int base = slot * FOOTPRINT_STRIDE;
+		short value = (short)(slot + 1);
+		for(int i=footprints[base]; i<=footprints[base + 3]; i++){
+			for(int j=footprints[base + 1]; j<=footprints[base + 4]; j++){
+				for(int k=footprints[base + 2]; k<=footprints[base + 5]; k++){
+					int cell = cellIndex(i, j, k);
+					if(occupancy[cell] == value){
+						occupancy[cell] = EMPTY;
 					}
 				}
 			}
 		}
-	}//end of update method
+		for(int other=0; other<slotCount; other++){
+			if(other != slot && occupants[other] != null && footprintsOverlap(slot, other)){
+				stamp(other);
+			}
+		}
+	}//end of clear method
+
+	/**
+	 * Returns whether or not the footprints of the two specified slots
+	 * share any cells.
+	 *
+	 * @param a the first slot.
+	 * @param b the second slot.
+	 * @return true if the footprints overlap, false otherwise.
+	 */
+	private boolean footprintsOverlap(int a, int b){
+		int baseA = a * FOOTPRINT_STRIDE;
+		int baseB = b * FOOTPRINT_STRIDE;
+		boolean returnValue = true;
+		for(int axis=0; axis<3; axis++){
+			if(footprints[baseA + axis] > footprints[baseB + axis + 3] ||
+					footprints[baseB + axis] > footprints[baseA + axis + 3]){
+				returnValue = false;
+				break;
+			}
+		}
+		return returnValue;
+	}//end of footprintsOverlap method
+
+	/**
+	 * Clamps the specified grid coordinate to the bounds of the grid.
+	 *
+	 * @param value the grid coordinate.
+	 * @return the clamped coordinate.
+	 */
+	private int clampCell(int value){
+		int returnValue = value;
+		if(returnValue < 0){
+			returnValue = 0;
+		}
+		else if(returnValue >= SIZE){
+			returnValue = SIZE - 1;
+		}
+		return returnValue;
+	}//end of clampCell method
 	
 	//---------------------static main---------------------------------
 	//---------------------static methods------------------------------
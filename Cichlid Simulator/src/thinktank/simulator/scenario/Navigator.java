@@ -0,0 +1,142 @@
+package thinktank.simulator.scenario;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Navigation service over the cells of a <code>Grid</code>. Paths are
+ * answered from flow fields, which are cached per target cell and
+ * recomputed when the grid's occupancy map changes, so each step costs the
+ * same regardless of how many fish share a target.
+ *
+ * @author Vasher Lor
+ * @version %I%, %G%
+ */
+public class Navigator{
+	//---------------------static constants----------------------------
+	/**
+	 * Constant value for the maximum number of flow fields kept in the cache.
+	 */
+	private static final int CACHE_SIZE = 16;
+
+	//---------------------static variables----------------------------
+	//---------------------instance constants--------------------------
+	/**
+	 * The grid the navigator works over.
+	 */
+	private final Grid grid;
+	/**
+	 * The cached flow fields, keyed by target cell, in least recently used
+	 * order.
+	 */
+	private final LinkedHashMap<Integer,FlowField> fields;
+
+	//---------------------instance variables--------------------------
+	/**
+	 * A field evicted from the cache, kept to be reused for the next target.
+	 */
+	private FlowField spare;
+
+	//---------------------constructors--------------------------------
+	/**
+	 * Constructs a new navigator for the specified grid.
+	 *
+	 * @param grid the grid to navigate.
+	 */
+	public Navigator(Grid grid){
+		this.grid = grid;
+		fields = new LinkedHashMap<Integer,FlowField>(CACHE_SIZE, 0.75f, true){
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Integer,FlowField> eldest){
+				boolean returnValue = size() > CACHE_SIZE;
+				if(returnValue){
+					spare = eldest.getValue();
+				}
+				return returnValue;
+			}//end of removeEldestEntry method
+		};
+		spare = null;
+	}//end of constructor
+
+	//---------------------instance methods----------------------------
+	//GETTERS
+	/**
+	 * Returns the flow field leading to the specified target cell, computing
+	 * it if it is not cached or the grid's obstacles have changed.
+	 *
+	 * @param target the target cell index.
+	 * @return the flow field.
+	 */
+	public FlowField getFlowField(int target){
+		FlowField returnValue = fields.get(target);
+		if(returnValue == null){
+			if(spare != null){
+				returnValue = spare;
+				spare = null;
+			}
+			else{
+				returnValue = new FlowField(grid);
+			}
+			returnValue.compute(target);
+			fields.put(target, returnValue);
+		}
+		else if(!returnValue.isCurrent()){
+			returnValue.compute(target);
+		}
+		return returnValue;
+	}//end of getFlowField method
+
+	//OPERATIONS
+	/**
+	 * Returns the next cell on the shortest obstacle-free path from one cell
+	 * to another.
+	 *
+	 * @param from the current cell index.
+	 * @param target the target cell index.
+	 * @return the next cell index, or <code>from</code> if the target is
+	 * reached or unreachable.
+	 */
+	public int stepToward(int from, int target){
+		return getFlowField(target).getNextCell(from);
+	}//end of stepToward method
+
+	/**
+	 * Returns the free neighbor of a cell that is farthest, by path distance,
+	 * from the specified threat cell.
+	 *
+	 * @param from the current cell index.
+	 * @param threat the cell index to move away from.
+	 * @return the next cell index, or <code>from</code> if no neighbor is
+	 * farther from the threat.
+	 */
+	public int stepAway(int from, int threat){
+		FlowField field = getFlowField(threat);
+		int returnValue = from;
+		float best = field.getDistance(from);
+		int neighbors = grid.getNeighborCount();
+		for(int n=0; n<neighbors; n++){
+			int neighbor = grid.getNeighbor(from, n);
+			if(neighbor != -1 && !grid.isBlocked(neighbor)){
+				float value = field.getDistance(neighbor);
+				if(value > best && value != Float.POSITIVE_INFINITY){
+					best = value;
+					returnValue = neighbor;
+				}
+			}
+		}
+		return returnValue;
+	}//end of stepAway method
+
+	/**
+	 * Removes all flow fields from the cache.
+	 */
+	public void clear(){
+		fields.clear();
+		spare = null;
+	}//end of clear method
+
+	//---------------------static main---------------------------------
+	//---------------------static methods------------------------------
+}//end of Navigator class
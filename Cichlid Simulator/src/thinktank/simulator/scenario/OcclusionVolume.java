@@ -0,0 +1,292 @@
+package thinktank.simulator.scenario;
+
+import com.jme3.bounding.BoundingBox;
+import com.jme3.bounding.BoundingSphere;
+import com.jme3.bounding.BoundingVolume;
+import com.jme3.math.Vector3f;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.SceneGraphVisitorAdapter;
+
+import thinktank.simulator.entity.EnvironmentObject;
+import thinktank.simulator.entity.Plant;
+
+/**
+ * Voxelized opacity of the environment objects in a <code>Grid</code>, used
+ * to answer line-of-sight queries without casting rays into the scene.
+ *
+ * The volume subdivides each grid cell into <code>RESOLUTION</code> voxels
+ * per axis, and marks every voxel whose center lies inside the world bound
+ * of one of an object's geometries. Visibility between two points is the
+ * fraction of light passing through the voxels along the line between them,
+ * found by a 3D digital differential analyzer walk.
+ *
+ * The volume is rebuilt when the grid's obstacle epoch changes, so it is
+ * computed once for a run in which the environment objects do not move.
+ *
+ * @author Vasher Lor
+ * @version %I%, %G%
+ */
+public class OcclusionVolume{
+	//---------------------static constants----------------------------
+	/**
+	 * Constant value for the number of voxels per grid cell on each axis.
+	 */
+	private static final int RESOLUTION = 2;
+	/**
+	 * Constant value for the opacity of a pot voxel, from 0 to 1.
+	 */
+	private static final float POT_OPACITY = 1f;
+	/**
+	 * Constant value for the opacity of a plant voxel, from 0 to 1. Plants
+	 * are only partially opaque since light passes between the leaves.
+	 */
+	private static final float PLANT_OPACITY = 0.5f;
+	/**
+	 * Constant value for the transmittance below which a line is
+	 * considered fully blocked.
+	 */
+	private static final float MIN_TRANSMITTANCE = 0.005f;
+
+	//---------------------static variables----------------------------
+	//---------------------instance constants--------------------------
+	/**
+	 * The grid the volume is built from.
+	 */
+	private final Grid grid;
+	/**
+	 * The number of voxels on each axis.
+	 */
+	private final int dim;
+	/**
+	 * The fraction of light passing through each voxel, from 0 to 1.
+	 */
+	private final float[] transmittance;
+
+	//---------------------instance variables--------------------------
+	/**
+	 * The world X-coordinate of the low corner of the volume.
+	 */
+	private float minX;
+	/**
+	 * The world Y-coordinate of the low corner of the volume.
+	 */
+	private float minY;
+	/**
+	 * The world Z-coordinate of the low corner of the volume.
+	 */
+	private float minZ;
+	/**
+	 * The size of a voxel on the X-axis, in world units.
+	 */
+	private float voxelX;
+	/**
+	 * The size of a voxel on the Y-axis, in world units.
+	 */
+	private float voxelY;
+	/**
+	 * The size of a voxel on the Z-axis, in world units.
+	 */
+	private float voxelZ;
+	/**
+	 * The obstacle epoch of the grid when the volume was built.
+	 */
+	private int epoch;
+
+	//---------------------constructors--------------------------------
+	/**
+	 * Constructs a new occlusion volume for the specified grid. The volume
+	 * is built on its first query.
+	 *
+	 * @param grid the grid to build the volume from.
+	 */
+	public OcclusionVolume(Grid grid){
+		this.grid = grid;
+		dim = grid.getSize() * RESOLUTION;
+		transmittance = new float[dim * dim * dim];
+		epoch = -1;
+	}//end of constructor
+
+	//---------------------instance methods----------------------------
+	//OPERATIONS
+	/**
+	 * Returns a value (0-100) representing the visibility between the two
+	 * specified points. A value of 0 is fully obstructed, while a value of
+	 * 100 is fully clear. The voxels containing the points themselves are
+	 * not counted.
+	 *
+	 * @param from the world position of the viewer.
+	 * @param to the world position of the target.
+	 * @return the visibility value.
+	 */
+	public int visibility(Vector3f from, Vector3f to){
+		if(epoch != grid.getObstacleEpoch()){
+			rebuild();
+		}
+		float gx0 = (from.x - minX) / voxelX;
+		float gy0 = (from.y - minY) / voxelY;
+		float gz0 = (from.z - minZ) / voxelZ;
+		float dx = (to.x - minX) / voxelX - gx0;
+		float dy = (to.y - minY) / voxelY - gy0;
+		float dz = (to.z - minZ) / voxelZ - gz0;
+		int x = clampVoxel((int)Math.floor(gx0));
+		int y = clampVoxel((int)Math.floor(gy0));
+		int z = clampVoxel((int)Math.floor(gz0));
+		int endX = clampVoxel((int)Math.floor(gx0 + dx));
+		int endY = clampVoxel((int)Math.floor(gy0 + dy));
+		int endZ = clampVoxel((int)Math.floor(gz0 + dz));
+		int stepX = dx > 0 ? 1 : (dx < 0 ? -1 : 0);
+		int stepY = dy > 0 ? 1 : (dy < 0 ? -1 : 0);
+		int stepZ = dz > 0 ? 1 : (dz < 0 ? -1 : 0);
+		float tDeltaX = stepX != 0 ? Math.abs(1 / dx) : Float.POSITIVE_INFINITY;
+		float tDeltaY = stepY != 0 ? Math.abs(1 / dy) : Float.POSITIVE_INFINITY;
+		float tDeltaZ = stepZ != 0 ? Math.abs(1 / dz) : Float.POSITIVE_INFINITY;
+		float tMaxX = firstCrossing(gx0, x, stepX, dx);
+		float tMaxY = firstCrossing(gy0, y, stepY, dy);
+		float tMaxZ = firstCrossing(gz0, z, stepZ, dz);
+		float light = 1;
+		while(light > MIN_TRANSMITTANCE){
+			float t;//fraction of the line at which the next voxel is entered
+			if(tMaxX <= tMaxY && tMaxX <= tMaxZ){
+				t = tMaxX;
+				x += stepX;
+				tMaxX += tDeltaX;
+			}
+			else if(tMaxY <= tMaxZ){
+				t = tMaxY;
+				y += stepY;
+				tMaxY += tDeltaY;
+			}
+			else{
+				t = tMaxZ;
+				z += stepZ;
+				tMaxZ += tDeltaZ;
+			}
+			if(t >= 1 || x < 0 || x >= dim || y < 0 || y >= dim || z < 0 || z >= dim ||
+					(x == endX && y == endY && z == endZ)){
+				break;
+			}
+			light *= transmittance[(x * dim + y) * dim + z];
+		}
+		int returnValue = 0;
+		if(light > MIN_TRANSMITTANCE){
+			returnValue = Math.round(light * 100);
+		}
+		return returnValue;
+	}//end of visibility method
+
+	/**
+	 * Recomputes the volume from the environment objects in the grid.
+	 */
+	public void rebuild(){
+		voxelX = grid.getXIncr() / RESOLUTION;
+		voxelY = grid.getYIncr() / RESOLUTION;
+		voxelZ = grid.getZIncr() / RESOLUTION;
+		minX = grid.getOriginX() - grid.getXIncr() / 2;
+		minY = grid.getOriginY() - grid.getYIncr() / 2;
+		minZ = grid.getOriginZ() - grid.getZIncr() / 2;
+		for(int voxel=0; voxel<transmittance.length; voxel++){
+			transmittance[voxel] = 1;
+		}
+		for(int slot=0; slot<grid.getSlotCount(); slot++){
+			EnvironmentObject obj = grid.getSlotObject(slot);
+			if(obj != null && obj.getObj() != null){
+				final float opacity = obj instanceof Plant ? PLANT_OPACITY : POT_OPACITY;
+				obj.getObj().depthFirstTraversal(new SceneGraphVisitorAdapter(){
+					@Override
+					public void visit(Geometry geom){
+						if(geom.getWorldBound() != null){
+							mark(geom.getWorldBound(), opacity);
+						}
+					}//end of visit method
+				});
+			}
+		}
+		epoch = grid.getObstacleEpoch();
+	}//end of rebuild method
+
+	/**
+	 * Marks every voxel whose center lies inside the specified bound with
+	 * the specified opacity, keeping the most opaque value per voxel.
+	 *
+	 * @param bound the world bound.
+	 * @param opacity the opacity, from 0 to 1.
+	 */
+	private void mark(BoundingVolume bound, float opacity){
+		Vector3f center = bound.getCenter();
+		float extentX = 0;
+		float extentY = 0;
+		float extentZ = 0;
+		if(bound instanceof BoundingBox){
+			BoundingBox box = (BoundingBox)bound;
+			extentX = box.getXExtent();
+			extentY = box.getYExtent();
+			extentZ = box.getZExtent();
+		}
+		else if(bound instanceof BoundingSphere){
+			extentX = ((BoundingSphere)bound).getRadius();
+			extentY = extentX;
+			extentZ = extentX;
+		}
+		int lowX = clampVoxel((int)Math.floor((center.x - extentX - minX) / voxelX));
+		int lowY = clampVoxel((int)Math.floor((center.y - extentY - minY) / voxelY));
+		int lowZ = clampVoxel((int)Math.floor((center.z - extentZ - minZ) / voxelZ));
+		int highX = clampVoxel((int)Math.floor((center.x + extentX - minX) / voxelX));
+		int highY = clampVoxel((int)Math.floor((center.y + extentY - minY) / voxelY));
+		int highZ = clampVoxel((int)Math.floor((center.z + extentZ - minZ) / voxelZ));
+		float clear = 1 - opacity;
+		Vector3f point = new Vector3f();
+		for(int x=lowX; x<=highX; x++){
+			for(int y=lowY; y<=highY; y++){
+				for(int z=lowZ; z<=highZ; z++){
+					point.set(minX + (x + 0.5f) * voxelX, minY + (y + 0.5f) * voxelY, minZ + (z + 0.5f) * voxelZ);
+					int voxel = (x * dim + y) * dim + z;
+					if(clear < transmittance[voxel] && bound.intersects(point)){
+						transmittance[voxel] = clear;
+					}
+				}
+			}
+		}
+	}//end of mark method
+
+	/**
+	 * Returns the fraction of the line at which it first crosses a voxel
+	 * boundary on one axis.
+	 *
+	 * @param start the starting voxel coordinate.
+	 * @param voxel the starting voxel.
+	 * @param step the direction of travel on the axis.
+	 * @param delta the change in voxel coordinate along the whole line.
+	 * @return the fraction of the line, infinite if the line does not
+	 * travel on the axis.
+	 */
+	private float firstCrossing(float start, int voxel, int step, float delta){
+		float returnValue = Float.POSITIVE_INFINITY;
+		if(step > 0){
+			returnValue = (voxel + 1 - start) / delta;
+		}
+		else if(step < 0){
+			returnValue = (start - voxel) / -delta;
+		}
+		return returnValue;
+	}//end of firstCrossing method
+
+	/**
+	 * Clamps the specified voxel coordinate to the bounds of the volume.
+	 *
+	 * @param value the voxel coordinate.
+	 * @return the clamped coordinate.
+	 */
+	private int clampVoxel(int value){
+		int returnValue = value;
+		if(returnValue < 0){
+			returnValue = 0;
+		}
+		else if(returnValue >= dim){
+			returnValue = dim - 1;
+		}
+		return returnValue;
+	}//end of clampVoxel method
+
+	//---------------------static main---------------------------------
+	//---------------------static methods------------------------------
+}//end of OcclusionVolume class
@@ -5,10 +5,10 @@ import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.ObjectStreamException;
 import java.io.Serializable;
-import java.util.ArrayList;
 import java.util.Iterator;
 
 import com.jme3.scene.Node;
+import com.jme3.scene.Spatial;
 
 import thinktank.simulator.entity.Cichlid;
 import thinktank.simulator.entity.Entity;
@@ -17,10 +17,17 @@ import thinktank.simulator.entity.Fish;
 import thinktank.simulator.environment.Environment;
 import thinktank.simulator.environment.Tank;
 import thinktank.simulator.main.Main;
+import thinktank.simulator.main.SimulationContext;
+import thinktank.simulator.scenario.EntityRegistry.ENTITY_GROUP;
 
 /**
  * Manages the various objects and values which compose a given scenario. 
  * 
+ * The fish and environment objects are published as <code>EntityView</code> 
+ * snapshots, replaced whenever they are added or removed, so they can be 
+ * read from any thread and looped over without allocating. Changes to 
+ * them are synchronized on the scenario.
+ * 
  * @author Bob Thompson
  * @version %I%, %G%
  */
@@ -49,13 +56,26 @@ public class Scenario implements Serializable{
 	 */
 	private Environment environ;
 	/**
-	 * The list of objects within the environment for the scenario.
+	 * The context in which the scenario is simulated.
+	 */
+	private SimulationContext context;
+	/**
+	 * The registry of the fish and environment objects within the scenario, 
+	 * owned by the simulation context.
+	 */
+	private EntityRegistry registry;
+	/**
+	 * The current snapshot of the fish within the scenario.
 	 */
-	private ArrayList<EnvironmentObject> environObjs;
+	private volatile EntityView<Fish> fishView;
 	/**
-	 * The list of fish within the scenario.
+	 * The current snapshot of the environment objects within the scenario.
 	 */
-	private ArrayList<Fish> fish;
+	private volatile EntityView<EnvironmentObject> environmentObjectView;
+	/**
+	 * The number of views published so far.
+	 */
+	private int viewEpoch;
 	/**
 	 * The base node for the scenario to which all entities are attached.
 	 */
@@ -143,17 +163,75 @@ public class Scenario implements Serializable{
 	 * @return an iterator over the environment objects in this scenario.
 	 */
 	public Iterator<EnvironmentObject> getEnvironmentObjects(){
-		return environObjs.iterator();
+		return environmentObjectView.iterator();
 	}//end of getEnvironmentObjects method
 
+	/**
+	 * Returns the current snapshot of the environment objects in this 
+	 * scenario. Later changes to the scenario do not affect the snapshot.
+	 * 
+	 * @return the environment object view.
+	 */
+	public EntityView<EnvironmentObject> getEnvironmentObjectView(){
+		return environmentObjectView;
+	}//end of getEnvironmentObjectView method
+
+	/**
+	 * Returns the number of environment objects in this scenario.
+	 * 
+	 * @return the number of environment objects.
+	 */
+	public int getEnvironmentObjectCount(){
+		return environmentObjectView.size();
+	}//end of getEnvironmentObjectCount method
+
 	/**
 	 * Returns an iterator over the fish in this scenario.
 	 * 
 	 * @return an iterator over the fish in this scenario.
 	 */
 	public Iterator<Fish> getFish(){
-		return fish.iterator();
+		return fishView.iterator();
 	}//end of getFish method
+
+	/**
+	 * Returns the current snapshot of the fish in this scenario. Later 
+	 * changes to the scenario do not affect the snapshot.
+	 * 
+	 * @return the fish view.
+	 */
+	public EntityView<Fish> getFishView(){
+		return fishView;
+	}//end of getFishView method
+
+	/**
+	 * Returns the number of fish in this scenario.
+	 * 
+	 * @return the number of fish.
+	 */
+	public int getFishCount(){
+		return fishView.size();
+	}//end of getFishCount method
+
+	/**
+	 * Returns whether or not the specified fish is in the scenario.
+	 * 
+	 * @param fish the fish.
+	 * @return true if the fish is in the scenario, false otherwise.
+	 */
+	public synchronized boolean containsFish(Fish fish){
+		return registry.contains(fish);
+	}//end of containsFish method
+
+	/**
+	 * Returns the registry of the entities in this scenario. Access to the 
+	 * registry must be synchronized on the scenario.
+	 * 
+	 * @return the entity registry.
+	 */
+	public EntityRegistry getRegistry(){
+		return registry;
+	}//end of getRegistry method
 	
 	/**
 	 * Gets the root node for entities in this scenario.
@@ -165,29 +243,35 @@ public class Scenario implements Serializable{
 	}//end of getEntityNode method
 	
 	/**
-	 * Get the entity with the specified name on its geometry.
+	 * Get the entity whose model contains the specified spatial, such as 
+	 * a geometry hit by a ray.
 	 * 
-	 * @param geometryName the name of the geometry of the returned entity. 
-	 * @return the entity with the specified name on its geometry.
+	 * @param spatial the spatial that is part of the returned entity's model.
+	 * @return the entity, null if the spatial is not part of any entity.
 	 */
-	public Entity getEntity(String geometryName){
-		Entity returnValue = null;
-		for(EnvironmentObject entity : environObjs){
-			if(geometryName.startsWith(entity.getName())){
-				returnValue = entity;
-				break;
-			}
-		}
-		if(returnValue == null){
-			for(Fish entity : fish){
-				if(geometryName.startsWith(entity.getName())){
-					returnValue = entity;
-					break;
-				}
-			}
-		}
-		return returnValue;
-	}//end of getEntity(String) method
+	public synchronized Entity getEntity(Spatial spatial){
+		return registry.get(registry.getHandle(spatial));
+	}//end of getEntity(Spatial) method
+
+	/**
+	 * Get the entity with the specified handle.
+	 * 
+	 * @param handle the handle of the entity.
+	 * @return the entity, null if no entity has the handle.
+	 */
+	public synchronized Entity getEntity(int handle){
+		return registry.get(handle);
+	}//end of getEntity(int) method
+
+	/**
+	 * Get the entity with the specified ID.
+	 * 
+	 * @param id the ID of the entity.
+	 * @return the entity, null if no entity has the ID.
+	 */
+	public synchronized Entity getEntityByID(long id){
+		return registry.get(registry.getHandle(id));
+	}//end of getEntityByID method
 	
 	/**
 	 * Returns a reference to the currently selected entity.
@@ -226,6 +310,24 @@ public class Scenario implements Serializable{
 		return hasPlayer;
 	}//end of hasPlayer method
 	
+	/**
+	 * Returns the grid for this scenario.
+	 * 
+	 * @return the grid, null if it has not been built.
+	 */
+	public Grid getGrid(){
+		return context.getGrid();
+	}//end of getGrid method
+
+	/**
+	 * Returns the context in which this scenario is simulated.
+	 * 
+	 * @return the simulation context.
+	 */
+	public SimulationContext getContext(){
+		return context;
+	}//end of getContext method
+	
 	//SETTERS
 	/**
 	 * Sets the name of this scenario to the specified <code>String</code>.
@@ -303,23 +405,43 @@ public class Scenario implements Serializable{
 	 * @param obj the <code>EnvironmentObject</code> object for the 
 	 * environment object to be added.
 	 */
-	public void addEnvironmentObject(EnvironmentObject obj){
+	public synchronized void addEnvironmentObject(EnvironmentObject obj){
 		if(obj != null){
-			environObjs.add(obj);
-			Grid.update(obj);
+			obj.setContext(context);
+			registry.register(obj, ENTITY_GROUP.ENVIRONMENT_OBJECT);
+			publish(ENTITY_GROUP.ENVIRONMENT_OBJECT);
 			entityNode.attachChild(obj.getObj());
+			if(context.getGrid() != null){
+				context.getGrid().update(obj);
+			}
 		}
 	}//end of addEnvironmentObject method
+	
+	/**
+	 * Refreshes the cells occupied by the specified environment object. 
+	 * Should be called whenever an environment object in the scenario 
+	 * is moved or rotated.
+	 * 
+	 * @param obj the <code>EnvironmentObject</code> object that was moved.
+	 */
+	public void updateEnvironmentObject(EnvironmentObject obj){
+		if(obj != null && context.getGrid() != null){
+			context.getGrid().update(obj);
+		}
+	}//end of updateEnvironmentObject method
 
 	/**
 	 * Removes the specified environment object from the scene.
 	 * 
 	 * @param obj the <code>EnvironmentObject</code> object to be removed.
 	 */
-	public void removeEnvironmentObject(EnvironmentObject obj){
-		if(obj != null){
-			environObjs.remove(obj);
+	public synchronized void removeEnvironmentObject(EnvironmentObject obj){
+		if(obj != null && registry.unregister(obj)){
+			publish(ENTITY_GROUP.ENVIRONMENT_OBJECT);
 			entityNode.detachChild(obj.getObj());
+			if(context.getGrid() != null){
+				context.getGrid().remove(obj);
+			}
 		}
 	}//end of removeEnvironmentObject(EnvironmentObject) method
 
@@ -328,10 +450,9 @@ public class Scenario implements Serializable{
 	 * 
 	 * @param index the index of the environment object to be removed.
 	 */
-	public void removeEnvironmentObject(int index){
-		if(index > -1 && index < environObjs.size()){
-			entityNode.detachChild(environObjs.get(index).getObj());
-			environObjs.remove(index);
+	public synchronized void removeEnvironmentObject(int index){
+		if(index > -1 && index < environmentObjectView.size()){
+			removeEnvironmentObject(environmentObjectView.get(index));
 		}
 	}//end of removeEnvironmentObject(int) method
 	
@@ -340,9 +461,11 @@ public class Scenario implements Serializable{
 	 * 
 	 * @param fish the <code>Fish</code> object for the fish to be added.
 	 */
-	public void addFish(Fish fish){
+	public synchronized void addFish(Fish fish){
 		if(fish != null){
-			this.fish.add(fish);
+			fish.setContext(context);
+			registry.register(fish, ENTITY_GROUP.FISH);
+			publish(ENTITY_GROUP.FISH);
 			entityNode.attachChild(fish.getObj());
 		}
 	}//end of addFish method
@@ -352,9 +475,9 @@ public class Scenario implements Serializable{
 	 * 
 	 * @param fish the <code>Fish</code> object for the fish to be removed.
 	 */
-	public void removeFish(Fish fish){
-		if(fish != null){
-			this.fish.remove(fish);
+	public synchronized void removeFish(Fish fish){
+		if(fish != null && registry.unregister(fish)){
+			publish(ENTITY_GROUP.FISH);
 			entityNode.detachChild(fish.getObj());
 		}
 	}//end of removeFish(Fish) method
@@ -364,10 +487,9 @@ public class Scenario implements Serializable{
 	 * 
 	 * @param index the index of the fish to be removed.
 	 */
-	public void removeFish(int index){
-		if(index > -1 && index < fish.size()){
-			entityNode.detachChild(fish.get(index).getObj());
-			fish.remove(index);
+	public synchronized void removeFish(int index){
+		if(index > -1 && index < fishView.size()){
+			removeFish(fishView.get(index));
 		}
 	}//end of removeFish(int) method
 
@@ -375,7 +497,9 @@ public class Scenario implements Serializable{
 	 * Removes the ghosts from all cichlids in the scenario.
 	 */
 	public void clearGhosts(){
-		for(Fish fish : this.fish){
+		EntityView<Fish> view = fishView;
+		for(int i=0; i<view.size(); i++){
+			Fish fish = view.get(i);
 			if(fish instanceof Cichlid){
 				Cichlid cichlid = (Cichlid)fish;
 				cichlid.removeGhost();
@@ -386,12 +510,15 @@ public class Scenario implements Serializable{
 	/**
 	 * Sets up the scenario.
 	 */
-	public void init(){
+	public synchronized void init(){
 		id = Main.RNG.nextLong();
 		name = DEFAULT_NEW_SCENARIO_NAME;
 		environ = null;
-		environObjs = new ArrayList<EnvironmentObject>();
-		fish = new ArrayList<Fish>();
+		context = new SimulationContext(this);
+		registry = context.getRegistry();
+		viewEpoch = 0;
+		publish(ENTITY_GROUP.FISH);
+		publish(ENTITY_GROUP.ENVIRONMENT_OBJECT);
 		selectedEntity = null;
 		movingMode = false;
 		editingMode = false;
@@ -406,6 +533,22 @@ public class Scenario implements Serializable{
 		environ = new Environment();
 		entityNode = new Node();
 	}//end of setupEnvironment method
+
+	/**
+	 * Publishes a new view of the specified group. Should be called after 
+	 * every change to the group, while synchronized on the scenario.
+	 * 
+	 * @param group the group that changed.
+	 */
+	private void publish(ENTITY_GROUP group){
+		viewEpoch++;
+		if(group == ENTITY_GROUP.FISH){
+			fishView = new EntityView<Fish>(registry.toArray(group), viewEpoch);
+		}
+		else{
+			environmentObjectView = new EntityView<EnvironmentObject>(registry.toArray(group), viewEpoch);
+		}
+	}//end of publish method
 	
 	/**
 	 * Indicates whether some other object is "equal to" this one.
@@ -460,13 +603,15 @@ public class Scenario implements Serializable{
 		stream.writeLong(id);
 		stream.writeObject(name);
 		stream.writeObject(environ);
-		stream.writeInt(environObjs.size());
-		for(EnvironmentObject obj : environObjs){
-			stream.writeObject(obj);
+		EntityView<EnvironmentObject> objects = environmentObjectView;
+		stream.writeInt(objects.size());
+		for(int i=0; i<objects.size(); i++){
+			stream.writeObject(objects.get(i));
 		}
+		EntityView<Fish> fish = fishView;
 		stream.writeInt(fish.size());
-		for(Fish fish : this.fish){
-			stream.writeObject(fish);
+		for(int j=0; j<fish.size(); j++){
+			stream.writeObject(fish.get(j));
 		}
 		stream.writeBoolean(hasPlayer);
 	}//end of writeObject method
@@ -0,0 +1,377 @@
+package thinktank.simulator.scenario;
+
+import com.jme3.math.Quaternion;
+import com.jme3.math.Vector3f;
+
+import thinktank.simulator.entity.Cichlid;
+import thinktank.simulator.entity.Cichlid.POSSIBLE_COLORS;
+import thinktank.simulator.entity.Cichlid.POSSIBLE_SIZES;
+import thinktank.simulator.entity.Entity;
+import thinktank.simulator.entity.EnvironmentObject;
+import thinktank.simulator.entity.Fish;
+import thinktank.simulator.environment.TANK_TYPE;
+import thinktank.simulator.environment.Tank;
+
+/**
+ * A single change to a scenario, such as adding, moving or removing an
+ * entity. Commands are created wherever a change is requested, submitted
+ * to the <code>ScenarioCommandQueue</code>, and applied between simulation
+ * ticks, so the scenario is never changed while the simulation reads it.
+ *
+ * Commands are created through the static factory methods, and copy any
+ * values they are given, so a command applies the values as they were when
+ * it was requested.
+ *
+ * @author Vasher Lor
+ * @version %I%, %G%
+ */
+public class ScenarioCommand{
+	/**
+	 * List of the kinds of change a command can make.
+	 */
+	public enum COMMAND_TYPE{
+		ADD_FISH,
+		ADD_ENVIRONMENT_OBJECT,
+		REMOVE_ENTITY,
+		TRANSLATE_ENTITY,
+		ROTATE_ENTITY,
+		SET_TANK,
+		SET_TEMPERATURE,
+		SET_COLOR,
+		SET_SIZE;
+	}//end of COMMAND_TYPE enum
+
+	//---------------------static constants----------------------------
+	//---------------------static variables----------------------------
+	//---------------------instance constants--------------------------
+	/**
+	 * The kind of change the command makes.
+	 */
+	private final COMMAND_TYPE type;
+	/**
+	 * The id of the scenario the command was created for.
+	 */
+	private final long scenarioID;
+	/**
+	 * The entity the command changes, null if it changes the environment.
+	 */
+	private final Entity entity;
+	/**
+	 * The translation, for <code>TRANSLATE_ENTITY</code> commands.
+	 */
+	private final Vector3f translation;
+	/**
+	 * The rotation, for <code>ROTATE_ENTITY</code> commands.
+	 */
+	private final Quaternion rotation;
+	/**
+	 * The new tank type, for <code>SET_TANK</code> commands.
+	 */
+	private final TANK_TYPE tankType;
+	/**
+	 * The new temperature, for <code>SET_TEMPERATURE</code> commands.
+	 */
+	private final float temperature;
+	/**
+	 * The new color, for <code>SET_COLOR</code> commands.
+	 */
+	private final POSSIBLE_COLORS color;
+	/**
+	 * The new size, for <code>SET_SIZE</code> commands.
+	 */
+	private final POSSIBLE_SIZES size;
+
+	//---------------------instance variables--------------------------
+	/**
+	 * The position of the command in the order of submission, set by the
+	 * queue.
+	 */
+	private long sequence;
+
+	//---------------------constructors--------------------------------
+	/**
+	 * Constructs a command with the specified values.
+	 *
+	 * @param type the kind of change.
+	 * @param scenario the scenario to change.
+	 * @param entity the entity to change, may be null.
+	 * @param translation the translation, may be null.
+	 * @param rotation the rotation, may be null.
+	 * @param tankType the tank type, may be null.
+	 * @param temperature the temperature.
+	 * @param color the color, may be null.
+	 * @param size the size, may be null.
+	 */
+	private ScenarioCommand(COMMAND_TYPE type, Scenario scenario, Entity entity, Vector3f translation, Quaternion rotation,
+			TANK_TYPE tankType, float temperature, POSSIBLE_COLORS color, POSSIBLE_SIZES size){
+		this.type = type;
+		this.scenarioID = scenario.getID();
+		this.entity = entity;
+		this.translation = (translation == null) ? null : translation.clone();
+		this.rotation = (rotation == null) ? null : rotation.clone();
+		this.tankType = tankType;
+		this.temperature = temperature;
+		this.color = color;
+		this.size = size;
+		sequence = -1;
+	}//end of constructor
+
+	//---------------------instance methods----------------------------
+	//GETTERS
+	/**
+	 * Returns the kind of change the command makes.
+	 *
+	 * @return the command type.
+	 */
+	public COMMAND_TYPE getType(){
+		return type;
+	}//end of getType method
+
+	/**
+	 * Returns the id of the scenario the command was created for.
+	 *
+	 * @return the scenario id.
+	 */
+	public long getScenarioID(){
+		return scenarioID;
+	}//end of getScenarioID method
+
+	/**
+	 * Returns the entity the command changes.
+	 *
+	 * @return the entity, null if the command changes the environment.
+	 */
+	public Entity getEntity(){
+		return entity;
+	}//end of getEntity method
+
+	/**
+	 * Returns the position of the command in the order of submission.
+	 *
+	 * @return the sequence number, -1 if the command has not been submitted.
+	 */
+	public long getSequence(){
+		return sequence;
+	}//end of getSequence method
+
+	//SETTERS
+	/**
+	 * Sets the position of the command in the order of submission. Should
+	 * only be called by the <code>ScenarioCommandQueue</code>.
+	 *
+	 * @param sequence the sequence number.
+	 */
+	void setSequence(long sequence){
+		this.sequence = sequence;
+	}//end of setSequence method
+
+	//OPERATIONS
+	/**
+	 * Applies the command to the specified scenario. Should only be called 
+	 * on the thread running the scenario's simulation, between ticks.
+	 *
+	 * @param scenario the scenario to change.
+	 * @return true if the command was applied, false if the command was
+	 * made for another scenario.
+	 */
+	public boolean apply(Scenario scenario){
+		boolean returnValue = false;
+		if(scenario != null && scenario.getID() == scenarioID){
+			switch(type){
+				case ADD_FISH:
+					scenario.addFish((Fish)entity);
+					break;
+				case ADD_ENVIRONMENT_OBJECT:
+					scenario.addEnvironmentObject((EnvironmentObject)entity);
+					break;
+				case REMOVE_ENTITY:
+					if(entity instanceof EnvironmentObject){
+						scenario.removeEnvironmentObject((EnvironmentObject)entity);
+					}
+					else if(entity instanceof Fish){
+						scenario.removeFish((Fish)entity);
+					}
+					break;
+				case TRANSLATE_ENTITY:
+					entity.translate(translation);
+					if(entity instanceof EnvironmentObject){
+						scenario.updateEnvironmentObject((EnvironmentObject)entity);
+					}
+					break;
+				case ROTATE_ENTITY:
+					entity.getObj().rotate(rotation);
+					if(entity instanceof EnvironmentObject){
+						scenario.updateEnvironmentObject((EnvironmentObject)entity);
+					}
+					break;
+				case SET_TANK:
+					scenario.getEnvironment().setTank(Tank.createTank(tankType));
+					scenario.getContext().buildGrid();
+					break;
+				case SET_TEMPERATURE:
+					scenario.getEnvironment().setTempCelcius(temperature);
+					break;
+				case SET_COLOR:
+					((Cichlid)entity).setColor(color);
+					break;
+				case SET_SIZE:
+					((Cichlid)entity).setSize(size);
+					break;
+			}
+			returnValue = true;
+		}
+		return returnValue;
+	}//end of apply method
+
+	/**
+	 * Returns a string describing the command, as recorded in the edit
+	 * journal.
+	 *
+	 * @return the description.
+	 */
+	@Override
+	public String toString(){
+		StringBuilder returnValue = new StringBuilder();
+		returnValue.append(sequence).append(' ').append(type);
+		if(entity != null){
+			returnValue.append(' ').append(entity.getClass().getSimpleName()).append(" #").append(entity.getID());
+		}
+		switch(type){
+			case TRANSLATE_ENTITY:
+				returnValue.append(' ').append(translation);
+				break;
+			case ROTATE_ENTITY:
+				returnValue.append(' ').append(rotation);
+				break;
+			case SET_TANK:
+				returnValue.append(' ').append(tankType);
+				break;
+			case SET_TEMPERATURE:
+				returnValue.append(' ').append(temperature);
+				break;
+			case SET_COLOR:
+				returnValue.append(' ').append(color);
+				break;
+			case SET_SIZE:
+				returnValue.append(' ').append(size);
+				break;
+			default:
+				break;
+		}
+		return returnValue.toString();
+	}//end of toString method
+
+	//---------------------static main---------------------------------
+	//---------------------static methods------------------------------
+	/**
+	 * Creates a command adding the specified fish to the specified scenario.
+	 * The fish should be fully set up, including its position, before the
+	 * command is submitted.
+	 *
+	 * @param scenario the scenario.
+	 * @param fish the fish to add.
+	 * @return the command.
+	 */
+	public static ScenarioCommand addFish(Scenario scenario, Fish fish){
+		return new ScenarioCommand(COMMAND_TYPE.ADD_FISH, scenario, fish, null, null, null, 0, null, null);
+	}//end of addFish method
+
+	/**
+	 * Creates a command adding the specified environment object to the
+	 * specified scenario. The object should be fully set up, including its
+	 * position, before the command is submitted.
+	 *
+	 * @param scenario the scenario.
+	 * @param obj the environment object to add.
+	 * @return the command.
+	 */
+	public static ScenarioCommand addEnvironmentObject(Scenario scenario, EnvironmentObject obj){
+		return new ScenarioCommand(COMMAND_TYPE.ADD_ENVIRONMENT_OBJECT, scenario, obj, null, null, null, 0, null, null);
+	}//end of addEnvironmentObject method
+
+	/**
+	 * Creates a command removing the specified entity from the specified
+	 * scenario.
+	 *
+	 * @param scenario the scenario.
+	 * @param entity the entity to remove.
+	 * @return the command.
+	 */
+	public static ScenarioCommand removeEntity(Scenario scenario, Entity entity){
+		return new ScenarioCommand(COMMAND_TYPE.REMOVE_ENTITY, scenario, entity, null, null, null, 0, null, null);
+	}//end of removeEntity method
+
+	/**
+	 * Creates a command moving the specified entity by the specified
+	 * translation.
+	 *
+	 * @param scenario the scenario.
+	 * @param entity the entity to move.
+	 * @param translation the translation, which is copied.
+	 * @return the command.
+	 */
+	public static ScenarioCommand translateEntity(Scenario scenario, Entity entity, Vector3f translation){
+		return new ScenarioCommand(COMMAND_TYPE.TRANSLATE_ENTITY, scenario, entity, translation, null, null, 0, null, null);
+	}//end of translateEntity method
+
+	/**
+	 * Creates a command rotating the specified entity by the specified
+	 * rotation.
+	 *
+	 * @param scenario the scenario.
+	 * @param entity the entity to rotate.
+	 * @param rotation the rotation, which is copied.
+	 * @return the command.
+	 */
+	public static ScenarioCommand rotateEntity(Scenario scenario, Entity entity, Quaternion rotation){
+		return new ScenarioCommand(COMMAND_TYPE.ROTATE_ENTITY, scenario, entity, null, rotation, null, 0, null, null);
+	}//end of rotateEntity method
+
+	/**
+	 * Creates a command replacing the tank of the specified scenario.
+	 *
+	 * @param scenario the scenario.
+	 * @param tankType the type of the new tank.
+	 * @return the command.
+	 */
+	public static ScenarioCommand setTank(Scenario scenario, TANK_TYPE tankType){
+		return new ScenarioCommand(COMMAND_TYPE.SET_TANK, scenario, null, null, null, tankType, 0, null, null);
+	}//end of setTank method
+
+	/**
+	 * Creates a command setting the water temperature of the specified
+	 * scenario.
+	 *
+	 * @param scenario the scenario.
+	 * @param temperature the temperature, in degrees Celsius.
+	 * @return the command.
+	 */
+	public static ScenarioCommand setTemperature(Scenario scenario, float temperature){
+		return new ScenarioCommand(COMMAND_TYPE.SET_TEMPERATURE, scenario, null, null, null, null, temperature, null, null);
+	}//end of setTemperature method
+
+	/**
+	 * Creates a command setting the color of the specified cichlid.
+	 *
+	 * @param scenario the scenario.
+	 * @param cichlid the cichlid.
+	 * @param color the new color.
+	 * @return the command.
+	 */
+	public static ScenarioCommand setColor(Scenario scenario, Cichlid cichlid, POSSIBLE_COLORS color){
+		return new ScenarioCommand(COMMAND_TYPE.SET_COLOR, scenario, cichlid, null, null, null, 0, color, null);
+	}//end of setColor method
+
+	/**
+	 * Creates a command setting the size of the specified cichlid.
+	 *
+	 * @param scenario the scenario.
+	 * @param cichlid the cichlid.
+	 * @param size the new size.
+	 * @return the command.
+	 */
+	public static ScenarioCommand setSize(Scenario scenario, Cichlid cichlid, POSSIBLE_SIZES size){
+		return new ScenarioCommand(COMMAND_TYPE.SET_SIZE, scenario, cichlid, null, null, null, 0, null, size);
+	}//end of setSize method
+
+}//end of ScenarioCommand class
@@ -0,0 +1,160 @@
+package thinktank.simulator.scenario;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Queue of the changes requested to the working scenario. Any thread may
+ * submit commands without blocking; the simulation thread applies them all
+ * at once between ticks, in the order they were submitted.
+ *
+ * Every applied command is also recorded in an edit journal, which holds
+ * descriptions of the most recent changes made to the working scenario
+ * since it was loaded. The journal keeps only the descriptions, so it holds
+ * no entities the scenario no longer has, and only up to
+ * <code>JOURNAL_CAPACITY</code> of them.
+ *
+ * @author Vasher Lor
+ * @version %I%, %G%
+ */
+public class ScenarioCommandQueue{
+	//---------------------static constants----------------------------
+	/**
+	 * Constant value for the most applied commands kept in the journal.
+	 */
+	public static final int JOURNAL_CAPACITY = 256;
+
+	//---------------------static variables----------------------------
+	//---------------------instance constants--------------------------
+	/**
+	 * The commands submitted but not yet applied. The queue is non-blocking,
+	 * so submitting never waits on the simulation.
+	 */
+	private final ConcurrentLinkedQueue<ScenarioCommand> pending;
+	/**
+	 * The descriptions of the most recent commands applied to the working
+	 * scenario, oldest first.
+	 */
+	private final ArrayDeque<String> journal;
+	/**
+	 * The sequence number of the next submitted command.
+	 */
+	private final AtomicLong nextSequence;
+
+	//---------------------instance variables--------------------------
+	/**
+	 * The number of commands dropped because their scenario was no longer
+	 * the working scenario.
+	 */
+	private long dropped;
+
+	//---------------------constructors--------------------------------
+	/**
+	 * Constructs a new, empty queue.
+	 */
+	public ScenarioCommandQueue(){
+		pending = new ConcurrentLinkedQueue<ScenarioCommand>();
+		journal = new ArrayDeque<String>();
+		nextSequence = new AtomicLong();
+		dropped = 0;
+	}//end of constructor
+
+	//---------------------instance methods----------------------------
+	//GETTERS
+	/**
+	 * Returns whether or not there are commands waiting to be applied.
+	 *
+	 * @return true if commands are pending, false otherwise.
+	 */
+	public boolean hasPending(){
+		return !pending.isEmpty();
+	}//end of hasPending method
+
+	/**
+	 * Returns the number of commands waiting to be applied. Takes time
+	 * proportional to the number of commands.
+	 *
+	 * @return the number of pending commands.
+	 */
+	public int getPendingCount(){
+		return pending.size();
+	}//end of getPendingCount method
+
+	/**
+	 * Returns the descriptions of the most recent commands applied to the
+	 * working scenario since it was loaded, oldest first. Should only be
+	 * called on the simulation thread.
+	 *
+	 * @return a copy of the edit journal.
+	 */
+	public List<String> getJournal(){
+		return Collections.unmodifiableList(new ArrayList<String>(journal));
+	}//end of getJournal method
+
+	/**
+	 * Returns the number of commands dropped because their scenario was no
+	 * longer the working scenario when they were applied.
+	 *
+	 * @return the number of dropped commands.
+	 */
+	public long getDropped(){
+		return dropped;
+	}//end of getDropped method
+
+	//OPERATIONS
+	/**
+	 * Submits the specified command, to be applied between the next two
+	 * simulation ticks. May be called from any thread.
+	 *
+	 * @param command the command.
+	 */
+	public void submit(ScenarioCommand command){
+		if(command != null){
+			command.setSequence(nextSequence.getAndIncrement());
+			pending.offer(command);
+		}
+	}//end of submit method
+
+	/**
+	 * Applies all pending commands to the specified scenario, in order, and 
+	 * records their descriptions in the journal, forgetting the oldest once 
+	 * it is full. Commands made for any other scenario are 
+	 * dropped. Should only be called on the simulation thread, between ticks.
+	 *
+	 * @param scenario the scenario to change.
+	 * @return the number of commands applied.
+	 */
+	public int applyPending(Scenario scenario){
+		int returnValue = 0;
+		ScenarioCommand command = pending.poll();
+		while(command != null){
+			if(command.apply(scenario)){
+				journal.addLast(command.toString());
+				if(journal.size() > JOURNAL_CAPACITY){
+					journal.removeFirst();
+				}
+				returnValue++;
+			}
+			else{
+				dropped++;
+			}
+			command = pending.poll();
+		}
+		return returnValue;
+	}//end of applyPending method
+
+	/**
+	 * Clears the edit journal. Should be called when the working scenario
+	 * is replaced.
+	 */
+	public void clearJournal(){
+		journal.clear();
+	}//end of clearJournal method
+
+	//---------------------static main---------------------------------
+	//---------------------static methods------------------------------
+}//end of ScenarioCommandQueue class
@@ -0,0 +1,375 @@
+package thinktank.simulator.scenario;
+
+import java.io.File;
+import java.util.Random;
+
+import com.jme3.math.Vector3f;
+
+import thinktank.simulator.entity.Cichlid;
+import thinktank.simulator.entity.EntityFactory;
+import thinktank.simulator.entity.EnvironmentObject;
+import thinktank.simulator.environment.TANK_TYPE;
+import thinktank.simulator.environment.Tank;
+import thinktank.simulator.main.SimulationSession;
+import thinktank.simulator.util.IPointFilter;
+import thinktank.simulator.util.PoissonDiskSampler;
+
+/**
+ * Generates scenarios of any size, for scale and stress testing. The pots
+ * and plants are spread over the floor of the tank, and the fish through
+ * the water left free by them, by Poisson-disk sampling, so no two
+ * entities of a kind are crowded together and generating takes time
+ * proportional to the number of entities.
+ *
+ * The sampling radius is chosen from the number of entities and the space
+ * they fill so that the box fills with somewhat more points than needed,
+ * and the entities are placed at a random selection of them. If too few
+ * points fit, the radius is shrunk and the box sampled again.
+ *
+ * Generation is repeatable: the same counts, tank and seed place the
+ * entities at the same positions, and give them the same starting values,
+ * since the context of the scenario is seeded from the generator before
+ * any entity is added to it.
+ *
+ * @author Vasher Lor
+ * @version %I%, %G%
+ */
+public class ScenarioGenerator{
+	//---------------------static constants----------------------------
+	/**
+	 * Constant value for the default tank type.
+	 */
+	public static final TANK_TYPE DEFAULT_TANK = TANK_TYPE.FIFTY_GAL;
+	/**
+	 * Constant value for the default water temperature, in degrees Celsius.
+	 */
+	public static final float DEFAULT_TEMPERATURE = 23.00f;
+	/**
+	 * Constant value for the margin kept between the environment objects
+	 * and the tank walls, in world units.
+	 */
+	public static final float WALL_MARGIN = 0.175f;
+	/**
+	 * Constant value for the margin kept between the fish and the walls,
+	 * floor and surface, in world units.
+	 */
+	public static final float FISH_MARGIN = 0.05f;
+	/**
+	 * Constant value for the share of the floor area each pot or plant is
+	 * given when choosing the radius. A maximal Poisson-disk sample of a
+	 * plane has about 0.87 points per squared radius, so this fills it with
+	 * about 1.4 times the points needed.
+	 */
+	private static final float FLOOR_FILL = 0.6f;
+	/**
+	 * Constant value for the share of the water volume each fish is given
+	 * when choosing the radius. A maximal sample of a volume has about 0.7
+	 * points per cubed radius, so this fills it with about 1.4 times the
+	 * points needed.
+	 */
+	private static final float VOLUME_FILL = 0.5f;
+	/**
+	 * Constant value for the factor by which the radius is shrunk when too
+	 * few points fit.
+	 */
+	private static final float SHRINK = 0.8f;
+	/**
+	 * Constant value for the number of times the box is sampled before the
+	 * points found are used, however few.
+	 */
+	private static final int MAX_PASSES = 8;
+	/**
+	 * Constant value for the number of points that may be sampled, as a
+	 * multiple of the number needed.
+	 */
+	private static final int POINT_LIMIT = 4;
+
+	//---------------------static variables----------------------------
+	//---------------------instance constants--------------------------
+	/**
+	 * The random number generator for the placement.
+	 */
+	private final Random rng;
+
+	//---------------------instance variables--------------------------
+	/**
+	 * The name of the generated scenario.
+	 */
+	private String name;
+	/**
+	 * The tank type of the generated scenario.
+	 */
+	private TANK_TYPE tankType;
+	/**
+	 * The number of fish to generate.
+	 */
+	private int fishCount;
+	/**
+	 * The number of plants to generate.
+	 */
+	private int plantCount;
+	/**
+	 * The number of pots to generate.
+	 */
+	private int potCount;
+	/**
+	 * The number of entities the last generation could not find room for.
+	 */
+	private int shortfall;
+
+	//---------------------constructors--------------------------------
+	/**
+	 * Constructs a new generator with the specified seed, for an empty
+	 * scenario in the default tank.
+	 *
+	 * @param seed the seed for the placement.
+	 */
+	public ScenarioGenerator(long seed){
+		rng = new Random(seed);
+		name = "Generated Scenario";
+		tankType = DEFAULT_TANK;
+		fishCount = 0;
+		plantCount = 0;
+		potCount = 0;
+		shortfall = 0;
+	}//end of constructor
+
+	//---------------------instance methods----------------------------
+	//GETTERS
+	/**
+	 * Returns the number of entities the last generated scenario is short
+	 * of the counts asked for, because the tank could not fit them.
+	 *
+	 * @return the number of entities missing.
+	 */
+	public int getShortfall(){
+		return shortfall;
+	}//end of getShortfall method
+
+	//SETTERS
+	/**
+	 * Sets the name of the generated scenario.
+	 *
+	 * @param name the name.
+	 */
+	public void setName(String name){
+		this.name = name;
+	}//end of setName method
+
+	/**
+	 * Sets the tank type of the generated scenario.
+	 *
+	 * @param tankType the tank type.
+	 */
+	public void setTankType(TANK_TYPE tankType){
+		this.tankType = tankType;
+	}//end of setTankType method
+
+	/**
+	 * Sets the number of fish to generate.
+	 *
+	 * @param fishCount the number of fish.
+	 */
+	public void setFishCount(int fishCount){
+		this.fishCount = Math.max(0, fishCount);
+	}//end of setFishCount method
+
+	/**
+	 * Sets the number of plants to generate.
+	 *
+	 * @param plantCount the number of plants.
+	 */
+	public void setPlantCount(int plantCount){
+		this.plantCount = Math.max(0, plantCount);
+	}//end of setPlantCount method
+
+	/**
+	 * Sets the number of pots to generate.
+	 *
+	 * @param potCount the number of pots.
+	 */
+	public void setPotCount(int potCount){
+		this.potCount = Math.max(0, potCount);
+	}//end of setPotCount method
+
+	//OPERATIONS
+	/**
+	 * Generates a scenario with the current settings. The asset manager
+	 * must have been set.
+	 *
+	 * @return the scenario.
+	 */
+	public Scenario generate(){
+		Scenario returnValue = Scenario.createScenario(name);
+		returnValue.getContext().setSeed(rng.nextLong());//plants and fish draw their starting values from it
+		returnValue.getEnvironment().setTempCelcius(DEFAULT_TEMPERATURE);
+		returnValue.getEnvironment().setTank(Tank.createTank(tankType));
+		Tank tank = returnValue.getEnvironment().getTank();
+		float halfDepth = tank.getWorldUnitDepth() / 2;
+		float halfWidth = tank.getWorldUnitWidth() / 2;
+		shortfall = 0;
+
+		//pots and plants share the floor
+		int objectCount = plantCount + potCount;
+		PoissonDiskSampler floor = new PoissonDiskSampler(-halfDepth + WALL_MARGIN, 0, -halfWidth + WALL_MARGIN,
+				halfDepth - WALL_MARGIN, 0, halfWidth - WALL_MARGIN, rng);
+		float[] points = samplePoints(floor, objectCount, FLOOR_FILL, null);
+		int placed = Math.min(objectCount, points.length / PoissonDiskSampler.STRIDE);
+		for(int i=0; i<placed; i++){
+			EnvironmentObject obj = (i < plantCount) ? EntityFactory.createPlant() : EntityFactory.createPot();
+			obj.getObj().setLocalTranslation(points[i * PoissonDiskSampler.STRIDE], 0, points[i * PoissonDiskSampler.STRIDE + 2]);
+			returnValue.addEnvironmentObject(obj);
+		}
+		shortfall += objectCount - placed;
+
+		//fish fill the water the objects leave free
+		final Grid grid = new Grid(returnValue);
+		IPointFilter free = new IPointFilter(){
+			private final Vector3f point = new Vector3f();
+
+			@Override
+			public boolean accept(float x, float y, float z){
+				return !grid.isBlocked(grid.toCell(point.set(x, y, z)));
+			}//end of accept method
+		};
+		PoissonDiskSampler water = new PoissonDiskSampler(-halfDepth + FISH_MARGIN, FISH_MARGIN, -halfWidth + FISH_MARGIN,
+				halfDepth - FISH_MARGIN, tank.getWolrdUnitHeight() - FISH_MARGIN, halfWidth - FISH_MARGIN, rng);
+		points = samplePoints(water, fishCount, VOLUME_FILL, free);
+		placed = Math.min(fishCount, points.length / PoissonDiskSampler.STRIDE);
+		for(int i=0; i<placed; i++){
+			Cichlid fish = EntityFactory.createCichlid();
+			fish.getObj().setLocalTranslation(points[i * PoissonDiskSampler.STRIDE],
+					points[i * PoissonDiskSampler.STRIDE + 1], points[i * PoissonDiskSampler.STRIDE + 2]);
+			returnValue.addFish(fish);
+		}
+		shortfall += fishCount - placed;
+		return returnValue;
+	}//end of generate method
+
+	/**
+	 * Generates a scenario with the current settings and saves it to the
+	 * specified file.
+	 *
+	 * @param file the file, or the name of a scenario in the scenarios folder.
+	 * @return true if the scenario was saved, false otherwise.
+	 */
+	public boolean generate(File file){
+		return ScenarioIO.saveScenario(generate(), file);
+	}//end of generate(File) method
+
+	/**
+	 * Samples the specified box for the specified number of points, and
+	 * returns them in random order. Shrinks the radius until enough points
+	 * fit, or gives up after <code>MAX_PASSES</code> and returns the points
+	 * of the best pass.
+	 *
+	 * @param sampler the sampler for the box.
+	 * @param count the number of points needed.
+	 * @param fill the share of the box each point is given when choosing the radius.
+	 * @param filter the filter the points must pass, may be null.
+	 * @return the points, as consecutive x, y and z values.
+	 */
+	private float[] samplePoints(PoissonDiskSampler sampler, int count, float fill, IPointFilter filter){
+		float[] returnValue = new float[0];
+		if(count > 0 && sampler.getMeasure() > 0){
+			int limit = (int)Math.min(Integer.MAX_VALUE / PoissonDiskSampler.STRIDE, (long)count * POINT_LIMIT);
+			float[] points = new float[limit * PoissonDiskSampler.STRIDE];
+			double share = sampler.getMeasure() * fill / count;
+			float radius = (float)(sampler.isPlanar() ? Math.sqrt(share) : Math.cbrt(share));
+			int found = 0;
+			boolean fits = true;
+			for(int pass=0; pass<MAX_PASSES && found < count && fits; pass++){
+				int sampled = sampler.sample(radius, limit, filter, points);
+				fits = sampled > -1;//too small a radius for the background grid
+				if(fits){
+					found = sampled;
+				}
+				radius *= SHRINK;
+			}
+			//pick a random selection of the points, so they cover the whole box
+			for(int i=0; i<Math.min(count, found); i++){
+				swap(points, i, i + rng.nextInt(found - i));
+			}
+			returnValue = new float[Math.min(count, found) * PoissonDiskSampler.STRIDE];
+			System.arraycopy(points, 0, returnValue, 0, returnValue.length);
+		}
+		return returnValue;
+	}//end of samplePoints method
+
+	//---------------------static main---------------------------------
+	/**
+	 * Generates a scenario and saves it, with the settings given as
+	 * <code>name=value</code> arguments: <code>name</code>, <code>tank</code>
+	 * (a <code>TANK_TYPE</code>), <code>fish</code>, <code>plants</code>,
+	 * <code>pots</code>, <code>seed</code> and <code>out</code> (the file,
+	 * by default the name in the scenarios folder).
+	 *
+	 * @param args the settings.
+	 */
+	public static void main(String[] args){
+		long seed = 0;
+		String name = null;
+		String out = null;
+		TANK_TYPE tank = DEFAULT_TANK;
+		int fish = 0, plants = 0, pots = 0;
+		for(String arg : args){
+			int split = arg.indexOf('=');
+			String key = (split > 0) ? arg.substring(0, split) : arg;
+			String value = (split > 0) ? arg.substring(split + 1) : "";
+			if(key.equals("name")){
+				name = value;
+			}
+			else if(key.equals("tank")){
+				tank = TANK_TYPE.valueOf(value);
+			}
+			else if(key.equals("fish")){
+				fish = Integer.parseInt(value);
+			}
+			else if(key.equals("plants")){
+				plants = Integer.parseInt(value);
+			}
+			else if(key.equals("pots")){
+				pots = Integer.parseInt(value);
+			}
+			else if(key.equals("seed")){
+				seed = Long.parseLong(value);
+			}
+			else if(key.equals("out")){
+				out = value;
+			}
+			else{
+				throw new IllegalArgumentException("Unknown option: " + arg);
+			}
+		}
+		if(name == null){
+			name = "generated-" + fish + "-" + plants + "-" + pots + "-" + seed;
+		}
+		SimulationSession.initAssets();
+		ScenarioGenerator generator = new ScenarioGenerator(seed);
+		generator.setName(name);
+		generator.setTankType(tank);
+		generator.setFishCount(fish);
+		generator.setPlantCount(plants);
+		generator.setPotCount(pots);
+		boolean saved = generator.generate(new File((out == null) ? name : out));
+		System.out.println((saved ? "Saved " : "Failed to save ") + name
+				+ ((generator.getShortfall() > 0) ? " (" + generator.getShortfall() + " entities did not fit)" : ""));
+	}//end of main method
+
+	//---------------------static methods------------------------------
+	/**
+	 * Swaps two points in the specified array.
+	 *
+	 * @param points the points.
+	 * @param a the index of the first point.
+	 * @param b the index of the second point.
+	 */
+	private static void swap(float[] points, int a, int b){
+		for(int n=0; n<PoissonDiskSampler.STRIDE; n++){
+			float temp = points[a * PoissonDiskSampler.STRIDE + n];
+			points[a * PoissonDiskSampler.STRIDE + n] = points[b * PoissonDiskSampler.STRIDE + n];
+			points[b * PoissonDiskSampler.STRIDE + n] = temp;
+		}
+	}//end of swap method
+
+}//end of ScenarioGenerator class
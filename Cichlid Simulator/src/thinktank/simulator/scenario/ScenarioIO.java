@@ -9,6 +9,8 @@ import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.util.ArrayList;
 
+import thinktank.simulator.monitor.MonitorEvents;
+
 /**
  * Provides functions to load and save scenarios as individual, external files. 
  * 
@@ -53,6 +55,7 @@ public class ScenarioIO{
 			    file = new File(SCENARIO_FOLDER + File.separator + filePath + SCENARIO_FILE_EXTENSION);
 			}
 		}
+		long start = MonitorEvents.begin();
 		FileOutputStream fos = null;
 		ObjectOutputStream oos = null;
 		try{
@@ -89,6 +92,7 @@ public class ScenarioIO{
 				}
 			}
 		}
+		MonitorEvents.scenarioIO("save", file.getPath(), (scenario != null) ? scenario.getFishCount() : 0, returnValue, start);
 		return returnValue;
 	}//end of saveScenario method
 	
@@ -112,7 +116,9 @@ public class ScenarioIO{
 	}//end of saveScenario method
 	
 	/**
-	 * Loads the scenario stored in the specified file.
+	 * Loads the scenario stored in the specified file. A file without the 
+	 * scenario file extension is taken as the name of a scenario in the 
+	 * scenarios folder.
 	 * 
 	 * @param file the <code>File</code> object representing the file where 
 	 * the scenario is to be loaded from.
@@ -120,12 +126,15 @@ public class ScenarioIO{
 	 */
 	public static Scenario loadScenario(File file){
 		Scenario returnValue = null;
+		long start = MonitorEvents.begin();
 		FileInputStream fis = null;
 		ObjectInputStream ois = null;
 		try{
 			checkScenariosFolder();
 			String filePath = file.getPath();
-		    file = new File(SCENARIO_FOLDER + File.separator + filePath + SCENARIO_FILE_EXTENSION);
+			if(!filePath.toLowerCase().endsWith(SCENARIO_FILE_EXTENSION)){//a scenario name, in the scenarios folder
+			    file = new File(SCENARIO_FOLDER + File.separator + filePath + SCENARIO_FILE_EXTENSION);
+			}
 			fis = new FileInputStream(file);
 			ois = new ObjectInputStream(fis);
 			returnValue = loadScenario(ois);
@@ -154,6 +163,8 @@ public class ScenarioIO{
 				}
 			}
 		}
+		MonitorEvents.scenarioIO("load", file.getPath(), (returnValue != null) ? returnValue.getFishCount() : -1, 
+				returnValue != null, start);
 		return returnValue;
 	}//end of loadScenario method
 	
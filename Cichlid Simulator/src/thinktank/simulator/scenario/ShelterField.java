@@ -0,0 +1,332 @@
+package thinktank.simulator.scenario;
+
+import com.jme3.math.Vector3f;
+
+import thinktank.simulator.entity.EnvironmentObject;
+
+/**
+ * Distance field over the cells of a <code>Grid</code> storing, for every
+ * cell, the nearest shelter (environment object), the distance to it through
+ * free cells, and the direction in which it provides cover.
+ *
+ * The field is maintained incrementally: adding an object only propagates
+ * outward from the cells it fills, and removing or moving an object only
+ * recomputes the cells that were labeled with it. Looking up a shelter or a
+ * hiding destination is then constant time.
+ *
+ * @author Vasher Lor
+ * @version %I%, %G%
+ */
+public class ShelterField{
+	//---------------------static constants----------------------------
+	/**
+	 * Constant value for a cell which has no shelter label.
+	 */
+	private static final short NO_SHELTER = 0;
+	/**
+	 * Constant value for the number of cells past the edge of a shelter that
+	 * are searched for a free hiding cell.
+	 */
+	private static final int HIDE_SEARCH_DEPTH = 3;
+
+	//---------------------static variables----------------------------
+	//---------------------instance constants--------------------------
+	/**
+	 * The grid the field is computed over.
+	 */
+	private final Grid grid;
+	/**
+	 * The nearest shelter for each cell, as the shelter's slot plus one.
+	 */
+	private final short[] shelter;
+	/**
+	 * The distance from each cell to its nearest shelter, in world units.
+	 */
+	private final float[] distance;
+	/**
+	 * The X-component of the unit vector from each cell towards its shelter.
+	 */
+	private final float[] coverX;
+	/**
+	 * The Y-component of the unit vector from each cell towards its shelter.
+	 */
+	private final float[] coverY;
+	/**
+	 * The Z-component of the unit vector from each cell towards its shelter.
+	 */
+	private final float[] coverZ;
+	/**
+	 * Queue of cells waiting to propagate their labels.
+	 */
+	private final int[] queue;
+	/**
+	 * Flags for whether or not each cell is currently in the queue.
+	 */
+	private final boolean[] queued;
+
+	//---------------------instance variables--------------------------
+	/**
+	 * Index of the head of the queue.
+	 */
+	private int head;
+	/**
+	 * The number of cells in the queue.
+	 */
+	private int queueSize;
+
+	//---------------------constructors--------------------------------
+	/**
+	 * Constructs a new, empty shelter field for the specified grid.
+	 *
+	 * @param grid the grid the field is computed over.
+	 */
+	public ShelterField(Grid grid){
+		this.grid = grid;
+		int cells = grid.getCellCount();
+		shelter = new short[cells];
+		distance = new float[cells];
+		coverX = new float[cells];
+		coverY = new float[cells];
+		coverZ = new float[cells];
+		queue = new int[cells];
+		queued = new boolean[cells];
+		rebuild();
+	}//end of constructor
+
+	//---------------------instance methods----------------------------
+	//GETTERS
+	/**
+	 * Returns the nearest shelter to the specified cell.
+	 *
+	 * @param cell the cell index.
+	 * @return the nearest shelter, null if there are no shelters reachable
+	 * from the cell.
+	 */
+	public EnvironmentObject getShelter(int cell){
+		EnvironmentObject returnValue = null;
+		if(shelter[cell] != NO_SHELTER){
+			returnValue = grid.getSlotObject(shelter[cell] - 1);
+		}
+		return returnValue;
+	}//end of getShelter method
+
+	/**
+	 * Returns the distance from the specified cell to its nearest shelter.
+	 *
+	 * @param cell the cell index.
+	 * @return the distance in world units, infinite if no shelter is reachable.
+	 */
+	public float getShelterDistance(int cell){
+		return distance[cell];
+	}//end of getShelterDistance method
+
+	/**
+	 * Stores the unit vector from the specified cell towards its nearest
+	 * shelter in the specified vector.
+	 *
+	 * @param cell the cell index.
+	 * @param store the vector in which the direction is stored.
+	 * @return the store vector.
+	 */
+	public Vector3f getCoverDirection(int cell, Vector3f store){
+		return store.set(coverX[cell], coverY[cell], coverZ[cell]);
+	}//end of getCoverDirection method
+
+	//OPERATIONS
+	/**
+	 * Returns a free cell on the far side of the shelter nearest to the
+	 * specified cell, as seen from the specified attacker position.
+	 *
+	 * @param cell the cell index of the hiding fish.
+	 * @param attackerX the world X-coordinate of the attacker.
+	 * @param attackerY the world Y-coordinate of the attacker.
+	 * @param attackerZ the world Z-coordinate of the attacker.
+	 * @return the cell index of the hiding destination, -1 if none is available.
+	 */
+	public int findHidingCell(int cell, float attackerX, float attackerY, float attackerZ){
+		int returnValue = -1;
+		if(shelter[cell] != NO_SHELTER){
+			int slot = shelter[cell] - 1;
+			float centerX = (grid.getFootprintMin(slot, 0) + grid.getFootprintMax(slot, 0)) * 0.5f;
+			float centerY = (grid.getFootprintMin(slot, 1) + grid.getFootprintMax(slot, 1)) * 0.5f;
+			float centerZ = (grid.getFootprintMin(slot, 2) + grid.getFootprintMax(slot, 2)) * 0.5f;
+			float awayX = centerX - grid.toCellX(attackerX);
+			float awayY = centerY - grid.toCellY(attackerY);
+			float awayZ = centerZ - grid.toCellZ(attackerZ);
+			float length = (float)Math.sqrt(awayX * awayX + awayY * awayY + awayZ * awayZ);
+			if(length > 0){
+				awayX /= length;
+				awayY /= length;
+				awayZ /= length;
+				float reach = 1 + 0.5f * Math.max(grid.getFootprintMax(slot, 0) - grid.getFootprintMin(slot, 0),
+						Math.max(grid.getFootprintMax(slot, 1) - grid.getFootprintMin(slot, 1),
+								grid.getFootprintMax(slot, 2) - grid.getFootprintMin(slot, 2)));
+				int size = grid.getSize();
+				for(int step=0; step<=HIDE_SEARCH_DEPTH && returnValue == -1; step++){
+					int x = Math.round(centerX + awayX * (reach + step));
+					int y = Math.round(centerY + awayY * (reach + step));
+					int z = Math.round(centerZ + awayZ * (reach + step));
+					if(x >= 0 && x < size && y >= 0 && y < size && z >= 0 && z < size){
+						int candidate = grid.cellIndex(x, y, z);
+						if(!grid.isBlocked(candidate)){
+							returnValue = candidate;
+						}
+					}
+				}
+			}
+		}
+		return returnValue;
+	}//end of findHidingCell method
+
+	/**
+	 * Recomputes the entire field from the grid's occupancy map.
+	 */
+	public void rebuild(){
+		for(int cell=0; cell<shelter.length; cell++){
+			shelter[cell] = NO_SHELTER;
+			distance[cell] = Float.POSITIVE_INFINITY;
+			queued[cell] = false;
+		}
+		head = 0;
+		queueSize = 0;
+		for(int cell=0; cell<shelter.length; cell++){
+			seedIfOccupied(cell);
+		}
+		propagate();
+	}//end of rebuild method
+
+	/**
+	 * Updates the field after the object in the specified slot has been
+	 * stamped into the grid's occupancy map.
+	 *
+	 * @param slot the slot of the added object.
+	 */
+	public void objectAdded(int slot){
+		for(int x=grid.getFootprintMin(slot, 0); x<=grid.getFootprintMax(slot, 0); x++){
+			for(int y=grid.getFootprintMin(slot, 1); y<=grid.getFootprintMax(slot, 1); y++){
+				for(int z=grid.getFootprintMin(slot, 2); z<=grid.getFootprintMax(slot, 2); z++){
+					seedIfOccupied(grid.cellIndex(x, y, z));
+				}
+			}
+		}
+		propagate();
+	}//end of objectAdded method
+
+	/**
+	 * Updates the field after the object in the specified slot has been
+	 * cleared from the grid's occupancy map. Only the cells labeled with
+	 * the object are recomputed.
+	 *
+	 * @param slot the slot of the removed object.
+	 */
+	public void objectRemoved(int slot){
+		short label = (short)(slot + 1);
+		for(int cell=0; cell<shelter.length; cell++){
+			if(shelter[cell] == label){
+				shelter[cell] = NO_SHELTER;
+				distance[cell] = Float.POSITIVE_INFINITY;
+			}
+		}
+		int neighbors = grid.getNeighborCount();
+		for(int cell=0; cell<shelter.length; cell++){
+			if(shelter[cell] == NO_SHELTER){
+				if(grid.isBlocked(cell)){
+					seedIfOccupied(cell);
+				}
+				else{
+					for(int n=0; n<neighbors; n++){
+						int neighbor = grid.getNeighbor(cell, n);
+						if(neighbor != -1 && shelter[neighbor] != NO_SHELTER){
+							enqueue(neighbor);
+						}
+					}
+				}
+			}
+		}
+		propagate();
+	}//end of objectRemoved method
+
+	/**
+	 * Labels the specified cell with its occupant, at distance zero, and
+	 * queues it for propagation if the cell is blocked.
+	 *
+	 * @param cell the cell index.
+	 */
+	private void seedIfOccupied(int cell){
+		int slot = grid.getOccupantSlot(cell);
+		if(slot != -1){
+			shelter[cell] = (short)(slot + 1);
+			distance[cell] = 0;
+			setCover(cell, slot);
+			enqueue(cell);
+		}
+	}//end of seedIfOccupied method
+
+	/**
+	 * Propagates labels from the queued cells into neighboring free cells
+	 * until no cell can be improved.
+	 */
+	private void propagate(){
+		int neighbors = grid.getNeighborCount();
+		while(queueSize > 0){
+			int cell = queue[head];
+			head = (head + 1) % queue.length;
+			queueSize--;
+			queued[cell] = false;
+			for(int n=0; n<neighbors; n++){
+				int neighbor = grid.getNeighbor(cell, n);
+				if(neighbor != -1 && !grid.isBlocked(neighbor)){
+					float candidate = distance[cell] + grid.getNeighborWeight(n);
+					if(candidate < distance[neighbor]){
+						distance[neighbor] = candidate;
+						shelter[neighbor] = shelter[cell];
+						setCover(neighbor, shelter[cell] - 1);
+						enqueue(neighbor);
+					}
+				}
+			}
+		}
+		head = 0;
+	}//end of propagate method
+
+	/**
+	 * Adds the specified cell to the propagation queue if it is not
+	 * already queued.
+	 *
+	 * @param cell the cell index.
+	 */
+	private void enqueue(int cell){
+		if(!queued[cell]){
+			queue[(head + queueSize) % queue.length] = cell;
+			queueSize++;
+			queued[cell] = true;
+		}
+	}//end of enqueue method
+
+	/**
+	 * Sets the cover direction of the specified cell to point at the center
+	 * of the footprint of the specified slot.
+	 *
+	 * @param cell the cell index.
+	 * @param slot the shelter slot.
+	 */
+	private void setCover(int cell, int slot){
+		float dx = ((grid.getFootprintMin(slot, 0) + grid.getFootprintMax(slot, 0)) * 0.5f - grid.cellX(cell)) * grid.getXIncr();
+		float dy = ((grid.getFootprintMin(slot, 1) + grid.getFootprintMax(slot, 1)) * 0.5f - grid.cellY(cell)) * grid.getYIncr();
+		float dz = ((grid.getFootprintMin(slot, 2) + grid.getFootprintMax(slot, 2)) * 0.5f - grid.cellZ(cell)) * grid.getZIncr();
+		float length = (float)Math.sqrt(dx * dx + dy * dy + dz * dz);
+		if(length > 0){
+			coverX[cell] = dx / length;
+			coverY[cell] = dy / length;
+			coverZ[cell] = dz / length;
+		}
+		else{
+			coverX[cell] = 0;
+			coverY[cell] = 0;
+			coverZ[cell] = 0;
+		}
+	}//end of setCover method
+
+	//---------------------static main---------------------------------
+	//---------------------static methods------------------------------
+}//end of ShelterField class
@@ -0,0 +1,611 @@
+package thinktank.simulator.sweep;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.jme3.system.AppSettings;
+
+import thinktank.simulator.analytics.BehaviorAnalytics;
+import thinktank.simulator.analytics.InteractionGraph;
+import thinktank.simulator.analytics.RunningStats;
+import thinktank.simulator.behavior.SpeciesProfile;
+import thinktank.simulator.entity.Cichlid;
+import thinktank.simulator.entity.Fish.BEHAVIOR;
+import thinktank.simulator.event.EventStream;
+import thinktank.simulator.main.SimulationContext;
+import thinktank.simulator.main.SimulationSession;
+import thinktank.simulator.scenario.Scenario;
+import thinktank.simulator.scenario.ScenarioGenerator;
+import thinktank.simulator.util.ConfigLoader;
+
+/**
+ * Runs a sweep over the behavioral parameters of the cichlids headless: a
+ * grid or Latin hypercube design over the parameters is expanded into
+ * points, each point is run with a number of seeds, the runs are spread
+ * over a pool of threads, and the outcome metrics of each point are
+ * aggregated over its seeds into a table, for calibrating the parameters
+ * against observations of real tanks.
+ *
+ * Each run generates its own scenario from its seed, with physics started
+ * so the cichlids react to each other, gives its context a copy of the
+ * cichlid profile with the point's values, and simulates for a fixed
+ * simulation time. The same seeds are used for every point, so the points
+ * are compared over the same tanks. A run is a function of its point and
+ * seed alone: the seed sets the placement and starting values of the
+ * entities and the context's random choices, so the same sweep gives the
+ * same table. A run whose events were not all delivered to the analytics,
+ * or were dropped, fails and is left out of the table.
+ *
+ * Options are given as <code>name=value</code> arguments:
+ * <ul>
+ * <li><code>param</code> - a parameter to vary, as <code>name:min:max</code>
+ * with the name of a species profile entry; may be repeated. By default
+ * the aggression threshold and the distance, size and speed weights are
+ * varied around their defaults.</li>
+ * <li><code>design</code> - <code>grid</code> or <code>lhs</code>.</li>
+ * <li><code>levels</code> - the number of levels of each parameter in a grid.</li>
+ * <li><code>samples</code> - the number of points in a Latin hypercube.</li>
+ * <li><code>seeds</code> - the number of seeds each point is run with.</li>
+ * <li><code>seed</code> - the first seed; the design is sampled with it too.</li>
+ * <li><code>fish</code>, <code>plants</code>, <code>pots</code> - the
+ * numbers of entities in each generated scenario.</li>
+ * <li><code>duration</code> - the simulation time of each run, in seconds.</li>
+ * <li><code>threads</code> - the number of runs simulated at once.</li>
+ * <li><code>out</code> - the table file, by default a time stamped file in
+ * the <code>sweeps</code> folder. The metrics of every run are written
+ * next to it, with "-runs" added to its name.</li>
+ * </ul>
+ *
+ * @author Vasher Lor
+ * @version %I%, %G%
+ */
+public class ParameterSweep{
+	//---------------------static constants----------------------------
+	/**
+	 * Constant string for the folder the tables are written to by default.
+	 */
+	public static final String RESULTS_FOLDER = "sweeps";
+	/**
+	 * Constant string for the full grid design.
+	 */
+	public static final String GRID = "grid";
+	/**
+	 * Constant string for the Latin hypercube design.
+	 */
+	public static final String LATIN_HYPERCUBE = "lhs";
+	/**
+	 * Constant values for the parameters varied by default.
+	 */
+	public static final SweepParameter[] DEFAULT_PARAMETERS = {
+		new SweepParameter("aggression-threshold", 1.99, 1.9995),
+		new SweepParameter("distance-weight", 0.5, 2),
+		new SweepParameter("size-weight", 0.5, 2),
+		new SweepParameter("speed-weight", 0.5, 2)
+	};
+	/**
+	 * Constant value for the default number of levels of each parameter in a grid.
+	 */
+	public static final int DEFAULT_LEVELS = 3;
+	/**
+	 * Constant value for the default number of points in a Latin hypercube.
+	 */
+	public static final int DEFAULT_SAMPLES = 32;
+	/**
+	 * Constant value for the default number of seeds each point is run with.
+	 */
+	public static final int DEFAULT_SEEDS = 5;
+	/**
+	 * Constant value for the default first seed.
+	 */
+	public static final long DEFAULT_SEED = 42;
+	/**
+	 * Constant value for the default number of fish in each scenario.
+	 */
+	public static final int DEFAULT_FISH = 10;
+	/**
+	 * Constant value for the default number of plants in each scenario.
+	 */
+	public static final int DEFAULT_PLANTS = 4;
+	/**
+	 * Constant value for the default number of pots in each scenario.
+	 */
+	public static final int DEFAULT_POTS = 3;
+	/**
+	 * Constant value for the default simulation time of each run, in seconds.
+	 */
+	public static final float DEFAULT_DURATION = 300;
+	/**
+	 * Lock serializing the generation of scenarios, which load their models
+	 * through the shared asset manager.
+	 */
+	private static final Object GENERATE_LOCK = new Object();
+
+	/**
+	 * Enum for the outcome metrics of a run.
+	 */
+	public enum METRIC{
+		/**
+		 * Chases started per fish per minute.
+		 */
+		ATTACK_RATE("attacks_per_fish_min"),
+		/**
+		 * Mean length of a chase, in seconds.
+		 */
+		CHASE_DURATION("mean_chase_s"),
+		/**
+		 * Number of ordered pairs of fish with at least one chase.
+		 */
+		ATTACK_PAIRS("attack_pairs"),
+		/**
+		 * Difference between the highest and lowest David's scores.
+		 */
+		DOMINANCE_SPREAD("davids_score_range"),
+		/**
+		 * Share of the fish's time spent attacking.
+		 */
+		ATTACK_SHARE("attack_share"),
+		/**
+		 * Share of the fish's time spent hiding.
+		 */
+		HIDE_SHARE("hide_share"),
+		/**
+		 * Share of the fish's time spent darting.
+		 */
+		DART_SHARE("dart_share"),
+		/**
+		 * Share of the fish's time spent loitering.
+		 */
+		LOITER_SHARE("loiter_share"),
+		/**
+		 * Share of the fish's time spent running.
+		 */
+		RUN_SHARE("run_share"),
+		/**
+		 * Share of hides not followed by being attacked.
+		 */
+		HIDE_SUCCESS("hide_success"),
+		/**
+		 * Number of events dropped by the run's event stream, which should
+		 * be 0 for the other metrics to be exact.
+		 */
+		EVENTS_DROPPED("events_dropped");
+
+		/**
+		 * The name of the metric's column.
+		 */
+		public final String NAME;
+
+		/**
+		 * Constructs a new metric with the specified column name.
+		 *
+		 * @param name the name of the column.
+		 */
+		private METRIC(String name){
+			NAME = name;
+		}//end of constructor
+	}//end of METRIC enum
+
+	//---------------------static variables----------------------------
+	//---------------------instance constants--------------------------
+	/**
+	 * The parameters given as options.
+	 */
+	private final ArrayList<SweepParameter> parameters;
+
+	//---------------------instance variables--------------------------
+	/**
+	 * The design, <code>GRID</code> or <code>LATIN_HYPERCUBE</code>.
+	 */
+	private String design;
+	/**
+	 * The number of levels of each parameter in a grid.
+	 */
+	private int levels;
+	/**
+	 * The number of points in a Latin hypercube.
+	 */
+	private int samples;
+	/**
+	 * The number of seeds each point is run with.
+	 */
+	private int seeds;
+	/**
+	 * The first seed.
+	 */
+	private long seed;
+	/**
+	 * The number of fish in each scenario.
+	 */
+	private int fish;
+	/**
+	 * The number of plants in each scenario.
+	 */
+	private int plants;
+	/**
+	 * The number of pots in each scenario.
+	 */
+	private int pots;
+	/**
+	 * The simulation time of each run, in seconds.
+	 */
+	private float duration;
+	/**
+	 * The number of runs simulated at once.
+	 */
+	private int threads;
+	/**
+	 * The file the table is written to.
+	 */
+	private File out;
+
+	//---------------------constructors--------------------------------
+	/**
+	 * Constructs a new sweep with the default options.
+	 */
+	public ParameterSweep(){
+		parameters = new ArrayList<SweepParameter>();
+		design = GRID;
+		levels = DEFAULT_LEVELS;
+		samples = DEFAULT_SAMPLES;
+		seeds = DEFAULT_SEEDS;
+		seed = DEFAULT_SEED;
+		fish = DEFAULT_FISH;
+		plants = DEFAULT_PLANTS;
+		pots = DEFAULT_POTS;
+		duration = DEFAULT_DURATION;
+		threads = Runtime.getRuntime().availableProcessors();
+		out = new File(RESULTS_FOLDER, "sweep-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + ".csv");
+	}//end of constructor
+
+	//---------------------instance methods----------------------------
+	//GETTERS
+	/**
+	 * Returns the design for the current options.
+	 *
+	 * @return the design.
+	 */
+	public SweepDesign getDesign(){
+		SweepParameter[] varied = parameters.isEmpty() ? DEFAULT_PARAMETERS : parameters.toArray(new SweepParameter[parameters.size()]);
+		SweepDesign returnValue = null;
+		if(design.equals(LATIN_HYPERCUBE)){
+			returnValue = SweepDesign.latinHypercube(varied, samples, new Random(seed));
+		}
+		else{
+			returnValue = SweepDesign.grid(varied, levels);
+		}
+		return returnValue;
+	}//end of getDesign method
+
+	//SETTERS
+	/**
+	 * Sets the option with the specified name to the specified value.
+	 *
+	 * @param name the name of the option.
+	 * @param value the value.
+	 * @throws IllegalArgumentException if there is no such option.
+	 */
+	public void setOption(String name, String value){
+		if(name.equals("param")){
+			SweepParameter parameter = SweepParameter.parse(value);
+			new SpeciesProfile(Cichlid.SPECIES).setParameter(parameter.getName(), parameter.getMin());//fails early on unknown names
+			parameters.add(parameter);
+		}
+		else if(name.equals("design")){
+			if(!value.equals(GRID) && !value.equals(LATIN_HYPERCUBE)){
+				throw new IllegalArgumentException("Unknown design: " + value);
+			}
+			design = value;
+		}
+		else if(name.equals("levels")){
+			levels = Integer.parseInt(value);
+		}
+		else if(name.equals("samples")){
+			samples = Integer.parseInt(value);
+		}
+		else if(name.equals("seeds")){
+			seeds = Integer.parseInt(value);
+		}
+		else if(name.equals("seed")){
+			seed = Long.parseLong(value);
+		}
+		else if(name.equals("fish")){
+			fish = Integer.parseInt(value);
+		}
+		else if(name.equals("plants")){
+			plants = Integer.parseInt(value);
+		}
+		else if(name.equals("pots")){
+			pots = Integer.parseInt(value);
+		}
+		else if(name.equals("duration")){
+			duration = Float.parseFloat(value);
+		}
+		else if(name.equals("threads")){
+			threads = Math.max(1, Integer.parseInt(value));
+		}
+		else if(name.equals("out")){
+			out = new File(value);
+		}
+		else{
+			throw new IllegalArgumentException("Unknown option: " + name);
+		}
+	}//end of setOption method
+
+	//OPERATIONS
+	/**
+	 * Runs every point of the specified design with every seed, and writes
+	 * the table of the points and the metrics of every run.
+	 *
+	 * @param sweepDesign the design.
+	 * @throws IOException if the results could not be written.
+	 */
+	public void run(SweepDesign sweepDesign) throws IOException{
+		int pointCount = sweepDesign.getPointCount();
+		int metricCount = METRIC.values().length;
+		AppSettings settings = ConfigLoader.getSettings();
+		System.out.println("Sweeping " + pointCount + " points x " + seeds + " seeds on " + threads + " threads");
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		ArrayList<Future<double[]>> runs = new ArrayList<Future<double[]>>(pointCount * seeds);
+		try{
+			for(int p=0; p<pointCount; p++){
+				for(int s=0; s<seeds; s++){
+					runs.add(submit(executor, sweepDesign, p, seed + s, settings));
+				}
+			}
+			RunningStats[][] stats = new RunningStats[pointCount][metricCount];
+			File runsFile = new File(out.getPath().replaceFirst("(\\.csv)?$", "-runs.csv"));
+			PrintWriter runsOut = open(runsFile);
+			try{
+				runsOut.println(header(sweepDesign, "point,seed", false));
+				long start = System.nanoTime();
+				for(int p=0; p<pointCount; p++){
+					for(int m=0; m<metricCount; m++){
+						stats[p][m] = new RunningStats();
+					}
+					for(int s=0; s<seeds; s++){
+						double[] metrics = null;
+						try{
+							metrics = runs.get(p * seeds + s).get();
+						}
+						catch(ExecutionException ex){
+							System.err.println("Run of point " + p + " with seed " + (seed + s) + " failed:");
+							ex.getCause().printStackTrace();
+						}
+						if(metrics != null){
+							for(int m=0; m<metricCount; m++){
+								stats[p][m].add(metrics[m]);
+							}
+							runsOut.println(row(sweepDesign, p, (p + "," + (seed + s)), metrics));
+							runsOut.flush();
+						}
+					}
+					System.out.println(String.format(Locale.ROOT, "Point %d/%d done, %.0fs elapsed",
+							p + 1, pointCount, (System.nanoTime() - start) / 1e9));
+				}
+			}
+			finally{
+				runsOut.close();
+			}
+			write(sweepDesign, stats);
+			System.out.println("Runs written to " + runsFile.getPath());
+		}
+		catch(InterruptedException ex){
+			Thread.currentThread().interrupt();
+		}
+		finally{
+			executor.shutdownNow();
+		}
+	}//end of run method
+
+	/**
+	 * Submits one run of the specified point with the specified seed.
+	 *
+	 * @param executor the executor the run is submitted to.
+	 * @param sweepDesign the design.
+	 * @param point the index of the point.
+	 * @param runSeed the seed.
+	 * @param settings the simulation settings.
+	 * @return the future metrics of the run, indexed by <code>METRIC</code> ordinal.
+	 */
+	private Future<double[]> submit(ExecutorService executor, final SweepDesign sweepDesign, final int point,
+			final long runSeed, final AppSettings settings){
+		return executor.submit(new Callable<double[]>(){
+			@Override
+			public double[] call(){
+				return simulate(sweepDesign, point, runSeed, settings);
+			}//end of call method
+		});
+	}//end of submit method
+
+	/**
+	 * Simulates one run of the specified point with the specified seed, on
+	 * the calling thread.
+	 *
+	 * @param sweepDesign the design.
+	 * @param point the index of the point.
+	 * @param runSeed the seed.
+	 * @param settings the simulation settings.
+	 * @return the metrics of the run, indexed by <code>METRIC</code> ordinal.
+	 * @throws IllegalStateException if events of the run were lost.
+	 */
+	private double[] simulate(SweepDesign sweepDesign, int point, long runSeed, AppSettings settings){
+		Scenario scenario;
+		synchronized(GENERATE_LOCK){
+			ScenarioGenerator generator = new ScenarioGenerator(runSeed);
+			generator.setName("sweep-" + point + "-" + runSeed);
+			generator.setFishCount(fish);
+			generator.setPlantCount(plants);
+			generator.setPotCount(pots);
+			scenario = generator.generate();
+		}
+		SimulationSession session = new SimulationSession(scenario, settings);
+		session.startPhysics();
+		SimulationContext context = session.getContext();
+		context.setSeed(runSeed);
+		SpeciesProfile profile = new SpeciesProfile(SpeciesProfile.getProfile(Cichlid.SPECIES));
+		for(int i=0; i<sweepDesign.getParameterCount(); i++){
+			profile.setParameter(sweepDesign.getParameter(i).getName(), sweepDesign.getValue(point, i));
+		}
+		context.setProfile(profile);
+		BehaviorAnalytics analytics = new BehaviorAnalytics();
+		EventStream events = session.startEventStream(EventStream.DEFAULT_CAPACITY);
+		events.subscribe(analytics);
+		session.step(Math.max(1, Math.round(duration / session.getTickLength())));
+		if(!session.stopEventStream()){//delivers the events still queued
+			throw new IllegalStateException("The events of the run were not all delivered");
+		}
+		if(events.getDropped() > 0){
+			throw new IllegalStateException(events.getDropped() + " events of the run were dropped");
+		}
+		double[] returnValue = new double[METRIC.values().length];
+		InteractionGraph graph = context.getInteractionGraph();
+		int fishCount = Math.max(1, session.getFishCount());
+		double minutes = session.getTime() / 60;
+		returnValue[METRIC.ATTACK_RATE.ordinal()] = (minutes > 0) ? graph.getAttackCount() / (fishCount * minutes) : 0;
+		returnValue[METRIC.CHASE_DURATION.ordinal()] = analytics.getMeanChaseDuration();
+		returnValue[METRIC.ATTACK_PAIRS.ordinal()] = graph.getEdgeCount();
+		int ranked = graph.rank();
+		returnValue[METRIC.DOMINANCE_SPREAD.ordinal()] = (ranked > 0) ?
+				graph.getScore(graph.getRanked(0)) - graph.getScore(graph.getRanked(ranked - 1)) : 0;
+		returnValue[METRIC.ATTACK_SHARE.ordinal()] = analytics.getBehaviorShare(BEHAVIOR.ATTACK);
+		returnValue[METRIC.HIDE_SHARE.ordinal()] = analytics.getBehaviorShare(BEHAVIOR.HIDE);
+		returnValue[METRIC.DART_SHARE.ordinal()] = analytics.getBehaviorShare(BEHAVIOR.DART);
+		returnValue[METRIC.LOITER_SHARE.ordinal()] = analytics.getBehaviorShare(BEHAVIOR.LOITER);
+		returnValue[METRIC.RUN_SHARE.ordinal()] = analytics.getBehaviorShare(BEHAVIOR.RUN);
+		returnValue[METRIC.HIDE_SUCCESS.ordinal()] = analytics.getHideSuccessRate();
+		returnValue[METRIC.EVENTS_DROPPED.ordinal()] = events.getDropped();
+		return returnValue;
+	}//end of simulate method
+
+	/**
+	 * Writes the table of the points: one line per point with the value of
+	 * each parameter, the number of runs that finished, and the mean and
+	 * standard deviation of each metric over them.
+	 *
+	 * @param sweepDesign the design.
+	 * @param stats the statistics of each metric of each point.
+	 * @throws IOException if the table could not be written.
+	 */
+	private void write(SweepDesign sweepDesign, RunningStats[][] stats) throws IOException{
+		PrintWriter table = open(out);
+		try{
+			table.println(header(sweepDesign, "point", true));
+			double[] summary = new double[METRIC.values().length * 2];
+			for(int p=0; p<stats.length; p++){
+				for(int m=0; m<stats[p].length; m++){
+					summary[m * 2] = stats[p][m].getMean();
+					summary[m * 2 + 1] = stats[p][m].getStandardDeviation();
+				}
+				table.println(row(sweepDesign, p, p + "," + stats[p][0].getCount(), summary));
+			}
+			if(table.checkError()){
+				throw new IOException("Could not write " + out.getPath());
+			}
+		}
+		finally{
+			table.close();
+		}
+		System.out.println("Table written to " + out.getPath());
+	}//end of write method
+
+	//---------------------static main---------------------------------
+	/**
+	 * Runs a sweep with the options in the specified arguments.
+	 *
+	 * @param args the options, as <code>name=value</code> pairs.
+	 */
+	public static void main(String[] args){
+		ParameterSweep sweep = new ParameterSweep();
+		for(String arg : args){
+			int split = arg.indexOf('=');
+			if(split < 1){
+				throw new IllegalArgumentException("Options must be name=value: " + arg);
+			}
+			sweep.setOption(arg.substring(0, split), arg.substring(split + 1));
+		}
+		SimulationSession.initAssets();
+		try{
+			sweep.run(sweep.getDesign());
+		}
+		catch(IOException ex){
+			ex.printStackTrace();
+		}
+	}//end of main method
+
+	//---------------------static methods------------------------------
+	/**
+	 * Returns the header line of a table.
+	 *
+	 * @param sweepDesign the design.
+	 * @param key the columns identifying each line.
+	 * @param summary true for the columns of the table of points, false for
+	 * those of the runs.
+	 * @return the header.
+	 */
+	private static String header(SweepDesign sweepDesign, String key, boolean summary){
+		StringBuilder returnValue = new StringBuilder(key);
+		if(summary){
+			returnValue.append(",runs");
+		}
+		for(int i=0; i<sweepDesign.getParameterCount(); i++){
+			returnValue.append(',').append(sweepDesign.getParameter(i).getName());
+		}
+		for(METRIC metric : METRIC.values()){
+			if(summary){
+				returnValue.append(',').append(metric.NAME).append("_mean,").append(metric.NAME).append("_sd");
+			}
+			else{
+				returnValue.append(',').append(metric.NAME);
+			}
+		}
+		return returnValue.toString();
+	}//end of header method
+
+	/**
+	 * Returns a line of a table.
+	 *
+	 * @param sweepDesign the design.
+	 * @param point the index of the point.
+	 * @param key the values identifying the line.
+	 * @param values the values following the parameters.
+	 * @return the line.
+	 */
+	private static String row(SweepDesign sweepDesign, int point, String key, double[] values){
+		StringBuilder returnValue = new StringBuilder(key);
+		for(int i=0; i<sweepDesign.getParameterCount(); i++){
+			returnValue.append(',').append(String.format(Locale.ROOT, "%.6g", sweepDesign.getValue(point, i)));
+		}
+		for(int i=0; i<values.length; i++){
+			returnValue.append(',').append(String.format(Locale.ROOT, "%.6g", values[i]));
+		}
+		return returnValue.toString();
+	}//end of row method
+
+	/**
+	 * Opens the specified file for writing, making its folder if needed.
+	 *
+	 * @param file the file.
+	 * @return the writer.
+	 * @throws IOException if the file could not be opened.
+	 */
+	private static PrintWriter open(File file) throws IOException{
+		File folder = file.getAbsoluteFile().getParentFile();
+		if(folder != null && !folder.exists()){
+			folder.mkdirs();
+		}
+		return new PrintWriter(new BufferedWriter(new FileWriter(file)));
+	}//end of open method
+}//end of ParameterSweep class
@@ -0,0 +1,148 @@
+package thinktank.simulator.sweep;
+
+import java.util.Random;
+
+/**
+ * The points of a parameter sweep: one value of every parameter per point.
+ * A design is either a full grid, with evenly spaced levels of every
+ * parameter in every combination, or a Latin hypercube, where the range of
+ * every parameter is split into as many equal strata as there are points
+ * and each stratum is sampled by exactly one point. A grid grows
+ * exponentially with the number of parameters; a Latin hypercube covers
+ * every parameter evenly with any number of points.
+ *
+ * @author Vasher Lor
+ * @version %I%, %G%
+ */
+public class SweepDesign{
+	//---------------------static constants----------------------------
+	//---------------------static variables----------------------------
+	//---------------------instance constants--------------------------
+	/**
+	 * The parameters varied.
+	 */
+	private final SweepParameter[] parameters;
+	/**
+	 * The value of each parameter at each point, indexed by point and then
+	 * parameter.
+	 */
+	private final double[][] points;
+
+	//---------------------instance variables--------------------------
+	//---------------------constructors--------------------------------
+	/**
+	 * Constructs a new design with the specified points.
+	 *
+	 * @param parameters the parameters varied.
+	 * @param points the value of each parameter at each point.
+	 */
+	private SweepDesign(SweepParameter[] parameters, double[][] points){
+		this.parameters = parameters;
+		this.points = points;
+	}//end of (SweepParameter[],double[][]) constructor
+
+	//---------------------instance methods----------------------------
+	//GETTERS
+	/**
+	 * Returns the number of points.
+	 *
+	 * @return the point count.
+	 */
+	public int getPointCount(){
+		return points.length;
+	}//end of getPointCount method
+
+	/**
+	 * Returns the number of parameters varied.
+	 *
+	 * @return the parameter count.
+	 */
+	public int getParameterCount(){
+		return parameters.length;
+	}//end of getParameterCount method
+
+	/**
+	 * Returns the specified parameter.
+	 *
+	 * @param index the index of the parameter.
+	 * @return the parameter.
+	 */
+	public SweepParameter getParameter(int index){
+		return parameters[index];
+	}//end of getParameter method
+
+	/**
+	 * Returns the value of the specified parameter at the specified point.
+	 *
+	 * @param point the index of the point.
+	 * @param parameter the index of the parameter.
+	 * @return the value.
+	 */
+	public double getValue(int point, int parameter){
+		return points[point][parameter];
+	}//end of getValue method
+
+	//---------------------static main---------------------------------
+	//---------------------static methods------------------------------
+	/**
+	 * Creates a full grid design with the specified number of evenly spaced
+	 * levels of every parameter, from its lowest to its highest value. A
+	 * single level takes the middle of each range. The last parameter
+	 * varies fastest.
+	 *
+	 * @param parameters the parameters varied.
+	 * @param levels the number of levels of each parameter.
+	 * @return the design, of <code>levels</code> to the power of the number
+	 * of parameters points.
+	 */
+	public static SweepDesign grid(SweepParameter[] parameters, int levels){
+		levels = Math.max(levels, 1);
+		int count = 1;
+		for(int i=0; i<parameters.length; i++){
+			count *= levels;
+		}
+		double[][] points = new double[count][parameters.length];
+		for(int p=0; p<count; p++){
+			int rest = p;
+			for(int i=parameters.length - 1; i>=0; i--){
+				int level = rest % levels;
+				rest /= levels;
+				double fraction = (levels > 1) ? (double)level / (levels - 1) : 0.5;
+				points[p][i] = parameters[i].valueAt(fraction);
+			}
+		}
+		return new SweepDesign(parameters, points);
+	}//end of grid method
+
+	/**
+	 * Creates a Latin hypercube design with the specified number of points.
+	 * Each parameter's range is split into <code>samples</code> equal
+	 * strata, the strata are shuffled independently for each parameter, and
+	 * each point takes a random value within its stratum of each.
+	 *
+	 * @param parameters the parameters varied.
+	 * @param samples the number of points.
+	 * @param rng the random number generator to use.
+	 * @return the design.
+	 */
+	public static SweepDesign latinHypercube(SweepParameter[] parameters, int samples, Random rng){
+		samples = Math.max(samples, 1);
+		double[][] points = new double[samples][parameters.length];
+		int[] strata = new int[samples];
+		for(int i=0; i<parameters.length; i++){
+			for(int s=0; s<samples; s++){
+				strata[s] = s;
+			}
+			for(int s=samples - 1; s>0; s--){
+				int swap = rng.nextInt(s + 1);
+				int temp = strata[s];
+				strata[s] = strata[swap];
+				strata[swap] = temp;
+			}
+			for(int p=0; p<samples; p++){
+				points[p][i] = parameters[i].valueAt((strata[p] + rng.nextDouble()) / samples);
+			}
+		}
+		return new SweepDesign(parameters, points);
+	}//end of latinHypercube method
+}//end of SweepDesign class
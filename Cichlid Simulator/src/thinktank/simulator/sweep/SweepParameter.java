@@ -0,0 +1,104 @@
+package thinktank.simulator.sweep;
+
+/**
+ * One behavioral parameter varied by a parameter sweep, over a range of
+ * values. The parameter is named as an entry of a species profile file,
+ * such as "aggression-threshold" or "distance-weight".
+ *
+ * @author Vasher Lor
+ * @version %I%, %G%
+ */
+public class SweepParameter{
+	//---------------------static constants----------------------------
+	//---------------------static variables----------------------------
+	//---------------------instance constants--------------------------
+	/**
+	 * The name of the parameter.
+	 */
+	private final String name;
+	/**
+	 * The lowest value of the range.
+	 */
+	private final double min;
+	/**
+	 * The highest value of the range.
+	 */
+	private final double max;
+
+	//---------------------instance variables--------------------------
+	//---------------------constructors--------------------------------
+	/**
+	 * Constructs a new parameter varied over the specified range.
+	 *
+	 * @param name the name of the parameter.
+	 * @param min the lowest value.
+	 * @param max the highest value.
+	 */
+	public SweepParameter(String name, double min, double max){
+		this.name = name;
+		this.min = min;
+		this.max = max;
+	}//end of (String,double,double) constructor
+
+	//---------------------instance methods----------------------------
+	//GETTERS
+	/**
+	 * Returns the name of the parameter.
+	 *
+	 * @return the name.
+	 */
+	public String getName(){
+		return name;
+	}//end of getName method
+
+	/**
+	 * Returns the lowest value of the range.
+	 *
+	 * @return the lowest value.
+	 */
+	public double getMin(){
+		return min;
+	}//end of getMin method
+
+	/**
+	 * Returns the highest value of the range.
+	 *
+	 * @return the highest value.
+	 */
+	public double getMax(){
+		return max;
+	}//end of getMax method
+
+	/**
+	 * Returns the value at the specified fraction of the range.
+	 *
+	 * @param fraction the fraction, from 0 for the lowest value to 1 for
+	 * the highest.
+	 * @return the value.
+	 */
+	public double valueAt(double fraction){
+		return min + fraction * (max - min);
+	}//end of valueAt method
+
+	@Override
+	public String toString(){
+		return name + ":" + min + ":" + max;
+	}//end of toString method
+
+	//---------------------static main---------------------------------
+	//---------------------static methods------------------------------
+	/**
+	 * Parses a parameter given as <code>name:min:max</code>.
+	 *
+	 * @param spec the parameter.
+	 * @return the parameter.
+	 * @throws IllegalArgumentException if the parameter is not of that form.
+	 */
+	public static SweepParameter parse(String spec){
+		String[] tokens = spec.split(":");
+		if(tokens.length != 3){
+			throw new IllegalArgumentException("Parameters must be name:min:max: " + spec);
+		}
+		return new SweepParameter(tokens[0].trim(), Double.parseDouble(tokens[1].trim()), Double.parseDouble(tokens[2].trim()));
+	}//end of parse method
+}//end of SweepParameter class
@@ -1,6 +1,8 @@
 package thinktank.simulator.ui;
 
 import java.io.File;
+import java.text.SimpleDateFormat;
+import java.util.Date;
 
 import com.jme3.app.Application;
 import com.jme3.app.state.AbstractAppState;
@@ -8,9 +10,13 @@ import com.jme3.app.state.AppStateManager;
 
 import de.lessvoid.nifty.Nifty;
 import de.lessvoid.nifty.controls.Button;
+import de.lessvoid.nifty.controls.Label;
 import de.lessvoid.nifty.screen.Screen;
 import de.lessvoid.nifty.screen.ScreenController;
 import thinktank.simulator.Starter;
+import thinktank.simulator.analytics.BehaviorAnalytics;
+import thinktank.simulator.analytics.InteractionGraph;
+import thinktank.simulator.scenario.Grid;
 import thinktank.simulator.scenario.Scenario;
 import thinktank.simulator.scenario.ScenarioDefinition;
 import thinktank.simulator.scenario.ScenarioIO;
@@ -28,6 +34,22 @@ public class HUDScreenController extends AbstractAppState implements ScreenContr
 	 * The name of the screen this controller belongs to.
 	 */
 	public static final String NAME = "hud";
+	/**
+	 * Constant value for how often the analytics are refreshed, in seconds.
+	 */
+	private static final float REFRESH_INTERVAL = 0.5f;
+	/**
+	 * Constant value for how often the dominance ranking is recomputed, in seconds.
+	 */
+	private static final float RANKING_INTERVAL = 5f;
+	/**
+	 * Constant value for the number of fish listed in the dominance ranking.
+	 */
+	private static final int RANKING_SIZE = 10;
+	/**
+	 * The folder the analytics summaries are written to.
+	 */
+	public static final String ANALYTICS_FOLDER = "analytics";
 	
 	//---------------------static variables----------------------------
 	//---------------------instance constants--------------------------
@@ -92,6 +114,22 @@ public class HUDScreenController extends AbstractAppState implements ScreenContr
 	 * Reference to the "End Simulation" button nifty element.
 	 */
 	private Button endSimulationButton;
+	/**
+	 * Reference to the label showing the live analytics.
+	 */
+	private Label analyticsLabel;
+	/**
+	 * The time since the analytics were last refreshed.
+	 */
+	private float sinceRefresh;
+	/**
+	 * Reference to the label showing the dominance ranking.
+	 */
+	private Label dominanceLabel;
+	/**
+	 * The time since the dominance ranking was last recomputed.
+	 */
+	private float sinceRanking;
 	
 	//---------------------constructors--------------------------------
 	/**
@@ -110,6 +148,10 @@ public class HUDScreenController extends AbstractAppState implements ScreenContr
 		goToBreakpointButton = null;
 		savePlaybackButton = null;
 		endSimulationButton = null;
+		analyticsLabel = null;
+		sinceRefresh = 0;
+		dominanceLabel = null;
+		sinceRanking = 0;
 	}//end of default constructor
 	
 	//---------------------instance methods----------------------------
@@ -126,11 +168,27 @@ public class HUDScreenController extends AbstractAppState implements ScreenContr
  
     /**
      * Allows the controller to perform operations as part of the game loop.
+     * Refreshes the live analytics twice a second, and the dominance
+     * ranking of the working scenario once every <code>RANKING_INTERVAL</code>
+     * seconds.
      * 
      * @param tpf time elapsed since last update.
      */
     @Override
     public void update(float tpf){
+    	sinceRefresh += tpf;
+    	if(sinceRefresh >= REFRESH_INTERVAL && analyticsLabel != null){
+    		sinceRefresh = 0;
+    		BehaviorAnalytics analytics = Starter.getClient().getAnalytics();
+    		analyticsLabel.setText((analytics != null) ? analytics.getStatusLine() : "");
+    	}
+    	sinceRanking += tpf;
+    	if(sinceRanking >= RANKING_INTERVAL && dominanceLabel != null){
+    		sinceRanking = 0;
+    		InteractionGraph graph = Starter.getClient().getWorkingScenario().getContext().getInteractionGraph();
+    		graph.rank();
+    		dominanceLabel.setText("Dominance\n" + graph.getRankingText(RANKING_SIZE));
+    	}
     }//end of update method
  
     /**
@@ -173,6 +231,8 @@ public class HUDScreenController extends AbstractAppState implements ScreenContr
 		//savePlaybackButton.setFocusable(false);
 		endSimulationButton = screen.findNiftyControl("end-simulation-button", Button.class);
 		endSimulationButton.setFocusable(false);
+		analyticsLabel = screen.findNiftyControl("analytics-label", Label.class);
+		dominanceLabel = screen.findNiftyControl("dominance-label", Label.class);
 		
 		isBound = true;
 	}//end of bind method
@@ -182,13 +242,19 @@ public class HUDScreenController extends AbstractAppState implements ScreenContr
 	 */
 	@Override
 	public void onEndScreen(){
+		Starter.getClient().getStateManager().detach(this);
 	}//end of onEndScreen method
 
 	/**
-	 * Called as a result of the screen initially being displayed.
+	 * Called as a result of the screen initially being displayed. Attaches 
+	 * the controller to the application, so the analytics are refreshed 
+	 * while the screen is shown.
 	 */
 	@Override
 	public void onStartScreen(){
+		sinceRefresh = REFRESH_INTERVAL;
+		sinceRanking = RANKING_INTERVAL;
+		Starter.getClient().getStateManager().attach(this);
 	}//end of onStartScreen method
 	
 	//ACTION METHODS
@@ -300,8 +366,9 @@ public class HUDScreenController extends AbstractAppState implements ScreenContr
 	/**
 	 * Method called when the assigned button is clicked.
 	 * 
-	 * Ends the current simulation, resetting the scenario to its initial 
-	 * state and returning to the main menu.
+	 * Ends the current simulation, writing the summary of its analytics, 
+	 * its dwell map and its interaction graph to the analytics folder, resetting the scenario to its initial state and 
+	 * returning to the main menu.
 	 */
 	public void endSimulation(){
 		if(isBound){
@@ -310,6 +377,28 @@ public class HUDScreenController extends AbstractAppState implements ScreenContr
 			}
 			Scenario reloadedScenario = null;
 			String scenName = Starter.getClient().getWorkingScenario().getName();
+			String prefix = new File(scenName).getName() + "-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+			BehaviorAnalytics analytics = Starter.getClient().getAnalytics();
+			if(analytics != null){
+				File summary = new File(ANALYTICS_FOLDER, prefix + ".txt");
+				if(analytics.writeSummary(summary)){
+					System.out.println("Analytics summary written to " + summary.getPath());
+				}
+			}
+			Grid grid = Starter.getClient().getWorkingScenario().getContext().getGrid();
+			if(grid != null && grid.getDwellMap().getTicks() > 0){
+				File dwell = new File(ANALYTICS_FOLDER, prefix + "-dwell.csv");
+				if(grid.getDwellMap().writeCSV(dwell) && grid.getDwellMap().writeBinary(new File(ANALYTICS_FOLDER, prefix + ".dwell"))){
+					System.out.println("Dwell map written to " + dwell.getPath());
+				}
+			}
+			InteractionGraph graph = Starter.getClient().getWorkingScenario().getContext().getInteractionGraph();
+			if(graph.getAttackCount() > 0){
+				File interactions = new File(ANALYTICS_FOLDER, prefix + "-interactions.graphml");
+				if(graph.writeGraphML(interactions) && graph.writeCSV(new File(ANALYTICS_FOLDER, prefix + "-interactions.csv"))){
+					System.out.println("Interaction graph written to " + interactions.getPath());
+				}
+			}
 			if(ScenarioDefinition.isDefault(scenName)){
 				reloadedScenario = ScenarioDefinition.genScenario(scenName);
 			}
@@ -28,9 +28,10 @@ import thinktank.simulator.entity.Cichlid.POSSIBLE_COLORS;
 import thinktank.simulator.entity.Cichlid.POSSIBLE_SIZES;
 import thinktank.simulator.environment.Environment;
 import thinktank.simulator.environment.TANK_TYPE;
-import thinktank.simulator.environment.Tank;
+import thinktank.simulator.main.Main;
 import thinktank.simulator.scenario.DEFAULT_SCENARIO;
 import thinktank.simulator.scenario.Scenario;
+import thinktank.simulator.scenario.ScenarioCommand;
 import thinktank.simulator.util.IObservable;
 import thinktank.simulator.util.IObserver;
 
@@ -595,8 +596,7 @@ public class ScenarioBuilderScreenController extends AbstractAppState implements
 				int i = 0;
 				for(TANK_TYPE tankType : TANK_TYPE.values()){
 					if(index == i){
-						Starter.getClient().getWorkingScenario().getEnvironment().setTank(Tank.createTank(tankType));
-						Starter.getClient().setGrid();
+						Main.getCommandQueue().submit(ScenarioCommand.setTank(Starter.getClient().getWorkingScenario(), tankType));
 						unsaved_changes = true;
 						break;
 					}
@@ -606,9 +606,9 @@ public class ScenarioBuilderScreenController extends AbstractAppState implements
 			else if(evt.getDropDown().equals(tempDropDown)){
 				int index = evt.getSelectionItemIndex();
 				float newTemp = Environment.POSSIBLE_TEMPS[index];
-				Environment environ = Starter.getClient().getWorkingScenario().getEnvironment();
-				if(environ.getTempCelcius() != newTemp){
-					environ.setTempCelcius(newTemp);
+				Scenario scenario = Starter.getClient().getWorkingScenario();
+				if(scenario.getEnvironment().getTempCelcius() != newTemp){
+					Main.getCommandQueue().submit(ScenarioCommand.setTemperature(scenario, newTemp));
 					unsaved_changes = true;
 				}
 			}
@@ -616,7 +616,8 @@ public class ScenarioBuilderScreenController extends AbstractAppState implements
 				Entity selectedEntity = Starter.getClient().getWorkingScenario().getSelectedEntity();
 				if(selectedEntity instanceof Cichlid){
 					int index = colorDropDown.getSelectedIndex();
-					((Cichlid)selectedEntity).setColor(POSSIBLE_COLORS.values()[index]);
+					Main.getCommandQueue().submit(ScenarioCommand.setColor(Starter.getClient().getWorkingScenario(), 
+							(Cichlid)selectedEntity, POSSIBLE_COLORS.values()[index]));
 					unsaved_changes = true;
 				}
 			}
@@ -624,7 +625,8 @@ public class ScenarioBuilderScreenController extends AbstractAppState implements
 				Entity selectedEntity = Starter.getClient().getWorkingScenario().getSelectedEntity();
 				if(selectedEntity instanceof Cichlid){
 					int index = sizeDropDown.getSelectedIndex();
-					((Cichlid)selectedEntity).setSize(POSSIBLE_SIZES.values()[index]);
+					Main.getCommandQueue().submit(ScenarioCommand.setSize(Starter.getClient().getWorkingScenario(), 
+							(Cichlid)selectedEntity, POSSIBLE_SIZES.values()[index]));
 					unsaved_changes = true;
 				}
 			}
@@ -166,6 +166,28 @@ public class ConfigLoader{
 		returnValue.setSamples((int)DEFAULT_SETTINGS.SAMPLES.VALUE);
 		returnValue.setStereo3D((boolean)DEFAULT_SETTINGS.STEREO_3D.VALUE);
 		returnValue.setTitle((String)DEFAULT_SETTINGS.TITLE.VALUE);
+		returnValue.putFloat(DEFAULT_SETTINGS.VISIBILITY_TOLERANCE.NAME, (float)DEFAULT_SETTINGS.VISIBILITY_TOLERANCE.VALUE);
+		returnValue.putInteger(DEFAULT_SETTINGS.VISIBILITY_BATCH_SIZE.NAME, (int)DEFAULT_SETTINGS.VISIBILITY_BATCH_SIZE.VALUE);
+		returnValue.putInteger(DEFAULT_SETTINGS.VISIBILITY_MAX_RAYS.NAME, (int)DEFAULT_SETTINGS.VISIBILITY_MAX_RAYS.VALUE);
+		returnValue.putBoolean(DEFAULT_SETTINGS.AI_LOD_ENABLED.NAME, (boolean)DEFAULT_SETTINGS.AI_LOD_ENABLED.VALUE);
+		returnValue.putFloat(DEFAULT_SETTINGS.AI_LOD_NEAR_DISTANCE.NAME, (float)DEFAULT_SETTINGS.AI_LOD_NEAR_DISTANCE.VALUE);
+		returnValue.putFloat(DEFAULT_SETTINGS.AI_LOD_FAR_DISTANCE.NAME, (float)DEFAULT_SETTINGS.AI_LOD_FAR_DISTANCE.VALUE);
+		returnValue.putFloat(DEFAULT_SETTINGS.AI_LOD_NEAR_PIXELS.NAME, (float)DEFAULT_SETTINGS.AI_LOD_NEAR_PIXELS.VALUE);
+		returnValue.putFloat(DEFAULT_SETTINGS.AI_LOD_FAR_PIXELS.NAME, (float)DEFAULT_SETTINGS.AI_LOD_FAR_PIXELS.VALUE);
+		returnValue.putInteger(DEFAULT_SETTINGS.AI_LOD_MID_INTERVAL.NAME, (int)DEFAULT_SETTINGS.AI_LOD_MID_INTERVAL.VALUE);
+		returnValue.putInteger(DEFAULT_SETTINGS.AI_LOD_FAR_INTERVAL.NAME, (int)DEFAULT_SETTINGS.AI_LOD_FAR_INTERVAL.VALUE);
+		returnValue.putInteger(DEFAULT_SETTINGS.BEHAVIOR_TICK_BUDGET.NAME, (int)DEFAULT_SETTINGS.BEHAVIOR_TICK_BUDGET.VALUE);
+		returnValue.putFloat(DEFAULT_SETTINGS.AGGRESSION_EPSILON.NAME, (float)DEFAULT_SETTINGS.AGGRESSION_EPSILON.VALUE);
+		returnValue.putBoolean(DEFAULT_SETTINGS.MONITOR_ENABLED.NAME, (boolean)DEFAULT_SETTINGS.MONITOR_ENABLED.VALUE);
+		returnValue.putFloat(DEFAULT_SETTINGS.SLOW_TICK_THRESHOLD.NAME, (float)DEFAULT_SETTINGS.SLOW_TICK_THRESHOLD.VALUE);
+		returnValue.putFloat(DEFAULT_SETTINGS.VISIBILITY_EVENT_THRESHOLD.NAME, (float)DEFAULT_SETTINGS.VISIBILITY_EVENT_THRESHOLD.VALUE);
+		returnValue.putBoolean(DEFAULT_SETTINGS.HITCH_DETECTOR_ENABLED.NAME, (boolean)DEFAULT_SETTINGS.HITCH_DETECTOR_ENABLED.VALUE);
+		returnValue.putFloat(DEFAULT_SETTINGS.HITCH_THRESHOLD.NAME, (float)DEFAULT_SETTINGS.HITCH_THRESHOLD.VALUE);
+		returnValue.putInteger(DEFAULT_SETTINGS.HITCH_HISTORY.NAME, (int)DEFAULT_SETTINGS.HITCH_HISTORY.VALUE);
+		returnValue.putBoolean(DEFAULT_SETTINGS.EVENT_LOG_ENABLED.NAME, (boolean)DEFAULT_SETTINGS.EVENT_LOG_ENABLED.VALUE);
+		returnValue.putInteger(DEFAULT_SETTINGS.EVENT_QUEUE_CAPACITY.NAME, (int)DEFAULT_SETTINGS.EVENT_QUEUE_CAPACITY.VALUE);
+		returnValue.putBoolean(DEFAULT_SETTINGS.ANALYTICS_ENABLED.NAME, (boolean)DEFAULT_SETTINGS.ANALYTICS_ENABLED.VALUE);
+		returnValue.putBoolean(DEFAULT_SETTINGS.DWELL_MAP_ENABLED.NAME, (boolean)DEFAULT_SETTINGS.DWELL_MAP_ENABLED.VALUE);
 		BufferedImage[] tempIcons = new BufferedImage[3];
 		int currentIconIndex = 0;
 		for(int i=0; i<3; i++){
@@ -270,6 +292,40 @@ public class ConfigLoader{
 			else if(line[0].equals(DEFAULT_SETTINGS.TITLE.NAME)){
 				returnValue.setTitle(line[1]);
 			}
+			else if(line[0].equals(DEFAULT_SETTINGS.VISIBILITY_TOLERANCE.NAME)){
+				returnValue.putFloat(line[0], Float.parseFloat(line[1]));
+			}
+			else if(line[0].equals(DEFAULT_SETTINGS.VISIBILITY_BATCH_SIZE.NAME)){
+				returnValue.putInteger(line[0], Integer.parseInt(line[1]));
+			}
+			else if(line[0].equals(DEFAULT_SETTINGS.VISIBILITY_MAX_RAYS.NAME)){
+				returnValue.putInteger(line[0], Integer.parseInt(line[1]));
+			}
+			else if(line[0].equals(DEFAULT_SETTINGS.AI_LOD_ENABLED.NAME) || 
+					line[0].equals(DEFAULT_SETTINGS.MONITOR_ENABLED.NAME) || 
+					line[0].equals(DEFAULT_SETTINGS.HITCH_DETECTOR_ENABLED.NAME) || 
+					line[0].equals(DEFAULT_SETTINGS.EVENT_LOG_ENABLED.NAME) || 
+					line[0].equals(DEFAULT_SETTINGS.ANALYTICS_ENABLED.NAME) || 
+					line[0].equals(DEFAULT_SETTINGS.DWELL_MAP_ENABLED.NAME)){
+				returnValue.putBoolean(line[0], Boolean.parseBoolean(line[1]));
+			}
+			else if(line[0].equals(DEFAULT_SETTINGS.AI_LOD_NEAR_DISTANCE.NAME) || 
+					line[0].equals(DEFAULT_SETTINGS.AI_LOD_FAR_DISTANCE.NAME) || 
+					line[0].equals(DEFAULT_SETTINGS.AI_LOD_NEAR_PIXELS.NAME) || 
+					line[0].equals(DEFAULT_SETTINGS.AI_LOD_FAR_PIXELS.NAME) || 
+					line[0].equals(DEFAULT_SETTINGS.AGGRESSION_EPSILON.NAME) || 
+					line[0].equals(DEFAULT_SETTINGS.SLOW_TICK_THRESHOLD.NAME) || 
+					line[0].equals(DEFAULT_SETTINGS.VISIBILITY_EVENT_THRESHOLD.NAME) || 
+					line[0].equals(DEFAULT_SETTINGS.HITCH_THRESHOLD.NAME)){
+				returnValue.putFloat(line[0], Float.parseFloat(line[1]));
+			}
+			else if(line[0].equals(DEFAULT_SETTINGS.AI_LOD_MID_INTERVAL.NAME) || 
+					line[0].equals(DEFAULT_SETTINGS.AI_LOD_FAR_INTERVAL.NAME) || 
+					line[0].equals(DEFAULT_SETTINGS.BEHAVIOR_TICK_BUDGET.NAME) || 
+					line[0].equals(DEFAULT_SETTINGS.HITCH_HISTORY.NAME) || 
+					line[0].equals(DEFAULT_SETTINGS.EVENT_QUEUE_CAPACITY.NAME)){
+				returnValue.putInteger(line[0], Integer.parseInt(line[1]));
+			}
 			//TODO set icons
 		}
 		return returnValue;
@@ -21,7 +21,29 @@ public enum DEFAULT_SETTINGS{
 	MIN_HEIGHT("min-height", 480),
 	SAMPLES("samples", 0),
 	STEREO_3D("stereo-3d", false),
-	TITLE("title", "Cichlid Simulator");
+	TITLE("title", "Cichlid Simulator"),
+	VISIBILITY_TOLERANCE("visibility-tolerance", 0.1f),
+	VISIBILITY_BATCH_SIZE("visibility-batch-size", 8),
+	VISIBILITY_MAX_RAYS("visibility-max-rays", 64),
+	AI_LOD_ENABLED("ai-lod-enabled", true),
+	AI_LOD_NEAR_DISTANCE("ai-lod-near-distance", 2f),
+	AI_LOD_FAR_DISTANCE("ai-lod-far-distance", 6f),
+	AI_LOD_NEAR_PIXELS("ai-lod-near-pixels", 24f),
+	AI_LOD_FAR_PIXELS("ai-lod-far-pixels", 6f),
+	AI_LOD_MID_INTERVAL("ai-lod-mid-interval", 3),
+	AI_LOD_FAR_INTERVAL("ai-lod-far-interval", 10),
+	BEHAVIOR_TICK_BUDGET("behavior-tick-budget", 0),
+	AGGRESSION_EPSILON("aggression-epsilon", 0.05f),
+	MONITOR_ENABLED("monitor-enabled", true),
+	SLOW_TICK_THRESHOLD("slow-tick-threshold", 50f),
+	VISIBILITY_EVENT_THRESHOLD("visibility-event-threshold", 1f),
+	HITCH_DETECTOR_ENABLED("hitch-detector-enabled", true),
+	HITCH_THRESHOLD("hitch-threshold", 100f),
+	HITCH_HISTORY("hitch-history", 120),
+	EVENT_LOG_ENABLED("event-log-enabled", false),
+	EVENT_QUEUE_CAPACITY("event-queue-capacity", 65536),
+	ANALYTICS_ENABLED("analytics-enabled", true),
+	DWELL_MAP_ENABLED("dwell-map-enabled", true);
 	
 	/**
 	 * String for referencing the specific setting value.
@@ -0,0 +1,22 @@
+package thinktank.simulator.util;
+
+/**
+ * Interface for classes deciding whether or not a point in world space
+ * may be used, such as a point sampled for placing an entity.
+ *
+ * @author Vasher Lor
+ * @version %I%, %G%
+ */
+public interface IPointFilter{
+
+	/**
+	 * Returns whether or not the specified point may be used.
+	 *
+	 * @param x the x coordinate of the point.
+	 * @param y the y coordinate of the point.
+	 * @param z the z coordinate of the point.
+	 * @return true if the point may be used, false otherwise.
+	 */
+	public boolean accept(float x, float y, float z);
+
+}//end of IPointFilter interface
@@ -0,0 +1,263 @@
+package thinktank.simulator.util;
+
+import java.util.Random;
+
+/**
+ * Samples points in a box so that no two points are closer than a given
+ * radius, using Bridson's algorithm. The accepted points are indexed in
+ * a background grid whose cells are small enough to hold at most one
+ * point each, so checking a candidate only looks at the few cells around
+ * it and sampling takes time proportional to the number of points.
+ *
+ * A box with no height samples on a plane, such as a tank's floor;
+ * otherwise it samples the volume.
+ *
+ * @author Vasher Lor
+ * @version %I%, %G%
+ */
+public class PoissonDiskSampler{
+	//---------------------static constants----------------------------
+	/**
+	 * Constant value for the number of candidates tried around each point
+	 * before it is retired from the active list.
+	 */
+	public static final int CANDIDATES = 30;
+	/**
+	 * Constant value for the number of values stored per point.
+	 */
+	public static final int STRIDE = 3;
+	/**
+	 * Constant value for the largest number of cells the background grid
+	 * may have.
+	 */
+	public static final int MAX_CELLS = 1 << 26;
+	/**
+	 * Constant value for the number of cells searched on each side of a
+	 * candidate's cell, which covers the radius in two and three dimensions.
+	 */
+	private static final int SEARCH = 2;
+
+	//---------------------static variables----------------------------
+	//---------------------instance constants--------------------------
+	/**
+	 * The lower corner of the box.
+	 */
+	private final float minX, minY, minZ;
+	/**
+	 * The size of the box along each axis.
+	 */
+	private final float sizeX, sizeY, sizeZ;
+	/**
+	 * Whether or not the box is a plane, with no height.
+	 */
+	private final boolean planar;
+	/**
+	 * The random number generator for the candidates.
+	 */
+	private final Random rng;
+
+	//---------------------instance variables--------------------------
+	//---------------------constructors--------------------------------
+	/**
+	 * Constructs a new sampler for the box with the specified corners.
+	 *
+	 * @param minX the lowest x coordinate.
+	 * @param minY the lowest y coordinate.
+	 * @param minZ the lowest z coordinate.
+	 * @param maxX the highest x coordinate.
+	 * @param maxY the highest y coordinate, equal to <code>minY</code> to
+	 * sample a plane.
+	 * @param maxZ the highest z coordinate.
+	 * @param rng the random number generator.
+	 */
+	public PoissonDiskSampler(float minX, float minY, float minZ, float maxX, float maxY, float maxZ, Random rng){
+		this.minX = minX;
+		this.minY = minY;
+		this.minZ = minZ;
+		sizeX = Math.max(0, maxX - minX);
+		sizeY = Math.max(0, maxY - minY);
+		sizeZ = Math.max(0, maxZ - minZ);
+		planar = sizeY == 0;
+		this.rng = rng;
+	}//end of constructor
+
+	//---------------------instance methods----------------------------
+	//GETTERS
+	/**
+	 * Returns whether or not the sampler samples a plane.
+	 *
+	 * @return true if the box has no height, false otherwise.
+	 */
+	public boolean isPlanar(){
+		return planar;
+	}//end of isPlanar method
+
+	/**
+	 * Returns the area of the box if it is a plane, or its volume otherwise.
+	 *
+	 * @return the measure of the box.
+	 */
+	public float getMeasure(){
+		return planar ? sizeX * sizeZ : sizeX * sizeY * sizeZ;
+	}//end of getMeasure method
+
+	//OPERATIONS
+	/**
+	 * Fills the box with points no closer than the specified radius, until
+	 * no more fit or the specified number of points is reached. The points
+	 * are written to the specified array as consecutive x, y and z values.
+	 *
+	 * @param radius the smallest distance between two points.
+	 * @param maxPoints the largest number of points to sample.
+	 * @param filter the filter points must pass, may be null.
+	 * @param out the array, with room for <code>maxPoints * STRIDE</code> values.
+	 * @return the number of points sampled, -1 if the radius is too small
+	 * for the background grid.
+	 */
+	public int sample(float radius, int maxPoints, IPointFilter filter, float[] out){
+		int returnValue = 0;
+		float cellSize = radius / (float)Math.sqrt(planar ? 2 : 3);
+		int cellsX = Math.max(1, (int)Math.ceil(sizeX / cellSize));
+		int cellsY = planar ? 1 : Math.max(1, (int)Math.ceil(sizeY / cellSize));
+		int cellsZ = Math.max(1, (int)Math.ceil(sizeZ / cellSize));
+		if(radius <= 0 || (long)cellsX * cellsY * cellsZ > MAX_CELLS){
+			returnValue = -1;
+		}
+		else if(maxPoints > 0){
+			int[] cells = new int[cellsX * cellsY * cellsZ];//index of the point in each cell, plus one
+			int[] active = new int[maxPoints];
+			int activeCount = 0;
+			float radiusSq = radius * radius;
+			for(int attempt=0; attempt<CANDIDATES && returnValue == 0; attempt++){
+				float x = minX + rng.nextFloat() * sizeX;
+				float y = minY + rng.nextFloat() * sizeY;
+				float z = minZ + rng.nextFloat() * sizeZ;
+				if(filter == null || filter.accept(x, y, z)){
+					store(out, cells, returnValue, x, y, z, cellSize, cellsX, cellsY);
+					active[activeCount++] = returnValue++;
+				}
+			}
+			while(activeCount > 0 && returnValue < maxPoints){
+				int slot = rng.nextInt(activeCount);
+				int point = active[slot];
+				boolean placed = false;
+				for(int attempt=0; attempt<CANDIDATES && !placed; attempt++){
+					//pick a candidate in the shell between the radius and twice the radius
+					float dx, dy, dz, lengthSq;
+					do{
+						dx = (rng.nextFloat() * 4 - 2) * radius;
+						dy = planar ? 0 : (rng.nextFloat() * 4 - 2) * radius;
+						dz = (rng.nextFloat() * 4 - 2) * radius;
+						lengthSq = dx * dx + dy * dy + dz * dz;
+					}while(lengthSq < radiusSq || lengthSq > 4 * radiusSq);
+					float x = out[point * STRIDE] + dx;
+					float y = out[point * STRIDE + 1] + dy;
+					float z = out[point * STRIDE + 2] + dz;
+					if(inBox(x, y, z) && isFree(out, cells, x, y, z, radiusSq, cellSize, cellsX, cellsY, cellsZ)
+							&& (filter == null || filter.accept(x, y, z))){
+						store(out, cells, returnValue, x, y, z, cellSize, cellsX, cellsY);
+						active[activeCount++] = returnValue++;
+						placed = true;
+					}
+				}
+				if(!placed){
+					active[slot] = active[--activeCount];//retire the point
+				}
+			}
+		}
+		return returnValue;
+	}//end of sample method
+
+	/**
+	 * Returns whether or not the specified point is inside the box.
+	 *
+	 * @param x the x coordinate.
+	 * @param y the y coordinate.
+	 * @param z the z coordinate.
+	 * @return true if the point is inside, false otherwise.
+	 */
+	private boolean inBox(float x, float y, float z){
+		return x >= minX && x < minX + sizeX
+				&& (planar || (y >= minY && y < minY + sizeY))
+				&& z >= minZ && z < minZ + sizeZ;
+	}//end of inBox method
+
+	/**
+	 * Returns whether or not no sampled point is within the radius of the
+	 * specified point.
+	 *
+	 * @param out the sampled points.
+	 * @param cells the background grid.
+	 * @param x the x coordinate.
+	 * @param y the y coordinate.
+	 * @param z the z coordinate.
+	 * @param radiusSq the square of the radius.
+	 * @param cellSize the size of a cell.
+	 * @param cellsX the number of cells along x.
+	 * @param cellsY the number of cells along y.
+	 * @param cellsZ the number of cells along z.
+	 * @return true if the point is far enough from all others, false otherwise.
+	 */
+	private boolean isFree(float[] out, int[] cells, float x, float y, float z, float radiusSq,
+			float cellSize, int cellsX, int cellsY, int cellsZ){
+		boolean returnValue = true;
+		int cx = cell(x - minX, cellSize, cellsX);
+		int cy = planar ? 0 : cell(y - minY, cellSize, cellsY);
+		int cz = cell(z - minZ, cellSize, cellsZ);
+		int fromY = Math.max(0, cy - SEARCH), toY = Math.min(cellsY - 1, cy + SEARCH);
+		for(int i=Math.max(0, cx - SEARCH); i<=Math.min(cellsX - 1, cx + SEARCH) && returnValue; i++){
+			for(int j=fromY; j<=toY && returnValue; j++){
+				for(int k=Math.max(0, cz - SEARCH); k<=Math.min(cellsZ - 1, cz + SEARCH) && returnValue; k++){
+					int stored = cells[(k * cellsY + j) * cellsX + i] - 1;
+					if(stored > -1){
+						float dx = out[stored * STRIDE] - x;
+						float dy = out[stored * STRIDE + 1] - y;
+						float dz = out[stored * STRIDE + 2] - z;
+						returnValue = dx * dx + dy * dy + dz * dz >= radiusSq;
+					}
+				}
+			}
+		}
+		return returnValue;
+	}//end of isFree method
+
+	/**
+	 * Stores the specified point and indexes it in the background grid.
+	 *
+	 * @param out the sampled points.
+	 * @param cells the background grid.
+	 * @param index the index of the point.
+	 * @param x the x coordinate.
+	 * @param y the y coordinate.
+	 * @param z the z coordinate.
+	 * @param cellSize the size of a cell.
+	 * @param cellsX the number of cells along x.
+	 * @param cellsY the number of cells along y.
+	 */
+	private void store(float[] out, int[] cells, int index, float x, float y, float z,
+			float cellSize, int cellsX, int cellsY){
+		out[index * STRIDE] = x;
+		out[index * STRIDE + 1] = y;
+		out[index * STRIDE + 2] = z;
+		int cellsZ = cells.length / (cellsX * cellsY);
+		int cx = cell(x - minX, cellSize, cellsX);
+		int cy = planar ? 0 : cell(y - minY, cellSize, cellsY);
+		int cz = cell(z - minZ, cellSize, cellsZ);
+		cells[(cz * cellsY + cy) * cellsX + cx] = index + 1;
+	}//end of store method
+
+	//---------------------static main---------------------------------
+	//---------------------static methods------------------------------
+	/**
+	 * Returns the cell along one axis containing the specified offset.
+	 *
+	 * @param offset the offset from the lower corner of the box.
+	 * @param cellSize the size of a cell.
+	 * @param cells the number of cells along the axis.
+	 * @return the cell.
+	 */
+	private static int cell(float offset, float cellSize, int cells){
+		return Math.min(cells - 1, Math.max(0, (int)(offset / cellSize)));
+	}//end of cell method
+
+}//end of PoissonDiskSampler class
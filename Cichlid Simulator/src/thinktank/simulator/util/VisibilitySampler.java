@@ -0,0 +1,382 @@
+package thinktank.simulator.util;
+
+import com.jme3.bounding.BoundingBox;
+import com.jme3.bounding.BoundingSphere;
+import com.jme3.bounding.BoundingVolume;
+import com.jme3.collision.CollisionResult;
+import com.jme3.collision.CollisionResults;
+import com.jme3.math.FastMath;
+import com.jme3.math.Ray;
+import com.jme3.math.Vector3f;
+
+import thinktank.simulator.entity.Entity;
+import thinktank.simulator.scenario.Scenario;
+
+/**
+ * Estimates the visibility (0-100) of one entity from another by casting
+ * rays against the scenario's entities.
+ *
+ * Rays are aimed at points spread over a disc covering the target, facing
+ * the viewer, and are fired in batches. Sampling stops as soon as the
+ * Wilson confidence interval of the visible fraction is narrower than the
+ * tolerance, so clearly visible or clearly hidden targets only cost a
+ * batch or two.
+ *
+ * @author Vasher Lor
+ * @version %I%, %G%
+ */
+public class VisibilitySampler{
+	//---------------------static constants----------------------------
+	/**
+	 * Constant value for the default half-width of the confidence interval,
+	 * as a fraction of full visibility, at which sampling stops.
+	 */
+	public static final float DEFAULT_TOLERANCE = 0.1f;
+	/**
+	 * Constant value for the default number of rays fired per batch.
+	 */
+	public static final int DEFAULT_BATCH_SIZE = 8;
+	/**
+	 * Constant value for the default maximum number of rays per query.
+	 */
+	public static final int DEFAULT_MAX_RAYS = 64;
+	/**
+	 * Constant value for the z-score of the confidence interval (95%).
+	 */
+	private static final float Z = 1.96f;
+	/**
+	 * Constant value for the angle between consecutive sample points on
+	 * the disc (the golden angle). Together with radii from the base 2
+	 * radical inverse, this spreads any prefix of the samples over the
+	 * whole disc, starting from its center.
+	 */
+	private static final float GOLDEN_ANGLE = FastMath.PI * (3 - FastMath.sqrt(5));
+
+	//---------------------static variables----------------------------
+	//---------------------instance constants--------------------------
+	/**
+	 * Reusable ray.
+	 */
+	private final Ray ray;
+	/**
+	 * Reusable collision results.
+	 */
+	private final CollisionResults results;
+	/**
+	 * Reusable vector for the view direction.
+	 */
+	private final Vector3f view;
+	/**
+	 * Reusable vector for the first axis of the sample disc.
+	 */
+	private final Vector3f axisU;
+	/**
+	 * Reusable vector for the second axis of the sample disc.
+	 */
+	private final Vector3f axisV;
+	/**
+	 * Reusable vector for the sample point.
+	 */
+	private final Vector3f point;
+
+	//---------------------instance variables--------------------------
+	/**
+	 * The half-width of the confidence interval at which sampling stops.
+	 */
+	private float tolerance;
+	/**
+	 * The number of rays fired per batch.
+	 */
+	private int batchSize;
+	/**
+	 * The maximum number of rays per query.
+	 */
+	private int maxRays;
+	/**
+	 * The scale of the sample disc relative to the target's bounds.
+	 */
+	private float apertureScale;
+	/**
+	 * The number of queries answered.
+	 */
+	private long queries;
+	/**
+	 * The number of rays fired over all queries.
+	 */
+	private long rays;
+
+	//---------------------constructors--------------------------------
+	/**
+	 * Constructs a new sampler with default values.
+	 */
+	public VisibilitySampler(){
+		ray = new Ray();
+		results = new CollisionResults();
+		view = new Vector3f();
+		axisU = new Vector3f();
+		axisV = new Vector3f();
+		point = new Vector3f();
+		tolerance = DEFAULT_TOLERANCE;
+		batchSize = DEFAULT_BATCH_SIZE;
+		maxRays = DEFAULT_MAX_RAYS;
+		apertureScale = 1;
+		queries = 0;
+		rays = 0;
+	}//end of constructor
+
+	//---------------------instance methods----------------------------
+	//GETTERS
+	/**
+	 * Returns the half-width of the confidence interval, as a fraction of
+	 * full visibility, at which sampling stops.
+	 *
+	 * @return the tolerance.
+	 */
+	public float getTolerance(){
+		return tolerance;
+	}//end of getTolerance method
+
+	/**
+	 * Returns the number of rays fired per batch.
+	 *
+	 * @return the batch size.
+	 */
+	public int getBatchSize(){
+		return batchSize;
+	}//end of getBatchSize method
+
+	/**
+	 * Returns the maximum number of rays per query.
+	 *
+	 * @return the maximum number of rays.
+	 */
+	public int getMaxRays(){
+		return maxRays;
+	}//end of getMaxRays method
+
+	/**
+	 * Returns the scale of the sample disc relative to the target's bounds.
+	 *
+	 * @return the aperture scale.
+	 */
+	public float getApertureScale(){
+		return apertureScale;
+	}//end of getApertureScale method
+
+	/**
+	 * Returns the number of queries answered since the last reset.
+	 *
+	 * @return the number of queries.
+	 */
+	public long getQueries(){
+		return queries;
+	}//end of getQueries method
+
+	/**
+	 * Returns the number of rays fired since the last reset.
+	 *
+	 * @return the number of rays.
+	 */
+	public long getRays(){
+		return rays;
+	}//end of getRays method
+
+	/**
+	 * Returns the average number of rays fired per query since the
+	 * last reset.
+	 *
+	 * @return the average rays per query, 0 if no queries were answered.
+	 */
+	public double getAverageRaysPerQuery(){
+		double returnValue = 0;
+		if(queries > 0){
+			returnValue = (double)rays / queries;
+		}
+		return returnValue;
+	}//end of getAverageRaysPerQuery method
+
+	//SETTERS
+	/**
+	 * Sets the half-width of the confidence interval, as a fraction of
+	 * full visibility, at which sampling stops.
+	 *
+	 * @param tolerance the tolerance.
+	 */
+	public void setTolerance(float tolerance){
+		this.tolerance = tolerance;
+	}//end of setTolerance method
+
+	/**
+	 * Sets the number of rays fired per batch.
+	 *
+	 * @param batchSize the batch size, at least 1.
+	 */
+	public void setBatchSize(int batchSize){
+		this.batchSize = Math.max(1, batchSize);
+	}//end of setBatchSize method
+
+	/**
+	 * Sets the maximum number of rays per query.
+	 *
+	 * @param maxRays the maximum number of rays, at least 1.
+	 */
+	public void setMaxRays(int maxRays){
+		this.maxRays = Math.max(1, maxRays);
+	}//end of setMaxRays method
+
+	/**
+	 * Sets the scale of the sample disc relative to the target's bounds.
+	 *
+	 * @param apertureScale the aperture scale.
+	 */
+	public void setApertureScale(float apertureScale){
+		this.apertureScale = apertureScale;
+	}//end of setApertureScale method
+
+	//OPERATIONS
+	/**
+	 * Returns a value (0-100) representing the visibility of the target
+	 * from the viewer. A value of 0 is fully obstructed, while a value of
+	 * 100 is fully clear.
+	 *
+	 * @param viewer the viewing entity.
+	 * @param target the entity being viewed.
+	 * @param scenario the scenario containing the entities.
+	 * @return the visibility value.
+	 */
+	public int visibility(Entity viewer, Entity target, Scenario scenario){
+		Vector3f eye = viewer.getObj().getWorldTranslation();
+		Vector3f center = target.getObj().getWorldTranslation();
+		center.subtract(eye, view);
+		float aperture = boundRadius(target.getObj().getWorldBound()) * apertureScale;
+		if(view.lengthSquared() > 0){
+			view.normalizeLocal();
+			//any vector not parallel to the view direction gives a basis for the disc
+			if(Math.abs(view.x) < 0.9f){
+				axisU.set(1, 0, 0);
+			}
+			else{
+				axisU.set(0, 1, 0);
+			}
+			view.cross(axisU, axisV).normalizeLocal();
+			axisV.cross(view, axisU).normalizeLocal();
+		}
+		else{
+			aperture = 0;
+		}
+		int hits = 0;
+		int fired = 0;
+		boolean done = false;
+		while(!done){
+			int batchEnd = Math.min(fired + batchSize, maxRays);
+			for(; fired<batchEnd; fired++){
+				float radius = aperture * FastMath.sqrt(radicalInverse(fired));
+				float u = radius * FastMath.cos(fired * GOLDEN_ANGLE);
+				float v = radius * FastMath.sin(fired * GOLDEN_ANGLE);
+				point.set(center.x + axisU.x * u + axisV.x * v, 
+						center.y + axisU.y * u + axisV.y * v, 
+						center.z + axisU.z * u + axisV.z * v);
+				if(isClear(eye, point, viewer, target, scenario)){
+					hits++;
+				}
+			}
+			done = fired >= maxRays || halfWidth(hits, fired) <= tolerance;
+		}
+		queries++;
+		rays += fired;
+		return Math.round(hits * 100f / fired);
+	}//end of visibility method
+
+	/**
+	 * Clears the rays per query metric.
+	 */
+	public void resetMetrics(){
+		queries = 0;
+		rays = 0;
+	}//end of resetMetrics method
+
+	/**
+	 * Returns whether or not the line from the eye to the specified point
+	 * reaches the target, or the point, before hitting any other entity.
+	 *
+	 * @param eye the ray origin.
+	 * @param to the sample point.
+	 * @param viewer the viewing entity, whose own geometry is ignored.
+	 * @param target the entity being viewed.
+	 * @param scenario the scenario containing the entities.
+	 * @return true if the line is clear, false otherwise.
+	 */
+	private boolean isClear(Vector3f eye, Vector3f to, Entity viewer, Entity target, Scenario scenario){
+		boolean returnValue = true;
+		to.subtract(eye, ray.getDirection());
+		float length = ray.getDirection().length();
+		if(length > 0){
+			ray.getDirection().divideLocal(length);
+			ray.getOrigin().set(eye);
+			ray.setLimit(length);
+			results.clear();
+			scenario.getEntityNode().collideWith(ray, results);
+			float closestDistance = Float.POSITIVE_INFINITY;
+			Entity closest = null;
+			for(int i=0; i<results.size(); i++){
+				CollisionResult collision = results.getCollision(i);
+				if(collision.getDistance() < closestDistance && collision.getDistance() <= length){
+					Entity hit = scenario.getEntity(collision.getGeometry());
+					if(hit != null && !hit.equals(viewer)){
+						closestDistance = collision.getDistance();
+						closest = hit;
+					}
+				}
+			}
+			returnValue = closest == null || closest.equals(target);
+		}
+		return returnValue;
+	}//end of isClear method
+
+	/**
+	 * Returns the half-width of the Wilson score interval for the
+	 * specified number of successes.
+	 *
+	 * @param hits the number of clear rays.
+	 * @param n the number of rays fired.
+	 * @return the half-width, as a fraction.
+	 */
+	private float halfWidth(int hits, int n){
+		float p = (float)hits / n;
+		float z2 = Z * Z;
+		return Z / (1 + z2 / n) * FastMath.sqrt(p * (1 - p) / n + z2 / (4f * n * n));
+	}//end of halfWidth method
+
+	/**
+	 * Returns the base 2 radical inverse (van der Corput sequence) of the
+	 * specified index, which is its binary digits mirrored about the point.
+	 *
+	 * @param index the sample index.
+	 * @return the radical inverse, from 0 (inclusive) to 1 (exclusive).
+	 */
+	private float radicalInverse(int index){
+		return (float)((Integer.reverse(index) & 0xffffffffL) / 4294967296.0);
+	}//end of radicalInverse method
+
+	/**
+	 * Returns the radius of the largest disc that fits within the specified
+	 * bound, whichever way the disc faces.
+	 *
+	 * @param bound the bound.
+	 * @return the radius, 0 if the bound is unknown.
+	 */
+	private float boundRadius(BoundingVolume bound){
+		float returnValue = 0;
+		if(bound instanceof BoundingSphere){
+			returnValue = ((BoundingSphere)bound).getRadius();
+		}
+		else if(bound instanceof BoundingBox){
+			BoundingBox box = (BoundingBox)bound;
+			returnValue = Math.min(box.getXExtent(), Math.min(box.getYExtent(), box.getZExtent()));
+		}
+		return returnValue;
+	}//end of boundRadius method
+
+	//---------------------static main---------------------------------
+	//---------------------static methods------------------------------
+}//end of VisibilitySampler class
@@ -0,0 +1,132 @@
+package thinktank.simulator.util;
+
+/**
+ * Accumulates the error between visibility values (0-100) estimated by a
+ * fast method and those of a reference method, for comparing the two.
+ *
+ * @author Vasher Lor
+ * @version %I%, %G%
+ */
+public class VisibilityStats{
+	//---------------------static constants----------------------------
+	/**
+	 * Constant value for the visibility above which an entity is considered
+	 * visible when counting disagreements.
+	 */
+	private static final int VISIBLE_THRESHOLD = 50;
+
+	//---------------------static variables----------------------------
+	//---------------------instance constants--------------------------
+	//---------------------instance variables--------------------------
+	/**
+	 * The number of samples recorded.
+	 */
+	private long samples;
+	/**
+	 * The sum of the absolute errors of all samples.
+	 */
+	private long errorSum;
+	/**
+	 * The largest absolute error of any sample.
+	 */
+	private int maxError;
+	/**
+	 * The number of samples for which the two methods disagree on whether
+	 * the entity is visible.
+	 */
+	private long disagreements;
+
+	//---------------------constructors--------------------------------
+	/**
+	 * Constructs a new, empty set of statistics.
+	 */
+	public VisibilityStats(){
+		reset();
+	}//end of constructor
+
+	//---------------------instance methods----------------------------
+	//GETTERS
+	/**
+	 * Returns the number of samples recorded.
+	 *
+	 * @return the number of samples.
+	 */
+	public synchronized long getSamples(){
+		return samples;
+	}//end of getSamples method
+
+	/**
+	 * Returns the mean absolute error of the recorded samples.
+	 *
+	 * @return the mean absolute error, 0 if no samples are recorded.
+	 */
+	public synchronized double getMeanError(){
+		double returnValue = 0;
+		if(samples > 0){
+			returnValue = (double)errorSum / samples;
+		}
+		return returnValue;
+	}//end of getMeanError method
+
+	/**
+	 * Returns the largest absolute error of any recorded sample.
+	 *
+	 * @return the largest error.
+	 */
+	public synchronized int getMaxError(){
+		return maxError;
+	}//end of getMaxError method
+
+	/**
+	 * Returns the number of samples for which the two methods disagree on
+	 * whether the entity is visible.
+	 *
+	 * @return the number of disagreements.
+	 */
+	public synchronized long getDisagreements(){
+		return disagreements;
+	}//end of getDisagreements method
+
+	//OPERATIONS
+	/**
+	 * Records a sample.
+	 *
+	 * @param reference the visibility value from the reference method.
+	 * @param estimate the visibility value from the method being compared.
+	 */
+	public synchronized void record(int reference, int estimate){
+		int error = Math.abs(reference - estimate);
+		samples++;
+		errorSum += error;
+		if(error > maxError){
+			maxError = error;
+		}
+		if((reference > VISIBLE_THRESHOLD) != (estimate > VISIBLE_THRESHOLD)){
+			disagreements++;
+		}
+	}//end of record method
+
+	/**
+	 * Clears all recorded samples.
+	 */
+	public synchronized void reset(){
+		samples = 0;
+		errorSum = 0;
+		maxError = 0;
+		disagreements = 0;
+	}//end of reset method
+
+	/**
+	 * Returns a summary of the statistics.
+	 *
+	 * @return the summary.
+	 */
+	@Override
+	public synchronized String toString(){
+		return "samples=" + samples + ", meanError=" + getMeanError() +
+				", maxError=" + maxError + ", disagreements=" + disagreements;
+	}//end of toString method
+
+	//---------------------static main---------------------------------
+	//---------------------static methods------------------------------
+}//end of VisibilityStats class